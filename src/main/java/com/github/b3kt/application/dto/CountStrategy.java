@@ -0,0 +1,28 @@
+package com.github.b3kt.application.dto;
+
+import java.util.Locale;
+
+/**
+ * How a paginated list determines {@link PageResponse#getRowsNumber()}.
+ */
+public enum CountStrategy {
+    /** {@code count(*)} over the filtered rows on every request. */
+    EXACT,
+    /** Exact count, reused for a few seconds per entity and filter. */
+    CACHED,
+    /** Planner row estimate from {@code pg_class}; unfiltered lists only, otherwise {@link #CACHED}. */
+    ESTIMATE,
+    /** No count; fetches one extra row to report {@link PageResponse#getHasNext()}. */
+    HAS_NEXT;
+
+    public static CountStrategy parse(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        try {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown count strategy: " + value);
+        }
+    }
+}
@@ -125,6 +125,34 @@ public class PageRequest {
         return (page - 1) * rowsPerPage;
     }
 
+    private String after;
+
+    /**
+     * Opaque keyset cursor from {@link PageResponse#getNextCursor()}. An empty value asks for
+     * the first page in keyset mode; {@code null} keeps offset paging.
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public boolean isKeyset() {
+        return after != null;
+    }
+
+    private CountStrategy countStrategy = CountStrategy.EXACT;
+
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy == null ? CountStrategy.EXACT : countStrategy;
+    }
+
     private Long supplierId;
 
     public Long getSupplierId() {
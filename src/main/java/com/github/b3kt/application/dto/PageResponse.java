@@ -12,6 +12,9 @@ public class PageResponse<T> {
     private int page;
     private int rowsPerPage;
     private long rowsNumber;
+    private String nextCursor;
+    private Boolean hasNext;
+    private CountStrategy countStrategy = CountStrategy.EXACT;
 
     public PageResponse() {
     }
@@ -54,4 +57,36 @@ public class PageResponse<T> {
     public void setRowsNumber(long rowsNumber) {
         this.rowsNumber = rowsNumber;
     }
+
+    /**
+     * Keyset mode only: token for the {@code after} parameter of the next page, {@code null} on
+     * the last page. {@code rowsNumber} is not counted in keyset mode and is {@code -1}.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Boolean getHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(Boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Strategy actually used for {@code rowsNumber}; may differ from the requested one,
+     * e.g. an estimate falls back to a cached count for filtered lists.
+     */
+    public CountStrategy getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(CountStrategy countStrategy) {
+        this.countStrategy = countStrategy;
+    }
 }
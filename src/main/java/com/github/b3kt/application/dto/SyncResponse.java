@@ -0,0 +1,18 @@
+package com.github.b3kt.application.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+/**
+ * The rows of a table changed since a client's watermark.
+ *
+ * @param rows      rows created or updated since the watermark, in change order
+ * @param deleted   ids of rows deleted since the watermark; empty on a full sync
+ * @param watermark to pass as {@code since} on the next sync
+ * @param full      {@code true} when no watermark was given and {@code rows} is the table
+ * @param hasMore   {@code true} when the response was cut at the row limit; sync again at once
+ */
+@RegisterForReflection
+public record SyncResponse<T>(List<T> rows, List<Long> deleted, String watermark, boolean full, boolean hasMore) {
+}
@@ -1,11 +1,13 @@
 package com.github.b3kt.application.dto.pazaauto;
 
+import io.quarkus.qute.TemplateData;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.util.List;
 
 @Data
+@TemplateData
 @RegisterForReflection
 public class PenjualanPrintDto {
     private String noPenjualan;
@@ -38,6 +40,7 @@ public class PenjualanPrintDto {
     private BigDecimal kembalian;
 
     @Data
+    @TemplateData
     @RegisterForReflection
     public static class ItemDto {
         private String nama;
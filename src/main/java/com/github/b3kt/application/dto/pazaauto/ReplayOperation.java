@@ -0,0 +1,30 @@
+package com.github.b3kt.application.dto.pazaauto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * A write queued by a client while it was offline.
+ *
+ * @param ref     the client's key for the operation, echoed on its result
+ * @param target  the table written
+ * @param action  what is done to the row
+ * @param id      the row written by an update or delete: the SPK or pembelian id, or the
+ *                no penjualan
+ * @param version the row version the client last saw; the write is refused when the row has
+ *                changed since. Without it the write is applied as is
+ * @param payload the body the matching REST call takes: an SPK, a penjualan, or a pembelian
+ *                with its details
+ */
+@RegisterForReflection
+public record ReplayOperation(String ref, Target target, Action action, String id, Integer version,
+                              JsonNode payload) {
+
+    public enum Target {
+        SPK, PENJUALAN, PEMBELIAN
+    }
+
+    public enum Action {
+        CREATE, UPDATE, DELETE
+    }
+}
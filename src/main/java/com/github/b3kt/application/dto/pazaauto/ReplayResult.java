@@ -0,0 +1,19 @@
+package com.github.b3kt.application.dto.pazaauto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * The outcome of one replayed operation.
+ *
+ * @param ref     the operation's {@code ref}
+ * @param status  whether the write was applied
+ * @param data    the row as written, or the current row on a conflict
+ * @param message why the write was not applied
+ */
+@RegisterForReflection
+public record ReplayResult(String ref, Status status, Object data, String message) {
+
+    public enum Status {
+        APPLIED, CONFLICT, NOT_FOUND, FAILED
+    }
+}
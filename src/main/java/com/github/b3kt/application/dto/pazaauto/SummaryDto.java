@@ -12,6 +12,8 @@ import java.util.List;
 public class SummaryDto {
 
     private long totalCustomers;
+    private long uniqueCustomers;
+    private boolean uniqueCustomersEstimated;
     private BigDecimal totalIncome = BigDecimal.ZERO;
     private BigDecimal totalOutcome = BigDecimal.ZERO;
     private BigDecimal netProfit = BigDecimal.ZERO;
@@ -90,6 +92,7 @@ public class SummaryDto {
         private Long mekanikId;
         private String namaMekanik;
         private long totalCustomers;
+        private long uniqueCustomers;
         private long totalHari;
         private double rataPerHari;
     }
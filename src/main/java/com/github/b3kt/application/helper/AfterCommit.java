@@ -0,0 +1,43 @@
+package com.github.b3kt.application.helper;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Defers work to the end of the current JTA transaction.
+ * <p>
+ * Caches and in-memory views must not show what a transaction wrote before it commits, nor
+ * keep it once it rolls back; their owners hand both outcomes to {@link #run}.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs {@code onCommit} when the current transaction commits and {@code onRollback}, if
+     * not null, when it ends any other way. Without a transaction {@code onCommit} runs at
+     * once.
+     */
+    public static void run(TransactionSynchronizationRegistry registry, Runnable onCommit, Runnable onRollback) {
+        if (registry.getTransactionKey() == null) {
+            onCommit.run();
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    onCommit.run();
+                } else if (onRollback != null) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+}
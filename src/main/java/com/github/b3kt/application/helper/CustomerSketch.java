@@ -0,0 +1,52 @@
+package com.github.b3kt.application.helper;
+
+/**
+ * Reads the HyperLogLog sketches built by {@code fn_hll_sketch} (see V16).
+ * <p>
+ * A sketch is {@value #REGISTERS} one-byte registers; the union of two sketches is the
+ * register-wise maximum, so the sketches of any set of days can be folded into one and
+ * estimated without touching the underlying sales. The standard error is about 3%.
+ */
+public final class CustomerSketch {
+
+    public static final int REGISTERS = 1024;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Folds another sketch into this one. {@code null} (a day without sales) is ignored.
+     */
+    public CustomerSketch union(byte[] other) {
+        if (other == null) {
+            return this;
+        }
+        if (other.length != REGISTERS) {
+            throw new IllegalArgumentException("Sketch must have " + REGISTERS + " registers, got " + other.length);
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other[i] > registers[i]) {
+                registers[i] = other[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        // Linear counting is far more accurate while many registers are still empty
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.b3kt.application.helper;
+
+import io.quarkus.qute.TemplateExtension;
+
+/**
+ * ESC/POS control sequences for the receipt templates, e.g. {@code {escpos:boldOn}}.
+ * Only commands understood by every common 80 mm printer are used.
+ */
+@TemplateExtension(namespace = "escpos")
+public final class EscPos {
+
+    private static final char ESC = 0x1B;
+    private static final char GS = 0x1D;
+
+    private EscPos() {
+    }
+
+    public static String init() {
+        return ESC + "@";
+    }
+
+    public static String boldOn() {
+        return ESC + "E" + (char) 1;
+    }
+
+    public static String boldOff() {
+        return ESC + "E" + (char) 0;
+    }
+
+    public static String center() {
+        return ESC + "a" + (char) 1;
+    }
+
+    public static String left() {
+        return ESC + "a" + (char) 0;
+    }
+
+    /** Feeds three lines and makes a partial cut. */
+    public static String cut() {
+        return GS + "V" + (char) 66 + (char) 3;
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.b3kt.application.helper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes report rows as CSV or NDJSON one at a time, so an export never holds more than
+ * one buffer of output in memory. The buffer is handed to the response (and sent as a
+ * chunk) whenever it fills up.
+ */
+public abstract class ExportWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return CSV;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + ". Expected csv or ndjson");
+            }
+        }
+    }
+
+    protected final Writer out;
+    protected final String[] columns;
+
+    protected ExportWriter(OutputStream output, String[] columns) {
+        this.out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.columns = columns;
+    }
+
+    public static ExportWriter open(Format format, OutputStream output, String[] columns) throws IOException {
+        ExportWriter writer = format == Format.NDJSON
+                ? new NdjsonWriter(output, columns)
+                : new CsvWriter(output, columns);
+        writer.start();
+        return writer;
+    }
+
+    protected void start() throws IOException {
+    }
+
+    public abstract void write(Object[] row) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    protected static String text(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value.toString();
+    }
+
+    private static final class CsvWriter extends ExportWriter {
+
+        private CsvWriter(OutputStream output, String[] columns) {
+            super(output, columns);
+        }
+
+        @Override
+        protected void start() throws IOException {
+            write(columns);
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (row[i] != null) {
+                    out.write(escape(text(row[i])));
+                }
+            }
+            out.write("\r\n");
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class NdjsonWriter extends ExportWriter {
+
+        private NdjsonWriter(OutputStream output, String[] columns) {
+            super(output, columns);
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            out.write('{');
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write('"');
+                out.write(columns[i]);
+                out.write("\":");
+                Object value = row[i];
+                if (value == null) {
+                    out.write("null");
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    out.write(text(value));
+                } else {
+                    out.write('"');
+                    escape(text(value));
+                    out.write('"');
+                }
+            }
+            out.write("}\n");
+        }
+
+        private void escape(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"' -> out.write("\\\"");
+                    case '\\' -> out.write("\\\\");
+                    case '\n' -> out.write("\\n");
+                    case '\r' -> out.write("\\r");
+                    case '\t' -> out.write("\\t");
+                    default -> {
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.github.b3kt.application.helper;
+
+import com.github.b3kt.application.dto.CountStrategy;
+import com.github.b3kt.application.dto.PageRequest;
+import com.github.b3kt.application.dto.PageResponse;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination for the paginated list endpoints.
+ * <p>
+ * Instead of {@code OFFSET}, the next page continues after the last row of the previous
+ * one: {@code WHERE (sortBy, id) > (?, ?) ORDER BY sortBy, id LIMIT n}, so late pages
+ * cost the same as the first. The position is handed to the client as an opaque
+ * {@code after} token (see {@link PageResponse#getNextCursor()}) holding the sort column,
+ * direction, and the sort value and id of the last row. Rows with an empty sort value
+ * follow PostgreSQL's default order: last when ascending, first when descending.
+ */
+public final class KeysetPage {
+
+    private static final String ID = "id";
+
+    private final String sortBy;
+    private final boolean descending;
+    private final int rowsPerPage;
+    private final boolean first;
+    private final Object lastKey;
+    private final Object lastId;
+
+    private KeysetPage(String sortBy, boolean descending, int rowsPerPage, boolean first, Object lastKey,
+                       Object lastId) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.rowsPerPage = rowsPerPage;
+        this.first = first;
+        this.lastKey = lastKey;
+        this.lastId = lastId;
+    }
+
+    public static KeysetPage of(PageRequest pageRequest) {
+        return of(pageRequest, ID);
+    }
+
+    /**
+     * @param defaultSortBy sort column used when the request does not name one
+     */
+    public static KeysetPage of(PageRequest pageRequest, String defaultSortBy) {
+        String sortBy = pageRequest.getSortBy() == null || pageRequest.getSortBy().isBlank()
+                ? defaultSortBy : pageRequest.getSortBy();
+        if (!sortBy.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid sort field: " + sortBy);
+        }
+        if (pageRequest.getAfter() == null || pageRequest.getAfter().isBlank()) {
+            return new KeysetPage(sortBy, pageRequest.isDescending(), pageRequest.getRowsPerPage(), true, null, null);
+        }
+
+        Object[] cursor = decode(pageRequest.getAfter());
+        if (!sortBy.equals(cursor[0]) || pageRequest.isDescending() != (Boolean) cursor[1]) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+        return new KeysetPage(sortBy, pageRequest.isDescending(), pageRequest.getRowsPerPage(), false,
+                cursor[2], cursor[3]);
+    }
+
+    /**
+     * Lists one page with positional parameters; {@code where} must not contain a bare top-level {@code or}.
+     */
+    public <T> PageResponse<T> list(PanacheRepositoryBase<T, ?> repository, String where, Object... params) {
+        String clause = "";
+        Object[] bound = params;
+        if (!first) {
+            int next = params.length + 1;
+            if (seeksByKey()) {
+                clause = seekClause("?" + next, "?" + (next + 1));
+                bound = Arrays.copyOf(params, params.length + 2);
+                bound[params.length] = lastKey;
+                bound[params.length + 1] = lastId;
+            } else {
+                clause = seekClause(null, "?" + next);
+                bound = Arrays.copyOf(params, params.length + 1);
+                bound[params.length] = lastId;
+            }
+        }
+
+        List<T> rows = repository.find(where + clause, sort(), bound)
+                .range(0, rowsPerPage)
+                .list();
+        return toResponse(rows);
+    }
+
+    /**
+     * Lists one page with named parameters ({@code keysetKey} and {@code keysetId} are reserved).
+     */
+    public <T> PageResponse<T> list(PanacheRepositoryBase<T, ?> repository, String where, Parameters params) {
+        String clause = "";
+        if (!first) {
+            clause = seekClause(":keysetKey", ":keysetId");
+            if (seeksByKey()) {
+                params.and("keysetKey", lastKey);
+            }
+            params.and("keysetId", lastId);
+        }
+
+        List<T> rows = repository.find(where + clause, sort(), params)
+                .range(0, rowsPerPage)
+                .list();
+        return toResponse(rows);
+    }
+
+    private boolean seeksByKey() {
+        return !sortBy.equals(ID) && lastKey != null;
+    }
+
+    private String seekClause(String keyParam, String idParam) {
+        String op = descending ? "<" : ">";
+        if (sortBy.equals(ID)) {
+            return " and id " + op + " " + idParam;
+        }
+        if (lastKey == null) {
+            return descending
+                    ? " and ((" + sortBy + " is null and id < " + idParam + ") or " + sortBy + " is not null)"
+                    : " and (" + sortBy + " is null and id > " + idParam + ")";
+        }
+        String seek = "(" + sortBy + ", id) " + op + " (" + keyParam + ", " + idParam + ")";
+        return descending
+                ? " and " + seek
+                : " and (" + seek + " or " + sortBy + " is null)";
+    }
+
+    private Sort sort() {
+        Sort.Direction direction = descending ? Sort.Direction.Descending : Sort.Direction.Ascending;
+        Sort sort = Sort.by(sortBy, direction);
+        return sortBy.equals(ID) ? sort : sort.and(ID, direction);
+    }
+
+    // One row more than requested tells whether another page exists
+    private <T> PageResponse<T> toResponse(List<T> rows) {
+        String nextCursor = null;
+        List<T> page = rows;
+        if (rows.size() > rowsPerPage) {
+            page = rows.subList(0, rowsPerPage);
+            T last = page.get(page.size() - 1);
+            nextCursor = encode(read(last, sortBy), read(last, ID));
+        }
+        PageResponse<T> response = new PageResponse<>(page, 1, rowsPerPage, -1);
+        response.setNextCursor(nextCursor);
+        response.setHasNext(nextCursor != null);
+        response.setCountStrategy(CountStrategy.HAS_NEXT);
+        return response;
+    }
+
+    String encode(Object key, Object id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(sortBy);
+            out.writeBoolean(descending);
+            writeValue(out, key);
+            writeValue(out, id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private static Object[] decode(String token) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            return new Object[]{in.readUTF(), in.readBoolean(), readValue(in), readValue(in)};
+        } catch (IOException | IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    private static Object read(Object row, String property) {
+        for (Class<?> type = row.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(property);
+                field.setAccessible(true);
+                return field.get(row);
+            } catch (NoSuchFieldException e) {
+                // declared on a superclass, e.g. BaseEntity.id
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read " + property, e);
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort field: " + property);
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte('N');
+            case String s -> {
+                out.writeByte('S');
+                out.writeUTF(s);
+            }
+            case Long l -> {
+                out.writeByte('L');
+                out.writeLong(l);
+            }
+            case Integer i -> {
+                out.writeByte('I');
+                out.writeInt(i);
+            }
+            case Boolean b -> {
+                out.writeByte('B');
+                out.writeBoolean(b);
+            }
+            case BigDecimal d -> {
+                out.writeByte('D');
+                out.writeUTF(d.toString());
+            }
+            case LocalDateTime t -> {
+                out.writeByte('T');
+                out.writeUTF(t.toString());
+            }
+            case LocalDate d -> {
+                out.writeByte('A');
+                out.writeUTF(d.toString());
+            }
+            case java.util.Date d -> {
+                out.writeByte('U');
+                out.writeLong(d.getTime());
+            }
+            default -> throw new IllegalArgumentException(
+                    "Cannot page by a " + value.getClass().getSimpleName() + " column");
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case 'N' -> null;
+            case 'S' -> in.readUTF();
+            case 'L' -> in.readLong();
+            case 'I' -> in.readInt();
+            case 'B' -> in.readBoolean();
+            case 'D' -> new BigDecimal(in.readUTF());
+            case 'T' -> LocalDateTime.parse(in.readUTF());
+            case 'A' -> LocalDate.parse(in.readUTF());
+            case 'U' -> new java.util.Date(in.readLong());
+            default -> throw new IOException("Unknown cursor value type " + type);
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.b3kt.application.helper;
+
+import io.quarkus.qute.TemplateExtension;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Number formatting and receipt layout for the print templates, available as
+ * {@code {print:currency(value)}} and friends. Numbers follow the id-ID format of the
+ * web client ({@code 1.234.567}); {@code null} prints as zero.
+ */
+@TemplateExtension(namespace = "print")
+public final class PrintFormat {
+
+    /** Characters per line of an 80 mm receipt printer in font A. */
+    public static final int RECEIPT_WIDTH = 48;
+
+    private PrintFormat() {
+    }
+
+    public static String number(BigDecimal value) {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+        symbols.setGroupingSeparator('.');
+        symbols.setDecimalSeparator(',');
+        return new DecimalFormat("#,##0.##", symbols).format(value != null ? value : BigDecimal.ZERO);
+    }
+
+    public static String currency(BigDecimal value) {
+        return "Rp " + number(value);
+    }
+
+    /**
+     * One receipt line with {@code left} at the start and {@code right} at the end; a
+     * {@code left} too long for the line is cut.
+     */
+    public static String columns(String left, String right) {
+        String l = left != null ? left : "";
+        String r = right != null ? right : "";
+        int room = RECEIPT_WIDTH - r.length() - 1;
+        if (l.length() > room) {
+            l = l.substring(0, Math.max(room, 0));
+        }
+        return l + " ".repeat(Math.max(RECEIPT_WIDTH - l.length() - r.length(), 1)) + r;
+    }
+
+    /**
+     * {@code "  2 x 45.000                          90.000"}
+     */
+    public static String item(Integer qty, BigDecimal harga, BigDecimal subTotal) {
+        return columns("  " + (qty != null ? qty : 0) + " x " + number(harga), number(subTotal));
+    }
+
+    public static String total(String label, BigDecimal value) {
+        return columns(label, currency(value));
+    }
+
+    public static String rule() {
+        return "-".repeat(RECEIPT_WIDTH);
+    }
+}
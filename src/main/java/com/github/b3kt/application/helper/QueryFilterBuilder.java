@@ -2,11 +2,17 @@ package com.github.b3kt.application.helper;
 
 import com.github.b3kt.application.dto.PageRequest;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
 public class QueryFilterBuilder {
+
+    private static final String[] SPK_SEARCH_FIELDS = {"noSpk", "nopol", "namaKaryawan", "namaPelanggan"};
     
     private StringBuilder queryString;
     private Object[] params;
     private int paramIndex;
+    private String relevanceOrder = "";
 
     public QueryFilterBuilder() {
         this.queryString = new StringBuilder("1=1");
@@ -14,32 +20,18 @@ public class QueryFilterBuilder {
         this.paramIndex = 1;
     }
 
-    public QueryFilterBuilder withSearch(String searchField, String... additionalFields) {
-        if (searchField != null && !searchField.isEmpty()) {
-            String searchPattern = "%" + searchField.toLowerCase() + "%";
-            StringBuilder searchClause = new StringBuilder(" and (lower(");
-            searchClause.append(additionalFields[0]).append(") like ?").append(paramIndex);
-            for (int i = 1; i < additionalFields.length; i++) {
-                searchClause.append(" or lower(").append(additionalFields[i]).append(") like ?").append(paramIndex);
-            }
-            searchClause.append(")");
-            
-            addParam(searchPattern);
+    public QueryFilterBuilder withSearch(String search, String... fields) {
+        if (SearchTerm.isPresent(search)) {
+            String param = "?" + paramIndex;
+            queryString.append(" and ").append(SearchTerm.matchClause(param, fields));
+            relevanceOrder = SearchTerm.relevanceOrder(param, fields);
+            addParam(SearchTerm.pattern(search));
         }
         return this;
     }
 
     public QueryFilterBuilder withSearch(String search) {
-        if (search != null && !search.isEmpty()) {
-            String searchPattern = "%" + search.toLowerCase() + "%";
-            queryString.append(" and (lower(noSpk) like ?").append(paramIndex)
-                    .append(" or lower(nopol) like ?").append(paramIndex)
-                    .append(" or lower(namaKaryawan) like ?").append(paramIndex)
-                    .append(" or lower(namaPelanggan) like ?").append(paramIndex)
-                    .append(")");
-            addParam(searchPattern);
-        }
-        return this;
+        return withSearch(search, SPK_SEARCH_FIELDS);
     }
 
     public QueryFilterBuilder withStatusFilter(String statusFilter, String fieldName) {
@@ -60,18 +52,31 @@ public class QueryFilterBuilder {
         return this;
     }
 
+    /**
+     * Restricts the timestamp {@code dateField} to the days {@code startDate} to {@code endDate}
+     * (yyyy-MM-dd, both inclusive) as a half-open range, [start of the first day, start of the
+     * day after the last), which an index on the column can serve.
+     */
     public QueryFilterBuilder withDateRange(String startDate, String endDate, String dateField) {
         if (startDate != null && !startDate.isEmpty()) {
             queryString.append(" and ").append(dateField).append(" >= ?").append(paramIndex);
-            addParam(startDate);
+            addParam(parseDate(startDate).atStartOfDay());
         }
         if (endDate != null && !endDate.isEmpty()) {
-            queryString.append(" and ").append(dateField).append(" <= ?").append(paramIndex);
-            addParam(endDate + " 23:59:59");
+            queryString.append(" and ").append(dateField).append(" < ?").append(paramIndex);
+            addParam(parseDate(endDate).plusDays(1).atStartOfDay());
         }
         return this;
     }
 
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+    }
+
     private void addParam(Object value) {
         Object[] newParams = new Object[params.length + 1];
         System.arraycopy(params, 0, newParams, 0, params.length);
@@ -88,6 +93,13 @@ public class QueryFilterBuilder {
         return params;
     }
 
+    /**
+     * Order by clause ranking the search matches, empty when no search was applied.
+     */
+    public String getRelevanceOrder() {
+        return relevanceOrder;
+    }
+
     public static QueryFilterBuilder create() {
         return new QueryFilterBuilder();
     }
@@ -0,0 +1,92 @@
+package com.github.b3kt.application.helper;
+
+import com.github.b3kt.application.dto.PageRequest;
+
+import java.util.Locale;
+
+/**
+ * Builds the {@code search} predicates of the list endpoints.
+ * <p>
+ * Searches stay substring matches ({@code lower(col) like '%term%'}); V17 adds a
+ * {@code pg_trgm} GIN index on {@code lower(col)} for every searched column, so PostgreSQL
+ * answers them with bitmap index scans instead of reading the whole table. Terms shorter
+ * than three characters have no trigrams and may still fall back to a scan.
+ * <p>
+ * Results can optionally be ranked with {@code sortBy=relevance}, which orders by
+ * {@code word_similarity} between the term and the searched columns.
+ */
+public final class SearchTerm {
+
+    public static final String RELEVANCE = "relevance";
+
+    private SearchTerm() {
+    }
+
+    public static boolean isPresent(String search) {
+        return search != null && !search.isBlank();
+    }
+
+    /**
+     * LIKE pattern for the term. The wildcards {@code %} and {@code _} typed by the user are
+     * matched literally (backslash is PostgreSQL's default LIKE escape).
+     */
+    public static String pattern(String search) {
+        String term = search.trim().toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + term + "%";
+    }
+
+    /**
+     * {@code (lower(a) like p or lower(b) like p ...)}; each field must have a V17 trigram index.
+     */
+    public static String matchClause(String param, String... fields) {
+        StringBuilder clause = new StringBuilder("(");
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                clause.append(" or ");
+            }
+            clause.append("lower(").append(fields[i]).append(") like ").append(param);
+        }
+        return clause.append(")").toString();
+    }
+
+    /**
+     * {@code order by} clause ranking the matches best first. It reuses the LIKE pattern
+     * parameter: pg_trgm ignores non-word characters, so {@code %term%} scores like {@code term}.
+     */
+    public static String relevanceOrder(String param, String... fields) {
+        StringBuilder text = new StringBuilder("concat(");
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                text.append(", ' ', ");
+            }
+            text.append("coalesce(").append(fields[i]).append(", '')");
+        }
+        text.append(")");
+        return " order by function('word_similarity', " + param + ", lower(" + text + ")) desc, id desc";
+    }
+
+    /**
+     * Whether the page should be ordered by relevance: a search is present and
+     * {@code sortBy=relevance}. Cursor paging cannot continue after a computed score.
+     */
+    public static boolean isRanked(PageRequest pageRequest) {
+        if (!isPresent(pageRequest.getSearch()) || !RELEVANCE.equalsIgnoreCase(pageRequest.getSortBy())) {
+            return false;
+        }
+        if (pageRequest.isKeyset()) {
+            throw new IllegalArgumentException("sortBy=relevance cannot be combined with cursor paging");
+        }
+        return true;
+    }
+
+    /**
+     * Column to sort by, or {@code null} when the request names none or asks for relevance.
+     */
+    public static String sortColumn(PageRequest pageRequest) {
+        String sortBy = pageRequest.getSortBy();
+        return sortBy == null || sortBy.isEmpty() || RELEVANCE.equalsIgnoreCase(sortBy) ? null : sortBy;
+    }
+}
@@ -2,11 +2,13 @@ package com.github.b3kt.application.service;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.helper.KeysetPage;
+import com.github.b3kt.application.helper.SearchTerm;
 import com.github.b3kt.infrastructure.persistence.entity.AuditTrailEntity;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.repository.AuditTrailRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -18,9 +20,14 @@ import java.util.List;
 @ApplicationScoped
 public class AuditTrailService {
 
+    private static final String[] SEARCH_FIELDS = {"tableName", "username", "action"};
+
     @Inject
     AuditTrailRepository repository;
 
+    @Inject
+    PageCounter pageCounter;
+
     @Transactional
     public void record(AuditTrailEntity auditTrail) {
         auditTrail.setTimestamp(LocalDateTime.now());
@@ -48,34 +55,40 @@ public List<AuditTrailEntity> findAll() {
     }
 
     public PageResponse<AuditTrailEntity> findPaginated(PageRequest pageRequest) {
-        String searchPattern = (pageRequest.getSearch() != null && !pageRequest.getSearch().isEmpty())
-                ? "%" + pageRequest.getSearch().toLowerCase() + "%"
+        String searchPattern = SearchTerm.isPresent(pageRequest.getSearch())
+                ? SearchTerm.pattern(pageRequest.getSearch())
                 : null;
+        String searchClause = SearchTerm.matchClause("?1", SEARCH_FIELDS);
+        boolean ranked = SearchTerm.isRanked(pageRequest);
+
+        if (pageRequest.isKeyset()) {
+            KeysetPage keyset = KeysetPage.of(pageRequest, "timestamp");
+            return searchPattern != null
+                    ? keyset.list(repository, searchClause, searchPattern)
+                    : keyset.list(repository, "1=1");
+        }
 
         Sort sort;
-        if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
+        String sortBy = SearchTerm.sortColumn(pageRequest);
+        if (sortBy != null) {
             sort = pageRequest.isDescending()
-                    ? Sort.by(pageRequest.getSortBy()).descending()
-                    : Sort.by(pageRequest.getSortBy()).ascending();
+                    ? Sort.by(sortBy).descending()
+                    : Sort.by(sortBy).ascending();
         } else {
             sort = Sort.by("timestamp").descending();
         }
 
         PanacheQuery<AuditTrailEntity> query;
-        if (searchPattern != null) {
-            query = repository.find(
-                    "lower(tableName) like ?1 or lower(username) like ?1 or lower(action) like ?1",
-                    sort,
-                    searchPattern);
+        if (ranked) {
+            query = repository.find(searchClause + SearchTerm.relevanceOrder("?1", SEARCH_FIELDS), searchPattern);
+        } else if (searchPattern != null) {
+            query = repository.find(searchClause, sort, searchPattern);
         } else {
             query = repository.findAll(sort);
         }
 
-        long totalCount = query.count();
-        List<AuditTrailEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, AuditTrailEntity.class,
+                searchPattern != null ? PageCounter.filter("search", searchPattern) : null);
     }
 
     public PanacheRepositoryBase<AuditTrailEntity, Long> getRepository() {
@@ -2,14 +2,19 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.dto.SyncResponse;
+import com.github.b3kt.application.helper.KeysetPage;
+import com.github.b3kt.infrastructure.persistence.ChangeFeed;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.ParameterizedType;
 import java.util.List;
 
 /**
@@ -21,6 +26,12 @@ import java.util.List;
 @Slf4j
 public abstract class AbstractCrudService<T, ID> {
 
+    @Inject
+    PageCounter pageCounter;
+
+    @Inject
+    ChangeFeed changeFeed;
+
     protected abstract PanacheRepositoryBase<T, ID> getRepository();
 
     protected abstract void setEntityId(T entity, ID id);
@@ -33,6 +44,10 @@ public abstract class AbstractCrudService<T, ID> {
     }
 
     public PageResponse<T> findPaginated(PageRequest pageRequest) {
+        if (pageRequest.isKeyset()) {
+            return KeysetPage.of(pageRequest).list(getRepository(), "1=1");
+        }
+
         PanacheQuery<T> query = getRepository().findAll();
 
         // Apply sorting if specified
@@ -43,13 +58,26 @@ public abstract class AbstractCrudService<T, ID> {
             query = getRepository().findAll(sort);
         }
 
-        // Get total count
-        long totalCount = query.count();
+        // Count according to the requested strategy and apply pagination
+        return pageCounter.page(query, pageRequest, getEntityClass(), null);
+    }
 
-        // Apply pagination
-        List<T> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage())).list();
+    /**
+     * The rows changed since the watermark {@code since}; all rows when it is empty.
+     */
+    public SyncResponse<T> sync(String since) {
+        return changeFeed.changes(getEntityClass(), since);
+    }
 
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+    @SuppressWarnings("unchecked")
+    protected Class<T> getEntityClass() {
+        for (Class<?> type = getClass(); type != null; type = type.getSuperclass()) {
+            if (type.getGenericSuperclass() instanceof ParameterizedType parameterized
+                    && parameterized.getRawType() == AbstractCrudService.class) {
+                return (Class<T>) parameterized.getActualTypeArguments()[0];
+            }
+        }
+        throw new IllegalStateException("Cannot resolve entity type of " + getClass().getName());
     }
 
     public T findById(ID id) {
@@ -74,11 +102,15 @@ public abstract class AbstractCrudService<T, ID> {
 
     @Transactional
     public void delete(ID id) {
+        boolean deleted;
         try {
-            boolean deleted = getRepository().deleteById(id);
+            deleted = getRepository().deleteById(id);
             log.debug("Entity deleted with id: {}: {}", id, deleted);
         } catch (Exception e) {
             throw new EntityNotFoundException("Entity not found with id: " + id);
         }
+        if (deleted) {
+            changeFeed.deleted(getEntityClass(), id);
+        }
     }
 }
@@ -0,0 +1,466 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.helper.AfterCommit;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbBarangEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbJasaEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSparepartEntity;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Type-ahead over the names and codes of jasa, barang and sparepart, and the nopol and name of
+ * pelanggan, held in memory so the SPK pickers can ask on every keystroke.
+ * <p>
+ * Each table is read once, as scalar rows, into an immutable index: the words of every row in
+ * sorted order for prefix lookups, and the trigrams of its name and code for infix and
+ * misspelled terms. Matches are ranked by how they matched (name prefix, code prefix, every
+ * word a prefix, substring, similar) and then by the shortest label, and only the best
+ * {@code limit} are kept. The CRUD services report every write; the rows written by one
+ * transaction are put into or taken out of the index together once it commits, with one
+ * rebuild of each table they touch and without reading the table again. Tables also expire
+ * after {@code app.autocomplete.max-age}, which bounds how long a write made on another
+ * instance stays unseen.
+ */
+@Slf4j
+@ApplicationScoped
+public class AutocompleteService {
+
+    public enum Type {
+        JASA, BARANG, SPAREPART, PELANGGAN
+    }
+
+    /**
+     * What a picker shows for one row. For pelanggan {@code label} is the nopol and
+     * {@code detail} the name; otherwise {@code label} is the name and {@code detail} the code.
+     */
+    @RegisterForReflection
+    public record Suggestion(Type type, Long id, String label, String detail, BigDecimal harga) {
+    }
+
+    /**
+     * A row and its search keys: the label and detail lowercased with spaces and punctuation
+     * removed.
+     */
+    private record Entry(Suggestion suggestion, String label, String detail) {
+
+        static Entry of(Suggestion suggestion) {
+            return new Entry(suggestion, compact(normalize(suggestion.label())),
+                    compact(normalize(suggestion.detail())));
+        }
+    }
+
+    private record Match(int rank, Entry entry) {
+    }
+
+    /**
+     * The order of equally good matches: the shorter label first, then alphabetically.
+     */
+    private static final Comparator<Entry> SHORTEST_FIRST = Comparator
+            .comparingInt((Entry entry) -> entry.label().length())
+            .thenComparing(Entry::label)
+            .thenComparing(entry -> entry.suggestion().id());
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.comparingInt(Match::rank)
+            .thenComparing(Match::entry, SHORTEST_FIRST);
+
+    private static final int LABEL_PREFIX = 0;
+    private static final int DETAIL_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    private static final int SIMILAR = 4;
+
+    /** What a word of the index is: the whole label or detail, or one of their words. */
+    private static final byte LABEL = 0;
+    private static final byte DETAIL = 1;
+    private static final byte WORD = 2;
+
+    private static final int[] NONE = new int[0];
+
+    /**
+     * The index of one table. Never changed once built; a write builds a new one.
+     * <p>
+     * Rows are numbered in {@link #SHORTEST_FIRST} order, so the best matches of a rank are
+     * the lowest numbers carrying it and no strings are compared while ranking.
+     */
+    private static final class Table {
+
+        final Map<Long, Entry> byId;
+        final Entry[] entries;
+        final String[] words;
+        final int[] wordEntries;
+        final byte[] wordKinds;
+        final Map<String, int[]> trigrams;
+        final long loadedAt;
+
+        Table(Map<Long, Entry> byId, long loadedAt) {
+            this.byId = byId;
+            this.loadedAt = loadedAt;
+            this.entries = byId.values().toArray(Entry[]::new);
+            Arrays.sort(entries, SHORTEST_FIRST);
+
+            record Word(String text, int entry, byte kind) {
+            }
+            List<Word> all = new ArrayList<>();
+            Map<String, List<Integer>> postings = new HashMap<>();
+            for (int i = 0; i < entries.length; i++) {
+                Suggestion suggestion = entries[i].suggestion();
+                // Empty keys, such as the detail of a jasa, are not indexed
+                Set<String> seen = new HashSet<>(Set.of(""));
+                if (seen.add(entries[i].label())) {
+                    all.add(new Word(entries[i].label(), i, LABEL));
+                }
+                if (seen.add(entries[i].detail())) {
+                    all.add(new Word(entries[i].detail(), i, DETAIL));
+                }
+                for (String text : List.of(normalize(suggestion.label()), normalize(suggestion.detail()))) {
+                    for (String word : text.split(" ")) {
+                        if (!word.isEmpty() && seen.add(word)) {
+                            all.add(new Word(word, i, WORD));
+                        }
+                    }
+                }
+                Set<String> grams = new HashSet<>(trigrams(entries[i].label()));
+                grams.addAll(trigrams(entries[i].detail()));
+                for (String gram : grams) {
+                    postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(i);
+                }
+            }
+            all.sort(Comparator.comparing(Word::text));
+            this.words = new String[all.size()];
+            this.wordEntries = new int[all.size()];
+            this.wordKinds = new byte[all.size()];
+            for (int i = 0; i < all.size(); i++) {
+                words[i] = all.get(i).text();
+                wordEntries[i] = all.get(i).entry();
+                wordKinds[i] = all.get(i).kind();
+            }
+            this.trigrams = new HashMap<>(postings.size() * 2);
+            postings.forEach((gram, list) -> trigrams.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        /**
+         * This table with the given rows put in, or taken out where their entry is null.
+         */
+        Table with(Map<Long, Entry> changes) {
+            Map<Long, Entry> copy = new HashMap<>(byId);
+            changes.forEach((id, entry) -> {
+                if (entry == null) {
+                    copy.remove(id);
+                } else {
+                    copy.put(id, entry);
+                }
+            });
+            return new Table(copy, loadedAt);
+        }
+
+        /**
+         * The best {@code limit} rows matching the term, best first; {@code terms} are its
+         * words and {@code term} is all of them run together.
+         */
+        List<Match> match(String[] terms, String term, int limit) {
+            // The rank of every row plus one; zero while it has not matched
+            byte[] ranks = new byte[entries.length];
+            int[] wordHits = new int[entries.length];
+
+            for (int t = 0; t < terms.length; t++) {
+                for (int w = lowerBound(terms[t]); w < words.length && words[w].startsWith(terms[t]); w++) {
+                    int e = wordEntries[w];
+                    // Every whole label or detail starting with the term starts with its first word
+                    if (t == 0 && wordKinds[w] != WORD && (terms.length == 1 || words[w].startsWith(term))) {
+                        rank(ranks, e, wordKinds[w] == LABEL ? LABEL_PREFIX : DETAIL_PREFIX);
+                    }
+                    // A row counts once per term, however many of its words the term starts
+                    if (wordHits[e] == t) {
+                        wordHits[e] = t + 1;
+                        if (t + 1 == terms.length) {
+                            rank(ranks, e, WORD_PREFIX);
+                        }
+                    }
+                }
+            }
+
+            List<String> grams = trigrams(term);
+            if (!grams.isEmpty()) {
+                // Two thirds of the trigrams in common is close enough for a typo
+                int similar = Math.max(1, (grams.size() * 2 + 2) / 3);
+                int[] gramHits = new int[entries.length];
+                for (String gram : grams) {
+                    for (int e : trigrams.getOrDefault(gram, NONE)) {
+                        int hits = ++gramHits[e];
+                        if (hits == similar) {
+                            rank(ranks, e, SIMILAR);
+                        }
+                        if (hits == grams.size()
+                                && (entries[e].label().contains(term) || entries[e].detail().contains(term))) {
+                            rank(ranks, e, SUBSTRING);
+                        }
+                    }
+                }
+            }
+
+            List<Match> found = new ArrayList<>(limit);
+            for (int rank = LABEL_PREFIX; rank <= SIMILAR && found.size() < limit; rank++) {
+                for (int e = 0; e < entries.length && found.size() < limit; e++) {
+                    if (ranks[e] == rank + 1) {
+                        found.add(new Match(rank, entries[e]));
+                    }
+                }
+            }
+            return found;
+        }
+
+        List<Match> first(int limit) {
+            return Arrays.stream(entries, 0, Math.min(limit, entries.length))
+                    .map(entry -> new Match(LABEL_PREFIX, entry))
+                    .toList();
+        }
+
+        private static void rank(byte[] ranks, int entry, int rank) {
+            if (ranks[entry] == 0 || ranks[entry] > rank + 1) {
+                ranks[entry] = (byte) (rank + 1);
+            }
+        }
+
+        private int lowerBound(String term) {
+            int low = 0;
+            int high = words.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (words[mid].compareTo(term) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /** Key of the rows written in the current transaction, among its registry resources. */
+    private static final Object PENDING = new Object();
+
+    private static final Map<Type, String> QUERIES = Map.of(
+            Type.JASA, "select j.id, j.namaJasa, j.hargaJasa from TbJasaEntity j",
+            Type.BARANG, "select b.id, b.namaBarang, b.kodeBarang, b.hargaJual from TbBarangEntity b",
+            Type.SPAREPART, "select s.id, s.namaSparepart, s.kodeSparepart, s.hargaJual from TbSparepartEntity s",
+            Type.PELANGGAN, "select p.id, p.nopol, p.namaPelanggan from TbPelangganEntity p");
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @ConfigProperty(name = "app.autocomplete.max-age", defaultValue = "5M")
+    Duration maxAge;
+
+    @ConfigProperty(name = "app.autocomplete.max-limit", defaultValue = "50")
+    int maxLimit;
+
+    private final Map<Type, Table> tables = new ConcurrentHashMap<>();
+    private final Map<Type, AtomicLong> generations = new EnumMap<>(Type.class);
+
+    public AutocompleteService() {
+        for (Type type : Type.values()) {
+            generations.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * The best {@code limit} rows of the given types matching {@code term}, best first. An
+     * empty term lists rows by label.
+     *
+     * @param types the tables to search; all of them when empty
+     */
+    public List<Suggestion> suggest(String term, Collection<Type> types, int limit) {
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        String normalized = normalize(term);
+        List<Match> matches = new ArrayList<>();
+        for (Type type : types == null || types.isEmpty() ? List.of(Type.values()) : types) {
+            Table table = table(type);
+            matches.addAll(normalized.isEmpty()
+                    ? table.first(size)
+                    : table.match(normalized.split(" "), compact(normalized), size));
+        }
+
+        matches.sort(BEST_FIRST);
+        return matches.stream().limit(size).map(match -> match.entry().suggestion()).toList();
+    }
+
+    public void changed(TbJasaEntity jasa) {
+        BigDecimal harga = jasa.getHargaJasa() != null ? BigDecimal.valueOf(jasa.getHargaJasa()) : null;
+        write(Type.JASA, jasa.getId(), new Suggestion(Type.JASA, jasa.getId(), jasa.getNamaJasa(), null, harga));
+    }
+
+    public void changed(TbBarangEntity barang) {
+        write(Type.BARANG, barang.getId(), new Suggestion(Type.BARANG, barang.getId(), barang.getNamaBarang(),
+                barang.getKodeBarang(), barang.getHargaJual()));
+    }
+
+    public void changed(TbSparepartEntity sparepart) {
+        write(Type.SPAREPART, sparepart.getId(), new Suggestion(Type.SPAREPART, sparepart.getId(),
+                sparepart.getNamaSparepart(), sparepart.getKodeSparepart(), sparepart.getHargaJual()));
+    }
+
+    public void changed(TbPelangganEntity pelanggan) {
+        write(Type.PELANGGAN, pelanggan.getId(), new Suggestion(Type.PELANGGAN, pelanggan.getId(),
+                pelanggan.getNopol(), pelanggan.getNamaPelanggan(), null));
+    }
+
+    public void removed(Type type, Long id) {
+        write(type, id, null);
+    }
+
+    /**
+     * Puts the row into the index, or takes it out when {@code suggestion} is {@code null},
+     * once the current transaction commits, together with the other rows it writes.
+     */
+    @SuppressWarnings("unchecked")
+    private void write(Type type, Long id, Suggestion suggestion) {
+        if (id == null) {
+            return;
+        }
+        Entry entry = suggestion != null ? Entry.of(suggestion) : null;
+        if (transactionRegistry.getTransactionKey() == null) {
+            Map<Long, Entry> change = new HashMap<>();
+            change.put(id, entry);
+            apply(Map.of(type, change));
+            return;
+        }
+        Map<Type, Map<Long, Entry>> pending = (Map<Type, Map<Long, Entry>>) transactionRegistry.getResource(PENDING);
+        if (pending == null) {
+            Map<Type, Map<Long, Entry>> written = new EnumMap<>(Type.class);
+            transactionRegistry.putResource(PENDING, written);
+            AfterCommit.run(transactionRegistry, () -> apply(written), null);
+            pending = written;
+        }
+        // The last write of a row wins
+        pending.computeIfAbsent(type, t -> new HashMap<>()).put(id, entry);
+    }
+
+    private void apply(Map<Type, Map<Long, Entry>> changes) {
+        changes.forEach((type, rows) -> {
+            generations.get(type).incrementAndGet();
+            // Built outside the map, so lookups are not held up while the table is rebuilt;
+            // a table replaced meanwhile is rebuilt again from the new one
+            for (Table current = tables.get(type); current != null; current = tables.get(type)) {
+                if (tables.replace(type, current, current.with(rows))) {
+                    break;
+                }
+            }
+        });
+    }
+
+    private Table table(Type type) {
+        Table table = tables.get(type);
+        if (table != null && !expired(table)) {
+            return table;
+        }
+
+        synchronized (generations.get(type)) {
+            table = tables.get(type);
+            if (table != null && !expired(table)) {
+                return table;
+            }
+            long generation = generations.get(type).get();
+            Map<Long, Entry> entries = new HashMap<>();
+            for (Suggestion suggestion : load(type)) {
+                entries.put(suggestion.id(), Entry.of(suggestion));
+            }
+            table = new Table(entries, System.nanoTime());
+            // A write committed while loading makes this copy stale; serve it once, do not keep it
+            if (generations.get(type).get() == generation) {
+                tables.put(type, table);
+            }
+            log.debug("Indexed {} {} rows for autocomplete", table.entries.length, type);
+            return table;
+        }
+    }
+
+    private boolean expired(Table table) {
+        return System.nanoTime() - table.loadedAt > maxAge.toNanos();
+    }
+
+    List<Suggestion> load(Type type) {
+        List<Object[]> rows = em.createQuery(QUERIES.get(type), Object[].class).getResultList();
+        List<Suggestion> suggestions = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = ((Number) row[0]).longValue();
+            suggestions.add(switch (type) {
+                case JASA -> new Suggestion(type, id, (String) row[1], null, asDecimal(row[2]));
+                case PELANGGAN -> new Suggestion(type, id, (String) row[1], (String) row[2], null);
+                default -> new Suggestion(type, id, (String) row[1], (String) row[2], asDecimal(row[3]));
+            });
+        }
+        return suggestions;
+    }
+
+    /**
+     * Lowercase, with every run of characters other than letters and digits turned into one
+     * space.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String compact(String normalized) {
+        return normalized.replace(" ", "");
+    }
+
+    private static List<String> trigrams(String compact) {
+        if (compact.length() < 3) {
+            return List.of();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= compact.length(); i++) {
+            grams.add(compact.substring(i, i + 3));
+        }
+        return List.copyOf(grams);
+    }
+
+    private static BigDecimal asDecimal(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof BigDecimal decimal ? decimal : BigDecimal.valueOf(((Number) value).longValue());
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocates document numbers (SPK, pembelian) from a counter row per document type and day.
+ * <p>
+ * A number is taken with a single {@code INSERT ... ON CONFLICT DO UPDATE ... RETURNING}
+ * on {@code tb_document_counter}: the first allocation of a day creates the row, later ones
+ * increment it under the row lock, so concurrent requests, on this instance or any other,
+ * never receive the same number. {@link #next} runs in the caller's transaction, which is
+ * the one that saves the document: a rollback returns the number, so numbers have no gaps,
+ * and the documents of one type are saved one at a time per day. Forms show
+ * {@link #preview}, which reads the counter without taking a number.
+ * <p>
+ * With {@code app.numbering.block-size} above 1 each instance reserves that many numbers at
+ * a time, in a transaction of its own, and hands them out from memory. That saves a round
+ * trip per document, but numbers are then no longer issued in creation order across
+ * instances and a number taken for a document that is rolled back leaves a gap.
+ */
+@Slf4j
+@ApplicationScoped
+public class DocumentNumberService {
+
+    private static final DateTimeFormatter DATE_PART = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String LAST_VALUE_SQL =
+            "SELECT last_value FROM tb_document_counter WHERE doc_type = ?1 AND tanggal = ?2";
+
+    private static final String ALLOCATE_SQL =
+            "INSERT INTO tb_document_counter (doc_type, tanggal, last_value, updated_at) " +
+            "VALUES (?1, ?2, ?3, now()) " +
+            "ON CONFLICT (doc_type, tanggal) DO UPDATE " +
+            "SET last_value = tb_document_counter.last_value + EXCLUDED.last_value, updated_at = now() " +
+            "RETURNING last_value";
+
+    /**
+     * A numbered document: {@code prefix + yyyyMMdd + sequence}, the sequence zero-padded
+     * to at least {@code width} digits.
+     */
+    public enum DocumentType {
+        SPK("", 2),
+        PEMBELIAN_SPAREPART("FS", 1),
+        PEMBELIAN_BARANG("FB", 1),
+        PEMBELIAN_OPERASIONAL("FO", 1);
+
+        private final String prefix;
+        private final int width;
+
+        DocumentType(String prefix, int width) {
+            this.prefix = prefix;
+            this.width = width;
+        }
+
+        public String format(LocalDate day, long sequence) {
+            return prefix + DATE_PART.format(day) + String.format("%0" + width + "d", sequence);
+        }
+
+        /**
+         * The counter of a jenis pembelian; jenis other than SPAREPART and BARANG share the
+         * FO numbers.
+         */
+        public static DocumentType forPembelian(String jenisPembelian) {
+            if ("SPAREPART".equalsIgnoreCase(jenisPembelian)) {
+                return PEMBELIAN_SPAREPART;
+            }
+            if ("BARANG".equalsIgnoreCase(jenisPembelian)) {
+                return PEMBELIAN_BARANG;
+            }
+            return PEMBELIAN_OPERASIONAL;
+        }
+    }
+
+    /** Numbers {@code next..last} reserved by this instance and not handed out yet. */
+    private static final class Block {
+        private long next;
+        private long last;
+    }
+
+    @Inject
+    EntityManager em;
+
+    @ConfigProperty(name = "app.numbering.block-size", defaultValue = "1")
+    int blockSize;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * Takes the next number of today. Call it from the transaction that saves the document.
+     */
+    public String next(DocumentType type) {
+        LocalDate today = LocalDate.now();
+        return type.format(today, nextSequence(type, today));
+    }
+
+    /**
+     * The number {@link #next} would take now, without taking it. Another document may take
+     * it first, so it is only shown on a form; the document gets its number when it is saved.
+     */
+    public String preview(DocumentType type) {
+        LocalDate today = LocalDate.now();
+        return type.format(today, lastValue(type, today) + 1);
+    }
+
+    /**
+     * The next sequence value of {@code type} on {@code day}, from this instance's block when
+     * block reservation is enabled.
+     */
+    public long nextSequence(DocumentType type, LocalDate day) {
+        if (blockSize <= 1) {
+            return allocate(type, day, 1, false);
+        }
+
+        Block block = blocks.computeIfAbsent(type.name() + ':' + day, key -> new Block());
+        synchronized (block) {
+            if (block.next == 0 || block.next > block.last) {
+                block.last = allocate(type, day, blockSize, true);
+                block.next = block.last - blockSize + 1;
+                // Blocks of past days are never used again
+                blocks.keySet().removeIf(key -> key.startsWith(type.name() + ':') && !key.endsWith(day.toString()));
+            }
+            return block.next++;
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive numbers of {@code type} on {@code day} at once, e.g.
+     * for an import that creates many documents.
+     */
+    public List<String> reserve(DocumentType type, LocalDate day, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+        long last = allocate(type, day, count, true);
+        List<String> numbers = new ArrayList<>(count);
+        for (long sequence = last - count + 1; sequence <= last; sequence++) {
+            numbers.add(type.format(day, sequence));
+        }
+        return numbers;
+    }
+
+    /**
+     * Advances the counter by {@code count}, in the current transaction or, with
+     * {@code separately}, in a short one of its own that does not keep the row locked.
+     *
+     * @return the last value of the reserved range
+     */
+    long allocate(DocumentType type, LocalDate day, int count, boolean separately) {
+        Callable<Number> upsert = () -> (Number) em.createNativeQuery(ALLOCATE_SQL)
+                .setParameter(1, type.name())
+                .setParameter(2, day)
+                .setParameter(3, count)
+                .getSingleResult();
+        Number last = separately
+                ? QuarkusTransaction.requiringNew().call(upsert)
+                : QuarkusTransaction.joiningExisting().call(upsert);
+        log.debug("Allocated {} {} number(s) of {} up to {}", count, type, day, last);
+        return last.longValue();
+    }
+
+    /**
+     * The last number taken of {@code type} on {@code day}, 0 before the first.
+     */
+    long lastValue(DocumentType type, LocalDate day) {
+        List<?> rows = em.createNativeQuery(LAST_VALUE_SQL)
+                .setParameter(1, type.name())
+                .setParameter(2, day)
+                .getResultList();
+        return rows.isEmpty() ? 0 : ((Number) rows.get(0)).longValue();
+    }
+}
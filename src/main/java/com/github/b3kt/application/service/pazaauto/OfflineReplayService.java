@@ -0,0 +1,285 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.b3kt.application.dto.PembelianWithDetailsRequest;
+import com.github.b3kt.application.dto.pazaauto.ReplayOperation;
+import com.github.b3kt.application.dto.pazaauto.ReplayResult;
+import com.github.b3kt.infrastructure.persistence.entity.BaseEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPenjualanEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.StaleStateException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Applies the writes a client queued while offline, in order, in one request.
+ * <p>
+ * Operations run through the same service methods as the SPK, penjualan and pembelian
+ * endpoints, {@code app.replay.chunk-size} to a transaction, so the statements of a chunk are
+ * flushed together in JDBC batches. When an operation of a chunk fails the chunk is rolled
+ * back and its operations are replayed one per transaction, so only the failing one is lost.
+ * <p>
+ * An update or delete carrying a {@code version} is refused as a conflict when the row has
+ * been changed by someone else since the client read it, and the current row is returned
+ * instead. Several queued writes to the same row all carry the version the client last saw,
+ * so once the batch has written a row, the later writes to it expect the version that write
+ * produced instead; a change made by someone else in between is still a conflict.
+ */
+@Slf4j
+@ApplicationScoped
+public class OfflineReplayService {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    TbSpkService spkService;
+
+    @Inject
+    TbPenjualanService penjualanService;
+
+    @Inject
+    TbPembelianService pembelianService;
+
+    @ConfigProperty(name = "app.replay.chunk-size", defaultValue = "50")
+    int chunkSize;
+
+    @ConfigProperty(name = "app.replay.max-operations", defaultValue = "500")
+    int maxOperations;
+
+    /**
+     * Replays {@code operations} in order and returns one result per operation, in the same
+     * order.
+     *
+     * @throws IllegalArgumentException if there are more than {@code app.replay.max-operations}
+     */
+    public List<ReplayResult> replay(List<ReplayOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return List.of();
+        }
+        if (operations.size() > maxOperations) {
+            throw new IllegalArgumentException("At most " + maxOperations + " operations can be replayed at once");
+        }
+
+        // The version every row written by the batch was left at, keyed by target and id
+        Map<String, Integer> versions = new HashMap<>();
+        List<ReplayResult> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            List<ReplayOperation> chunk = operations.subList(from, Math.min(from + chunkSize, operations.size()));
+            results.addAll(replayChunk(chunk, versions));
+        }
+        log.debug("Replayed {} operations", operations.size());
+        return results;
+    }
+
+    private List<ReplayResult> replayChunk(List<ReplayOperation> chunk, Map<String, Integer> versions) {
+        Map<String, Integer> written = new HashMap<>(versions);
+        try {
+            List<ReplayResult> chunkResults = QuarkusTransaction.requiringNew().call(() -> {
+                List<ReplayResult> results = new ArrayList<>(chunk.size());
+                for (ReplayOperation operation : chunk) {
+                    results.add(apply(operation, written));
+                }
+                return results;
+            });
+            // Only the versions of a committed chunk are kept
+            versions.putAll(written);
+            return chunkResults;
+        } catch (RuntimeException e) {
+            log.debug("Replaying a chunk of {} operations one by one: {}", chunk.size(), e.getMessage());
+            List<ReplayResult> results = new ArrayList<>(chunk.size());
+            for (ReplayOperation operation : chunk) {
+                results.add(replayOne(operation, versions));
+            }
+            return results;
+        }
+    }
+
+    private ReplayResult replayOne(ReplayOperation operation, Map<String, Integer> versions) {
+        Map<String, Integer> written = new HashMap<>(versions);
+        try {
+            ReplayResult result = QuarkusTransaction.requiringNew().call(() -> apply(operation, written));
+            versions.putAll(written);
+            return result;
+        } catch (RuntimeException e) {
+            return failed(operation, e);
+        }
+    }
+
+    ReplayResult apply(ReplayOperation operation, Map<String, Integer> versions) {
+        if (operation.target() == null || operation.action() == null) {
+            throw new IllegalArgumentException("Operation " + operation.ref() + " has no target or action");
+        }
+        if (operation.action() == ReplayOperation.Action.CREATE) {
+            return applied(operation, create(operation));
+        }
+
+        BaseEntity current = find(operation);
+        if (current == null) {
+            return new ReplayResult(operation.ref(), ReplayResult.Status.NOT_FOUND, null,
+                    operation.target() + " not found: " + operation.id());
+        }
+        String key = operation.target() + ":" + operation.id();
+        Integer expected = versions.containsKey(key) ? versions.get(key) : operation.version();
+        if (expected != null && !expected.equals(current.getVersion())) {
+            return conflict(operation, current);
+        }
+
+        Object data = operation.action() == ReplayOperation.Action.UPDATE
+                ? update(operation, current)
+                : delete(operation, current);
+        versions.put(key, writtenVersion(operation));
+        return applied(operation, data);
+    }
+
+    /**
+     * The version the row was left at by the write just applied, or null if it is gone. The
+     * write is flushed first, as the version is only incremented when it reaches the database.
+     */
+    private Integer writtenVersion(ReplayOperation operation) {
+        em.flush();
+        BaseEntity written = find(operation);
+        return written == null ? null : written.getVersion();
+    }
+
+    private Object create(ReplayOperation operation) {
+        return switch (operation.target()) {
+            case SPK -> {
+                TbSpkEntity spk = payload(operation, TbSpkEntity.class);
+                spkService.fillDetails(spk);
+                yield spkService.create(spk);
+            }
+            case PENJUALAN -> penjualanService.createWithNoSpkValidation(payload(operation, TbPenjualanEntity.class));
+            case PEMBELIAN -> {
+                PembelianWithDetailsRequest request = payload(operation, PembelianWithDetailsRequest.class);
+                yield pembelianService.createWithDetails(request.getPembelian(), request.getDetails());
+            }
+        };
+    }
+
+    /**
+     * Writes the payload over {@code current}. The payload takes the current version, which
+     * has been checked already, so merging it does not fail on a version the client never saw.
+     */
+    private Object update(ReplayOperation operation, BaseEntity current) {
+        return switch (operation.target()) {
+            case SPK -> {
+                TbSpkEntity spk = payload(operation, TbSpkEntity.class);
+                spk.setVersion(current.getVersion());
+                spkService.fillDetails(spk);
+                yield spkService.update(current.getId(), spk);
+            }
+            case PENJUALAN -> {
+                TbPenjualanEntity penjualan = payload(operation, TbPenjualanEntity.class);
+                penjualan.setId(current.getId());
+                penjualan.setNoPenjualan(operation.id());
+                penjualan.setVersion(current.getVersion());
+                yield penjualanService.updateWithNoSpkValidation(penjualan);
+            }
+            case PEMBELIAN -> {
+                PembelianWithDetailsRequest request = payload(operation, PembelianWithDetailsRequest.class);
+                TbPembelianEntity pembelian = request.getPembelian();
+                pembelian.setVersion(current.getVersion());
+                yield request.getDetails() == null
+                        ? pembelianService.update(current.getId(), pembelian)
+                        : pembelianService.updateWithDetails(current.getId(), pembelian, request.getDetails());
+            }
+        };
+    }
+
+    /**
+     * Deletes as the matching endpoints do: an SPK is cancelled, a penjualan is cancelled with
+     * its SPK reopened, a pembelian is deleted with its stock reversed.
+     */
+    private Object delete(ReplayOperation operation, BaseEntity current) {
+        return switch (operation.target()) {
+            case SPK -> spkService.cancelSpk(current.getId());
+            case PENJUALAN -> {
+                penjualanService.cancelPenjualanBySpk(((TbPenjualanEntity) current).getNoSpk());
+                yield null;
+            }
+            case PEMBELIAN -> {
+                pembelianService.delete(current.getId());
+                yield null;
+            }
+        };
+    }
+
+    private BaseEntity find(ReplayOperation operation) {
+        if (operation.id() == null || operation.id().isBlank()) {
+            throw new IllegalArgumentException("Operation " + operation.ref() + " has no id");
+        }
+        return switch (operation.target()) {
+            case SPK -> em.find(TbSpkEntity.class, Long.valueOf(operation.id()));
+            case PENJUALAN -> penjualanService.findByNoPenjualan(operation.id());
+            case PEMBELIAN -> em.find(TbPembelianEntity.class, Long.valueOf(operation.id()));
+        };
+    }
+
+    private <T> T payload(ReplayOperation operation, Class<T> type) {
+        if (operation.payload() == null || operation.payload().isNull()) {
+            throw new IllegalArgumentException("Operation " + operation.ref() + " has no payload");
+        }
+        try {
+            return objectMapper.treeToValue(operation.payload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid payload of operation " + operation.ref() + ": "
+                    + e.getOriginalMessage());
+        }
+    }
+
+    private static ReplayResult applied(ReplayOperation operation, Object data) {
+        return new ReplayResult(operation.ref(), ReplayResult.Status.APPLIED, data, null);
+    }
+
+    private static ReplayResult conflict(ReplayOperation operation, Object current) {
+        return new ReplayResult(operation.ref(), ReplayResult.Status.CONFLICT, current,
+                operation.target() + " " + operation.id() + " has been changed by another user");
+    }
+
+    /**
+     * The result of an operation that threw. A row changed between the version check and the
+     * commit is still a conflict.
+     */
+    private ReplayResult failed(ReplayOperation operation, RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException) {
+                return conflict(operation, reload(operation));
+            }
+            if (cause instanceof EntityNotFoundException) {
+                return new ReplayResult(operation.ref(), ReplayResult.Status.NOT_FOUND, null, cause.getMessage());
+            }
+            if (cause instanceof IllegalArgumentException || cause instanceof IllegalStateException) {
+                return new ReplayResult(operation.ref(), ReplayResult.Status.FAILED, null, cause.getMessage());
+            }
+        }
+        log.warn("Replay of operation {} failed", operation.ref(), e);
+        return new ReplayResult(operation.ref(), ReplayResult.Status.FAILED, null,
+                Objects.requireNonNullElse(e.getMessage(), e.getClass().getSimpleName()));
+    }
+
+    private BaseEntity reload(ReplayOperation operation) {
+        try {
+            return QuarkusTransaction.requiringNew().call(() -> find(operation));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
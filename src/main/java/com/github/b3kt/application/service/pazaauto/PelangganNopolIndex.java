@@ -0,0 +1,310 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.helper.AfterCommit;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbPelangganRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.quarkus.panache.common.Sort;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The last updated pelanggan of every nopol, kept in the bounded {@code pelanggan-by-nopol}
+ * cache and keyed by the normalized nopol ({@link #key}), so "b 1234 abc" and "B1234ABC"
+ * find the same pelanggan. The key is the one of {@code fn_customer_key} (V16) and of the
+ * {@code idx_pelanggan_nopol_key} index (V23) that answers a miss.
+ * <p>
+ * {@link TbPelangganService} calls {@link #written} and {@link #removed} on every create,
+ * update and delete. The written pelanggan is put into the cache when the transaction
+ * commits; a nopol it no longer has, or a deleted one, is evicted, as another pelanggan may
+ * still have it. A rolled back write evicts its keys, since the caller may have changed a
+ * cached instance before the write failed.
+ * <p>
+ * Every write also sends its key on the {@value #CHANNEL} channel with {@code pg_notify},
+ * which PostgreSQL delivers only when the transaction commits. Each instance listens on a
+ * connection of its own, opened from the datasource settings outside the Agroal pool so it
+ * never takes one of {@code quarkus.datasource.jdbc.max-size}, and evicts the keys written
+ * by the others. While that connection is down notifications are lost, so the whole cache
+ * is dropped whenever listening starts.
+ */
+@Slf4j
+@ApplicationScoped
+public class PelangganNopolIndex {
+
+    static final String CHANNEL = "pelanggan_nopol";
+
+    /** Tells this instance's notifications, which it has applied already, from the others. */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicBoolean listening = new AtomicBoolean();
+    private volatile boolean running;
+    private Thread listener;
+
+    @Inject
+    TbPelangganRepository repository;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @CacheName("pelanggan-by-nopol")
+    Cache cache;
+
+    @ConfigProperty(name = "app.pelanggan-index.listen", defaultValue = "true")
+    boolean listen;
+
+    @ConfigProperty(name = "app.pelanggan-index.poll", defaultValue = "5S")
+    Duration poll;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String jdbcUrl;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    Optional<String> username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    Optional<String> password;
+
+    /**
+     * The normalized form of {@code nopol}: upper case without spaces, or null when nothing
+     * is left.
+     */
+    public static String key(String nopol) {
+        if (nopol == null) {
+            return null;
+        }
+        String key = nopol.replace(" ", "").toUpperCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * The last updated pelanggan with {@code nopol}, or null if there is none.
+     */
+    public TbPelangganEntity get(String nopol) {
+        String key = key(nopol);
+        if (key == null) {
+            return null;
+        }
+        return cache.get(key, this::load).await().indefinitely();
+    }
+
+    /**
+     * Bulk variant of {@link #get}: the nopols not cached yet are read in one query.
+     *
+     * @return pelanggan by nopol as given; nopols without a pelanggan are absent
+     */
+    public Map<String, TbPelangganEntity> getAll(Collection<String> nopols) {
+        Map<String, TbPelangganEntity> byKey = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        CaffeineCache caffeine = cache.as(CaffeineCache.class);
+        for (String nopol : nopols) {
+            String key = key(nopol);
+            if (key == null || byKey.containsKey(key) || missing.contains(key)) {
+                continue;
+            }
+            CompletableFuture<TbPelangganEntity> cached = caffeine.getIfPresent(key);
+            if (cached == null) {
+                missing.add(key);
+            } else {
+                byKey.put(key, cached.join());
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, TbPelangganEntity> loaded = loadAll(missing);
+            loaded.forEach((key, pelanggan) -> caffeine.put(key, CompletableFuture.completedFuture(pelanggan)));
+            byKey.putAll(loaded);
+        }
+
+        Map<String, TbPelangganEntity> byNopol = new HashMap<>();
+        for (String nopol : nopols) {
+            TbPelangganEntity pelanggan = byKey.get(key(nopol));
+            if (pelanggan != null) {
+                byNopol.put(nopol, pelanggan);
+            }
+        }
+        return byNopol;
+    }
+
+    /**
+     * Records a created or updated pelanggan; {@code previousNopol} is the nopol it had
+     * before the write, if any.
+     */
+    public void written(String previousNopol, TbPelangganEntity pelanggan) {
+        String key = key(pelanggan.getNopol());
+        String previousKey = key(previousNopol);
+        List<String> keys = new ArrayList<>(2);
+        if (key != null) {
+            keys.add(key);
+        }
+        if (previousKey != null && !previousKey.equals(key)) {
+            keys.add(previousKey);
+        }
+        publish(keys);
+        AfterCommit.run(transactionRegistry, () -> {
+            if (previousKey != null && !previousKey.equals(key)) {
+                evict(previousKey);
+            }
+            if (key != null) {
+                cache.as(CaffeineCache.class).put(key, CompletableFuture.completedFuture(pelanggan));
+            }
+        }, () -> keys.forEach(this::evict));
+    }
+
+    /**
+     * Records a deleted pelanggan that had {@code nopol}.
+     */
+    public void removed(String nopol) {
+        String key = key(nopol);
+        if (key == null) {
+            return;
+        }
+        publish(List.of(key));
+        AfterCommit.run(transactionRegistry, () -> evict(key), () -> evict(key));
+    }
+
+    TbPelangganEntity load(String key) {
+        return repository.find("upper(replace(nopol, ' ', '')) = ?1", Sort.descending("updatedAt"), key)
+                .firstResult();
+    }
+
+    Map<String, TbPelangganEntity> loadAll(Collection<String> keys) {
+        Map<String, TbPelangganEntity> byKey = new HashMap<>();
+        repository.find("upper(replace(nopol, ' ', '')) in ?1", Sort.descending("updatedAt"), keys).stream()
+                .forEach(pelanggan -> byKey.putIfAbsent(key(pelanggan.getNopol()), pelanggan));
+        return byKey;
+    }
+
+    private void publish(List<String> keys) {
+        if (!listen) {
+            return;
+        }
+        for (String key : keys) {
+            em.createNativeQuery("SELECT 1 FROM pg_notify(?1, ?2)")
+                    .setParameter(1, CHANNEL)
+                    .setParameter(2, instanceId + ":" + key)
+                    .getSingleResult();
+            registry.counter("pelanggan.nopol.notifications", "direction", "sent").increment();
+        }
+    }
+
+    /**
+     * Evicts the key of a notification sent by another instance.
+     */
+    void received(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+        registry.counter("pelanggan.nopol.notifications", "direction", "received").increment();
+        evict(payload.substring(separator + 1));
+    }
+
+    private void evict(String key) {
+        cache.invalidate(key).await().indefinitely();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        registry.gauge("pelanggan.nopol.listening", listening, flag -> flag.get() ? 1 : 0);
+        if (!listen) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "pelanggan-nopol-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Listens on a connection held for the life of the instance, reconnecting after
+     * {@code app.pelanggan-index.poll} when it fails.
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = connect()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                cache.invalidateAll().await().indefinitely();
+                listening.set(true);
+                log.info("Listening for pelanggan changes on {}", CHANNEL);
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) poll.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            received(Objects.requireNonNullElse(notification.getParameter(), ""));
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                listening.set(false);
+                if (running) {
+                    log.warn("Listening for pelanggan changes failed, retrying in {}", poll, e);
+                    try {
+                        Thread.sleep(poll.toMillis());
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+        listening.set(false);
+    }
+
+    /**
+     * A plain driver connection, not a pooled one: it stays open as long as the instance runs.
+     */
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        username.ifPresent(user -> properties.setProperty("user", user));
+        password.ifPresent(secret -> properties.setProperty("password", secret));
+        return DriverManager.getConnection(jdbcUrl, properties);
+    }
+}
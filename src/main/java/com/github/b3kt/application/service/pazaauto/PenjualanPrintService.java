@@ -0,0 +1,255 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.PenjualanPrintDto;
+import com.github.b3kt.application.helper.AfterCommit;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKendaraanEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPenjualanEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import com.github.b3kt.infrastructure.persistence.entity.subentity.SpkMekanik;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKaryawanRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKendaraanRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbPelangganRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkDetailRepository;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.math.BigDecimal;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles the printable invoice of a sale.
+ * <p>
+ * The invoice is loaded with a fixed number of set-based queries, however many lines it
+ * has: the sale joined with its SPK, the pelanggan by id, the pelanggan of the nopol from
+ * {@link PelangganNopolIndex}, the kendaraan, the mechanics and the SPK lines. Jasa, sparepart and barang prices come from
+ * the in-memory {@link PriceCatalogService}. Finished invoices are kept in the
+ * {@code penjualan-invoice} cache. {@link TbPenjualanService} evicts an invoice when its
+ * sale is changed or cancelled, and {@link TbSpkService} when the lines or mechanics of its
+ * SPK change. Eviction happens at once and again after the transaction completes, so an
+ * invoice assembled from the rows before the commit is not kept.
+ */
+@ApplicationScoped
+public class PenjualanPrintService {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TbPelangganRepository pelangganRepository;
+
+    @Inject
+    PelangganNopolIndex nopolIndex;
+
+    @Inject
+    TbKendaraanRepository kendaraanRepository;
+
+    @Inject
+    TbKaryawanRepository karyawanRepository;
+
+    @Inject
+    TbSpkDetailRepository detailRepository;
+
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    @CacheName("penjualan-invoice")
+    Cache cache;
+
+    /**
+     * @return the invoice, or {@code null} if there is no sale with this number
+     */
+    public PenjualanPrintDto findInvoice(String noPenjualan) {
+        PenjualanPrintDto invoice = cache.get(noPenjualan, this::assemble).await().indefinitely();
+        if (invoice == null) {
+            // Do not remember misses; the sale may be created later
+            cache.invalidate(noPenjualan).await().indefinitely();
+        }
+        return invoice;
+    }
+
+    public void invalidate(String noPenjualan) {
+        if (noPenjualan == null) {
+            return;
+        }
+        evict(noPenjualan);
+        AfterCommit.run(transactionRegistry, () -> evict(noPenjualan), () -> evict(noPenjualan));
+    }
+
+    /**
+     * Evicts the invoice of the sale of {@code noSpk}, if the SPK has been sold.
+     */
+    public void invalidateBySpk(String noSpk) {
+        if (noSpk == null) {
+            return;
+        }
+        em.createQuery("select p.noPenjualan from TbPenjualanEntity p where p.noSpk = ?1", String.class)
+                .setParameter(1, noSpk)
+                .getResultList()
+                .forEach(this::invalidate);
+    }
+
+    private void evict(String noPenjualan) {
+        cache.invalidate(noPenjualan).await().indefinitely();
+    }
+
+    PenjualanPrintDto assemble(String noPenjualan) {
+        List<Object[]> header = em.createQuery(
+                        "select p, s from TbPenjualanEntity p left join TbSpkEntity s on s.noSpk = p.noSpk "
+                                + "where p.noPenjualan = ?1", Object[].class)
+                .setParameter(1, noPenjualan)
+                .setMaxResults(1)
+                .getResultList();
+        if (header.isEmpty()) {
+            return null;
+        }
+        TbPenjualanEntity penjualan = (TbPenjualanEntity) header.get(0)[0];
+        TbSpkEntity spk = (TbSpkEntity) header.get(0)[1];
+
+        PenjualanPrintDto dto = new PenjualanPrintDto();
+        dto.setNoPenjualan(penjualan.getNoPenjualan());
+        dto.setTanggal(new SimpleDateFormat("dd-MM-yyyy HH:mm").format(penjualan.getTanggalJamPenjualan()));
+        dto.setNoSpk(penjualan.getNoSpk());
+        dto.setStatusPembayaran(penjualan.getStatusPembayaran());
+        dto.setMetodePembayaran(penjualan.getMetodePembayaran());
+        dto.setGrandTotal(penjualan.getGrandTotal());
+        dto.setUangDibayar(penjualan.getUangDibayar());
+        dto.setKembalian(penjualan.getKembalian());
+
+        Long pelangganId = penjualan.getPelangganId();
+        if (pelangganId == null && spk != null) {
+            pelangganId = spk.getPelangganId();
+        }
+        // The vehicle falls back to the pelanggan registered for the nopol
+        String nopol = spk != null && penjualan.getKendaraanId() == null ? spk.getNopol() : null;
+        fillPelanggan(dto, pelangganId, nopol);
+
+        if (spk != null) {
+            dto.setKm(spk.getKmSaatIni());
+            fillKendaraan(dto, penjualan, spk);
+            fillMekanik(dto, spk);
+            fillItems(dto, spk);
+        }
+        return dto;
+    }
+
+    private void fillPelanggan(PenjualanPrintDto dto, Long pelangganId, String nopol) {
+        if (pelangganId != null) {
+            TbPelangganEntity pelanggan = pelangganRepository.findById(pelangganId);
+            if (pelanggan != null) {
+                dto.setNamaPelanggan(pelanggan.getNamaPelanggan());
+                dto.setAlamatPelanggan(pelanggan.getAlamat());
+                dto.setNoHpPelanggan(pelanggan.getNoHp());
+            }
+        }
+        if (nopol != null) {
+            // Matched on the normalized nopol, as "b 1234 abc" and "B1234ABC" are one vehicle
+            TbPelangganEntity pelanggan = nopolIndex.get(nopol);
+            if (pelanggan != null) {
+                dto.setMerk(pelanggan.getMerk());
+                dto.setModel(pelanggan.getJenis());
+            }
+        }
+    }
+
+    private void fillKendaraan(PenjualanPrintDto dto, TbPenjualanEntity penjualan, TbSpkEntity spk) {
+        if (penjualan.getKendaraanId() != null) {
+            TbKendaraanEntity kendaraan = kendaraanRepository.findById(penjualan.getKendaraanId());
+            if (kendaraan != null) {
+                dto.setNopol(spk.getNopol());
+                dto.setMerk(kendaraan.getMerk());
+                dto.setModel(kendaraan.getModel());
+            }
+        } else if (spk.getNopol() != null) {
+            dto.setNopol(spk.getNopol());
+        }
+    }
+
+    private void fillMekanik(PenjualanPrintDto dto, TbSpkEntity spk) {
+        if (spk.getMekanikList() == null || spk.getMekanikList().isEmpty()) {
+            return;
+        }
+        List<Long> ids = spk.getMekanikList().stream()
+                .map(SpkMekanik::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        List<String> names = karyawanRepository.find("id in ?1", ids).stream()
+                .map(k -> k.getNamaKaryawan())
+                .collect(Collectors.toList());
+        dto.setNamaMekanik(String.join(", ", names));
+    }
+
+    private void fillItems(PenjualanPrintDto dto, TbSpkEntity spk) {
+        List<TbSpkDetailEntity> details = detailRepository.find("id.noSpk", spk.getNoSpk()).list();
+
+        Set<Long> jasaIds = new HashSet<>();
+        Set<Long> sparepartIds = new HashSet<>();
+        for (TbSpkDetailEntity detail : details) {
+            if (detail.getJasaId() != null) {
+                jasaIds.add(detail.getJasaId());
+            } else if (detail.getSparepartId() != null) {
+                sparepartIds.add(detail.getSparepartId());
+            }
+        }
+
+        Map<Long, PriceCatalogService.Item> jasa = catalog.getAll(PriceCatalogService.Type.JASA, jasaIds);
+        Map<Long, PriceCatalogService.Item> spareparts = catalog.getAll(PriceCatalogService.Type.SPAREPART, sparepartIds);
+        // Lines referencing an id that is not a sparepart are priced from tb_barang
+        Set<Long> barangIds = new HashSet<>(sparepartIds);
+        barangIds.removeAll(spareparts.keySet());
+        Map<Long, PriceCatalogService.Item> barang = catalog.getAll(PriceCatalogService.Type.BARANG, barangIds);
+
+        List<PenjualanPrintDto.ItemDto> items = new ArrayList<>();
+        BigDecimal subTotal = BigDecimal.ZERO;
+        for (TbSpkDetailEntity detail : details) {
+            PenjualanPrintDto.ItemDto item = new PenjualanPrintDto.ItemDto();
+            item.setNama(detail.getId() != null ? detail.getId().getNamaJasa() : null);
+            item.setQty(detail.getJumlah());
+
+            BigDecimal price = BigDecimal.ZERO;
+            String type = "UNKNOWN";
+            PriceCatalogService.Item master = null;
+            if (detail.getJasaId() != null) {
+                master = jasa.get(detail.getJasaId());
+            } else if (detail.getSparepartId() != null) {
+                master = spareparts.containsKey(detail.getSparepartId())
+                        ? spareparts.get(detail.getSparepartId())
+                        : barang.get(detail.getSparepartId());
+            }
+            if (master != null) {
+                price = master.hargaJual() != null ? master.hargaJual() : BigDecimal.ZERO;
+                type = master.type() == PriceCatalogService.Type.JASA ? "JASA" : "BARANG";
+            }
+
+            item.setHarga(price);
+            item.setType(type);
+            BigDecimal lineTotal = price.multiply(BigDecimal.valueOf(detail.getJumlah()));
+            item.setSubTotal(lineTotal);
+            items.add(item);
+            subTotal = subTotal.add(lineTotal);
+        }
+        dto.setItems(items);
+        dto.setSubTotal(subTotal);
+    }
+}
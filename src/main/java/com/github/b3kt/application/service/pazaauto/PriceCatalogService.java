@@ -0,0 +1,160 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.helper.AfterCommit;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Names and prices of the jasa, barang and sparepart master rows, held in memory.
+ * <p>
+ * Each master table is read once, as scalar rows (nothing is attached to the caller's
+ * persistence context), and then served from an immutable map, so pricing the lines of an
+ * SPK or an invoice costs no query. {@link TbJasaService}, {@link TbBarangService} and
+ * {@link TbSparepartService} call {@link #changed} on every write; the table is dropped at
+ * once and again when the writing transaction completes, and is reloaded on the next
+ * lookup. Tables also expire after {@code app.catalog.max-age}, which bounds how long a
+ * price edited on another instance stays unseen.
+ */
+@Slf4j
+@ApplicationScoped
+public class PriceCatalogService {
+
+    public enum Type {
+        JASA, BARANG, SPAREPART
+    }
+
+    /**
+     * One master row. For jasa {@code hargaJual} is {@code harga_jasa} and there is no
+     * {@code hargaBeli}.
+     */
+    public record Item(Type type, Long id, String nama, BigDecimal hargaJual, BigDecimal hargaBeli) {
+    }
+
+    private record Table(Map<Long, Item> items, long loadedAt) {
+    }
+
+    private static final Map<Type, String> QUERIES = Map.of(
+            Type.JASA, "select j.id, j.namaJasa, j.hargaJasa from TbJasaEntity j",
+            Type.BARANG, "select b.id, b.namaBarang, b.hargaJual, b.hargaBeli from TbBarangEntity b",
+            Type.SPAREPART, "select s.id, s.namaSparepart, s.hargaJual, s.hargaBeli from TbSparepartEntity s");
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @ConfigProperty(name = "app.catalog.max-age", defaultValue = "5M")
+    Duration maxAge;
+
+    private final Map<Type, Table> tables = new ConcurrentHashMap<>();
+    private final Map<Type, AtomicLong> generations = new EnumMap<>(Type.class);
+
+    public PriceCatalogService() {
+        for (Type type : Type.values()) {
+            generations.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * @return the row, or {@code null} if there is none with this id
+     */
+    public Item get(Type type, Long id) {
+        return id == null ? null : table(type).get(id);
+    }
+
+    /**
+     * The rows of all the given ids that exist; unknown and {@code null} ids are left out.
+     */
+    public Map<Long, Item> getAll(Type type, Collection<Long> ids) {
+        Map<Long, Item> table = table(type);
+        Map<Long, Item> found = new HashMap<>();
+        for (Long id : ids) {
+            Item item = id != null ? table.get(id) : null;
+            if (item != null) {
+                found.put(id, item);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * The selling price of the row, or {@code null} if there is no such row.
+     */
+    public BigDecimal hargaJual(Type type, Long id) {
+        Item item = get(type, id);
+        return item != null ? item.hargaJual() : null;
+    }
+
+    /**
+     * Drops the cached table of {@code type}, now and again once the current transaction
+     * completes, so a lookup made before the commit cannot keep serving the old prices.
+     */
+    public void changed(Type type) {
+        evict(type);
+        AfterCommit.run(transactionRegistry, () -> evict(type), () -> evict(type));
+    }
+
+    private void evict(Type type) {
+        generations.get(type).incrementAndGet();
+        tables.remove(type);
+    }
+
+    private Map<Long, Item> table(Type type) {
+        Table table = tables.get(type);
+        if (table != null && !expired(table)) {
+            return table.items();
+        }
+
+        synchronized (generations.get(type)) {
+            table = tables.get(type);
+            if (table != null && !expired(table)) {
+                return table.items();
+            }
+            long generation = generations.get(type).get();
+            Map<Long, Item> items = Map.copyOf(load(type));
+            // A write committed while loading makes this copy stale; serve it once, do not keep it
+            if (generations.get(type).get() == generation) {
+                tables.put(type, new Table(items, System.nanoTime()));
+            }
+            log.debug("Loaded {} {} prices", items.size(), type);
+            return items;
+        }
+    }
+
+    private boolean expired(Table table) {
+        return System.nanoTime() - table.loadedAt() > maxAge.toNanos();
+    }
+
+    Map<Long, Item> load(Type type) {
+        List<Object[]> rows = em.createQuery(QUERIES.get(type), Object[].class).getResultList();
+        Map<Long, Item> items = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            Long id = ((Number) row[0]).longValue();
+            items.put(id, new Item(type, id, (String) row[1], asDecimal(row[2]),
+                    row.length > 3 ? asDecimal(row[3]) : null));
+        }
+        return items;
+    }
+
+    private static BigDecimal asDecimal(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof BigDecimal decimal ? decimal : BigDecimal.valueOf(((Number) value).longValue());
+    }
+}
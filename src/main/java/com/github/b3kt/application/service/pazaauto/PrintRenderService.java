@@ -0,0 +1,344 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.PenjualanPrintDto;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.qute.Location;
+import io.quarkus.qute.Template;
+import io.quarkus.qute.TemplateData;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.ws.rs.core.StreamingOutput;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.jpa.HibernateHints;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Renders the faktur and the rekap penjualan / pembelian prints on the server.
+ * <p>
+ * The Qute templates in {@code templates/print} are ports of the web client templates
+ * and are parsed once when the application starts. Output is written to the response as
+ * it is rendered: a batch of invoices one invoice at a time, and a rekap one row at a
+ * time straight from a database cursor, so memory use does not grow with the batch.
+ */
+@Slf4j
+@ApplicationScoped
+public class PrintRenderService {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    public enum Format {
+        HTML("text/html", StandardCharsets.UTF_8),
+        ESCPOS("text/plain", StandardCharsets.US_ASCII);
+
+        private final String mediaType;
+        private final Charset charset;
+
+        Format(String mediaType, Charset charset) {
+            this.mediaType = mediaType;
+            this.charset = charset;
+        }
+
+        public String getMediaType() {
+            return mediaType + "; charset=" + charset.name();
+        }
+
+        public static Format parse(String value) {
+            if (value == null || value.isBlank()) {
+                return HTML;
+            }
+            try {
+                return valueOf(value.trim().replace("-", "").replace("/", "").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported print format: " + value + ". Expected html or escpos");
+            }
+        }
+    }
+
+    /** One invoice line; {@code group} heads the first line of the jasa and barang blocks. */
+    @TemplateData
+    public record InvoiceLine(int no, String group, PenjualanPrintDto.ItemDto item) {
+    }
+
+    @TemplateData
+    public record RekapPenjualanRow(String noPenjualan, String tanggal, String noSpk, String pelanggan, String nopol,
+                                    String mekanik, String status, String metode, BigDecimal total) {
+    }
+
+    @TemplateData
+    public record RekapPembelianRow(String noPembelian, String tanggal, String jenis, String kategori, String supplier,
+                                    String status, String metode, BigDecimal total) {
+    }
+
+    private static final String REKAP_PENJUALAN_SQL =
+            "SELECT p.no_penjualan, p.tgl_jam_penjualan, p.no_spk, " +
+            "       COALESCE(s.nama_pelanggan, pl.nama_pelanggan), s.nopol, " +
+            "       (SELECT string_agg(k.nama_karyawan, ', ' ORDER BY k.nama_karyawan) " +
+            "          FROM tb_spk_mekanik m JOIN tb_karyawan k ON k.id = m.id_mekanik " +
+            "         WHERE m.no_spk = p.no_spk), " +
+            "       p.status_pembayaran, p.metode_pembayaran, p.grand_total " +
+            "FROM tb_penjualan p " +
+            "LEFT JOIN tb_spk s ON s.no_spk = p.no_spk " +
+            "LEFT JOIN LATERAL (SELECT c.nama_pelanggan FROM tb_pelanggan c " +
+            "                   WHERE upper(replace(c.nopol, ' ', '')) = upper(replace(s.nopol, ' ', '')) " +
+            "                   ORDER BY c.updated_at DESC NULLS LAST LIMIT 1) pl ON TRUE " +
+            "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+            "  AND (cardinality(CAST(?3 AS varchar[])) = 0 " +
+            "       OR p.status_pembayaran = ANY (CAST(?3 AS varchar[]))) " +
+            "ORDER BY p.tgl_jam_penjualan, p.no_penjualan";
+
+    private static final String REKAP_PEMBELIAN_SQL =
+            "SELECT b.no_pembelian, b.tgl_pembelian, b.jenis_pembelian, b.kategori_operasional, sp.nama_supplier, " +
+            "       b.status_pembayaran, COALESCE(b.metode_pembayaran, b.jenis_pembayaran), b.grand_total " +
+            "FROM tb_pembelian b " +
+            "LEFT JOIN tb_supplier sp ON sp.id = b.id_supplier " +
+            "WHERE b.tgl_pembelian >= ?1 AND b.tgl_pembelian < ?2 " +
+            "  AND (cardinality(CAST(?3 AS varchar[])) = 0 " +
+            "       OR b.status_pembayaran = ANY (CAST(?3 AS varchar[]))) " +
+            "  AND (?4 = '' OR b.jenis_pembelian = ?4) " +
+            "  AND (?5 = '' OR b.kategori_operasional = ?5) " +
+            "ORDER BY b.tgl_pembelian, b.no_pembelian";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    PenjualanPrintService printService;
+
+    @Inject
+    @Location("print/faktur.html")
+    Template fakturHtml;
+
+    @Inject
+    @Location("print/faktur.txt")
+    Template fakturEscPos;
+
+    @Inject
+    @Location("print/rekap-penjualan.html")
+    Template rekapPenjualanHtml;
+
+    @Inject
+    @Location("print/rekap-pembelian.html")
+    Template rekapPembelianHtml;
+
+    @ConfigProperty(name = "app.export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    @ConfigProperty(name = "app.export.transaction-timeout", defaultValue = "10M")
+    Duration transactionTimeout;
+
+    /**
+     * @return the faktur of one sale, or {@code null} if there is no sale with this number
+     */
+    public StreamingOutput faktur(String noPenjualan, Format format) {
+        PenjualanPrintDto invoice = printService.findInvoice(noPenjualan);
+        if (invoice == null) {
+            return null;
+        }
+        return output -> {
+            try (Writer writer = open(output, format)) {
+                if (format == Format.HTML) {
+                    writer.write(fakturHtml.getFragment("document_start").data("title", "Print Penjualan " + noPenjualan).render());
+                    writer.write(renderInvoice(invoice, format));
+                    writer.write(fakturHtml.getFragment("document_end").instance().render());
+                } else {
+                    writer.write(renderInvoice(invoice, format));
+                }
+            }
+        };
+    }
+
+    /**
+     * All sales of one day in one document (HTML, a page per invoice) or one receipt stream
+     * (ESC/POS, cut after each invoice).
+     */
+    public StreamingOutput fakturBatch(LocalDate tanggal, Format format) {
+        List<String> numbers = em.createQuery(
+                        "select p.noPenjualan from TbPenjualanEntity p "
+                                + "where p.tanggalJamPenjualan >= ?1 and p.tanggalJamPenjualan < ?2 "
+                                + "order by p.tanggalJamPenjualan, p.noPenjualan", String.class)
+                .setParameter(1, Timestamp.valueOf(tanggal.atStartOfDay()))
+                .setParameter(2, Timestamp.valueOf(tanggal.plusDays(1).atStartOfDay()))
+                .getResultList();
+
+        return output -> {
+            try (Writer writer = open(output, format)) {
+                if (format == Format.HTML) {
+                    writer.write(fakturHtml.getFragment("document_start").data("title", "Faktur " + DATE.format(tanggal)).render());
+                }
+                for (String noPenjualan : numbers) {
+                    PenjualanPrintDto invoice = QuarkusTransaction.requiringNew()
+                            .timeout((int) transactionTimeout.toSeconds())
+                            .call(() -> printService.findInvoice(noPenjualan));
+                    if (invoice != null) {
+                        writer.write(renderInvoice(invoice, format));
+                        writer.flush();
+                    }
+                }
+                if (format == Format.HTML) {
+                    writer.write(fakturHtml.getFragment("document_end").instance().render());
+                }
+                log.debug("Rendered {} faktur of {} as {}", numbers.size(), tanggal, format);
+            }
+        };
+    }
+
+    public StreamingOutput rekapPenjualan(LocalDate startDate, LocalDate endDate, String statusFilter) {
+        checkRange(startDate, endDate);
+        String[] statuses = SummaryReportEngine.parseStatusFilter(statusFilter);
+        Template.Fragment start = rekapPenjualanHtml.getFragment("document_start");
+
+        return output -> {
+            try (Writer writer = open(output, Format.HTML)) {
+                writer.write(start.data("tanggal", DATE.format(LocalDate.now()))
+                        .data("periode", periode(startDate, endDate))
+                        .data("status", label(statusFilter))
+                        .render());
+                BigDecimal grandTotal = streamRows(REKAP_PENJUALAN_SQL, startDate, endDate, statuses, List.of(),
+                        rekapPenjualanHtml.getFragment("row"), writer,
+                        row -> new RekapPenjualanRow((String) row[0], dateTime(row[1]), (String) row[2],
+                                (String) row[3], (String) row[4], (String) row[5], (String) row[6],
+                                (String) row[7], (BigDecimal) row[8]),
+                        RekapPenjualanRow::total);
+                writer.write(rekapPenjualanHtml.getFragment("document_end").data("grandTotal", grandTotal).render());
+            }
+        };
+    }
+
+    public StreamingOutput rekapPembelian(LocalDate startDate, LocalDate endDate, String statusFilter,
+                                          String jenisPembelian, String kategoriOperasional) {
+        checkRange(startDate, endDate);
+        String[] statuses = SummaryReportEngine.parseStatusFilter(statusFilter);
+        String jenis = jenisPembelian != null ? jenisPembelian.trim() : "";
+        String kategori = kategoriOperasional != null ? kategoriOperasional.trim() : "";
+        Template.Fragment start = rekapPembelianHtml.getFragment("document_start");
+
+        return output -> {
+            try (Writer writer = open(output, Format.HTML)) {
+                writer.write(start.data("tanggal", DATE.format(LocalDate.now()))
+                        .data("periode", periode(startDate, endDate))
+                        .data("jenisPembelian", label(jenis))
+                        .data("kategoriOperasional", label(kategori))
+                        .data("status", label(statusFilter))
+                        .render());
+                BigDecimal grandTotal = streamRows(REKAP_PEMBELIAN_SQL, startDate, endDate, statuses,
+                        List.of(jenis, kategori), rekapPembelianHtml.getFragment("row"), writer,
+                        row -> new RekapPembelianRow((String) row[0], dateTime(row[1]), (String) row[2],
+                                (String) row[3], (String) row[4], (String) row[5], (String) row[6],
+                                (BigDecimal) row[7]),
+                        RekapPembelianRow::total);
+                writer.write(rekapPembelianHtml.getFragment("document_end").data("grandTotal", grandTotal).render());
+            }
+        };
+    }
+
+    private String renderInvoice(PenjualanPrintDto invoice, Format format) {
+        List<InvoiceLine> lines = invoiceLines(invoice);
+        return format == Format.HTML
+                ? fakturHtml.getFragment("invoice").data("invoice", invoice).data("lines", lines).render()
+                : fakturEscPos.data("invoice", invoice).data("lines", lines).render();
+    }
+
+    // Jasa first, then barang, numbered across both blocks like the web client
+    static List<InvoiceLine> invoiceLines(PenjualanPrintDto invoice) {
+        List<InvoiceLine> lines = new ArrayList<>();
+        if (invoice.getItems() == null) {
+            return lines;
+        }
+        for (String type : List.of("JASA", "BARANG")) {
+            String group = type.equals("JASA") ? "Jasa" : "Barang";
+            for (PenjualanPrintDto.ItemDto item : invoice.getItems()) {
+                if (type.equals(item.getType())) {
+                    lines.add(new InvoiceLine(lines.size() + 1, group, item));
+                    group = "";
+                }
+            }
+        }
+        return lines;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> BigDecimal streamRows(String sql, LocalDate startDate, LocalDate endDate, String[] statuses,
+                                      List<String> extraParams, Template.Fragment rowTemplate, Writer writer,
+                                      Function<Object[], R> mapper, Function<R, BigDecimal> total) {
+        return QuarkusTransaction.requiringNew().timeout((int) transactionTimeout.toSeconds()).call(() -> {
+            em.createNativeQuery("SET TRANSACTION READ ONLY").executeUpdate();
+            Query query = em.createNativeQuery(sql)
+                    .setParameter(1, Timestamp.valueOf(startDate.atStartOfDay()))
+                    .setParameter(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()))
+                    .setParameter(3, statuses)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true);
+            for (int i = 0; i < extraParams.size(); i++) {
+                query.setParameter(4 + i, extraParams.get(i));
+            }
+
+            BigDecimal grandTotal = BigDecimal.ZERO;
+            int no = 0;
+            try (Stream<Object[]> rows = query.getResultStream()) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    R mapped = mapper.apply(row);
+                    writer.write(rowTemplate.data("no", ++no).data("row", mapped).render());
+                    if (total.apply(mapped) != null) {
+                        grandTotal = grandTotal.add(total.apply(mapped));
+                    }
+                }
+            } catch (IOException e) {
+                // Client went away; rolling back closes the cursor
+                throw new UncheckedIOException(e);
+            }
+            return grandTotal;
+        });
+    }
+
+    private static Writer open(OutputStream output, Format format) {
+        return new BufferedWriter(new OutputStreamWriter(output, format.charset), BUFFER_SIZE);
+    }
+
+    private static void checkRange(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+    }
+
+    private static String periode(LocalDate startDate, LocalDate endDate) {
+        return DATE.format(startDate) + " s/d " + DATE.format(endDate);
+    }
+
+    private static String label(String filter) {
+        return filter == null || filter.isBlank() ? "-" : filter;
+    }
+
+    private static String dateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return DATE_TIME.format(timestamp.toLocalDateTime());
+        }
+        if (value instanceof Date date) {
+            return DATE_TIME.format(new Timestamp(date.getTime()).toLocalDateTime());
+        }
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.helper.ExportWriter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.ws.rs.core.StreamingOutput;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.jpa.HibernateHints;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Streams report rows straight from the database to the HTTP response.
+ * <p>
+ * Each export runs one native query inside its own read-only transaction, so the
+ * PostgreSQL driver reads it through a server-side cursor {@code app.export.fetch-size}
+ * rows at a time. Rows are written as they arrive and never collected into DTOs, so heap
+ * use does not grow with the length of the range. The transaction lives as long as the
+ * download, so it gets {@code app.export.transaction-timeout} rather than the 60 s default.
+ */
+@Slf4j
+@ApplicationScoped
+public class ReportExportService {
+
+    public enum Dataset {
+        DAILY(true, new String[]{"tanggal", "customers", "income", "outcome", "net", "items_terjual"},
+                "WITH sales AS ( " +
+                "    SELECT DATE(p.tgl_jam_penjualan) AS tanggal, COUNT(DISTINCT p.no_spk) AS customers, " +
+                "           SUM(p.grand_total) AS income " +
+                "    FROM tb_penjualan p " +
+                "    JOIN tb_spk s ON s.no_spk = p.no_spk " +
+                "    WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+                "    GROUP BY 1 " +
+                "), items AS ( " +
+                "    SELECT DATE(p.tgl_jam_penjualan) AS tanggal, SUM(d.jumlah) AS items " +
+                "    FROM tb_penjualan p " +
+                "    JOIN tb_spk s ON s.no_spk = p.no_spk " +
+                "    JOIN tb_spk_detail d ON d.no_spk = s.no_spk " +
+                "    WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+                "      AND d.id_sparepart IS NOT NULL " +
+                "    GROUP BY 1 " +
+                "), purchases AS ( " +
+                "    SELECT DATE(b.tgl_pembelian) AS tanggal, SUM(b.grand_total) AS outcome " +
+                "    FROM tb_pembelian b " +
+                "    WHERE b.tgl_pembelian >= ?1 AND b.tgl_pembelian < ?2 " +
+                "      AND (cardinality(CAST(?3 AS varchar[])) = 0 " +
+                "           OR b.status_pembayaran = ANY (CAST(?3 AS varchar[]))) " +
+                "    GROUP BY 1 " +
+                ") " +
+                "SELECT COALESCE(sa.tanggal, pu.tanggal), COALESCE(sa.customers, 0), " +
+                "       COALESCE(sa.income, 0), COALESCE(pu.outcome, 0), " +
+                "       COALESCE(sa.income, 0) - COALESCE(pu.outcome, 0), COALESCE(it.items, 0) " +
+                "FROM sales sa " +
+                "FULL JOIN purchases pu ON pu.tanggal = sa.tanggal " +
+                "LEFT JOIN items it ON it.tanggal = sa.tanggal " +
+                "ORDER BY 1"),
+
+        SOLD_ITEMS(false, new String[]{"tanggal", "sparepart_id", "nama_barang", "total_qty", "total_value",
+                "total_nilai_adjustment", "total_modal"},
+                "SELECT DATE(p.tgl_jam_penjualan), d.id_sparepart, d.nama_jasa, SUM(d.jumlah), " +
+                "       COALESCE(SUM(d.harga_master * d.jumlah), 0), COALESCE(SUM(d.harga * d.jumlah), 0), " +
+                "       COALESCE(SUM(br.harga_beli * d.jumlah), 0) " +
+                "FROM tb_penjualan p " +
+                "JOIN tb_spk s ON s.no_spk = p.no_spk " +
+                "JOIN tb_spk_detail d ON d.no_spk = s.no_spk " +
+                "LEFT JOIN tb_barang br ON br.id = d.id_sparepart " +
+                "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+                "  AND d.id_sparepart IS NOT NULL " +
+                "GROUP BY 1, d.id_sparepart, d.nama_jasa " +
+                "ORDER BY 1, 2"),
+
+        JASA(false, new String[]{"tanggal", "jasa_id", "nama_jasa", "total_qty", "total_nilai",
+                "total_nilai_adjustment", "total_modal"},
+                "SELECT DATE(p.tgl_jam_penjualan), d.id_jasa, d.nama_jasa, SUM(d.jumlah), " +
+                "       COALESCE(SUM(d.harga_master * d.jumlah), 0), COALESCE(SUM(d.harga * d.jumlah), 0), " +
+                "       COALESCE(SUM(j.harga_jasa * d.jumlah), 0) " +
+                "FROM tb_penjualan p " +
+                "JOIN tb_spk s ON s.no_spk = p.no_spk " +
+                "JOIN tb_spk_detail d ON d.no_spk = s.no_spk " +
+                "LEFT JOIN tb_jasa j ON j.id = d.id_jasa " +
+                "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+                "  AND d.id_jasa IS NOT NULL " +
+                "GROUP BY 1, d.id_jasa, d.nama_jasa " +
+                "ORDER BY 1, 2"),
+
+        PENJUALAN(false, new String[]{"no_penjualan", "tgl_jam_penjualan", "no_spk", "nopol", "nama_pelanggan",
+                "status_spk", "metode_pembayaran", "status_pembayaran", "grand_total", "uang_dibayar", "kembalian"},
+                "SELECT p.no_penjualan, p.tgl_jam_penjualan, p.no_spk, s.nopol, s.nama_pelanggan, " +
+                "       s.status_spk, p.metode_pembayaran, p.status_pembayaran, p.grand_total, " +
+                "       p.uang_dibayar, p.kembalian " +
+                "FROM tb_penjualan p " +
+                "JOIN tb_spk s ON s.no_spk = p.no_spk " +
+                "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+                "ORDER BY p.tgl_jam_penjualan, p.no_spk");
+
+        // ?1 start, ?2 exclusive end and, for datasets with purchases, ?3 pembelian status filter
+        private final boolean filtersPembelian;
+        private final String[] columns;
+        final String sql;
+
+        Dataset(boolean filtersPembelian, String[] columns, String sql) {
+            this.filtersPembelian = filtersPembelian;
+            this.columns = columns;
+            this.sql = sql;
+        }
+
+        public static Dataset parse(String value) {
+            try {
+                return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Unknown export dataset: " + value);
+            }
+        }
+
+        public String fileName(LocalDate startDate, LocalDate endDate, ExportWriter.Format format) {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-') + "_" + startDate + "_" + endDate
+                    + "." + format.getExtension();
+        }
+    }
+
+    @Inject
+    EntityManager em;
+
+    @ConfigProperty(name = "app.export.fetch-size", defaultValue = "500")
+    int fetchSize;
+
+    @ConfigProperty(name = "app.export.transaction-timeout", defaultValue = "10M")
+    Duration transactionTimeout;
+
+    /**
+     * Returns the export body. Nothing is read until the container writes the response,
+     * so the query and transaction live exactly as long as the download.
+     */
+    public StreamingOutput export(Dataset dataset, LocalDate startDate, LocalDate endDate,
+                                  String statusPembelianFilter, ExportWriter.Format format) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        String[] statuses = SummaryReportEngine.parseStatusFilter(statusPembelianFilter);
+        return output -> {
+            try (ExportWriter writer = ExportWriter.open(format, output, dataset.columns)) {
+                long rows = QuarkusTransaction.requiringNew()
+                        .timeout((int) transactionTimeout.toSeconds())
+                        .call(() -> {
+                            em.createNativeQuery("SET TRANSACTION READ ONLY").executeUpdate();
+                            return streamRows(dataset, startDate, endDate, statuses, writer);
+                        });
+                log.debug("Exported {} rows of {} for {}..{}", rows, dataset, startDate, endDate);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private long streamRows(Dataset dataset, LocalDate startDate, LocalDate endDate, String[] statuses,
+                            ExportWriter writer) {
+        Query query = em.createNativeQuery(dataset.sql)
+                .setParameter(1, Timestamp.valueOf(startDate.atStartOfDay()))
+                .setParameter(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (dataset.filtersPembelian) {
+            query.setParameter(3, statuses);
+        }
+
+        long count = 0;
+        try (Stream<Object[]> rows = query.getResultStream()) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                writer.write(row);
+                count++;
+            }
+        } catch (IOException e) {
+            // Client went away; rolling back closes the cursor
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.helper.AfterCommit;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * The work queue: every SPK that is neither cancelled (BATAL) nor sold yet, held in memory.
+ * <p>
+ * The board is loaded with one query on first use and then kept current by the write paths:
+ * {@link TbSpkService} reports SPKs it creates, updates, cancels or deletes, and
+ * {@link TbPenjualanService} reports SPKs that are sold or whose sale is cancelled. A change
+ * is applied, and pushed to the subscribers as an {@link Event}, only once the writing
+ * transaction has committed. Writes made on another instance are not reported here; the board
+ * is reloaded from the database when it is older than {@code app.spk-board.max-age} and read
+ * again, and subscribers then receive a fresh snapshot.
+ */
+@Slf4j
+@ApplicationScoped
+public class SpkBoardService {
+
+    public enum EventType {
+        /** The whole board, sent first to every subscriber and after a reload. */
+        SNAPSHOT,
+        /** An SPK was added to the board or changed. */
+        UPSERT,
+        /** An SPK left the board: it was sold, cancelled or deleted. */
+        REMOVE
+    }
+
+    /**
+     * An SPK as shown on the board. The names are the ones stored on tb_spk.
+     */
+    public record Entry(Long id, String noSpk, Integer noAntrian, String tanggalJamSpk, String nopol,
+                        String namaPelanggan, String namaKaryawan, String statusSpk,
+                        LocalDateTime startedAt, LocalDateTime finishedAt) {
+
+        static Entry of(TbSpkEntity spk) {
+            return new Entry(spk.getId(), spk.getNoSpk(), spk.getNoAntrian(), spk.getTanggalJamSpk(),
+                    spk.getNopol(), spk.getNamaPelanggan(), spk.getNamaKaryawan(), spk.getStatusSpk(),
+                    spk.getStartedAt(), spk.getFinishedAt());
+        }
+    }
+
+    /**
+     * A change of the board. Sequences increase by one per event, so a client that sees a
+     * gap has missed an event and should reconnect for a new snapshot.
+     *
+     * @param entry   the SPK, for {@link EventType#UPSERT}
+     * @param entries the whole board, for {@link EventType#SNAPSHOT}
+     */
+    public record Event(long sequence, EventType type, String noSpk, Entry entry, List<Entry> entries) {
+    }
+
+    private static final Comparator<Entry> BOARD_ORDER = Comparator
+            .comparing(Entry::noSpk, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private static final String ACTIVE_QUERY = "select s from TbSpkEntity s "
+            + "where (s.statusSpk is null or s.statusSpk <> 'BATAL') "
+            + "and not exists (select 1 from TbPenjualanEntity p where p.noSpk = s.noSpk)";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @ConfigProperty(name = "app.spk-board.max-age", defaultValue = "1M")
+    Duration maxAge;
+
+    // Guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean loaded;
+    private long loadedAt;
+    private long sequence;
+
+    private final List<Predicate<Event>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * The board, ordered by SPK number.
+     */
+    public synchronized List<Entry> snapshot() {
+        ensureLoaded();
+        return sorted();
+    }
+
+    /**
+     * Registers {@code subscriber} and hands it the current board as a
+     * {@link EventType#SNAPSHOT}; every later change follows in order. The subscriber is
+     * dropped as soon as it returns {@code false}, e.g. because its connection was closed.
+     */
+    public synchronized void subscribe(Predicate<Event> subscriber) {
+        ensureLoaded();
+        if (subscriber.test(new Event(sequence, EventType.SNAPSHOT, null, null, sorted()))) {
+            subscribers.add(subscriber);
+        }
+    }
+
+    /**
+     * Reports an SPK that was created or changed in the current transaction. An SPK that is
+     * cancelled leaves the board; one that has already been sold is not put on it.
+     */
+    public void changed(TbSpkEntity spk) {
+        if (spk == null || spk.getNoSpk() == null) {
+            return;
+        }
+        if ("BATAL".equals(spk.getStatusSpk()) || isSold(spk.getNoSpk())) {
+            removed(spk.getNoSpk());
+            return;
+        }
+        Entry entry = Entry.of(spk);
+        AfterCommit.run(transactionRegistry, () -> apply(entry.noSpk(), entry), null);
+    }
+
+    /**
+     * Reports an SPK that was sold or deleted in the current transaction.
+     */
+    public void removed(String noSpk) {
+        if (noSpk != null) {
+            AfterCommit.run(transactionRegistry, () -> apply(noSpk, null), null);
+        }
+    }
+
+    private boolean isSold(String noSpk) {
+        return em.createQuery("select count(p) from TbPenjualanEntity p where p.noSpk = ?1", Long.class)
+                .setParameter(1, noSpk)
+                .getSingleResult() > 0;
+    }
+
+    private synchronized void apply(String noSpk, Entry entry) {
+        // Not loaded yet: the load will read the committed state
+        if (!loaded) {
+            return;
+        }
+        if (entry != null) {
+            entries.put(noSpk, entry);
+            publish(new Event(++sequence, EventType.UPSERT, noSpk, entry, null));
+        } else if (entries.remove(noSpk) != null) {
+            publish(new Event(++sequence, EventType.REMOVE, noSpk, null, null));
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded && System.nanoTime() - loadedAt <= maxAge.toNanos()) {
+            return;
+        }
+        boolean reload = loaded;
+        entries.clear();
+        em.createQuery(ACTIVE_QUERY, TbSpkEntity.class).getResultList().stream()
+                .map(Entry::of)
+                .forEach(entry -> entries.put(entry.noSpk(), entry));
+        loaded = true;
+        loadedAt = System.nanoTime();
+        log.debug("Loaded {} SPKs onto the board", entries.size());
+        if (reload) {
+            publish(new Event(++sequence, EventType.SNAPSHOT, null, null, sorted()));
+        }
+    }
+
+    private List<Entry> sorted() {
+        List<Entry> board = new ArrayList<>(entries.values());
+        board.sort(BOARD_ORDER);
+        return board;
+    }
+
+    private void publish(Event event) {
+        for (Predicate<Event> subscriber : subscribers) {
+            boolean open;
+            try {
+                open = subscriber.test(event);
+            } catch (RuntimeException e) {
+                log.debug("Dropping SPK board subscriber", e);
+                open = false;
+            }
+            if (!open) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbStockLedgerEntity;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Moves sparepart and barang stock and keeps the ledger of every movement.
+ * <p>
+ * {@link #apply} sums the movements of a document per item and changes each stok with one
+ * conditional {@code UPDATE}, so concurrent documents touching the same item serialize on
+ * its row and none of their changes is lost; a movement that would take stok below zero
+ * (below the reserved stok, for barang) updates nothing and fails the document. The ledger
+ * rows are appended after the updates and go out as one JDBC batch. A nightly job writes the
+ * closing stok of every item to tb_stock_snapshot, from which {@link #stockAt} answers for
+ * past dates.
+ */
+@Slf4j
+@ApplicationScoped
+public class StockLedgerService {
+
+    public static final String SOURCE_OPENING = "OPENING";
+    public static final String SOURCE_ADJUSTMENT = "ADJUSTMENT";
+    public static final String SOURCE_PEMBELIAN = "PEMBELIAN";
+    public static final String SOURCE_PENJUALAN = "PENJUALAN";
+
+    /**
+     * A stocked master table.
+     */
+    public enum ItemType {
+        SPAREPART("tb_sparepart", "0"),
+        BARANG("tb_barang", "stok_reserved");
+
+        private final String moveSql;
+        private final String table;
+
+        ItemType(String table, String floor) {
+            this.table = table;
+            // updated_at is stamped like the entity listener would, so the change reaches /sync
+            this.moveSql = "UPDATE " + table + " SET stok = coalesce(stok, 0) + ?1, "
+                    + "version = coalesce(version, 0) + 1, updated_at = ?3 "
+                    + "WHERE id = ?2 AND coalesce(stok, 0) + ?1 >= " + floor;
+        }
+    }
+
+    // The closing stok of a day: the previous day's snapshot plus the day's movements
+    private static final String SNAPSHOT_SQL =
+            "INSERT INTO tb_stock_snapshot (item_type, item_id, snapshot_date, stok) " +
+            "SELECT coalesce(s.item_type, m.item_type), coalesce(s.item_id, m.item_id), ?1, " +
+            "       coalesce(s.stok, 0) + coalesce(m.delta, 0) " +
+            "FROM (SELECT item_type, item_id, stok FROM tb_stock_snapshot WHERE snapshot_date = ?2) s " +
+            "FULL JOIN (SELECT item_type, item_id, sum(delta) AS delta FROM tb_stock_ledger " +
+            "           WHERE created_at >= ?3 AND created_at < ?4 GROUP BY item_type, item_id) m " +
+            "  ON m.item_type = s.item_type AND m.item_id = s.item_id " +
+            "ON CONFLICT (item_type, item_id, snapshot_date) DO NOTHING";
+
+    @Inject
+    EntityManager em;
+
+    /**
+     * Applies the stock movements of one document, {@code itemId -> delta}.
+     *
+     * @throws EntityNotFoundException if an item does not exist
+     * @throws IllegalStateException   if a movement would take a stok below zero
+     */
+    @Transactional
+    public void apply(ItemType type, String sourceType, String sourceNo, Map<Long, Integer> movements) {
+        Map<Long, Integer> deltas = sum(movements);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((itemId, delta) -> {
+            int updated = em.createNativeQuery(type.moveSql)
+                    .setParameter(1, delta)
+                    .setParameter(2, itemId)
+                    .setParameter(3, now)
+                    .executeUpdate();
+            if (updated == 0) {
+                throw rejected(type, itemId, delta);
+            }
+        });
+
+        deltas.forEach((itemId, delta) -> record(type, sourceType, sourceNo, itemId, delta, now));
+        log.debug("Moved stock of {} {} item(s) for {} {}", deltas.size(), type, sourceType, sourceNo);
+    }
+
+    /**
+     * Sums the movements per item, leaving out {@code null} ids and zero totals, in
+     * ascending id order: documents touching the same items then lock their rows in the
+     * same order and cannot deadlock.
+     */
+    static Map<Long, Integer> sum(Map<Long, Integer> movements) {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        movements.forEach((itemId, delta) -> {
+            if (itemId != null && delta != null) {
+                deltas.merge(itemId, delta, Integer::sum);
+            }
+        });
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    /**
+     * Records a stok change that has already been written to the item, e.g. by the
+     * sparepart form.
+     */
+    public void record(ItemType type, String sourceType, String sourceNo, Long itemId, int delta) {
+        if (delta != 0) {
+            record(type, sourceType, sourceNo, itemId, delta, LocalDateTime.now());
+        }
+    }
+
+    private void record(ItemType type, String sourceType, String sourceNo, Long itemId, int delta,
+                        LocalDateTime at) {
+        TbStockLedgerEntity row = new TbStockLedgerEntity();
+        row.setItemType(type.name());
+        row.setItemId(itemId);
+        row.setDelta(delta);
+        row.setSourceType(sourceType);
+        row.setSourceNo(sourceNo);
+        row.setCreatedAt(at);
+        em.persist(row);
+    }
+
+    RuntimeException rejected(ItemType type, Long itemId, int delta) {
+        List<?> stok = em.createNativeQuery("SELECT coalesce(stok, 0) FROM " + type.table + " WHERE id = ?1")
+                .setParameter(1, itemId)
+                .getResultList();
+        if (stok.isEmpty()) {
+            return new EntityNotFoundException("Entity not found with id: " + itemId);
+        }
+        return new IllegalStateException("Cannot decrease stock below zero. Current stock: " + stok.get(0)
+                + ", requested decrease: " + -delta);
+    }
+
+    /**
+     * The stok of every item of {@code type} at the end of {@code day}: the latest snapshot up
+     * to that day plus the movements after it. Items without any movement are left out.
+     */
+    public Map<Long, Integer> stockAt(ItemType type, LocalDate day) {
+        LocalDate snapshotDate = em.createQuery(
+                        "select max(s.id.snapshotDate) from TbStockSnapshotEntity s where s.id.snapshotDate <= ?1",
+                        LocalDate.class)
+                .setParameter(1, day)
+                .getSingleResult();
+
+        Map<Long, Integer> stock = new TreeMap<>();
+        if (snapshotDate != null) {
+            em.createQuery("select s.id.itemId, s.stok from TbStockSnapshotEntity s "
+                            + "where s.id.snapshotDate = ?1 and s.id.itemType = ?2", Object[].class)
+                    .setParameter(1, snapshotDate)
+                    .setParameter(2, type.name())
+                    .getResultList()
+                    .forEach(row -> stock.put((Long) row[0], (Integer) row[1]));
+        }
+        if (snapshotDate == null || snapshotDate.isBefore(day)) {
+            LocalDateTime from = (snapshotDate != null ? snapshotDate.plusDays(1) : LocalDate.EPOCH).atStartOfDay();
+            em.createQuery("select l.itemId, sum(l.delta) from TbStockLedgerEntity l "
+                            + "where l.createdAt >= ?1 and l.createdAt < ?2 and l.itemType = ?3 group by l.itemId",
+                            Object[].class)
+                    .setParameter(1, from)
+                    .setParameter(2, day.plusDays(1).atStartOfDay())
+                    .setParameter(3, type.name())
+                    .getResultList()
+                    .forEach(row -> stock.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum));
+        }
+        return stock;
+    }
+
+    @Scheduled(cron = "{app.stock.snapshot.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void snapshotYesterday() {
+        takeSnapshots(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Writes the closing stok of every item for every day after the latest snapshot, up to
+     * {@code upTo}. Days that already have a snapshot (e.g. written by another instance) are kept.
+     *
+     * @return the number of days written
+     */
+    @Transactional
+    public int takeSnapshots(LocalDate upTo) {
+        LocalDate last = em.createQuery("select max(s.id.snapshotDate) from TbStockSnapshotEntity s", LocalDate.class)
+                .getSingleResult();
+        LocalDate from;
+        if (last != null) {
+            from = last.plusDays(1);
+        } else {
+            LocalDateTime first = em.createQuery("select min(l.createdAt) from TbStockLedgerEntity l", LocalDateTime.class)
+                    .getSingleResult();
+            if (first == null) {
+                return 0;
+            }
+            from = first.toLocalDate();
+        }
+
+        int days = 0;
+        for (LocalDate day = from; !day.isAfter(upTo); day = day.plusDays(1)) {
+            em.createNativeQuery(SNAPSHOT_SQL)
+                    .setParameter(1, day)
+                    .setParameter(2, day.minusDays(1))
+                    .setParameter(3, day.atStartOfDay())
+                    .setParameter(4, day.plusDays(1).atStartOfDay())
+                    .executeUpdate();
+            days++;
+        }
+        log.debug("Took {} stock snapshot(s) up to {}", days, upTo);
+        return days;
+    }
+}
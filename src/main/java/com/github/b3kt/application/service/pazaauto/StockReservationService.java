@@ -0,0 +1,241 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbStockReservationEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbStockReservationId;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkDetailRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds the barang on the lines of an SPK in progress and takes them out of stok when the SPK
+ * is sold.
+ * <p>
+ * A reservation is a counter, not a lock: {@link #reserve} adds the SPK's quantities to
+ * tb_barang.stok_reserved with one conditional {@code UPDATE} per barang, which only
+ * succeeds while {@code stok - stok_reserved} covers it, so two SPKs cannot both promise the
+ * last unit and nothing stays locked while the mechanic works. {@link #commit} turns the
+ * reservation into a stok decrement in the same kind of statement when the sale is created,
+ * and writes the movement to the stock ledger. Barang rows are always updated in ascending
+ * id order. Lines are matched to barang by id alone (see {@link #wanted}). Everything here is a no-op unless {@code app.features.stock-integration.enabled}
+ * is set.
+ */
+@Slf4j
+@ApplicationScoped
+public class StockReservationService {
+
+    private static final String RESERVE_SQL =
+            "UPDATE tb_barang SET stok_reserved = stok_reserved + ?1, updated_at = ?3 " +
+            "WHERE id = ?2 AND coalesce(stok, 0) - stok_reserved - ?1 >= 0";
+
+    private static final String RELEASE_SQL =
+            "UPDATE tb_barang SET stok_reserved = greatest(stok_reserved - ?1, 0), updated_at = ?3 WHERE id = ?2";
+
+    private static final String COMMIT_SQL =
+            "UPDATE tb_barang SET stok = coalesce(stok, 0) - ?1, stok_reserved = stok_reserved - ?1, " +
+            "version = coalesce(version, 0) + 1, updated_at = ?3 " +
+            "WHERE id = ?2 AND stok_reserved >= ?1 AND coalesce(stok, 0) >= ?1";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    TbSpkDetailRepository detailRepository;
+
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    StockLedgerService stockLedger;
+
+    @ConfigProperty(name = "app.features.stock-integration.enabled", defaultValue = "false")
+    boolean enabled;
+
+    /**
+     * Brings the reservation of an SPK in line with its current lines. An SPK that has already
+     * been sold is left alone.
+     *
+     * @throws IllegalStateException if a barang has not enough unreserved stok
+     */
+    public void reserve(String noSpk) {
+        if (!enabled || noSpk == null) {
+            return;
+        }
+        Map<Long, TbStockReservationEntity> held = held(noSpk);
+        if (held.values().stream().anyMatch(row -> TbStockReservationEntity.COMMITTED.equals(row.getStatus()))) {
+            return;
+        }
+
+        Map<Long, Integer> wanted = wanted(noSpk);
+        Map<Long, Integer> changes = new HashMap<>(wanted);
+        held.forEach((barangId, row) -> changes.merge(barangId, -row.getKuantiti(), Integer::sum));
+
+        LocalDateTime now = LocalDateTime.now();
+        StockLedgerService.sum(changes).forEach((barangId, delta) -> {
+            if (delta > 0) {
+                int updated = em.createNativeQuery(RESERVE_SQL)
+                        .setParameter(1, delta)
+                        .setParameter(2, barangId)
+                        .setParameter(3, now)
+                        .executeUpdate();
+                if (updated == 0) {
+                    throw insufficient(barangId, delta);
+                }
+            } else {
+                em.createNativeQuery(RELEASE_SQL)
+                        .setParameter(1, -delta)
+                        .setParameter(2, barangId)
+                        .setParameter(3, now)
+                        .executeUpdate();
+            }
+
+            TbStockReservationEntity row = held.get(barangId);
+            Integer kuantiti = wanted.get(barangId);
+            if (kuantiti == null) {
+                em.remove(row);
+                return;
+            }
+            if (row == null) {
+                row = new TbStockReservationEntity();
+                row.setId(new TbStockReservationId(noSpk, barangId));
+                row.setStatus(TbStockReservationEntity.RESERVED);
+                em.persist(row);
+            }
+            row.setKuantiti(kuantiti);
+            row.setUpdatedAt(now);
+        });
+    }
+
+    /**
+     * Takes the reserved barang of a sold SPK out of stok, reserving whatever its lines still
+     * need first.
+     *
+     * @throws IllegalStateException if a barang has not enough stok
+     */
+    public void commit(String noSpk) {
+        if (!enabled || noSpk == null) {
+            return;
+        }
+        reserve(noSpk);
+
+        LocalDateTime now = LocalDateTime.now();
+        int committed = 0;
+        for (TbStockReservationEntity row : held(noSpk).values()) {
+            if (!TbStockReservationEntity.RESERVED.equals(row.getStatus())) {
+                continue;
+            }
+            Long barangId = row.getId().getBarangId();
+            int updated = em.createNativeQuery(COMMIT_SQL)
+                    .setParameter(1, row.getKuantiti())
+                    .setParameter(2, barangId)
+                    .setParameter(3, now)
+                    .executeUpdate();
+            if (updated == 0) {
+                throw stockLedger.rejected(ItemType.BARANG, barangId, -row.getKuantiti());
+            }
+            stockLedger.record(ItemType.BARANG, StockLedgerService.SOURCE_PENJUALAN, noSpk, barangId,
+                    -row.getKuantiti());
+            row.setStatus(TbStockReservationEntity.COMMITTED);
+            row.setUpdatedAt(now);
+            committed++;
+        }
+        log.debug("Took {} reserved barang out of stok for SPK {}", committed, noSpk);
+    }
+
+    /**
+     * Gives up the reservation of an SPK that is no longer worked on. Barang already sold
+     * stay sold.
+     */
+    public void release(String noSpk) {
+        if (!enabled || noSpk == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (TbStockReservationEntity row : held(noSpk).values()) {
+            if (TbStockReservationEntity.RESERVED.equals(row.getStatus())) {
+                em.createNativeQuery(RELEASE_SQL)
+                        .setParameter(1, row.getKuantiti())
+                        .setParameter(2, row.getId().getBarangId())
+                        .setParameter(3, now)
+                        .executeUpdate();
+                em.remove(row);
+            }
+        }
+    }
+
+    /**
+     * Puts the barang of a cancelled sale back into stok and drops the SPK's reservation.
+     */
+    public void restock(String noSpk) {
+        if (!enabled || noSpk == null) {
+            return;
+        }
+        release(noSpk);
+        Map<Long, Integer> returned = new TreeMap<>();
+        for (TbStockReservationEntity row : held(noSpk).values()) {
+            returned.put(row.getId().getBarangId(), row.getKuantiti());
+            em.remove(row);
+        }
+        stockLedger.apply(ItemType.BARANG, StockLedgerService.SOURCE_PENJUALAN, noSpk, returned);
+    }
+
+    /**
+     * The rows of an SPK by barang id, in ascending id order.
+     */
+    private Map<Long, TbStockReservationEntity> held(String noSpk) {
+        Map<Long, TbStockReservationEntity> held = new TreeMap<>();
+        em.createQuery("select r from TbStockReservationEntity r where r.id.noSpk = ?1",
+                        TbStockReservationEntity.class)
+                .setParameter(1, noSpk)
+                .getResultList()
+                .forEach(row -> held.put(row.getId().getBarangId(), row));
+        return held;
+    }
+
+    /**
+     * The quantity per barang on the lines of an SPK. Lines referencing an id that is not a
+     * barang (older sparepart lines) hold nothing.
+     * <p>
+     * Known limitation: tb_spk_detail.id_sparepart holds either a tb_barang or a tb_sparepart
+     * id and the line does not say which, so a line is taken for a barang whenever a barang
+     * with that id exists. The two tables have their own sequences, so an older sparepart
+     * line whose id is also a barang id reserves that barang. Telling them apart needs an
+     * item type on the line.
+     */
+    private Map<Long, Integer> wanted(String noSpk) {
+        List<TbSpkDetailEntity> details = detailRepository.find("id.noSpk", noSpk).list();
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (TbSpkDetailEntity detail : details) {
+            if (detail.getJasaId() == null && detail.getSparepartId() != null && detail.getJumlah() != null) {
+                quantities.merge(detail.getSparepartId(), detail.getJumlah(), Integer::sum);
+            }
+        }
+        Map<Long, Integer> wanted = StockLedgerService.sum(quantities);
+        wanted.keySet().retainAll(catalog.getAll(PriceCatalogService.Type.BARANG, wanted.keySet()).keySet());
+        wanted.values().removeIf(kuantiti -> kuantiti < 0);
+        return wanted;
+    }
+
+    private RuntimeException insufficient(Long barangId, int requested) {
+        List<?> available = em.createNativeQuery(
+                        "SELECT coalesce(stok, 0) - stok_reserved FROM tb_barang WHERE id = ?1")
+                .setParameter(1, barangId)
+                .getResultList();
+        if (available.isEmpty()) {
+            return new EntityNotFoundException("Entity not found with id: " + barangId);
+        }
+        return new IllegalStateException("Insufficient stock for barang " + barangId + ". Available: "
+                + available.get(0) + ", requested: " + requested);
+    }
+}
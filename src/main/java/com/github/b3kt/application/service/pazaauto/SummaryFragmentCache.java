@@ -0,0 +1,304 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.DailyBreakdownDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.IncomeByMethodDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.JasaSummaryDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikSummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.OutcomeByTypeDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.SoldItemDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.TopItemDto;
+import com.github.b3kt.application.helper.AfterCommit;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Caches the summary of single days and merges them into the summary of a date range.
+ * <p>
+ * Days before today are closed and stay in {@code summary-day-closed} until a write to that
+ * day evicts them. Today (and any later day) is still filling up and lives in
+ * {@code summary-day-open}, which also expires after a short TTL so writes made on other
+ * instances show up. Every penjualan/pembelian write path refreshes the rekap of the days it
+ * touches through {@link SummaryRollupService}, which calls {@link #invalidateDay} here.
+ * <p>
+ * The days of a range that are not cached are read together, with one range query grouped
+ * by date, and split into single-day fragments ({@link #split}) before they are cached.
+ */
+@ApplicationScoped
+public class SummaryFragmentCache {
+
+    @Inject
+    @CacheName("summary-day-closed")
+    Cache closedDays;
+
+    @Inject
+    @CacheName("summary-day-open")
+    Cache openDays;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    /** Advanced by every eviction; fragments loaded across one are not cached. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Returns the summary of the range. The days not cached yet are loaded at once, from the
+     * first to the last of them.
+     *
+     * @param loader computes the single-day summaries of every day of an inclusive range
+     */
+    public SummaryDto get(LocalDate startDate, LocalDate endDate, String statusPembelianFilter,
+                          BiFunction<LocalDate, LocalDate, Map<LocalDate, SummaryDto>> loader) {
+        String statusFilter = normalizeStatusFilter(statusPembelianFilter);
+        LocalDate today = LocalDate.now();
+
+        Map<LocalDate, SummaryDto> days = new LinkedHashMap<>();
+        List<LocalDate> missing = new ArrayList<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            CompletableFuture<SummaryDto> cached = cache(day, today).getIfPresent(new DayKey(day, statusFilter));
+            if (cached == null) {
+                missing.add(day);
+            }
+            days.put(day, cached == null ? null : cached.join());
+        }
+
+        if (!missing.isEmpty()) {
+            long seen = generation.get();
+            Map<LocalDate, SummaryDto> loaded = loader.apply(missing.get(0), missing.get(missing.size() - 1));
+            boolean current = generation.get() == seen;
+            for (LocalDate day : missing) {
+                SummaryDto fragment = loaded.getOrDefault(day, new SummaryDto());
+                days.put(day, fragment);
+                if (current) {
+                    cache(day, today).put(new DayKey(day, statusFilter), CompletableFuture.completedFuture(fragment));
+                }
+            }
+        }
+        return merge(new ArrayList<>(days.values()));
+    }
+
+    private CaffeineCache cache(LocalDate day, LocalDate today) {
+        return (day.isBefore(today) ? closedDays : openDays).as(CaffeineCache.class);
+    }
+
+    /**
+     * Evicts every cached fragment of the day, now and again once the current transaction
+     * completes, so a concurrent read cannot put back a summary computed before the commit.
+     */
+    public void invalidateDay(LocalDate day) {
+        if (day == null) {
+            return;
+        }
+        evict(day);
+        AfterCommit.run(transactionRegistry, () -> evict(day), () -> evict(day));
+    }
+
+    private void evict(LocalDate day) {
+        generation.incrementAndGet();
+        closedDays.invalidateIf(key -> key instanceof DayKey dayKey && dayKey.day().equals(day))
+                .await().indefinitely();
+        openDays.invalidateIf(key -> key instanceof DayKey dayKey && dayKey.day().equals(day))
+                .await().indefinitely();
+    }
+
+    static String normalizeStatusFilter(String statusFilter) {
+        if (statusFilter == null || statusFilter.isBlank()) {
+            return "";
+        }
+        return Arrays.stream(statusFilter.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    // ── Split ─────────────────────────────────────────────────────────────
+
+    /**
+     * Splits the summary of a range, read with its per-day breakdowns, into the summary of
+     * each of its days. Payment methods and purchase types are not broken down by day in
+     * {@link SummaryDto}, so they are passed by day. Every day of the range gets a fragment,
+     * an empty one when nothing happened on it.
+     */
+    static Map<LocalDate, SummaryDto> split(LocalDate startDate, LocalDate endDate, SummaryDto range,
+                                            Map<LocalDate, List<IncomeByMethodDto>> incomeByMethod,
+                                            Map<LocalDate, List<OutcomeByTypeDto>> outcomeByType) {
+        Map<LocalDate, SummaryDto> days = new LinkedHashMap<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            days.put(day, new SummaryDto());
+        }
+
+        for (DailyBreakdownDto daily : range.getDailyBreakdown()) {
+            SummaryDto day = days.get(LocalDate.parse(daily.getDate()));
+            if (day != null) {
+                day.getDailyBreakdown().add(daily);
+                day.setTotalCustomers(daily.getCustomers());
+                day.setTotalItemTerjual(daily.getItemsTerjual());
+                day.setTotalIncome(daily.getIncome());
+            }
+        }
+        for (SoldItemDailyDto item : range.getSoldItemsBreakdown()) {
+            SummaryDto day = days.get(LocalDate.parse(item.getDate()));
+            if (day != null) {
+                day.getSoldItemsBreakdown().add(item);
+            }
+        }
+        for (JasaSummaryDailyDto jasa : range.getJasaSummaryBreakdown()) {
+            SummaryDto day = days.get(LocalDate.parse(jasa.getDate()));
+            if (day != null) {
+                day.getJasaSummaryBreakdown().add(jasa);
+            }
+        }
+        for (MekanikDailyDto mekanik : range.getMekanikBreakdown()) {
+            SummaryDto day = days.get(LocalDate.parse(mekanik.getDate()));
+            if (day != null) {
+                day.getMekanikBreakdown().add(mekanik);
+            }
+        }
+
+        days.forEach((date, day) -> {
+            day.getIncomeByMethod().addAll(incomeByMethod.getOrDefault(date, List.of()));
+            day.getIncomeByMethod().sort(Comparator.comparing(IncomeByMethodDto::getAmount).reversed());
+            day.getOutcomeByType().addAll(outcomeByType.getOrDefault(date, List.of()));
+            day.getOutcomeByType().sort(Comparator.comparing(OutcomeByTypeDto::getAmount).reversed());
+            day.setTotalOutcome(day.getOutcomeByType().stream()
+                    .map(OutcomeByTypeDto::getAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            day.setNetProfit(day.getTotalIncome().subtract(day.getTotalOutcome()));
+            day.setTopItems(mergeTopItems(day.getSoldItemsBreakdown()));
+            day.setMekanikSummary(mergeMekanikSummary(day.getMekanikBreakdown()));
+        });
+        return days;
+    }
+
+    // ── Merge ─────────────────────────────────────────────────────────────
+
+    /**
+     * Merges single-day summaries (in ascending date order) into the summary of the whole
+     * range, with the same ordering as a summary queried for the range at once. Cached
+     * fragments are never modified.
+     */
+    static SummaryDto merge(List<SummaryDto> days) {
+        SummaryDto dto = new SummaryDto();
+
+        BigDecimal totalIncome = BigDecimal.ZERO;
+        BigDecimal totalOutcome = BigDecimal.ZERO;
+        for (SummaryDto day : days) {
+            dto.setTotalCustomers(dto.getTotalCustomers() + day.getTotalCustomers());
+            dto.setTotalItemTerjual(dto.getTotalItemTerjual() + day.getTotalItemTerjual());
+            totalIncome = totalIncome.add(day.getTotalIncome());
+            totalOutcome = totalOutcome.add(day.getTotalOutcome());
+        }
+        dto.setTotalIncome(totalIncome);
+        dto.setTotalOutcome(totalOutcome);
+        dto.setNetProfit(totalIncome.subtract(totalOutcome));
+
+        // Per-day lists are ordered by date descending, so append the days newest first
+        for (int i = days.size() - 1; i >= 0; i--) {
+            SummaryDto day = days.get(i);
+            dto.getDailyBreakdown().addAll(day.getDailyBreakdown());
+            dto.getSoldItemsBreakdown().addAll(day.getSoldItemsBreakdown());
+            dto.getJasaSummaryBreakdown().addAll(day.getJasaSummaryBreakdown());
+            dto.getMekanikBreakdown().addAll(day.getMekanikBreakdown());
+        }
+
+        dto.setTopItems(mergeTopItems(dto.getSoldItemsBreakdown()));
+        dto.setIncomeByMethod(mergeIncomeByMethod(days));
+        dto.setOutcomeByType(mergeOutcomeByType(days));
+        dto.setMekanikSummary(mergeMekanikSummary(dto.getMekanikBreakdown()));
+        return dto;
+    }
+
+    private static List<TopItemDto> mergeTopItems(List<SoldItemDailyDto> soldItems) {
+        Map<List<Object>, TopItemDto> byItem = new LinkedHashMap<>();
+        for (SoldItemDailyDto sold : soldItems) {
+            TopItemDto item = byItem.computeIfAbsent(Arrays.asList(sold.getSparepartId(), sold.getNamaBarang()), k -> {
+                TopItemDto top = new TopItemDto();
+                top.setSparepartId(sold.getSparepartId());
+                top.setNamaBarang(sold.getNamaBarang());
+                return top;
+            });
+            item.setTotalQty(item.getTotalQty() + sold.getTotalQty());
+            item.setTotalValue(item.getTotalValue().add(sold.getTotalNilaiAdjustment()));
+        }
+        return byItem.values().stream()
+                .sorted(Comparator.comparingLong(TopItemDto::getTotalQty).reversed())
+                .limit(10)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static List<IncomeByMethodDto> mergeIncomeByMethod(List<SummaryDto> days) {
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        days.forEach(day -> day.getIncomeByMethod()
+                .forEach(i -> amounts.merge(i.getLabel(), i.getAmount(), BigDecimal::add)));
+        List<IncomeByMethodDto> result = new ArrayList<>();
+        amounts.forEach((label, amount) -> {
+            IncomeByMethodDto item = new IncomeByMethodDto();
+            item.setLabel(label);
+            item.setAmount(amount);
+            result.add(item);
+        });
+        result.sort(Comparator.comparing(IncomeByMethodDto::getAmount).reversed());
+        return result;
+    }
+
+    private static List<OutcomeByTypeDto> mergeOutcomeByType(List<SummaryDto> days) {
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        days.forEach(day -> day.getOutcomeByType()
+                .forEach(o -> amounts.merge(o.getLabel(), o.getAmount(), BigDecimal::add)));
+        List<OutcomeByTypeDto> result = new ArrayList<>();
+        amounts.forEach((label, amount) -> {
+            OutcomeByTypeDto item = new OutcomeByTypeDto();
+            item.setLabel(label);
+            item.setAmount(amount);
+            result.add(item);
+        });
+        result.sort(Comparator.comparing(OutcomeByTypeDto::getAmount).reversed());
+        return result;
+    }
+
+    private static List<MekanikSummaryDto> mergeMekanikSummary(List<MekanikDailyDto> mekanikBreakdown) {
+        // An SPK is sold on exactly one day, so per-day customer counts add up to distinct ones
+        Map<Long, MekanikSummaryDto> byMekanik = new LinkedHashMap<>();
+        for (MekanikDailyDto daily : mekanikBreakdown) {
+            MekanikSummaryDto item = byMekanik.computeIfAbsent(daily.getMekanikId(), id -> {
+                MekanikSummaryDto summary = new MekanikSummaryDto();
+                summary.setMekanikId(id);
+                summary.setNamaMekanik(daily.getNamaMekanik());
+                return summary;
+            });
+            item.setTotalCustomers(item.getTotalCustomers() + daily.getTotalCustomers());
+            item.setTotalHari(item.getTotalHari() + 1);
+        }
+        List<MekanikSummaryDto> result = new ArrayList<>(byMekanik.values());
+        for (MekanikSummaryDto item : result) {
+            item.setRataPerHari(BigDecimal.valueOf((double) item.getTotalCustomers() / item.getTotalHari())
+                    .setScale(1, RoundingMode.HALF_UP).doubleValue());
+        }
+        result.sort(Comparator.comparingLong(MekanikSummaryDto::getTotalCustomers).reversed());
+        return result;
+    }
+
+    private record DayKey(LocalDate day, String statusFilter) {
+    }
+}
@@ -0,0 +1,310 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.DailyBreakdownDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.IncomeByMethodDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.JasaSummaryDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikSummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.OutcomeByTypeDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.SoldItemDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.TopItemDto;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the Owner summary straight from the transaction tables in a single round trip.
+ * <p>
+ * The sales of the range (with their SPK) and their detail rows are materialized once as
+ * CTEs, together with the matching purchases and the SPK mechanics ({@code tb_spk_mekanik});
+ * every breakdown of {@link SummaryDto} is then a branch of one {@code UNION ALL} over those sets. Rows are
+ * tagged with their section and mapped back here. Payment methods and purchase types are
+ * read per day, so the same query also yields the single-day summaries of
+ * {@link #getDailySummaries}. Used when the rekap tables are switched off
+ * ({@code app.features.summary-rollup.enabled=false}).
+ */
+@ApplicationScoped
+public class SummaryReportEngine {
+
+    // Columns: section, tanggal, id, label, c1, c2, n1, n2, n3
+    static final String REPORT_SQL =
+            "WITH sales AS MATERIALIZED ( " +
+            "    SELECT p.no_spk, DATE(p.tgl_jam_penjualan) AS tanggal, p.grand_total, " +
+            "           COALESCE(p.metode_pembayaran, 'LAINNYA') AS metode_pembayaran " +
+            "    FROM tb_penjualan p " +
+            "    JOIN tb_spk s ON s.no_spk = p.no_spk " +
+            "    WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+            "), details AS MATERIALIZED ( " +
+            "    SELECT sa.tanggal, d.id_sparepart, d.id_jasa, d.nama_jasa, d.jumlah, d.harga, d.harga_master " +
+            "    FROM sales sa " +
+            "    JOIN tb_spk_detail d ON d.no_spk = sa.no_spk " +
+            "), purchases AS MATERIALIZED ( " +
+            "    SELECT DATE(b.tgl_pembelian) AS tanggal, " +
+            "           COALESCE(b.jenis_pembelian, 'LAINNYA') AS jenis_pembelian, b.grand_total " +
+            "    FROM tb_pembelian b " +
+            "    WHERE b.tgl_pembelian >= ?1 AND b.tgl_pembelian < ?2 " +
+            "      AND (cardinality(CAST(?3 AS varchar[])) = 0 " +
+            "           OR b.status_pembayaran = ANY (CAST(?3 AS varchar[]))) " +
+            "), mekanik AS MATERIALIZED ( " +
+            "    SELECT sa.tanggal, sa.no_spk, sm.id_mekanik " +
+            "    FROM sales sa " +
+            "    JOIN tb_spk_mekanik sm ON sm.no_spk = sa.no_spk " +
+            ") " +
+            "SELECT 'TOTAL' AS section, NULL::date AS tanggal, NULL::bigint AS id, NULL::varchar AS label, " +
+            "       (SELECT COUNT(DISTINCT no_spk) FROM sales) AS c1, " +
+            "       (SELECT COALESCE(SUM(jumlah), 0) FROM details WHERE id_sparepart IS NOT NULL)::bigint AS c2, " +
+            "       (SELECT COALESCE(SUM(grand_total), 0) FROM sales)::numeric AS n1, " +
+            "       (SELECT COALESCE(SUM(grand_total), 0) FROM purchases)::numeric AS n2, " +
+            "       NULL::numeric AS n3 " +
+            "UNION ALL " +
+            "SELECT 'DAY', sa.tanggal, NULL, NULL, COUNT(DISTINCT sa.no_spk), " +
+            "       COALESCE((SELECT SUM(d.jumlah) FROM details d " +
+            "                 WHERE d.tanggal = sa.tanggal AND d.id_sparepart IS NOT NULL), 0), " +
+            "       COALESCE(SUM(sa.grand_total), 0), " +
+            "       COALESCE((SELECT SUM(pu.grand_total) FROM purchases pu WHERE pu.tanggal = sa.tanggal), 0), " +
+            "       NULL " +
+            "FROM sales sa " +
+            "GROUP BY sa.tanggal " +
+            "UNION ALL " +
+            "SELECT 'ITEM', d.tanggal, d.id_sparepart, d.nama_jasa, SUM(d.jumlah), NULL, " +
+            "       COALESCE(SUM(d.harga_master * d.jumlah), 0), COALESCE(SUM(d.harga * d.jumlah), 0), NULL " +
+            "FROM details d " +
+            "WHERE d.id_sparepart IS NOT NULL " +
+            "GROUP BY d.tanggal, d.id_sparepart, d.nama_jasa " +
+            "UNION ALL " +
+            "SELECT 'JASA', d.tanggal, d.id_jasa, d.nama_jasa, SUM(d.jumlah), NULL, " +
+            "       COALESCE(SUM(d.harga_master * d.jumlah), 0), COALESCE(SUM(d.harga * d.jumlah), 0), NULL " +
+            "FROM details d " +
+            "WHERE d.id_jasa IS NOT NULL " +
+            "GROUP BY d.tanggal, d.id_jasa, d.nama_jasa " +
+            "UNION ALL " +
+            "(SELECT 'TOP', NULL, d.id_sparepart, d.nama_jasa, SUM(d.jumlah), NULL, " +
+            "        NULL, COALESCE(SUM(d.harga * d.jumlah), 0), NULL " +
+            " FROM details d " +
+            " WHERE d.id_sparepart IS NOT NULL " +
+            " GROUP BY d.id_sparepart, d.nama_jasa " +
+            " ORDER BY SUM(d.jumlah) DESC " +
+            " LIMIT 10) " +
+            "UNION ALL " +
+            "SELECT 'METHOD', sa.tanggal, NULL, sa.metode_pembayaran, NULL, NULL, COALESCE(SUM(sa.grand_total), 0), NULL, NULL " +
+            "FROM sales sa " +
+            "GROUP BY sa.tanggal, sa.metode_pembayaran " +
+            "UNION ALL " +
+            "SELECT 'OUTCOME', pu.tanggal, NULL, pu.jenis_pembelian, NULL, NULL, COALESCE(SUM(pu.grand_total), 0), NULL, NULL " +
+            "FROM purchases pu " +
+            "GROUP BY pu.tanggal, pu.jenis_pembelian " +
+            "UNION ALL " +
+            "SELECT 'MEKANIK', NULL, mk.id_mekanik, k.nama_karyawan, " +
+            "       COUNT(DISTINCT mk.no_spk), COUNT(DISTINCT mk.tanggal), NULL, NULL, NULL " +
+            "FROM mekanik mk " +
+            "JOIN tb_karyawan k ON k.id = mk.id_mekanik " +
+            "GROUP BY mk.id_mekanik, k.nama_karyawan " +
+            "UNION ALL " +
+            "SELECT 'MEKANIK_DAY', mk.tanggal, mk.id_mekanik, k.nama_karyawan, " +
+            "       COUNT(DISTINCT mk.no_spk), NULL, NULL, NULL, NULL " +
+            "FROM mekanik mk " +
+            "JOIN tb_karyawan k ON k.id = mk.id_mekanik " +
+            "GROUP BY mk.tanggal, mk.id_mekanik, k.nama_karyawan " +
+            // Within a section: newest day first, then largest count, then largest amount
+            "ORDER BY 1, 2 DESC NULLS LAST, 5 DESC NULLS LAST, 7 DESC NULLS LAST";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    PriceCatalogService catalog;
+
+    /** The summary of a range, with payment methods and purchase types also kept per day. */
+    private record Report(SummaryDto summary, Map<LocalDate, List<IncomeByMethodDto>> incomeByMethod,
+                          Map<LocalDate, List<OutcomeByTypeDto>> outcomeByType) {
+    }
+
+    public SummaryDto getSummary(LocalDate startDate, LocalDate endDate, String statusPembelianFilter) {
+        return report(startDate, endDate, statusPembelianFilter).summary();
+    }
+
+    /**
+     * The summary of every day of the range, from the same single query, for
+     * {@link SummaryFragmentCache}.
+     */
+    public Map<LocalDate, SummaryDto> getDailySummaries(LocalDate startDate, LocalDate endDate,
+                                                        String statusPembelianFilter) {
+        Report report = report(startDate, endDate, statusPembelianFilter);
+        return SummaryFragmentCache.split(startDate, endDate, report.summary(), report.incomeByMethod(),
+                report.outcomeByType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Report report(LocalDate startDate, LocalDate endDate, String statusPembelianFilter) {
+        // Half-open timestamp range, sargable on the V14 indexes
+        List<Object[]> rows = em.createNativeQuery(REPORT_SQL)
+                .setParameter(1, Timestamp.valueOf(startDate.atStartOfDay()))
+                .setParameter(2, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()))
+                .setParameter(3, parseStatusFilter(statusPembelianFilter))
+                .getResultList();
+
+        SummaryDto dto = new SummaryDto();
+        Map<LocalDate, List<IncomeByMethodDto>> incomeByMethod = new HashMap<>();
+        Map<LocalDate, List<OutcomeByTypeDto>> outcomeByType = new HashMap<>();
+        Map<String, BigDecimal> incomeTotals = new LinkedHashMap<>();
+        Map<String, BigDecimal> outcomeTotals = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String section = row[0].toString();
+            switch (section) {
+                case "TOTAL" -> {
+                    dto.setTotalCustomers(asLong(row[4]));
+                    dto.setTotalItemTerjual(asLong(row[5]));
+                    dto.setTotalIncome(asDecimal(row[6]));
+                    dto.setTotalOutcome(asDecimal(row[7]));
+                    dto.setNetProfit(dto.getTotalIncome().subtract(dto.getTotalOutcome()));
+                }
+                case "DAY" -> {
+                    DailyBreakdownDto day = new DailyBreakdownDto();
+                    day.setDate(row[1].toString());
+                    day.setCustomers(asLong(row[4]));
+                    day.setItemsTerjual(asLong(row[5]));
+                    day.setIncome(asDecimal(row[6]));
+                    day.setOutcome(asDecimal(row[7]));
+                    day.setNet(day.getIncome().subtract(day.getOutcome()));
+                    dto.getDailyBreakdown().add(day);
+                }
+                case "ITEM" -> {
+                    SoldItemDailyDto item = new SoldItemDailyDto();
+                    item.setDate(row[1].toString());
+                    item.setSparepartId(asId(row[2]));
+                    item.setNamaBarang(row[3] != null ? row[3].toString() : "");
+                    item.setTotalQty(asLong(row[4]));
+                    item.setTotalValue(asDecimal(row[6]));
+                    item.setTotalNilaiAdjustment(asDecimal(row[7]));
+                    item.setTotalModal(modal(PriceCatalogService.Type.BARANG, item.getSparepartId(), item.getTotalQty()));
+                    dto.getSoldItemsBreakdown().add(item);
+                }
+                case "JASA" -> {
+                    JasaSummaryDailyDto item = new JasaSummaryDailyDto();
+                    item.setDate(row[1].toString());
+                    item.setJasaId(asId(row[2]));
+                    item.setNamaJasa(row[3] != null ? row[3].toString() : "");
+                    item.setTotalQty(asLong(row[4]));
+                    item.setTotalNilai(asDecimal(row[6]));
+                    item.setTotalNilaiAdjustment(asDecimal(row[7]));
+                    item.setTotalModal(modal(PriceCatalogService.Type.JASA, item.getJasaId(), item.getTotalQty()));
+                    dto.getJasaSummaryBreakdown().add(item);
+                }
+                case "TOP" -> {
+                    TopItemDto item = new TopItemDto();
+                    item.setSparepartId(asId(row[2]));
+                    item.setNamaBarang(row[3] != null ? row[3].toString() : "");
+                    item.setTotalQty(asLong(row[4]));
+                    item.setTotalValue(asDecimal(row[7]));
+                    dto.getTopItems().add(item);
+                }
+                case "METHOD" -> {
+                    IncomeByMethodDto item = new IncomeByMethodDto();
+                    item.setLabel(row[3].toString());
+                    item.setAmount(asDecimal(row[6]));
+                    incomeByMethod.computeIfAbsent(LocalDate.parse(row[1].toString()), day -> new ArrayList<>())
+                            .add(item);
+                    incomeTotals.merge(item.getLabel(), item.getAmount(), BigDecimal::add);
+                }
+                case "OUTCOME" -> {
+                    OutcomeByTypeDto item = new OutcomeByTypeDto();
+                    item.setLabel(row[3].toString());
+                    item.setAmount(asDecimal(row[6]));
+                    outcomeByType.computeIfAbsent(LocalDate.parse(row[1].toString()), day -> new ArrayList<>())
+                            .add(item);
+                    outcomeTotals.merge(item.getLabel(), item.getAmount(), BigDecimal::add);
+                }
+                case "MEKANIK" -> {
+                    MekanikSummaryDto item = new MekanikSummaryDto();
+                    item.setMekanikId(asId(row[2]));
+                    item.setNamaMekanik(row[3].toString());
+                    item.setTotalCustomers(asLong(row[4]));
+                    item.setTotalHari(asLong(row[5]));
+                    item.setRataPerHari(item.getTotalHari() > 0
+                            ? BigDecimal.valueOf((double) item.getTotalCustomers() / item.getTotalHari())
+                                .setScale(1, RoundingMode.HALF_UP).doubleValue()
+                            : 0);
+                    dto.getMekanikSummary().add(item);
+                }
+                case "MEKANIK_DAY" -> {
+                    MekanikDailyDto item = new MekanikDailyDto();
+                    item.setDate(row[1].toString());
+                    item.setMekanikId(asId(row[2]));
+                    item.setNamaMekanik(row[3].toString());
+                    item.setTotalCustomers(asLong(row[4]));
+                    dto.getMekanikBreakdown().add(item);
+                }
+                default -> throw new IllegalStateException("Unknown summary section: " + section);
+            }
+        }
+
+        // Payment methods and purchase types of the whole range, largest amount first
+        incomeTotals.forEach((label, amount) -> {
+            IncomeByMethodDto item = new IncomeByMethodDto();
+            item.setLabel(label);
+            item.setAmount(amount);
+            dto.getIncomeByMethod().add(item);
+        });
+        dto.getIncomeByMethod().sort(Comparator.comparing(IncomeByMethodDto::getAmount).reversed());
+        outcomeTotals.forEach((label, amount) -> {
+            OutcomeByTypeDto item = new OutcomeByTypeDto();
+            item.setLabel(label);
+            item.setAmount(amount);
+            dto.getOutcomeByType().add(item);
+        });
+        dto.getOutcomeByType().sort(Comparator.comparing(OutcomeByTypeDto::getAmount).reversed());
+        return new Report(dto, incomeByMethod, outcomeByType);
+    }
+
+    // ── Helper ────────────────────────────────────────────────────────────
+
+    /**
+     * Cost of {@code qty} units: harga_beli for barang, harga_jasa for jasa. Rows are grouped
+     * by master id, so this equals summing the unit cost over the detail lines.
+     */
+    private BigDecimal modal(PriceCatalogService.Type type, Long id, long qty) {
+        PriceCatalogService.Item item = catalog.get(type, id);
+        BigDecimal unitCost = item == null ? null
+                : type == PriceCatalogService.Type.JASA ? item.hargaJual() : item.hargaBeli();
+        return unitCost == null ? BigDecimal.ZERO : unitCost.multiply(BigDecimal.valueOf(qty));
+    }
+
+    /**
+     * Splits the comma separated status filter into the array bound to {@code ?3};
+     * an empty array means no filter.
+     */
+    static String[] parseStatusFilter(String statusFilter) {
+        if (statusFilter == null || statusFilter.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(statusFilter.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static long asLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    private static Long asId(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
+    private static BigDecimal asDecimal(Object value) {
+        return value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+    }
+}
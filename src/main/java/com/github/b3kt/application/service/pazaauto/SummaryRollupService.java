@@ -0,0 +1,644 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.DailyBreakdownDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.IncomeByMethodDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.JasaSummaryDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikSummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.OutcomeByTypeDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.SoldItemDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.TopItemDto;
+import com.github.b3kt.application.helper.CustomerSketch;
+import com.github.b3kt.infrastructure.persistence.ParallelReadExecutor;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.b3kt.infrastructure.persistence.ParallelReadExecutor.await;
+
+/**
+ * Maintains and reads the daily rekap tables (see V13) behind the Owner summary.
+ * <p>
+ * Every write to tb_penjualan or tb_pembelian calls one of the {@code refresh*} methods
+ * in the same transaction, which recomputes the rekap rows of the affected day from
+ * the raw rows and evicts the day from {@link SummaryFragmentCache}. {@link #getSummary}
+ * then only reads per-day aggregates. With {@code app.features.summary-rollup.enabled=false}
+ * the rekap tables are neither read nor written, and a refresh only evicts the day.
+ */
+@Slf4j
+@ApplicationScoped
+public class SummaryRollupService {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ParallelReadExecutor reads;
+
+    @Inject
+    SummaryFragmentCache fragmentCache;
+
+    // Same expression as fn_customer_key (V16), inlined so the exact count also works without the rekap schema
+    private static final String CUSTOMER_KEY =
+            "COALESCE(NULLIF(upper(replace(s.nopol, ' ', '')), ''), 'SPK:' || s.no_spk)";
+
+    // ?1 start date, ?2 exclusive end date
+    static final String UNIQUE_CUSTOMERS_SQL =
+            "SELECT COUNT(DISTINCT " + CUSTOMER_KEY + ") " +
+            "FROM tb_penjualan p " +
+            "JOIN tb_spk s ON s.no_spk = p.no_spk " +
+            "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2";
+
+    static final String UNIQUE_CUSTOMERS_BY_MEKANIK_SQL =
+            "SELECT sm.id_mekanik, COUNT(DISTINCT " + CUSTOMER_KEY + ") " +
+            "FROM tb_penjualan p " +
+            "JOIN tb_spk s ON s.no_spk = p.no_spk " +
+            "JOIN tb_spk_mekanik sm ON sm.no_spk = p.no_spk " +
+            "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 " +
+            "GROUP BY sm.id_mekanik";
+
+    @ConfigProperty(name = "app.summary.unique-customers.exact-max-days", defaultValue = "31")
+    long exactMaxDays;
+
+    @ConfigProperty(name = "app.features.summary-rollup.enabled", defaultValue = "true")
+    boolean rollupEnabled;
+
+    // Zone the sale timestamps are written in, so a sale lands on the day PostgreSQL's DATE() gives it
+    @ConfigProperty(name = "app.timezone")
+    Optional<ZoneId> zone;
+
+    // ── Maintenance ───────────────────────────────────────────────────────
+
+    @Transactional
+    public void refreshPenjualan(LocalDate tanggal) {
+        if (tanggal == null) {
+            return;
+        }
+        if (!rollupEnabled) {
+            fragmentCache.invalidateDay(tanggal);
+            return;
+        }
+        em.flush();
+        Number rows = (Number) em.createNativeQuery("SELECT fn_refresh_rekap_harian_penjualan(?1)")
+                .setParameter(1, Date.valueOf(tanggal))
+                .getSingleResult();
+        Number sketches = (Number) em.createNativeQuery("SELECT fn_refresh_rekap_harian_sketch(?1)")
+                .setParameter(1, Date.valueOf(tanggal))
+                .getSingleResult();
+        log.debug("Rekap harian penjualan {} refreshed: {} rows, {} sketches", tanggal, rows, sketches);
+        fragmentCache.invalidateDay(tanggal);
+    }
+
+    @Transactional
+    public void refreshPenjualan(java.util.Date tanggalJamPenjualan) {
+        refreshPenjualan(toLocalDate(tanggalJamPenjualan));
+    }
+
+    /**
+     * Refreshes the rekap of the day the SPK was sold, if it has been sold at all.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public void refreshPenjualanBySpk(String noSpk) {
+        if (noSpk == null) {
+            return;
+        }
+        em.flush();
+        List<Object> dates = em.createNativeQuery(
+                        "SELECT DISTINCT DATE(p.tgl_jam_penjualan) FROM tb_penjualan p " +
+                        "WHERE p.no_spk = ?1 AND p.tgl_jam_penjualan IS NOT NULL")
+                .setParameter(1, noSpk)
+                .getResultList();
+        for (Object date : dates) {
+            refreshPenjualan(LocalDate.parse(date.toString()));
+        }
+    }
+
+    @Transactional
+    public void refreshPembelian(LocalDate tanggal) {
+        if (tanggal == null) {
+            return;
+        }
+        if (!rollupEnabled) {
+            fragmentCache.invalidateDay(tanggal);
+            return;
+        }
+        em.flush();
+        Number rows = (Number) em.createNativeQuery("SELECT fn_refresh_rekap_harian_pembelian(?1)")
+                .setParameter(1, Date.valueOf(tanggal))
+                .getSingleResult();
+        log.debug("Rekap harian pembelian {} refreshed: {}", tanggal, rows);
+        fragmentCache.invalidateDay(tanggal);
+    }
+
+    @Transactional
+    public void refreshPembelian(LocalDateTime tanggalPembelian) {
+        refreshPembelian(tanggalPembelian == null ? null : tanggalPembelian.toLocalDate());
+    }
+
+    /**
+     * Recomputes every day in the range, e.g. after master prices were corrected.
+     *
+     * @return number of days refreshed
+     */
+    @Transactional
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must not be before startDate");
+        }
+        int days = 0;
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            refreshPenjualan(day);
+            refreshPembelian(day);
+            days++;
+        }
+        return days;
+    }
+
+    // ── Summary from rekap tables ─────────────────────────────────────────
+
+    /**
+     * @param parallel run the independent reads concurrently through {@link ParallelReadExecutor}
+     */
+    public SummaryDto getSummary(Date startDate, Date endDate, String statusPembelianFilter, boolean parallel) {
+        List<String> statuses = parseStatusFilter(statusPembelianFilter);
+
+        CompletableFuture<Object[]> totals = reads.submit(parallel, () -> queryTotals(startDate, endDate));
+        CompletableFuture<BigDecimal> totalOutcome = reads.submit(parallel,
+                () -> queryTotalOutcome(startDate, endDate, statuses));
+        CompletableFuture<List<DailyBreakdownDto>> dailyBreakdown = reads.submit(parallel,
+                () -> buildDailyBreakdown(startDate, endDate, statuses));
+        CompletableFuture<List<SoldItemDailyDto>> soldItems = reads.submit(parallel,
+                () -> querySoldItemsPerDay(startDate, endDate));
+        CompletableFuture<List<JasaSummaryDailyDto>> jasaSummary = reads.submit(parallel,
+                () -> queryJasaSummaryPerDay(startDate, endDate));
+        CompletableFuture<List<TopItemDto>> topItems = reads.submit(parallel, () -> queryTopItems(startDate, endDate));
+        CompletableFuture<List<IncomeByMethodDto>> incomeByMethod = reads.submit(parallel,
+                () -> queryIncomeByMethod(startDate, endDate));
+        CompletableFuture<List<OutcomeByTypeDto>> outcomeByType = reads.submit(parallel,
+                () -> queryOutcomeByType(startDate, endDate, statuses));
+        CompletableFuture<List<MekanikSummaryDto>> mekanikSummary = reads.submit(parallel,
+                () -> queryMekanikSummary(startDate, endDate));
+        CompletableFuture<List<MekanikDailyDto>> mekanikBreakdown = reads.submit(parallel,
+                () -> queryMekanikPerDay(startDate, endDate));
+
+        SummaryDto dto = new SummaryDto();
+
+        Object[] headline = await(totals);
+        dto.setTotalCustomers(((Number) headline[0]).longValue());
+        dto.setTotalIncome(new BigDecimal(headline[1].toString()));
+        dto.setTotalItemTerjual(((Number) headline[2]).longValue());
+        dto.setTotalOutcome(await(totalOutcome));
+        dto.setNetProfit(dto.getTotalIncome().subtract(dto.getTotalOutcome()));
+
+        dto.setDailyBreakdown(await(dailyBreakdown));
+        dto.setSoldItemsBreakdown(await(soldItems));
+        dto.setJasaSummaryBreakdown(await(jasaSummary));
+        dto.setTopItems(await(topItems));
+        dto.setIncomeByMethod(await(incomeByMethod));
+        dto.setOutcomeByType(await(outcomeByType));
+        dto.setMekanikSummary(await(mekanikSummary));
+        dto.setMekanikBreakdown(await(mekanikBreakdown));
+
+        return dto;
+    }
+
+    /**
+     * The summary of every day of the range, read with one query per breakdown for the whole
+     * range, for {@link SummaryFragmentCache}.
+     *
+     * @param parallel run the independent reads concurrently through {@link ParallelReadExecutor}
+     */
+    public Map<LocalDate, SummaryDto> getDailySummaries(LocalDate startDate, LocalDate endDate,
+                                                        String statusPembelianFilter, boolean parallel) {
+        Date start = Date.valueOf(startDate);
+        Date end = Date.valueOf(endDate);
+        List<String> statuses = parseStatusFilter(statusPembelianFilter);
+
+        CompletableFuture<List<DailyBreakdownDto>> dailyBreakdown = reads.submit(parallel,
+                () -> buildDailyBreakdown(start, end, statuses));
+        CompletableFuture<List<SoldItemDailyDto>> soldItems = reads.submit(parallel,
+                () -> querySoldItemsPerDay(start, end));
+        CompletableFuture<List<JasaSummaryDailyDto>> jasaSummary = reads.submit(parallel,
+                () -> queryJasaSummaryPerDay(start, end));
+        CompletableFuture<List<MekanikDailyDto>> mekanikBreakdown = reads.submit(parallel,
+                () -> queryMekanikPerDay(start, end));
+        CompletableFuture<Map<LocalDate, List<IncomeByMethodDto>>> incomeByMethod = reads.submit(parallel,
+                () -> queryIncomeByMethodPerDay(start, end));
+        CompletableFuture<Map<LocalDate, List<OutcomeByTypeDto>>> outcomeByType = reads.submit(parallel,
+                () -> queryOutcomeByTypePerDay(start, end, statuses));
+
+        SummaryDto range = new SummaryDto();
+        range.setDailyBreakdown(await(dailyBreakdown));
+        range.setSoldItemsBreakdown(await(soldItems));
+        range.setJasaSummaryBreakdown(await(jasaSummary));
+        range.setMekanikBreakdown(await(mekanikBreakdown));
+        return SummaryFragmentCache.split(startDate, endDate, range, await(incomeByMethod), await(outcomeByType));
+    }
+
+    private Object[] queryTotals(Date startDate, Date endDate) {
+        String sql = "SELECT COALESCE(SUM(r.total_customers), 0), " +
+                "COALESCE(SUM(r.total_income), 0), " +
+                "COALESCE(SUM(r.total_item_terjual), 0) " +
+                "FROM tb_rekap_harian r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2";
+        return (Object[]) em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getSingleResult();
+    }
+
+    private BigDecimal queryTotalOutcome(Date startDate, Date endDate, List<String> statuses) {
+        String sql = "SELECT COALESCE(SUM(r.total), 0) " +
+                "FROM tb_rekap_harian_pembelian r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2" +
+                statusClause(statuses);
+        Number result = (Number) bindStatuses(em.createNativeQuery(sql), startDate, endDate, statuses)
+                .getSingleResult();
+        return result == null ? BigDecimal.ZERO : new BigDecimal(result.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DailyBreakdownDto> buildDailyBreakdown(Date startDate, Date endDate, List<String> statuses) {
+        String incomeSql = "SELECT r.tanggal, r.total_customers, r.total_income, r.total_item_terjual " +
+                "FROM tb_rekap_harian r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "ORDER BY r.tanggal DESC";
+        List<Object[]> incomeRows = em.createNativeQuery(incomeSql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        String outcomeSql = "SELECT r.tanggal, COALESCE(SUM(r.total), 0) " +
+                "FROM tb_rekap_harian_pembelian r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2" +
+                statusClause(statuses) +
+                " GROUP BY r.tanggal";
+        List<Object[]> outcomeRows = bindStatuses(em.createNativeQuery(outcomeSql), startDate, endDate, statuses)
+                .getResultList();
+
+        Map<String, BigDecimal> outcomeByDate = new LinkedHashMap<>();
+        for (Object[] row : outcomeRows) {
+            outcomeByDate.put(row[0].toString(), new BigDecimal(row[1].toString()));
+        }
+
+        List<DailyBreakdownDto> result = new ArrayList<>();
+        for (Object[] row : incomeRows) {
+            DailyBreakdownDto day = new DailyBreakdownDto();
+            day.setDate(row[0].toString());
+            day.setCustomers(((Number) row[1]).longValue());
+            day.setIncome(new BigDecimal(row[2].toString()));
+            day.setItemsTerjual(((Number) row[3]).longValue());
+            BigDecimal outcome = outcomeByDate.getOrDefault(day.getDate(), BigDecimal.ZERO);
+            day.setOutcome(outcome);
+            day.setNet(day.getIncome().subtract(outcome));
+            result.add(day);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SoldItemDailyDto> querySoldItemsPerDay(Date startDate, Date endDate) {
+        String sql = "SELECT r.tanggal, r.id_sparepart, r.nama_barang, r.total_qty, " +
+                "r.total_value, r.total_nilai_adjustment, r.total_modal " +
+                "FROM tb_rekap_harian_barang r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "ORDER BY r.tanggal DESC, r.total_qty DESC";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        List<SoldItemDailyDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            SoldItemDailyDto item = new SoldItemDailyDto();
+            item.setDate(row[0].toString());
+            item.setSparepartId(((Number) row[1]).longValue());
+            item.setNamaBarang(row[2].toString());
+            item.setTotalQty(((Number) row[3]).longValue());
+            item.setTotalValue(new BigDecimal(row[4].toString()));
+            item.setTotalNilaiAdjustment(new BigDecimal(row[5].toString()));
+            item.setTotalModal(new BigDecimal(row[6].toString()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<JasaSummaryDailyDto> queryJasaSummaryPerDay(Date startDate, Date endDate) {
+        String sql = "SELECT r.tanggal, r.id_jasa, r.nama_jasa, r.total_qty, " +
+                "r.total_nilai, r.total_nilai_adjustment, r.total_modal " +
+                "FROM tb_rekap_harian_jasa r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "ORDER BY r.tanggal DESC, r.total_qty DESC";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        List<JasaSummaryDailyDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            JasaSummaryDailyDto item = new JasaSummaryDailyDto();
+            item.setDate(row[0].toString());
+            item.setJasaId(((Number) row[1]).longValue());
+            item.setNamaJasa(row[2].toString());
+            item.setTotalQty(((Number) row[3]).longValue());
+            item.setTotalNilai(new BigDecimal(row[4].toString()));
+            item.setTotalNilaiAdjustment(new BigDecimal(row[5].toString()));
+            item.setTotalModal(new BigDecimal(row[6].toString()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TopItemDto> queryTopItems(Date startDate, Date endDate) {
+        String sql = "SELECT r.id_sparepart, r.nama_barang, " +
+                "SUM(r.total_qty) AS totalQty, " +
+                "COALESCE(SUM(r.total_nilai_adjustment), 0) AS totalValue " +
+                "FROM tb_rekap_harian_barang r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "GROUP BY r.id_sparepart, r.nama_barang " +
+                "ORDER BY totalQty DESC " +
+                "LIMIT 10";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        List<TopItemDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            TopItemDto item = new TopItemDto();
+            item.setSparepartId(((Number) row[0]).longValue());
+            item.setNamaBarang(row[1].toString());
+            item.setTotalQty(((Number) row[2]).longValue());
+            item.setTotalValue(new BigDecimal(row[3].toString()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<IncomeByMethodDto> queryIncomeByMethod(Date startDate, Date endDate) {
+        String sql = "SELECT r.metode_pembayaran, COALESCE(SUM(r.total), 0) AS amount " +
+                "FROM tb_rekap_harian_metode_bayar r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "GROUP BY r.metode_pembayaran " +
+                "ORDER BY amount DESC";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        List<IncomeByMethodDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            IncomeByMethodDto item = new IncomeByMethodDto();
+            item.setLabel(row[0].toString());
+            item.setAmount(new BigDecimal(row[1].toString()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutcomeByTypeDto> queryOutcomeByType(Date startDate, Date endDate, List<String> statuses) {
+        String sql = "SELECT r.jenis_pembelian, COALESCE(SUM(r.total), 0) AS amount " +
+                "FROM tb_rekap_harian_pembelian r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2" +
+                statusClause(statuses) +
+                " GROUP BY r.jenis_pembelian ORDER BY amount DESC";
+        List<Object[]> rows = bindStatuses(em.createNativeQuery(sql), startDate, endDate, statuses)
+                .getResultList();
+
+        List<OutcomeByTypeDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            OutcomeByTypeDto item = new OutcomeByTypeDto();
+            item.setLabel(row[0].toString());
+            item.setAmount(new BigDecimal(row[1].toString()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<LocalDate, List<IncomeByMethodDto>> queryIncomeByMethodPerDay(Date startDate, Date endDate) {
+        String sql = "SELECT r.tanggal, r.metode_pembayaran, COALESCE(SUM(r.total), 0) " +
+                "FROM tb_rekap_harian_metode_bayar r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "GROUP BY r.tanggal, r.metode_pembayaran";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        Map<LocalDate, List<IncomeByMethodDto>> result = new HashMap<>();
+        for (Object[] row : rows) {
+            IncomeByMethodDto item = new IncomeByMethodDto();
+            item.setLabel(row[1].toString());
+            item.setAmount(new BigDecimal(row[2].toString()));
+            result.computeIfAbsent(LocalDate.parse(row[0].toString()), day -> new ArrayList<>()).add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<LocalDate, List<OutcomeByTypeDto>> queryOutcomeByTypePerDay(Date startDate, Date endDate,
+                                                                            List<String> statuses) {
+        String sql = "SELECT r.tanggal, r.jenis_pembelian, COALESCE(SUM(r.total), 0) " +
+                "FROM tb_rekap_harian_pembelian r " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2" +
+                statusClause(statuses) +
+                " GROUP BY r.tanggal, r.jenis_pembelian";
+        List<Object[]> rows = bindStatuses(em.createNativeQuery(sql), startDate, endDate, statuses)
+                .getResultList();
+
+        Map<LocalDate, List<OutcomeByTypeDto>> result = new HashMap<>();
+        for (Object[] row : rows) {
+            OutcomeByTypeDto item = new OutcomeByTypeDto();
+            item.setLabel(row[1].toString());
+            item.setAmount(new BigDecimal(row[2].toString()));
+            result.computeIfAbsent(LocalDate.parse(row[0].toString()), day -> new ArrayList<>()).add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MekanikSummaryDto> queryMekanikSummary(Date startDate, Date endDate) {
+        String sql = "SELECT r.id_mekanik, k.nama_karyawan, " +
+                "SUM(r.total_customers) AS totalCustomers, " +
+                "COUNT(r.tanggal) AS totalHari " +
+                "FROM tb_rekap_harian_mekanik r " +
+                "JOIN tb_karyawan k ON k.id = r.id_mekanik " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "GROUP BY r.id_mekanik, k.nama_karyawan " +
+                "ORDER BY totalCustomers DESC";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        List<MekanikSummaryDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            MekanikSummaryDto item = new MekanikSummaryDto();
+            item.setMekanikId(((Number) row[0]).longValue());
+            item.setNamaMekanik(row[1].toString());
+            item.setTotalCustomers(((Number) row[2]).longValue());
+            item.setTotalHari(((Number) row[3]).longValue());
+            item.setRataPerHari(item.getTotalHari() > 0
+                    ? BigDecimal.valueOf((double) item.getTotalCustomers() / item.getTotalHari())
+                        .setScale(1, RoundingMode.HALF_UP).doubleValue()
+                    : 0);
+            result.add(item);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<MekanikDailyDto> queryMekanikPerDay(Date startDate, Date endDate) {
+        String sql = "SELECT r.tanggal, r.id_mekanik, k.nama_karyawan, r.total_customers " +
+                "FROM tb_rekap_harian_mekanik r " +
+                "JOIN tb_karyawan k ON k.id = r.id_mekanik " +
+                "WHERE r.tanggal BETWEEN ?1 AND ?2 " +
+                "ORDER BY r.tanggal DESC, r.total_customers DESC";
+        List<Object[]> rows = em.createNativeQuery(sql)
+                .setParameter(1, startDate)
+                .setParameter(2, endDate)
+                .getResultList();
+
+        List<MekanikDailyDto> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            MekanikDailyDto item = new MekanikDailyDto();
+            item.setDate(row[0].toString());
+            item.setMekanikId(((Number) row[1]).longValue());
+            item.setNamaMekanik(row[2].toString());
+            item.setTotalCustomers(((Number) row[3]).longValue());
+            result.add(item);
+        }
+        return result;
+    }
+
+    // ── Distinct customers ────────────────────────────────────────────────
+
+    /**
+     * Distinct customers (vehicles) in total and per mechanic over an inclusive range.
+     *
+     * @param estimated {@code true} when the counts come from the V16 sketches
+     */
+    public record UniqueCustomers(long total, Map<Long, Long> byMekanik, boolean estimated) {
+    }
+
+    /**
+     * Counts distinct customers exactly for ranges up to
+     * {@code app.summary.unique-customers.exact-max-days}, and by unioning the daily
+     * sketches beyond that, which reads one row per day instead of every sale.
+     *
+     * @param useSketches {@code false} forces the exact count, e.g. when the rekap tables are not in use
+     */
+    public UniqueCustomers countUniqueCustomers(LocalDate startDate, LocalDate endDate, boolean useSketches) {
+        if (!useSketches || ChronoUnit.DAYS.between(startDate, endDate) < exactMaxDays) {
+            return countUniqueCustomersExact(startDate, endDate);
+        }
+        return countUniqueCustomersFromSketches(startDate, endDate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private UniqueCustomers countUniqueCustomersExact(LocalDate startDate, LocalDate endDate) {
+        Date start = Date.valueOf(startDate);
+        Date end = Date.valueOf(endDate.plusDays(1));
+        Number total = (Number) em.createNativeQuery(UNIQUE_CUSTOMERS_SQL)
+                .setParameter(1, start)
+                .setParameter(2, end)
+                .getSingleResult();
+        List<Object[]> rows = em.createNativeQuery(UNIQUE_CUSTOMERS_BY_MEKANIK_SQL)
+                .setParameter(1, start)
+                .setParameter(2, end)
+                .getResultList();
+
+        Map<Long, Long> byMekanik = new HashMap<>();
+        for (Object[] row : rows) {
+            byMekanik.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return new UniqueCustomers(total.longValue(), byMekanik, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private UniqueCustomers countUniqueCustomersFromSketches(LocalDate startDate, LocalDate endDate) {
+        List<byte[]> days = em.createNativeQuery(
+                        "SELECT r.customer_sketch FROM tb_rekap_harian r " +
+                        "WHERE r.tanggal BETWEEN ?1 AND ?2 AND r.customer_sketch IS NOT NULL")
+                .setParameter(1, Date.valueOf(startDate))
+                .setParameter(2, Date.valueOf(endDate))
+                .getResultList();
+        CustomerSketch total = new CustomerSketch();
+        days.forEach(total::union);
+
+        List<Object[]> rows = em.createNativeQuery(
+                        "SELECT r.id_mekanik, r.customer_sketch FROM tb_rekap_harian_mekanik r " +
+                        "WHERE r.tanggal BETWEEN ?1 AND ?2 AND r.customer_sketch IS NOT NULL")
+                .setParameter(1, Date.valueOf(startDate))
+                .setParameter(2, Date.valueOf(endDate))
+                .getResultList();
+        Map<Long, CustomerSketch> sketches = new HashMap<>();
+        for (Object[] row : rows) {
+            sketches.computeIfAbsent(((Number) row[0]).longValue(), id -> new CustomerSketch())
+                    .union((byte[]) row[1]);
+        }
+
+        Map<Long, Long> byMekanik = new HashMap<>();
+        sketches.forEach((id, sketch) -> byMekanik.put(id, sketch.estimate()));
+        return new UniqueCustomers(total.estimate(), byMekanik, true);
+    }
+
+    // ── Helper ────────────────────────────────────────────────────────────
+
+    private static List<String> parseStatusFilter(String statusFilter) {
+        if (statusFilter == null || statusFilter.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(statusFilter.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    private static String statusClause(List<String> statuses) {
+        return statuses.isEmpty() ? "" : " AND r.status_pembayaran IN (?3)";
+    }
+
+    private static Query bindStatuses(Query query, Date startDate, Date endDate, List<String> statuses) {
+        query.setParameter(1, startDate).setParameter(2, endDate);
+        if (!statuses.isEmpty()) {
+            query.setParameter(3, statuses);
+        }
+        return query;
+    }
+
+    LocalDate toLocalDate(java.util.Date date) {
+        if (date == null) {
+            return null;
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(zone.orElseGet(ZoneId::systemDefault)).toLocalDate();
+    }
+}
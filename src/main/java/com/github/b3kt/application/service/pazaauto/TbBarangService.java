@@ -2,23 +2,38 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.helper.SearchTerm;
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbBarangEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbBarangRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
 
 import java.util.List;
 
 @ApplicationScoped
 public class TbBarangService extends AbstractCrudService<TbBarangEntity, Long> {
 
+    private static final String[] SEARCH_FIELDS = {"kodeBarang", "namaBarang"};
+
     @Inject
     TbBarangRepository repository;
 
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    AutocompleteService autocomplete;
+
+    @Inject
+    StockLedgerService stockLedger;
+
     @Override
     protected PanacheRepositoryBase<TbBarangEntity, Long> getRepository() {
         return repository;
@@ -29,6 +44,45 @@ public class TbBarangService extends AbstractCrudService<TbBarangEntity, Long> {
         entity.setId(id);
     }
 
+    @Override
+    @Transactional
+    public TbBarangEntity create(TbBarangEntity entity) {
+        TbBarangEntity created = super.create(entity);
+        catalog.changed(PriceCatalogService.Type.BARANG);
+        autocomplete.changed(created);
+        stockLedger.record(ItemType.BARANG, StockLedgerService.SOURCE_OPENING, null,
+                created.getId(), stokOf(created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public TbBarangEntity update(Long id, TbBarangEntity entity) {
+        // Loaded into the persistence context, so super.update does not query it again; locked,
+        // so no reservation can be taken between the check below and the commit
+        TbBarangEntity current = repository.findById(id, LockModeType.PESSIMISTIC_WRITE);
+        int previousStok = current != null ? stokOf(current) : 0;
+        int reserved = current != null && current.getStokReserved() != null ? current.getStokReserved() : 0;
+        if (stokOf(entity) < reserved) {
+            throw new IllegalArgumentException("Stok of barang " + id + " cannot be set below the "
+                    + reserved + " reserved for SPKs in progress");
+        }
+        TbBarangEntity updated = super.update(id, entity);
+        catalog.changed(PriceCatalogService.Type.BARANG);
+        autocomplete.changed(updated);
+        stockLedger.record(ItemType.BARANG, StockLedgerService.SOURCE_ADJUSTMENT, null,
+                id, stokOf(updated) - previousStok);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        super.delete(id);
+        catalog.changed(PriceCatalogService.Type.BARANG);
+        autocomplete.removed(AutocompleteService.Type.BARANG, id);
+    }
+
     @Override
     public PageResponse<TbBarangEntity> findPaginated(PageRequest pageRequest) {
         PanacheQuery<TbBarangEntity> query;
@@ -39,11 +93,9 @@ public class TbBarangService extends AbstractCrudService<TbBarangEntity, Long> {
         int paramIndex = 1;
 
         // Apply search filter if specified
-        if (pageRequest.getSearch() != null && !pageRequest.getSearch().isEmpty()) {
-            String searchPattern = "%" + pageRequest.getSearch().toLowerCase() + "%";
-            queryString += " and (lower(kodeBarang) like ?" + paramIndex + " or lower(namaBarang) like ?" + paramIndex
-                    + ")";
-            params = new Object[] { searchPattern };
+        if (SearchTerm.isPresent(pageRequest.getSearch())) {
+            queryString += " and " + SearchTerm.matchClause("?" + paramIndex, SEARCH_FIELDS);
+            params = new Object[] { SearchTerm.pattern(pageRequest.getSearch()) };
             paramIndex++;
         }
 
@@ -68,17 +120,20 @@ public class TbBarangService extends AbstractCrudService<TbBarangEntity, Long> {
         }
 
         // Create query
-        if (params.length > 0) {
+        if (SearchTerm.isRanked(pageRequest)) {
+            query = repository.find(queryString + SearchTerm.relevanceOrder("?1", SEARCH_FIELDS), params);
+        } else if (params.length > 0) {
             query = repository.find(queryString, params);
         } else {
             query = repository.find(queryString);
         }
 
         // Apply sorting if specified
-        if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
+        String sortBy = SearchTerm.sortColumn(pageRequest);
+        if (sortBy != null) {
             Sort sort = pageRequest.isDescending()
-                    ? Sort.descending(pageRequest.getSortBy())
-                    : Sort.ascending(pageRequest.getSortBy());
+                    ? Sort.descending(sortBy)
+                    : Sort.ascending(sortBy);
 
             // Re-apply query with sorting
             if (params.length > 0) {
@@ -88,19 +143,18 @@ public class TbBarangService extends AbstractCrudService<TbBarangEntity, Long> {
             }
         }
 
-        // Get total count
-        long totalCount = query.count();
-
-        // Apply pagination
-        List<TbBarangEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage())).list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbBarangEntity.class,
+                PageCounter.filter(queryString, params));
     }
     public List<TbBarangEntity> search(String search) {
-        if (search == null || search.isEmpty()) {
+        if (!SearchTerm.isPresent(search)) {
             return repository.listAll();
         }
-        String searchPattern = "%" + search.toLowerCase() + "%";
-        return repository.find("lower(kodeBarang) like ?1 or lower(namaBarang) like ?1", Sort.by("namaBarang"), searchPattern).list();
+        return repository.find(SearchTerm.matchClause("?1", SEARCH_FIELDS), Sort.by("namaBarang"),
+                SearchTerm.pattern(search)).list();
+    }
+
+    private static int stokOf(TbBarangEntity barang) {
+        return barang.getStok() != null ? barang.getStok() : 0;
     }
 }
@@ -1,9 +1,9 @@
 package com.github.b3kt.application.service.pazaauto;
 
-import java.util.List;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbJasaEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbJasaRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
@@ -12,6 +12,7 @@ import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 
 @ApplicationScoped
 public class TbJasaService extends AbstractCrudService<TbJasaEntity, Long> {
@@ -19,6 +20,12 @@ public class TbJasaService extends AbstractCrudService<TbJasaEntity, Long> {
     @Inject
     TbJasaRepository repository;
 
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    AutocompleteService autocomplete;
+
     @Override
     protected PanacheRepositoryBase<TbJasaEntity, Long> getRepository() {
         return repository;
@@ -29,6 +36,32 @@ public class TbJasaService extends AbstractCrudService<TbJasaEntity, Long> {
         entity.setId(id);
     }
 
+    @Override
+    @Transactional
+    public TbJasaEntity create(TbJasaEntity entity) {
+        TbJasaEntity created = super.create(entity);
+        catalog.changed(PriceCatalogService.Type.JASA);
+        autocomplete.changed(created);
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public TbJasaEntity update(Long id, TbJasaEntity entity) {
+        TbJasaEntity updated = super.update(id, entity);
+        catalog.changed(PriceCatalogService.Type.JASA);
+        autocomplete.changed(updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        super.delete(id);
+        catalog.changed(PriceCatalogService.Type.JASA);
+        autocomplete.removed(AutocompleteService.Type.JASA, id);
+    }
+
     @Override
     public PageResponse<TbJasaEntity> findPaginated(PageRequest pageRequest) {
         PanacheQuery<TbJasaEntity> query;
@@ -61,9 +94,7 @@ public class TbJasaService extends AbstractCrudService<TbJasaEntity, Long> {
             }
         }
 
-        long totalCount = query.count();
-        List<TbJasaEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage())).list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbJasaEntity.class,
+                PageCounter.searchFilter("lower(namaJasa) like ?1", pageRequest.getSearch()));
     }
 }
@@ -2,6 +2,7 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKaryawanPosisiEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKaryawanPosisiRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
@@ -11,7 +12,6 @@ import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
-import java.util.List;
 
 @ApplicationScoped
 public class TbKaryawanPosisiService extends AbstractCrudService<TbKaryawanPosisiEntity, Long> {
@@ -59,10 +59,7 @@ public class TbKaryawanPosisiService extends AbstractCrudService<TbKaryawanPosis
             }
         }
 
-        long totalCount = query.count();
-        List<TbKaryawanPosisiEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbKaryawanPosisiEntity.class,
+                PageCounter.searchFilter("lower(namaPosisi) like ?1", pageRequest.getSearch()));
     }
 }
@@ -2,6 +2,7 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKaryawanEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKaryawanPosisiRepository;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKaryawanRepository;
@@ -125,12 +126,10 @@ public class TbKaryawanService extends AbstractCrudService<TbKaryawanEntity, Lon
             }
         }
 
-        long totalCount = query.count();
-        List<TbKaryawanEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-        rows.forEach(this::setRelationships);
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        PageResponse<TbKaryawanEntity> page = pageCounter.page(query, pageRequest, TbKaryawanEntity.class,
+                PageCounter.searchFilter("lower(namaKaryawan) like ?1 or lower(email) like ?1", pageRequest.getSearch()));
+        page.getRows().forEach(this::setRelationships);
+        return page;
     }
 
     public List<TbKaryawanEntity> findAllUnregistered() {
@@ -2,6 +2,7 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKendaraanEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKendaraanRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
@@ -59,11 +60,8 @@ public class TbKendaraanService extends AbstractCrudService<TbKendaraanEntity, L
             }
         }
 
-        long totalCount = query.count();
-        List<TbKendaraanEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbKendaraanEntity.class,
+                PageCounter.searchFilter("lower(jenis) like ?1 or lower(merk) like ?1", pageRequest.getSearch()));
     }
 
     public List<String> findDistinctMerks() {
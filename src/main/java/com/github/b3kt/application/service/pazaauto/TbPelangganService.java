@@ -2,28 +2,35 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.helper.SearchTerm;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbPelangganRepository;
 
-import io.quarkus.cache.CacheResult;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 
 @ApplicationScoped
 public class TbPelangganService extends AbstractCrudService<TbPelangganEntity, Long> {
 
+    private static final String[] SEARCH_FIELDS = {"namaPelanggan", "nopol", "email"};
+
     @Inject
     TbPelangganRepository repository;
 
     @Inject
-    @io.quarkus.cache.CacheName("pelanggan-by-nopol")
-    io.quarkus.cache.Cache cache;
+    PelangganNopolIndex nopolIndex;
+
+    @Inject
+    AutocompleteService autocomplete;
 
     @Override
     protected PanacheRepositoryBase<TbPelangganEntity, Long> getRepository() {
@@ -38,77 +45,91 @@ public class TbPelangganService extends AbstractCrudService<TbPelangganEntity, L
     @Override
     public PageResponse<TbPelangganEntity> findPaginated(PageRequest pageRequest) {
         PanacheQuery<TbPelangganEntity> query;
+        boolean searching = SearchTerm.isPresent(pageRequest.getSearch());
+        String searchPattern = searching ? SearchTerm.pattern(pageRequest.getSearch()) : null;
+        String searchClause = SearchTerm.matchClause("?1", SEARCH_FIELDS);
 
         // Apply search filter if specified
-        if (pageRequest.getSearch() != null && !pageRequest.getSearch().isEmpty()) {
-            String searchPattern = "%" + pageRequest.getSearch().toLowerCase() + "%";
-            query = repository.find(
-                    "lower(namaPelanggan) like ?1 or lower(nopol) like ?1 or lower(email) like ?1",
-                    searchPattern);
+        if (SearchTerm.isRanked(pageRequest)) {
+            query = repository.find(searchClause + SearchTerm.relevanceOrder("?1", SEARCH_FIELDS), searchPattern);
+        } else if (searching) {
+            query = repository.find(searchClause, searchPattern);
         } else {
             query = repository.findAll();
         }
 
         // Apply sorting if specified
-        if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
+        String sortBy = SearchTerm.sortColumn(pageRequest);
+        if (sortBy != null) {
             Sort sort = pageRequest.isDescending()
-                    ? Sort.descending(pageRequest.getSortBy())
-                    : Sort.ascending(pageRequest.getSortBy());
-            query = query.page(Page.of(0, Integer.MAX_VALUE)); // Reset pagination for sorting
+                    ? Sort.descending(sortBy)
+                    : Sort.ascending(sortBy);
 
             // Re-apply query with sorting
-            if (pageRequest.getSearch() != null && !pageRequest.getSearch().isEmpty()) {
-                String searchPattern = "%" + pageRequest.getSearch().toLowerCase() + "%";
-                query = repository.find(
-                        "lower(namaPelanggan) like ?1 or lower(nopol) like ?1 or lower(email) like ?1",
-                        sort,
-                        searchPattern);
+            if (searching) {
+                query = repository.find(searchClause, sort, searchPattern);
             } else {
                 query = repository.findAll(sort);
             }
         }
 
-        // Get total count
-        long totalCount = query.count();
-
-        // Apply pagination
-        List<TbPelangganEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        // Count according to the requested strategy and apply pagination
+        String filter = searching ? PageCounter.filter("search", searchPattern) : null;
+        return pageCounter.page(query, pageRequest, TbPelangganEntity.class, filter);
     }
 
     /**
-     * Find pelanggan by nopol. If multiple records exist, return the last updated
-     * one.
+     * Find pelanggan by nopol, ignoring case and spaces. If multiple records exist, return
+     * the last updated one.
      *
      * @param nopol The vehicle registration number
      * @return The pelanggan entity or null if not found
      */
-    @CacheResult(cacheName = "pelanggan-by-nopol")
     public TbPelangganEntity findByNopol(String nopol) {
-        if (nopol == null || nopol.trim().isEmpty()) {
-            return null;
-        }
+        return nopolIndex.get(nopol);
+    }
 
-        return repository.find("nopol", Sort.descending("updatedAt"), nopol)
-                .firstResult();
+    /**
+     * Bulk variant of {@link #findByNopol(String)}: one query for all nopols not in the
+     * index, keeping the last updated pelanggan per nopol.
+     *
+     * @param nopols The vehicle registration numbers
+     * @return Pelanggan by nopol; nopols without a pelanggan are absent
+     */
+    public Map<String, TbPelangganEntity> findByNopols(Collection<String> nopols) {
+        if (nopols == null || nopols.isEmpty()) {
+            return new HashMap<>();
+        }
+        return nopolIndex.getAll(nopols);
     }
 
     @Override
     @jakarta.transaction.Transactional
     public TbPelangganEntity update(Long id, TbPelangganEntity entity) {
-        // Invalidate cache for old nopol
-        TbPelangganEntity existing = findById(id);
-        if (existing != null && existing.getNopol() != null) {
-            cache.invalidate(existing.getNopol()).await().indefinitely();
-        }
+        // The merge below overwrites the managed row, so keep the nopol it had
+        String previousNopol = findById(id).getNopol();
 
-        // Invalidate cache for new nopol
-        if (entity.getNopol() != null) {
-            cache.invalidate(entity.getNopol()).await().indefinitely();
-        }
+        TbPelangganEntity updated = super.update(id, entity);
+        nopolIndex.written(previousNopol, updated);
+        autocomplete.changed(updated);
+        return updated;
+    }
+
+    @Override
+    @jakarta.transaction.Transactional
+    public TbPelangganEntity create(TbPelangganEntity entity) {
+        TbPelangganEntity created = super.create(entity);
+        nopolIndex.written(null, created);
+        autocomplete.changed(created);
+        return created;
+    }
 
-        return super.update(id, entity);
+    @Override
+    @jakarta.transaction.Transactional
+    public void delete(Long id) {
+        String nopol = findById(id).getNopol();
+        super.delete(id);
+        nopolIndex.removed(nopol);
+        autocomplete.removed(AutocompleteService.Type.PELANGGAN, id);
     }
 }
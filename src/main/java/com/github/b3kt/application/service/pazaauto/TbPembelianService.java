@@ -2,12 +2,15 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.helper.KeysetPage;
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianDetailEntity;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbPembelianRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSupplierRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
@@ -19,8 +22,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 @RequiredArgsConstructor
@@ -28,7 +35,10 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
 
     private final TbPembelianRepository repository;
     private final TbPembelianDetailService detailService;
-    private final TbSparepartService sparepartService;
+    private final StockLedgerService stockLedger;
+    private final SummaryRollupService rollupService;
+    private final DocumentNumberService numberService;
+    private final TbSupplierRepository supplierRepository;
 
     @ConfigProperty(name = "app.features.stock-integration.enabled", defaultValue = "false")
     boolean stockIntegrationEnabled;
@@ -46,13 +56,17 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
     @Override
     @Transactional
     public TbPembelianEntity create(TbPembelianEntity entity) {
+        assignNoPembelian(entity);
         setNoUrutFromNoPembelian(entity);
         // Save main pembelian record
-        return super.create(entity);
+        TbPembelianEntity created = super.create(entity);
+        rollupService.refreshPembelian(created.getTanggalPembelian());
+        return created;
     }
 
     @Transactional
     public TbPembelianEntity createWithDetails(TbPembelianEntity entity, List<TbPembelianDetailEntity> details) {
+        assignNoPembelian(entity);
         setNoUrutFromNoPembelian(entity);
         // Save main pembelian record
         TbPembelianEntity saved = super.create(entity);
@@ -62,41 +76,62 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
             for (TbPembelianDetailEntity detail : details) {
                 detail.setPembelianId(saved.getId());
                 detailService.create(detail);
-
-                // Update stock if feature is enabled and this is a sparepart purchase
-                if (stockIntegrationEnabled && "SPAREPART".equals(entity.getJenisPembelian())) {
-                    if (detail.getSparepartId() != null && detail.getKuantiti() != null) {
-                        sparepartService.increaseStock(detail.getSparepartId(), detail.getKuantiti());
-                    }
-                }
             }
         }
 
+        Map<Long, Integer> movements = new HashMap<>();
+        addStockMovements(movements, entity, details, 1);
+        stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, saved.getNoPembelian(), movements);
+
+        rollupService.refreshPembelian(saved.getTanggalPembelian());
         return saved;
     }
 
     @Override
     @Transactional
     public TbPembelianEntity update(Long id, TbPembelianEntity entity) {
-        // For update, we need to handle stock reversal and re-application
-        // First, get the old entity to reverse stock changes
-        TbPembelianEntity oldEntity = findById(id);
-        List<TbPembelianDetailEntity> oldDetails = detailService.findByPembelianId(id);
+        Map<Long, Integer> movements = new HashMap<>();
+        TbPembelianEntity updated = update(id, entity, movements);
+        // The details as stored now: the edited and added ones, plus any the form did not send.
+        // Only the net change is applied, as in updateWithDetails
+        addStockMovements(movements, updated, detailService.findByPembelianId(id), 1);
+        stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, updated.getNoPembelian(), movements);
+        return updated;
+    }
 
-        // Reverse old stock changes if feature is enabled
-        if (stockIntegrationEnabled && "SPAREPART".equals(oldEntity.getJenisPembelian())) {
-            for (TbPembelianDetailEntity oldDetail : oldDetails) {
-                if (oldDetail.getSparepartId() != null && oldDetail.getKuantiti() != null) {
-                    sparepartService.decreaseStock(oldDetail.getSparepartId(), oldDetail.getKuantiti());
-                }
-            }
-        }
+    /**
+     * Updates the pembelian and adds the reversal of its old stock movements to
+     * {@code movements}.
+     */
+    private TbPembelianEntity update(Long id, TbPembelianEntity entity, Map<Long, Integer> movements) {
+        TbPembelianEntity oldEntity = findById(id);
+        addStockMovements(movements, oldEntity, detailService.findByPembelianId(id), -1);
 
         // Update the details
         updateItemDetails(entity);
 
         // Update main record
-        return super.update(id, entity);
+        LocalDateTime previousTanggal = oldEntity.getTanggalPembelian();
+        TbPembelianEntity updated = super.update(id, entity);
+        rollupService.refreshPembelian(previousTanggal);
+        rollupService.refreshPembelian(updated.getTanggalPembelian());
+        return updated;
+    }
+
+    /**
+     * Adds the stock movements of a sparepart purchase, {@code sign} times its quantities,
+     * when stock integration is enabled.
+     */
+    private void addStockMovements(Map<Long, Integer> movements, TbPembelianEntity pembelian,
+                                   List<TbPembelianDetailEntity> details, int sign) {
+        if (!stockIntegrationEnabled || !"SPAREPART".equals(pembelian.getJenisPembelian()) || details == null) {
+            return;
+        }
+        for (TbPembelianDetailEntity detail : details) {
+            if (detail.getSparepartId() != null && detail.getKuantiti() != null) {
+                movements.merge(detail.getSparepartId(), sign * detail.getKuantiti(), Integer::sum);
+            }
+        }
     }
 
     private void updateItemDetails(TbPembelianEntity entity){
@@ -118,8 +153,9 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
     @Transactional
     public TbPembelianEntity updateWithDetails(Long id, TbPembelianEntity entity,
             List<TbPembelianDetailEntity> details) {
-        // Update main entity (this will handle stock reversal)
-        TbPembelianEntity updated = update(id, entity);
+        // Update main entity, collecting the reversal of its old stock
+        Map<Long, Integer> movements = new HashMap<>();
+        TbPembelianEntity updated = update(id, entity, movements);
 
         // Delete old details
         detailService.deleteByPembelianId(id);
@@ -130,16 +166,13 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
                 detail.setId(null); // Ensure it's treated as a new entity
                 detail.setPembelianId(updated.getId());
                 detailService.create(detail);
-
-                // Apply new stock changes if feature is enabled
-                if (stockIntegrationEnabled && "SPAREPART".equals(entity.getJenisPembelian())) {
-                    if (detail.getSparepartId() != null && detail.getKuantiti() != null) {
-                        sparepartService.increaseStock(detail.getSparepartId(), detail.getKuantiti());
-                    }
-                }
             }
         }
 
+        // Only the net change is applied, so editing a partly used purchase does not dip below zero
+        addStockMovements(movements, entity, details, 1);
+        stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, updated.getNoPembelian(), movements);
+
         return updated;
     }
 
@@ -151,29 +184,22 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
         List<TbPembelianDetailEntity> details = detailService.findByPembelianId(id);
 
         // Reverse stock changes if feature is enabled
-        if (stockIntegrationEnabled && "SPAREPART".equals(entity.getJenisPembelian())) {
-            for (TbPembelianDetailEntity detail : details) {
-                if (detail.getSparepartId() != null && detail.getKuantiti() != null) {
-                    sparepartService.decreaseStock(detail.getSparepartId(), detail.getKuantiti());
-                }
-            }
-        }
+        Map<Long, Integer> movements = new HashMap<>();
+        addStockMovements(movements, entity, details, -1);
+        stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, entity.getNoPembelian(), movements);
 
         // Delete details (will cascade, but explicit for clarity)
         detailService.deleteByPembelianId(id);
 
         // Delete main record
         super.delete(id);
+        rollupService.refreshPembelian(entity.getTanggalPembelian());
     }
 
     @Override
     public PageResponse<TbPembelianEntity> findPaginated(PageRequest pageRequest) {
-        // Build query with filters
-        StringBuilder queryStr = new StringBuilder("" +
-                " SELECT new com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity(b, s.namaSupplier)  " +
-                " FROM TbPembelianEntity b " +
-                " LEFT JOIN TbSupplierEntity s ON b.supplierId = s.id " +
-                " WHERE 1=1 ");
+        // Build the filter; the offset query selects it with the supplier name joined in
+        StringBuilder queryStr = new StringBuilder("1=1");
         io.quarkus.panache.common.Parameters params = new io.quarkus.panache.common.Parameters();
 
         // Search filter
@@ -215,51 +241,62 @@ public class TbPembelianService extends AbstractCrudService<TbPembelianEntity, L
             params.and("endDate", endDateTime);
         }
 
-        PanacheQuery<TbPembelianEntity> query = repository.find(queryStr.toString(), params);
+        if (pageRequest.isKeyset()) {
+            // The seek predicate needs an unambiguous id, so the page is read without the join
+            PageResponse<TbPembelianEntity> page = KeysetPage.of(pageRequest)
+                    .list(repository, queryStr.toString(), params);
+            fillNamaSupplier(page.getRows());
+            return page;
+        }
+
+        String selectStr = " SELECT new com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity(b, s.namaSupplier)  " +
+                " FROM TbPembelianEntity b " +
+                " LEFT JOIN TbSupplierEntity s ON b.supplierId = s.id " +
+                " WHERE " + queryStr;
+        PanacheQuery<TbPembelianEntity> query = repository.find(selectStr, params);
 
         // Apply sorting
         if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
             Sort sort = pageRequest.isDescending()
                     ? Sort.descending(pageRequest.getSortBy())
                     : Sort.ascending(pageRequest.getSortBy());
-            query = repository.find(queryStr.toString(), sort, params);
+            query = repository.find(selectStr, sort, params);
         }
 
-        long totalCount = query.count();
-
-        List<TbPembelianEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
+        return pageCounter.page(query, pageRequest, TbPembelianEntity.class,
+                PageCounter.filter(queryStr.toString(), params));
+    }
 
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+    /**
+     * Sets the supplier name of a page of pembelian with one lookup for all its suppliers.
+     */
+    private void fillNamaSupplier(List<TbPembelianEntity> rows) {
+        Set<Integer> supplierIds = rows.stream().map(TbPembelianEntity::getSupplierId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        if (supplierIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> namaSupplier = new HashMap<>();
+        supplierRepository.find("id in ?1", supplierIds).stream()
+                .forEach(supplier -> namaSupplier.put(supplier.getId(), supplier.getNamaSupplier()));
+        rows.forEach(row -> row.setNamaSupplier(namaSupplier.get(row.getSupplierId())));
     }
 
+    /**
+     * The pembelian number the next pembelian of the jenis would get today, without taking
+     * it; see {@link DocumentNumberService#preview}.
+     */
     public String generateNoPembelian(String jenisPembelian) {
-        String code;
-        if ("SPAREPART".equalsIgnoreCase(jenisPembelian)) {
-            code = "FS";
-        } else if ("BARANG".equalsIgnoreCase(jenisPembelian)) {
-            code = "FB";
-        } else {
-            code = "FO";
-        }
-        LocalDateTime now = LocalDateTime.now();
-        String datePart = now.format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        
-        LocalDateTime startOfDay = now.toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = now.toLocalDate().plusDays(1).atStartOfDay();
-        
-        Integer maxNoUrut = repository.findMaxNoUrut(startOfDay, endOfDay, jenisPembelian);
-        int nextNoUrut = (maxNoUrut == null ? 0 : maxNoUrut) + 1;
-        
-        String noPembelian = String.format("%s%s%d", code, datePart, nextNoUrut);
-        
-        // Ensure uniqueness (collision check)
-        while (repository.find("noPembelian", noPembelian).count() > 0) {
-            nextNoUrut++;
-            noPembelian = String.format("%s%s%d", code, datePart, nextNoUrut);
-        }
-        
-        return noPembelian;
+        return numberService.preview(DocumentNumberService.DocumentType.forPembelian(jenisPembelian));
+    }
+
+    /**
+     * Takes the number in the transaction of the insert. A number sent by the form is only the
+     * preview of get-next-number, and the jenis may have changed since.
+     */
+    private void assignNoPembelian(TbPembelianEntity entity) {
+        entity.setNoPembelian(numberService.next(
+                DocumentNumberService.DocumentType.forPembelian(entity.getJenisPembelian())));
     }
 
     private void setNoUrutFromNoPembelian(TbPembelianEntity entity) {
@@ -16,6 +16,18 @@ public class TbPenjualanService extends AbstractCrudService<TbPenjualanEntity, S
     @Inject
     TbPenjualanRepository repository;
 
+    @Inject
+    SummaryRollupService rollupService;
+
+    @Inject
+    PenjualanPrintService printService;
+
+    @Inject
+    SpkBoardService board;
+
+    @Inject
+    StockReservationService reservations;
+
     @Override
     protected PanacheRepositoryBase<TbPenjualanEntity, String> getRepository() {
         return repository;
@@ -38,7 +50,12 @@ public class TbPenjualanService extends AbstractCrudService<TbPenjualanEntity, S
             throw new IllegalArgumentException("No SPK " + entity.getNoSpk() + " already exists in penjualan records");
         }
         
-        return create(entity);
+        TbPenjualanEntity created = create(entity);
+        reservations.commit(created.getNoSpk());
+        rollupService.refreshPenjualan(created.getTanggalJamPenjualan());
+        printService.invalidate(created.getNoPenjualan());
+        board.removed(created.getNoSpk());
+        return created;
     }
 
     @Transactional
@@ -49,8 +66,24 @@ public class TbPenjualanService extends AbstractCrudService<TbPenjualanEntity, S
         if (existing != null) {
             throw new IllegalArgumentException("No SPK " + entity.getNoSpk() + " already exists in other penjualan records");
         }
-        
-        return update(entity.getNoPenjualan(), entity);
+
+        // The sale may have moved to another day, so refresh both the old and the new one
+        TbPenjualanEntity previous = repository.findByNoPenjualan(entity.getNoPenjualan());
+        java.util.Date previousTanggal = previous != null ? previous.getTanggalJamPenjualan() : null;
+        String previousNoSpk = previous != null ? previous.getNoSpk() : null;
+
+        TbPenjualanEntity updated = update(entity.getNoPenjualan(), entity);
+        rollupService.refreshPenjualan(previousTanggal);
+        rollupService.refreshPenjualan(updated.getTanggalJamPenjualan());
+        printService.invalidate(updated.getNoPenjualan());
+        // A sale moved to another SPK puts the old one back on the board and into stok
+        if (previousNoSpk != null && !previousNoSpk.equals(updated.getNoSpk())) {
+            reservations.restock(previousNoSpk);
+            reservations.commit(updated.getNoSpk());
+            board.changed(spkRepository.find("noSpk", previousNoSpk).firstResult());
+        }
+        board.removed(updated.getNoSpk());
+        return updated;
     }
 
     @Override
@@ -90,6 +123,11 @@ public class TbPenjualanService extends AbstractCrudService<TbPenjualanEntity, S
             } catch (Exception e) {}
         }
 
+        if (pageRequest.isKeyset()) {
+            return com.github.b3kt.application.helper.KeysetPage.of(pageRequest)
+                    .list(repository, queryStr.toString(), params);
+        }
+
         io.quarkus.hibernate.orm.panache.PanacheQuery<TbPenjualanEntity> query = repository.find(queryStr.toString(), params);
 
         // Apply sorting
@@ -100,10 +138,8 @@ public class TbPenjualanService extends AbstractCrudService<TbPenjualanEntity, S
             query = repository.find(queryStr.toString(), sort, params);
         }
 
-        long totalCount = query.count();
-        java.util.List<TbPenjualanEntity> rows = query.page(io.quarkus.panache.common.Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage())).list();
-
-        return new com.github.b3kt.application.dto.PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbPenjualanEntity.class,
+                com.github.b3kt.infrastructure.persistence.PageCounter.filter(queryStr.toString(), params));
     }
 
     @Inject
@@ -122,13 +158,18 @@ public class TbPenjualanService extends AbstractCrudService<TbPenjualanEntity, S
         penjualanDetailRepository.delete("noPenjualan", penjualan.getNoPenjualan());
 
         repository.delete(penjualan);
+        reservations.restock(noSpk);
 
         TbSpkEntity spk = spkRepository.find("noSpk", noSpk).firstResult();
         if (spk != null) {
             spk.setStatusSpk("OPEN");
             spk.setFinishedAt(null);
             spkRepository.getEntityManager().merge(spk);
+            board.changed(spk);
         }
+
+        rollupService.refreshPenjualan(penjualan.getTanggalJamPenjualan());
+        printService.invalidate(penjualan.getNoPenjualan());
     }
 }
 
@@ -2,23 +2,36 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.helper.SearchTerm;
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSparepartEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSparepartRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 
-import java.util.List;
 
 @ApplicationScoped
 public class TbSparepartService extends AbstractCrudService<TbSparepartEntity, Long> {
 
+    private static final String[] SEARCH_FIELDS = {"namaSparepart", "kodeSparepart"};
+
     @Inject
     TbSparepartRepository repository;
 
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    AutocompleteService autocomplete;
+
+    @Inject
+    StockLedgerService stockLedger;
+
     @Override
     protected PanacheRepositoryBase<TbSparepartEntity, Long> getRepository() {
         return repository;
@@ -29,6 +42,40 @@ public class TbSparepartService extends AbstractCrudService<TbSparepartEntity, L
         entity.setId(id);
     }
 
+    @Override
+    @Transactional
+    public TbSparepartEntity create(TbSparepartEntity entity) {
+        TbSparepartEntity created = super.create(entity);
+        catalog.changed(PriceCatalogService.Type.SPAREPART);
+        autocomplete.changed(created);
+        stockLedger.record(ItemType.SPAREPART, StockLedgerService.SOURCE_OPENING, null,
+                created.getId(), stokOf(created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public TbSparepartEntity update(Long id, TbSparepartEntity entity) {
+        // Loaded into the persistence context, so super.update does not query it again
+        TbSparepartEntity current = repository.findById(id);
+        int previousStok = current != null ? stokOf(current) : 0;
+        TbSparepartEntity updated = super.update(id, entity);
+        catalog.changed(PriceCatalogService.Type.SPAREPART);
+        autocomplete.changed(updated);
+        // A stok typed into the form is a stock opname adjustment
+        stockLedger.record(ItemType.SPAREPART, StockLedgerService.SOURCE_ADJUSTMENT, null,
+                id, stokOf(updated) - previousStok);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        super.delete(id);
+        catalog.changed(PriceCatalogService.Type.SPAREPART);
+        autocomplete.removed(AutocompleteService.Type.SPAREPART, id);
+    }
+
     @Override
     public PageResponse<TbSparepartEntity> findPaginated(PageRequest pageRequest) {
         PanacheQuery<TbSparepartEntity> query;
@@ -36,9 +83,9 @@ public class TbSparepartService extends AbstractCrudService<TbSparepartEntity, L
         StringBuilder queryBuilder = new StringBuilder();
         java.util.Map<String, Object> params = new java.util.HashMap<>();
 
-        if (pageRequest.getSearch() != null && !pageRequest.getSearch().isEmpty()) {
-            queryBuilder.append("(lower(namaSparepart) like :search or lower(kodeSparepart) like :search)");
-            params.put("search", "%" + pageRequest.getSearch().toLowerCase() + "%");
+        if (SearchTerm.isPresent(pageRequest.getSearch())) {
+            queryBuilder.append(SearchTerm.matchClause(":search", SEARCH_FIELDS));
+            params.put("search", SearchTerm.pattern(pageRequest.getSearch()));
         }
 
         if (pageRequest.getSupplierId() != null) {
@@ -51,40 +98,23 @@ public class TbSparepartService extends AbstractCrudService<TbSparepartEntity, L
 
         String queryString = queryBuilder.length() > 0 ? queryBuilder.toString() : "";
 
-        if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
+        String sortBy = SearchTerm.sortColumn(pageRequest);
+        if (SearchTerm.isRanked(pageRequest)) {
+            query = repository.find(queryString + SearchTerm.relevanceOrder(":search", SEARCH_FIELDS), params);
+        } else if (sortBy != null) {
             Sort sort = pageRequest.isDescending()
-                    ? Sort.descending(pageRequest.getSortBy())
-                    : Sort.ascending(pageRequest.getSortBy());
+                    ? Sort.descending(sortBy)
+                    : Sort.ascending(sortBy);
             query = repository.find(queryString, sort, params);
         } else {
             query = repository.find(queryString, params);
         }
 
-        long totalCount = query.count();
-        List<TbSparepartEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbSparepartEntity.class,
+                PageCounter.filter(queryString, params));
     }
 
-    @jakarta.transaction.Transactional
-    public void increaseStock(Long sparepartId, Integer quantity) {
-        TbSparepartEntity sparepart = findById(sparepartId);
-        Integer currentStock = sparepart.getStok() != null ? sparepart.getStok() : 0;
-        sparepart.setStok(currentStock + quantity);
-        repository.persist(sparepart);
-    }
-
-    @jakarta.transaction.Transactional
-    public void decreaseStock(Long sparepartId, Integer quantity) {
-        TbSparepartEntity sparepart = findById(sparepartId);
-        Integer currentStock = sparepart.getStok() != null ? sparepart.getStok() : 0;
-        int newStock = currentStock - quantity;
-        if (newStock < 0) {
-            throw new IllegalStateException("Cannot decrease stock below zero. Current stock: " + currentStock
-                    + ", requested decrease: " + quantity);
-        }
-        sparepart.setStok(newStock);
-        repository.persist(sparepart);
+    private static int stokOf(TbSparepartEntity sparepart) {
+        return sparepart.getStok() != null ? sparepart.getStok() : 0;
     }
 }
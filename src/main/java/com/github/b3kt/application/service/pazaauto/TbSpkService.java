@@ -1,44 +1,66 @@
 package com.github.b3kt.application.service.pazaauto;
 
+import com.github.b3kt.application.dto.CountStrategy;
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
 import com.github.b3kt.application.dto.pazaauto.RekapPenjualanDto;
+import com.github.b3kt.application.helper.KeysetPage;
 import com.github.b3kt.application.helper.QueryFilterBuilder;
+import com.github.b3kt.application.helper.SearchTerm;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKaryawanEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailId;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkMekanikEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkMekanikId;
 import com.github.b3kt.infrastructure.persistence.entity.subentity.SpkMekanik;
-import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbBarangRepository;
-import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbJasaRepository;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKaryawanRepository;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkDetailRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkMekanikRepository;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
-import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Parameters;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
 @RequiredArgsConstructor
 public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
 
+    private static final String SPK_DATE_SORT = "tanggalJamSpk";
+    private static final int TUGAS_LENGTH = 100;
+
     private final TbSpkRepository repository;
     private final TbKaryawanRepository karyawanRepository;
     private final TbPelangganService pelangganService;
     private final TbSpkDetailRepository detailRepository;
-    private final TbBarangRepository barangRepository;
-    private final TbJasaRepository jasaRepository;
     private final EntityManager entityManager;
+    private final SummaryRollupService rollupService;
+    private final TbSpkMekanikRepository spkMekanikRepository;
+    private final PriceCatalogService catalog;
+    private final PenjualanPrintService printService;
+    private final DocumentNumberService numberService;
+    private final SpkBoardService board;
+    private final StockReservationService reservations;
 
     @Override
     protected PanacheRepositoryBase<TbSpkEntity, Long> getRepository() {
@@ -53,17 +75,21 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
     @Override
     @jakarta.transaction.Transactional
     public TbSpkEntity create(TbSpkEntity entity) {
-        // Persist SPK first to get ID/NoSPK if needed (though NoSPK seems
+        // A number sent by the form is only the preview of get-next-spk-number; the SPK takes
+        // its number here, in the transaction of the insert, so an unsaved form uses none
+        entity.setNoSpk(numberService.next(DocumentNumberService.DocumentType.SPK));
         if (entity.getNoAntrian() == null) {
             final int noAntrian = Integer.parseInt(entity.getNoSpk().substring(entity.getNoSpk().length() - 2));
             entity.setNoAntrian(noAntrian);
         }
 
-        // pre-generated)
         super.create(entity);
 
         // Save details
         saveDetails(entity);
+        syncMekanik(entity);
+        syncReservation(entity);
+        board.changed(entity);
 
         return entity;
     }
@@ -73,17 +99,21 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
     public TbSpkEntity update(Long id, TbSpkEntity entity) {
         TbSpkEntity updated = super.update(id, entity);
 
-        // Delete existing details
-        detailRepository.delete("id.noSpk", updated.getNoSpk());
-
         // update status
         if (entity.isStartProcess()) {
             updated.setStatusSpk("PROSES");
             updated.setStartedAt(LocalDateTime.now());
         }
 
-        // Save new details
-        saveDetails(entity);
+        syncDetails(entity);
+        syncMekanik(updated);
+        syncReservation(updated);
+        board.changed(updated);
+
+        // Details of an already sold SPK feed the daily rekap of its sale date
+        rollupService.refreshPenjualanBySpk(updated.getNoSpk());
+        // and, with its mechanics, are printed on its invoice
+        printService.invalidateBySpk(updated.getNoSpk());
 
         return updated;
     }
@@ -99,6 +129,60 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
         return entity;
     }
 
+    /**
+     * Copies the customer, mechanic and odometer details an SPK shows onto it from the
+     * referenced rows.
+     */
+    public void fillDetails(TbSpkEntity entity) {
+        fillKaryawanDetail(entity);
+        fillPelangganDetail(entity);
+        fillKendaraanDetail(entity);
+    }
+
+    private void fillPelangganDetail(TbSpkEntity entity) {
+        TbPelangganEntity pelanggan;
+        if (Objects.isNull(entity.getPelangganId())) {
+            pelanggan = pelangganService.findByNopol(entity.getNopol());
+            if (Objects.nonNull(pelanggan)) {
+                entity.setPelangganId(pelanggan.getId());
+                entity.setNamaPelanggan(pelanggan.getNamaPelanggan());
+            }
+        } else {
+            pelanggan = pelangganService.findById(entity.getPelangganId());
+        }
+
+        if (Objects.nonNull(pelanggan)) {
+            entity.setAlamatPelanggan(pelanggan.getAlamat());
+            entity.setMerkKendaraan(pelanggan.getMerk());
+            entity.setJenisKendaraan(pelanggan.getJenis());
+        }
+    }
+
+    private void fillKaryawanDetail(TbSpkEntity entity) {
+        if (Objects.isNull(entity.getMekanikId())) {
+            if (entity.getMekanikList() == null || entity.getMekanikList().isEmpty()) {
+                return;
+            }
+            Long mekanikId = entity.getMekanikList().stream()
+                    .findFirst()
+                    .map(SpkMekanik::getId)
+                    .orElse(null);
+            if (mekanikId == null) {
+                return;
+            }
+            TbKaryawanEntity karyawan = karyawanRepository.findByIdOptional(mekanikId)
+                    .orElseThrow(() -> new EntityNotFoundException("Entity not found with id: " + mekanikId));
+            entity.setNamaKaryawan(karyawan.getNamaKaryawan());
+            entity.setMekanikId(karyawan.getId());
+        }
+    }
+
+    private void fillKendaraanDetail(TbSpkEntity entity) {
+        if (Objects.nonNull(entity.getKm())) {
+            entity.setKmSaatIni(entity.getKm());
+        }
+    }
+
     public RekapPenjualanDto findByIdWithPenjualan(Long id) {
         String queryString = "SELECT new com.github.b3kt.application.dto.pazaauto.RekapPenjualanDto(s, p) " +
                 " FROM com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity s " +
@@ -118,32 +202,154 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
 
     private void saveDetails(TbSpkEntity entity) {
         if (entity.getDetails() != null) {
-            for (com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity detail : entity
-                    .getDetails()) {
-                if (detail.getId() == null) {
-                    detail.setId(new com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailId());
+            for (TbSpkDetailEntity detail : entity.getDetails()) {
+                prepareDetail(entity, detail);
+                detailRepository.persist(detail);
+            }
+        }
+    }
+
+    /**
+     * Brings the tb_spk_detail rows of the SPK in line with its details, keyed by
+     * {@link TbSpkDetailId}: new lines are inserted, changed lines updated and missing lines
+     * deleted. Unchanged lines are not written at all, so an edit to one line of an open SPK
+     * no longer rewrites (and audits) every line. The statements go out in JDBC batches
+     * when the transaction flushes.
+     */
+    private void syncDetails(TbSpkEntity entity) {
+        Map<TbSpkDetailId, TbSpkDetailEntity> stored = new HashMap<>();
+        detailRepository.find("id.noSpk", entity.getNoSpk()).list()
+                .forEach(detail -> stored.put(detail.getId(), detail));
+
+        Map<TbSpkDetailId, TbSpkDetailEntity> kept = new HashMap<>();
+        if (entity.getDetails() != null) {
+            for (TbSpkDetailEntity detail : entity.getDetails()) {
+                prepareDetail(entity, detail);
+                TbSpkDetailEntity current = kept.containsKey(detail.getId())
+                        ? kept.get(detail.getId())
+                        : stored.remove(detail.getId());
+                if (current == null) {
+                    detailRepository.persist(detail);
+                    kept.put(detail.getId(), detail);
+                } else {
+                    copyChanges(detail, current);
+                    kept.put(current.getId(), current);
                 }
-                detail.getId().setNoSpk(entity.getNoSpk());
-
-                // Ensure hargaMaster is populated from master data if not set
-                if (detail.getHargaMaster() == null) {
-                    if (detail.getSparepartId() != null) {
-                        barangRepository.findByIdOptional(detail.getSparepartId())
-                            .ifPresent(barang -> detail.setHargaMaster(barang.getHargaJual()));
-                    } else if (detail.getJasaId() != null) {
-                        jasaRepository.findByIdOptional(detail.getJasaId())
-                            .ifPresent(jasa -> detail.setHargaMaster(
-                                jasa.getHargaJasa() != null ? java.math.BigDecimal.valueOf(jasa.getHargaJasa()) : null));
-                    }
+            }
+        }
+
+        stored.values().forEach(detailRepository::delete);
+    }
+
+    private void prepareDetail(TbSpkEntity entity, TbSpkDetailEntity detail) {
+        if (detail.getId() == null) {
+            detail.setId(new TbSpkDetailId());
+        }
+        detail.getId().setNoSpk(entity.getNoSpk());
+
+        // Ensure hargaMaster is populated from master data if not set
+        if (detail.getHargaMaster() == null) {
+            if (detail.getSparepartId() != null) {
+                detail.setHargaMaster(catalog.hargaJual(PriceCatalogService.Type.BARANG, detail.getSparepartId()));
+            } else if (detail.getJasaId() != null) {
+                detail.setHargaMaster(catalog.hargaJual(PriceCatalogService.Type.JASA, detail.getJasaId()));
+            }
+        }
+        // If no custom price set, harga equals hargaMaster
+        if (detail.getHarga() == null && detail.getHargaMaster() != null) {
+            detail.setHarga(detail.getHargaMaster());
+        }
+    }
+
+    /**
+     * Copies the columns of {@code source} that differ onto the managed {@code target}; Hibernate
+     * only issues an UPDATE for a line when one of them actually changed.
+     */
+    static boolean copyChanges(TbSpkDetailEntity source, TbSpkDetailEntity target) {
+        boolean changed = false;
+        if (!sameAmount(source.getHarga(), target.getHarga())) {
+            target.setHarga(source.getHarga());
+            changed = true;
+        }
+        if (!sameAmount(source.getHargaMaster(), target.getHargaMaster())) {
+            target.setHargaMaster(source.getHargaMaster());
+            changed = true;
+        }
+        if (!Objects.equals(source.getJumlah(), target.getJumlah())) {
+            target.setJumlah(source.getJumlah());
+            changed = true;
+        }
+        if (!Objects.equals(source.getKeterangan(), target.getKeterangan())) {
+            target.setKeterangan(source.getKeterangan());
+            changed = true;
+        }
+        if (!Objects.equals(source.getJasaId(), target.getJasaId())) {
+            target.setJasaId(source.getJasaId());
+            changed = true;
+        }
+        if (!Objects.equals(source.getSparepartId(), target.getSparepartId())) {
+            target.setSparepartId(source.getSparepartId());
+            changed = true;
+        }
+        return changed;
+    }
+
+    // 50000 and 50000.00 are the same price
+    private static boolean sameAmount(java.math.BigDecimal a, java.math.BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    /**
+     * Brings the tb_spk_mekanik rows of the SPK in line with its mekanikList, the same way
+     * {@link #syncDetails} does for its lines: only mechanics added, removed or with another
+     * tugas or date are written. The first entry of a mechanic listed twice wins.
+     */
+    private void syncMekanik(TbSpkEntity spk) {
+        Map<Long, TbSpkMekanikEntity> stored = new HashMap<>();
+        spkMekanikRepository.find("id.noSpk", spk.getNoSpk()).list()
+                .forEach(row -> stored.put(row.getId().getMekanikId(), row));
+
+        if (spk.getMekanikList() != null) {
+            LocalDate tanggal = resolveSpkDate(spk);
+            Set<Long> assigned = new HashSet<>();
+            for (SpkMekanik mekanik : spk.getMekanikList()) {
+                if (mekanik.getId() == null || !assigned.add(mekanik.getId())) {
+                    continue;
                 }
-                // If no custom price set, harga equals hargaMaster
-                if (detail.getHarga() == null && detail.getHargaMaster() != null) {
-                    detail.setHarga(detail.getHargaMaster());
+                TbSpkMekanikEntity row = stored.remove(mekanik.getId());
+                boolean added = row == null;
+                if (added) {
+                    row = new TbSpkMekanikEntity();
+                    row.setId(new TbSpkMekanikId(spk.getNoSpk(), mekanik.getId()));
+                }
+                // Hibernate only updates a kept row when one of these actually changed
+                row.setTugas(tugas(mekanik.getTugas()));
+                row.setTanggal(tanggal);
+                if (added) {
+                    spkMekanikRepository.persist(row);
                 }
-
-                detailRepository.persist(detail);
             }
         }
+
+        stored.values().forEach(spkMekanikRepository::delete);
+    }
+
+    // tb_spk_mekanik.tugas is varchar(100), counted in characters; V15 cut the migrated rows
+    // with left(tugas, 100) the same way
+    static String tugas(String tugas) {
+        if (tugas == null || tugas.codePointCount(0, tugas.length()) <= TUGAS_LENGTH) {
+            return tugas;
+        }
+        return tugas.substring(0, tugas.offsetByCodePoints(0, TUGAS_LENGTH));
+    }
+
+    private static LocalDate resolveSpkDate(TbSpkEntity spk) {
+        // spkAt of a merged entity is only derived at flush, so parse the string here
+        LocalDateTime spkAt = TbSpkEntity.parseTanggalJamSpk(spk.getTanggalJamSpk());
+        if (spkAt != null) {
+            return spkAt.toLocalDate();
+        }
+        return spk.getCreatedAt() != null ? spk.getCreatedAt().toLocalDate() : LocalDate.now();
     }
 
     @Override
@@ -151,30 +357,44 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
         QueryFilterBuilder filterBuilder = QueryFilterBuilder.create()
                 .withSearch(pageRequest.getSearch())
                 .withStatusFilter(pageRequest.getStatusFilter(), "statusSpk")
-                .withDateRange(pageRequest.getStartDate(), pageRequest.getEndDate(), "tanggalJamSpk");
+                .withDateRange(pageRequest.getStartDate(), pageRequest.getEndDate(), "spkAt");
 
         String queryString = filterBuilder.getQueryString();
         Object[] params = filterBuilder.getParams();
+        boolean ranked = SearchTerm.isRanked(pageRequest);
+        // tgl_jam_spk is a string; its timestamp copy sorts correctly and is indexed
+        if (SPK_DATE_SORT.equals(pageRequest.getSortBy())) {
+            pageRequest.setSortBy("spkAt");
+        }
+
+        if (pageRequest.isKeyset()) {
+            PageResponse<TbSpkEntity> page = KeysetPage.of(pageRequest).list(repository, queryString, params);
+            fillRequiredFields(page.getRows());
+            return page;
+        }
 
         PanacheQuery<TbSpkEntity> query;
-        if (params.length > 0) {
+        if (ranked) {
+            query = repository.find(queryString + filterBuilder.getRelevanceOrder(), params);
+        } else if (params.length > 0) {
             query = repository.find(queryString, params);
         } else {
             query = repository.find(queryString);
         }
 
-        if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
+        String sortBy = SearchTerm.sortColumn(pageRequest);
+        if (sortBy != null) {
             Sort sort = pageRequest.isDescending()
-                    ? Sort.descending(pageRequest.getSortBy())
-                    : Sort.ascending(pageRequest.getSortBy());
+                    ? Sort.descending(sortBy)
+                    : Sort.ascending(sortBy);
             query = repository.find(queryString, sort, params);
         }
 
-        long totalCount = query.count();
-        List<TbSpkEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage())).list();
-        fillRequiredFields(rows);
+        PageResponse<TbSpkEntity> page = pageCounter.page(query, pageRequest, TbSpkEntity.class,
+                PageCounter.filter(queryString, params));
+        fillRequiredFields(page.getRows());
 
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return page;
     }
 
     public PageResponse<RekapPenjualanDto> findPaginatedWithPenjualan(PageRequest pageRequest) {
@@ -190,7 +410,7 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
         QueryFilterBuilder filterBuilder = QueryFilterBuilder.create()
                 .withSearch(pageRequest.getSearch())
                 .withStatusFilter(pageRequest.getStatusFilter(), "statusSpk")
-                .withDateRange(pageRequest.getStartDate(), pageRequest.getEndDate(), "tanggalJamSpk");
+                .withDateRange(pageRequest.getStartDate(), pageRequest.getEndDate(), "spkAt");
 
         String filterClause = filterBuilder.getQueryString().replace("1=1", "");
         baseQuery += filterClause;
@@ -207,7 +427,8 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
 
         if (pageRequest.getSortBy() != null && !pageRequest.getSortBy().isEmpty()) {
             String sortDirection = pageRequest.isDescending() ? "desc" : "asc";
-            baseQuery += " order by s." + pageRequest.getSortBy() + " " + sortDirection;
+            String sortBy = SPK_DATE_SORT.equals(pageRequest.getSortBy()) ? "spkAt" : pageRequest.getSortBy();
+            baseQuery += " order by s." + sortBy + " " + sortDirection;
             query = entityManager.createQuery(baseQuery, RekapPenjualanDto.class);
             for (int i = 0; i < params.length; i++) {
                 query.setParameter(i + 1, params[i]);
@@ -220,48 +441,71 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
         query.setMaxResults(pageRequest.getRowsPerPage());
         List<RekapPenjualanDto> rows = query.getResultList();
 
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        PageResponse<RekapPenjualanDto> response =
+                new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        response.setHasNext(firstResult + rows.size() < totalCount);
+        response.setCountStrategy(CountStrategy.EXACT);
+        return response;
     }
 
 
+    /**
+     * Fills the mechanic names and the pelanggan fields of a page of SPKs. All mechanic ids
+     * and nopols of the page are resolved up front with one query each, instead of two
+     * lookups per row.
+     */
     private void fillRequiredFields(List<TbSpkEntity> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        Set<Long> mekanikIds = new HashSet<>();
+        Set<String> nopols = new HashSet<>();
+        for (TbSpkEntity entity : entities) {
+            if (entity.getMekanikList() != null) {
+                entity.getMekanikList().stream().map(SpkMekanik::getId).filter(Objects::nonNull)
+                        .forEach(mekanikIds::add);
+            }
+            if (entity.getNopol() != null) {
+                nopols.add(entity.getNopol());
+            }
+        }
 
-        entities
-                .stream()
-                .forEach(entity -> {
-                    if (entity.getMekanikList() != null) {
-                        List<Long> ids = entity.getMekanikList().stream().map(SpkMekanik::getId)
-                                .collect(Collectors.toList());
-
-                        List<String> names = karyawanRepository.find("id in :ids", Parameters.with("ids", ids)).stream()
-                                .map(obj -> obj.getNamaKaryawan()).collect(Collectors.toList());
-
-                        entity.setNamaKaryawan(String.join(", ", names));
-                    }
-
-                    if (entity.getNopol() != null) {
-                        Optional.ofNullable(pelangganService.findByNopol(entity.getNopol()))
-                                .ifPresent(pelanggan -> {
-                                    entity.setPelangganId(pelanggan.getId());
-                                    entity.setNamaPelanggan(pelanggan.getNamaPelanggan());
-                                    entity.setAlamatPelanggan(pelanggan.getAlamat());
-                                    entity.setMerkKendaraan(pelanggan.getMerk());
-                                    entity.setJenisKendaraan(pelanggan.getJenis());
-                                });
-                    }
-                });
+        Map<Long, String> namaMekanik = new HashMap<>();
+        if (!mekanikIds.isEmpty()) {
+            karyawanRepository.find("id in :ids", Parameters.with("ids", mekanikIds)).stream()
+                    .forEach(karyawan -> namaMekanik.put(karyawan.getId(), karyawan.getNamaKaryawan()));
+        }
+        Map<String, TbPelangganEntity> pelangganByNopol = pelangganService.findByNopols(nopols);
+
+        for (TbSpkEntity entity : entities) {
+            if (entity.getMekanikList() != null) {
+                List<String> names = entity.getMekanikList().stream()
+                        .map(mekanik -> namaMekanik.get(mekanik.getId()))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+                entity.setNamaKaryawan(String.join(", ", names));
+            }
 
+            if (entity.getNopol() != null) {
+                Optional.ofNullable(pelangganByNopol.get(entity.getNopol()))
+                        .ifPresent(pelanggan -> {
+                            entity.setPelangganId(pelanggan.getId());
+                            entity.setNamaPelanggan(pelanggan.getNamaPelanggan());
+                            entity.setAlamatPelanggan(pelanggan.getAlamat());
+                            entity.setMerkKendaraan(pelanggan.getMerk());
+                            entity.setJenisKendaraan(pelanggan.getJenis());
+                        });
+            }
+        }
     }
 
-    public String getNextSpkNumber(String spkNumber) {
-        final String spkPattern = spkNumber + "%";
-        return repository
-                .find("where noSpk LIKE :spkPattern order by id desc", Parameters.with("spkPattern", spkPattern))
-                .list()
-                .stream()
-                .map(TbSpkEntity::getNoSpk)
-                .findFirst()
-                .orElse(spkNumber + "00");
+    /**
+     * The SPK number the next SPK of today would get, without taking it; see
+     * {@link DocumentNumberService#preview}.
+     */
+    public String previewSpkNumber() {
+        return numberService.preview(DocumentNumberService.DocumentType.SPK);
     }
 
     public List<TbSpkEntity> findUnprocessedSpk() {
@@ -281,7 +525,10 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
     @jakarta.transaction.Transactional
     public void deleteByNoSpk(String noSpk) {
         detailRepository.delete("id.noSpk", noSpk);
+        spkMekanikRepository.delete("id.noSpk", noSpk);
         repository.delete("noSpk", noSpk);
+        reservations.release(noSpk);
+        board.removed(noSpk);
     }
 
     @jakarta.transaction.Transactional
@@ -291,7 +538,20 @@ public class TbSpkService extends AbstractCrudService<TbSpkEntity, Long> {
             String lastStatus = entity.getStatusSpk();
             entity.setKeterangan("SPK Dibatalkan. lastStatus: " + lastStatus);
             entity.setStatusSpk("BATAL");
+            reservations.release(entity.getNoSpk());
+            board.changed(entity);
         }
         return entity;
     }
+
+    /**
+     * The barang of an SPK are held from the moment work starts on it.
+     */
+    private void syncReservation(TbSpkEntity spk) {
+        if ("PROSES".equals(spk.getStatusSpk()) || "SELESAI".equals(spk.getStatusSpk())) {
+            reservations.reserve(spk.getNoSpk());
+        } else {
+            reservations.release(spk.getNoSpk());
+        }
+    }
 }
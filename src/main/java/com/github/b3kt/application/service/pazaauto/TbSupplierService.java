@@ -2,6 +2,7 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSupplierEntity;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSupplierRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
@@ -62,14 +63,8 @@ public class TbSupplierService extends AbstractCrudService<TbSupplierEntity, Int
             }
         }
 
-        // Get total count
-        long totalCount = query.count();
-
-        // Apply pagination
-        List<TbSupplierEntity> rows = query.page(Page.of(pageRequest.getPage() - 1, pageRequest.getRowsPerPage()))
-                .list();
-
-        return new PageResponse<>(rows, pageRequest.getPage(), pageRequest.getRowsPerPage(), totalCount);
+        return pageCounter.page(query, pageRequest, TbSupplierEntity.class,
+                PageCounter.searchFilter("lower(namaSupplier) like ?1 or lower(email) like ?1", pageRequest.getSearch()));
     }
     public List<TbSupplierEntity> search(String search) {
         if (search == null || search.isEmpty()) {
@@ -0,0 +1,164 @@
+package com.github.b3kt.infrastructure.persistence;
+
+import com.github.b3kt.application.dto.SyncResponse;
+import com.github.b3kt.infrastructure.persistence.entity.BaseEntity;
+import com.github.b3kt.infrastructure.persistence.entity.SyncTombstoneEntity;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Table;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Lists the rows of a table changed since a client's watermark, so clients holding a copy of
+ * a master table can keep it current without reloading it.
+ * <p>
+ * Changes are found by {@code (updated_at, id)}, which {@link BaseEntity} maintains on every
+ * write, over an index on those columns (V22). Deletes leave a row in tb_sync_tombstone. A
+ * transaction stamps {@code updated_at} before it commits, so a row may become visible after
+ * rows stamped later; the watermark therefore never passes {@code now - app.sync.settle},
+ * and rows changed within that window are sent again on the next sync. Clients must apply
+ * rows as upserts and deletes of unknown ids as no-ops. Tombstones are kept for
+ * {@code app.sync.tombstone-retention}; a client that has not synced for longer gets a full
+ * sync.
+ */
+@Slf4j
+@ApplicationScoped
+public class ChangeFeed {
+
+    /**
+     * The last row sent, and the time from which deletes have not been sent yet.
+     */
+    private record Watermark(LocalDateTime updatedAt, long id, LocalDateTime deletesSince) {
+
+        static Watermark parse(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                        .split("\\|");
+                return new Watermark(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                        LocalDateTime.parse(parts[2]));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+                throw new IllegalArgumentException("Invalid watermark: " + token);
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((updatedAt + "|" + id + "|" + deletesSince).getBytes(StandardCharsets.UTF_8));
+        }
+
+        boolean isBefore(Watermark other) {
+            int byTime = updatedAt.compareTo(other.updatedAt);
+            return byTime < 0 || (byTime == 0 && id < other.id);
+        }
+    }
+
+    @Inject
+    EntityManager em;
+
+    @ConfigProperty(name = "app.sync.max-rows", defaultValue = "1000")
+    int maxRows;
+
+    @ConfigProperty(name = "app.sync.settle", defaultValue = "30S")
+    Duration settle;
+
+    @ConfigProperty(name = "app.sync.tombstone-retention", defaultValue = "30D")
+    Duration tombstoneRetention;
+
+    /**
+     * The rows of {@code entityClass} changed after {@code since}, or all of them when
+     * {@code since} is empty or too old.
+     *
+     * @throws IllegalArgumentException if the entity is not a {@link BaseEntity} or the
+     *                                  watermark is malformed
+     */
+    public <T> SyncResponse<T> changes(Class<T> entityClass, String since) {
+        if (!BaseEntity.class.isAssignableFrom(entityClass)) {
+            throw new IllegalArgumentException(entityClass.getSimpleName() + " does not support sync");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Watermark from = Watermark.parse(since);
+        if (from != null && from.deletesSince().isBefore(now.minus(tombstoneRetention))) {
+            from = null;
+        }
+
+        String entity = em.getMetamodel().entity(entityClass).getName();
+        List<T> rows = (from == null
+                ? em.createQuery("from " + entity + " e where e.updatedAt is not null "
+                        + "order by e.updatedAt, e.id", entityClass)
+                : em.createQuery("from " + entity + " e where (e.updatedAt, e.id) > (?1, ?2) "
+                        + "order by e.updatedAt, e.id", entityClass)
+                        .setParameter(1, from.updatedAt())
+                        .setParameter(2, from.id()))
+                .setMaxResults(maxRows + 1)
+                .getResultList();
+
+        List<Long> deleted = from == null ? List.of() : em.createQuery(
+                        "select t.recordId from SyncTombstoneEntity t where t.tableName = ?1 and t.deletedAt >= ?2 "
+                                + "order by t.deletedAt", Long.class)
+                .setParameter(1, tableName(entityClass))
+                .setParameter(2, from.deletesSince())
+                .getResultList();
+
+        // Whatever is not visible yet was stamped within the settle window
+        LocalDateTime settled = now.minus(settle);
+        LocalDateTime deletesSince = from != null && from.deletesSince().isAfter(settled)
+                ? from.deletesSince()
+                : settled;
+        boolean hasMore = rows.size() > maxRows;
+        Watermark next;
+        if (hasMore) {
+            rows = rows.subList(0, maxRows);
+            BaseEntity last = (BaseEntity) rows.get(maxRows - 1);
+            next = new Watermark(last.getUpdatedAt(), last.getId(), deletesSince);
+        } else {
+            next = new Watermark(settled, 0, deletesSince);
+            if (from != null && next.isBefore(from)) {
+                next = new Watermark(from.updatedAt(), from.id(), deletesSince);
+            }
+        }
+        log.debug("Synced {} changed and {} deleted {} rows", rows.size(), deleted.size(), entity);
+        return new SyncResponse<>(rows, deleted, next.encode(), from == null, hasMore);
+    }
+
+    /**
+     * Records the delete of a row in the current transaction. Rows that are not a
+     * {@link BaseEntity} are not synced and leave nothing.
+     */
+    public void deleted(Class<?> entityClass, Object id) {
+        if (BaseEntity.class.isAssignableFrom(entityClass) && id instanceof Long recordId) {
+            SyncTombstoneEntity tombstone = new SyncTombstoneEntity();
+            tombstone.setTableName(tableName(entityClass));
+            tombstone.setRecordId(recordId);
+            tombstone.setDeletedAt(LocalDateTime.now());
+            em.persist(tombstone);
+        }
+    }
+
+    @Scheduled(cron = "{app.sync.tombstone-purge.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    void purgeTombstones() {
+        int purged = em.createQuery("delete from SyncTombstoneEntity t where t.deletedAt < ?1")
+                .setParameter(1, LocalDateTime.now().minus(tombstoneRetention))
+                .executeUpdate();
+        log.debug("Purged {} sync tombstones", purged);
+    }
+
+    private static String tableName(Class<?> entityClass) {
+        Table table = entityClass.getAnnotation(Table.class);
+        return table != null ? table.name() : entityClass.getSimpleName();
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.b3kt.infrastructure.persistence;
+
+import com.github.b3kt.application.dto.CountStrategy;
+import com.github.b3kt.application.dto.PageRequest;
+import com.github.b3kt.application.dto.PageResponse;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.panache.common.Page;
+import io.quarkus.panache.common.Parameters;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Table;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fetches one page of a list query and determines its total according to the
+ * {@link CountStrategy} of the request, so table views do not have to pay for a second
+ * filtered scan on every request.
+ */
+@ApplicationScoped
+public class PageCounter {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    @CacheName("page-count")
+    Cache countCache;
+
+    /**
+     * @param entityClass entity of the query, for the cache key and the {@code pg_class} lookup
+     * @param filter      the filter as built by {@link #filter}; {@code null} when the list is unfiltered
+     */
+    public <T> PageResponse<T> page(PanacheQuery<T> query, PageRequest pageRequest, Class<?> entityClass,
+                                    String filter) {
+        int rowsPerPage = pageRequest.getRowsPerPage();
+        CountStrategy strategy = pageRequest.getCountStrategy();
+
+        if (strategy == CountStrategy.HAS_NEXT) {
+            int offset = pageRequest.getOffset();
+            List<T> rows = query.range(offset, offset + rowsPerPage).list();
+            boolean hasNext = rows.size() > rowsPerPage;
+            PageResponse<T> response = new PageResponse<>(hasNext ? rows.subList(0, rowsPerPage) : rows,
+                    pageRequest.getPage(), rowsPerPage, -1);
+            response.setHasNext(hasNext);
+            response.setCountStrategy(strategy);
+            return response;
+        }
+
+        long estimate = strategy == CountStrategy.ESTIMATE && filter == null ? estimate(entityClass) : -1;
+        long totalCount;
+        if (estimate >= 0) {
+            totalCount = estimate;
+        } else if (strategy == CountStrategy.ESTIMATE || strategy == CountStrategy.CACHED) {
+            // Filtered lists (and tables never analyzed) cannot use the table estimate
+            strategy = CountStrategy.CACHED;
+            totalCount = countCache.get(entityClass.getName() + "|" + (filter == null ? "" : filter),
+                    key -> query.count()).await().indefinitely();
+        } else {
+            totalCount = query.count();
+        }
+
+        List<T> rows = query.page(Page.of(pageRequest.getPage() - 1, rowsPerPage)).list();
+        PageResponse<T> response = new PageResponse<>(rows, pageRequest.getPage(), rowsPerPage, totalCount);
+        response.setHasNext((long) pageRequest.getPage() * rowsPerPage < totalCount);
+        response.setCountStrategy(strategy);
+        return response;
+    }
+
+    /**
+     * Canonical cache key of a filter with positional parameters, {@code null} when nothing is filtered.
+     */
+    public static String filter(String where, Object... params) {
+        if ((where == null || where.isBlank() || where.trim().equals("1=1")) && params.length == 0) {
+            return null;
+        }
+        return where + Arrays.deepToString(params);
+    }
+
+    public static String filter(String where, Parameters params) {
+        return filter(where, params.map());
+    }
+
+    public static String filter(String where, Map<String, ?> params) {
+        return filter(where, params.isEmpty() ? new Object[0] : new Object[]{new TreeMap<>(params)});
+    }
+
+    /**
+     * Cache key of a list filtered only by a lower-cased {@code like ?1} search, {@code null}
+     * when there is no search.
+     */
+    public static String searchFilter(String where, String search) {
+        if (search == null || search.isEmpty()) {
+            return null;
+        }
+        return filter(where, "%" + search.toLowerCase() + "%");
+    }
+
+    // reltuples is -1 until the table has been vacuumed or analyzed
+    private long estimate(Class<?> entityClass) {
+        Table table = entityClass.getAnnotation(Table.class);
+        if (table == null || table.name().isEmpty()) {
+            return -1;
+        }
+        Number estimate = (Number) em.createNativeQuery(
+                        "SELECT COALESCE((SELECT c.reltuples::bigint FROM pg_class c WHERE c.oid = to_regclass(?1)), -1)")
+                .setParameter(1, table.name())
+                .getSingleResult();
+        return estimate.longValue();
+    }
+}
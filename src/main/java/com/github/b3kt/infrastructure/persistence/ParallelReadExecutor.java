@@ -0,0 +1,91 @@
+package com.github.b3kt.infrastructure.persistence;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent read-only queries concurrently on virtual threads.
+ * <p>
+ * Each query runs in its own transaction, and therefore on its own pooled connection,
+ * marked READ ONLY. A semaphore shared by all callers caps how many run at once, so a
+ * fan-out never holds more than {@code app.summary.parallel.max-concurrency}
+ * connections of the {@code quarkus.datasource.jdbc.max-size} pool.
+ */
+@Slf4j
+@ApplicationScoped
+public class ParallelReadExecutor {
+
+    @Inject
+    EntityManager em;
+
+    @ConfigProperty(name = "app.summary.parallel.max-concurrency", defaultValue = "4")
+    int maxConcurrency;
+
+    private Semaphore permits;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, maxConcurrency), true);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        log.debug("Parallel read executor started with {} permits", permits.availablePermits());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Submits a read-only query.
+     *
+     * @param parallel when false the query runs immediately on the calling thread and
+     *                 session, exactly as a plain method call would
+     * @param query    the query; must not write and must not depend on the caller's session
+     */
+    public <T> CompletableFuture<T> submit(boolean parallel, Supplier<T> query) {
+        if (!parallel) {
+            return CompletableFuture.completedFuture(query.get());
+        }
+        return CompletableFuture.supplyAsync(() -> runReadOnly(query), executor);
+    }
+
+    /**
+     * Waits for a submitted query and rethrows its original runtime exception.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> T runReadOnly(Supplier<T> query) {
+        permits.acquireUninterruptibly();
+        try {
+            return QuarkusTransaction.requiringNew().call(() -> {
+                em.createNativeQuery("SET TRANSACTION READ ONLY").executeUpdate();
+                return query.get();
+            });
+        } finally {
+            permits.release();
+        }
+    }
+}
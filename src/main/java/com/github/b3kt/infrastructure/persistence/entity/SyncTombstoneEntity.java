@@ -0,0 +1,38 @@
+package com.github.b3kt.infrastructure.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted row, kept so clients syncing a table by {@code updated_at} learn about the delete.
+ */
+@Entity
+@Table(name = "tb_sync_tombstone", indexes = {
+    @Index(name = "idx_sync_tombstone_table_deleted", columnList = "table_name, deleted_at")
+})
+@Getter
+@Setter
+public class SyncTombstoneEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "table_name", nullable = false, length = 100)
+    private String tableName;
+
+    @Column(name = "record_id", nullable = false)
+    private Long recordId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
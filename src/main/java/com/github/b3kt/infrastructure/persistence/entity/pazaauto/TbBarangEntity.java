@@ -38,6 +38,11 @@ public class TbBarangEntity extends BaseEntity {
     @Column(name = "stok_minimal")
     private Integer stokMinimal;
 
+    // Held for SPKs in progress; only StockReservationService writes it, never the form
+    @Column(name = "stok_reserved", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private Integer stokReserved;
+
     @Column(name = "id_supplier")
     private Integer supplierId;
 
@@ -0,0 +1,30 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The last document number issued per document type and day. Written only by
+ * {@link com.github.b3kt.application.service.pazaauto.DocumentNumberService}.
+ */
+@Entity
+@Table(name = "tb_document_counter")
+@Getter
+@Setter
+public class TbDocumentCounterEntity {
+
+    @EmbeddedId
+    private TbDocumentCounterId id;
+
+    @Column(name = "last_value", nullable = false)
+    private Long lastValue;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class TbDocumentCounterId implements Serializable {
+
+    @Column(name = "doc_type", length = 30)
+    private String docType;
+
+    @Column(name = "tanggal")
+    private LocalDate tanggal;
+}
@@ -5,7 +5,10 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 import org.hibernate.annotations.JdbcTypeCode;
@@ -29,6 +32,10 @@ public class TbSpkEntity extends BaseEntity {
     @Column(name = "tgl_jam_spk", length = 25)
     private String tanggalJamSpk;
 
+    // tanggalJamSpk as a timestamp, derived on every write; date filters and sorting use it
+    @Column(name = "spk_at")
+    private LocalDateTime spkAt;
+
     @Column(name = "nopol", length = 10)
     private String nopol;
 
@@ -87,4 +94,41 @@ public class TbSpkEntity extends BaseEntity {
     @Transient
     private BigDecimal grandTotal;
 
+    @PrePersist
+    @PreUpdate
+    void syncSpkAt() {
+        LocalDateTime parsed = parseTanggalJamSpk(tanggalJamSpk);
+        if (parsed != null) {
+            spkAt = parsed;
+        } else if (spkAt == null) {
+            spkAt = createdAt != null ? createdAt : LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Parses a tgl_jam_spk value: {@code yyyy-MM-dd HH:mm} as sent by the UI, with a
+     * {@code T} instead of the space or with seconds, or a bare date (start of that day).
+     *
+     * @return the timestamp, or {@code null} if the value does not start with a date
+     */
+    public static LocalDateTime parseTanggalJamSpk(String value) {
+        if (value == null || value.length() < 10) {
+            return null;
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(value.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        String time = value.substring(10).trim();
+        if (time.startsWith("T")) {
+            time = time.substring(1);
+        }
+        try {
+            return date.atTime(time.isEmpty() ? LocalTime.MIDNIGHT : LocalTime.parse(time));
+        } catch (DateTimeParseException e) {
+            return date.atStartOfDay();
+        }
+    }
 }
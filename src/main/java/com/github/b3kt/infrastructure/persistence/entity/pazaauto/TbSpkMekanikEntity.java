@@ -0,0 +1,30 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * One row per mechanic assigned to an SPK, mirroring {@link TbSpkEntity#getMekanikList()}
+ * so mechanic reports can join and index it instead of expanding the JSON.
+ */
+@Entity
+@Table(name = "tb_spk_mekanik")
+@Getter
+@Setter
+public class TbSpkMekanikEntity {
+
+    @EmbeddedId
+    private TbSpkMekanikId id;
+
+    @Column(name = "tugas", length = 100)
+    private String tugas;
+
+    @Column(name = "tanggal", nullable = false)
+    private LocalDate tanggal;
+}
@@ -0,0 +1,26 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class TbSpkMekanikId implements Serializable {
+
+    @Column(name = "no_spk", length = 30)
+    private String noSpk;
+
+    @Column(name = "id_mekanik")
+    private Long mekanikId;
+}
@@ -0,0 +1,49 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stock movement of a sparepart or barang. Rows are only ever appended, by
+ * {@link com.github.b3kt.application.service.pazaauto.StockLedgerService}; the sum of the
+ * deltas of an item is its stok.
+ */
+@Entity
+@Table(name = "tb_stock_ledger")
+@Getter
+@Setter
+public class TbStockLedgerEntity {
+
+    // A pooled sequence, unlike IDENTITY, lets the rows of one document go out as a JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_stock_ledger_seq")
+    @SequenceGenerator(name = "tb_stock_ledger_seq", sequenceName = "tb_stock_ledger_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "item_type", length = 20, nullable = false)
+    private String itemType;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "delta", nullable = false)
+    private Integer delta;
+
+    @Column(name = "source_type", length = 30, nullable = false)
+    private String sourceType;
+
+    @Column(name = "source_no", length = 50)
+    private String sourceNo;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The quantity of a barang held for an SPK. While {@code RESERVED} it is counted in
+ * tb_barang.stok_reserved; once the SPK is sold it is {@code COMMITTED} and has left stok.
+ */
+@Entity
+@Table(name = "tb_stock_reservation")
+@Getter
+@Setter
+public class TbStockReservationEntity {
+
+    public static final String RESERVED = "RESERVED";
+    public static final String COMMITTED = "COMMITTED";
+
+    @EmbeddedId
+    private TbStockReservationId id;
+
+    @Column(name = "kuantiti", nullable = false)
+    private Integer kuantiti;
+
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The stok of a sparepart or barang at the end of a day, taken from {@link TbStockLedgerEntity}.
+ */
+@Entity
+@Table(name = "tb_stock_snapshot")
+@Getter
+@Setter
+public class TbStockSnapshotEntity {
+
+    @EmbeddedId
+    private TbStockSnapshotId id;
+
+    @Column(name = "stok", nullable = false)
+    private Integer stok;
+}
@@ -0,0 +1,30 @@
+package com.github.b3kt.infrastructure.persistence.entity.pazaauto;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class TbStockSnapshotId implements Serializable {
+
+    @Column(name = "item_type", length = 20)
+    private String itemType;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "snapshot_date")
+    private LocalDate snapshotDate;
+}
@@ -0,0 +1,22 @@
+package com.github.b3kt.infrastructure.persistence.repository.pazaauto;
+
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkMekanikEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkMekanikId;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@ApplicationScoped
+public class TbSpkMekanikRepository implements PanacheRepositoryBase<TbSpkMekanikEntity, TbSpkMekanikId> {
+
+    /**
+     * SPK assignments of a mechanic between two SPK dates (inclusive), newest first.
+     */
+    public List<TbSpkMekanikEntity> findByMekanik(Long mekanikId, LocalDate startDate, LocalDate endDate) {
+        return find("id.mekanikId = ?1 and tanggal >= ?2 and tanggal <= ?3",
+                Sort.descending("tanggal"), mekanikId, startDate, endDate).list();
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.b3kt.presentation.rest;
 
 import com.github.b3kt.application.dto.ApiResponse;
+import com.github.b3kt.application.dto.CountStrategy;
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
 import com.github.b3kt.application.service.AuditTrailService;
@@ -40,12 +41,16 @@ public class AuditTrailResource {
             @QueryParam("rowsPerPage") @DefaultValue("10") int rowsPerPage,
             @QueryParam("sortBy") String sortBy,
             @QueryParam("descending") @DefaultValue("true") boolean descending,
-            @QueryParam("search") String search) {
+            @QueryParam("search") String search,
+            @QueryParam("after") String after,
+            @QueryParam("count") String count) {
 
         PageRequest pageRequest = new PageRequest(page, rowsPerPage);
         pageRequest.setSortBy(sortBy);
         pageRequest.setDescending(descending);
         pageRequest.setSearch(search);
+        pageRequest.setAfter(after);
+        pageRequest.setCountStrategy(CountStrategy.parse(count));
 
         PageResponse<AuditTrailEntity> pageResponse = auditTrailService.findPaginated(pageRequest);
         return Response.ok(ApiResponse.success(pageResponse)).build();
@@ -1,6 +1,7 @@
 package com.github.b3kt.presentation.rest.pazaauto;
 
 import com.github.b3kt.application.dto.ApiResponse;
+import com.github.b3kt.application.dto.CountStrategy;
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
 import com.github.b3kt.application.service.pazaauto.AbstractCrudService;
@@ -10,7 +11,6 @@ import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Produces(MediaType.APPLICATION_JSON)
@@ -23,8 +23,6 @@ public abstract class AbstractCrudResource<T, ID> {
 
     protected abstract String getEntityName();
 
-    protected static final DateTimeFormatter SPK_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
-
     @GET
     @WithSpan("list-all-entities")
     public Response list() {
@@ -44,7 +42,9 @@ public abstract class AbstractCrudResource<T, ID> {
             @QueryParam("statusFilter") String statusFilter,
             @QueryParam("filterToday") @DefaultValue("false") boolean filterToday,
             @QueryParam("startDate") String startDate,
-            @QueryParam("endDate") String endDate) {
+            @QueryParam("endDate") String endDate,
+            @QueryParam("after") String after,
+            @QueryParam("count") String count) {
 
         PageRequest pageRequest = new PageRequest(page, rowsPerPage);
         pageRequest.setSortBy(sortBy);
@@ -54,6 +54,8 @@ public abstract class AbstractCrudResource<T, ID> {
         pageRequest.setFilterToday(filterToday);
         pageRequest.setStartDate(startDate);
         pageRequest.setEndDate(endDate);
+        pageRequest.setAfter(after);
+        pageRequest.setCountStrategy(CountStrategy.parse(count));
 
         PageResponse<T> pageResponse = getService().findPaginated(pageRequest);
         return Response.ok(ApiResponse.success(pageResponse)).build();
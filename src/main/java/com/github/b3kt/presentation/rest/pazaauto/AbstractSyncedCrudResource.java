@@ -0,0 +1,22 @@
+package com.github.b3kt.presentation.rest.pazaauto;
+
+import com.github.b3kt.application.dto.ApiResponse;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * CRUD resource of a master table the clients keep a local copy of, with the
+ * {@code GET /sync} delta feed. Only tables with the (updated_at, id) index of V22 extend it.
+ */
+public abstract class AbstractSyncedCrudResource<T, ID> extends AbstractCrudResource<T, ID> {
+
+    @GET
+    @Path("/sync")
+    @WithSpan("sync-entities")
+    public Response sync(@QueryParam("since") String since) {
+        return Response.ok(ApiResponse.success(getService().sync(since))).build();
+    }
+}
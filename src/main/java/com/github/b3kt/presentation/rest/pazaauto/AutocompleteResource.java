@@ -0,0 +1,59 @@
+package com.github.b3kt.presentation.rest.pazaauto;
+
+import com.github.b3kt.application.dto.ApiResponse;
+import com.github.b3kt.application.service.pazaauto.AutocompleteService;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@RequestScoped
+@Path("/api/pazaauto/autocomplete")
+@RequiredArgsConstructor
+public class AutocompleteResource {
+
+    final AutocompleteService autocompleteService;
+
+    /**
+     * The best matches for a picker, answered from memory so it can be called on every
+     * keystroke.
+     *
+     * @param q     what has been typed so far
+     * @param type  comma-separated {@code jasa}, {@code barang}, {@code sparepart} or
+     *              {@code pelanggan}; all of them when empty
+     * @param limit how many matches to return
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response suggest(@QueryParam("q") String q,
+                            @QueryParam("type") String type,
+                            @QueryParam("limit") @DefaultValue("10") int limit) {
+        return Response.ok(ApiResponse.success(autocompleteService.suggest(q, parseTypes(type), limit))).build();
+    }
+
+    private static List<AutocompleteService.Type> parseTypes(String type) {
+        List<AutocompleteService.Type> types = new ArrayList<>();
+        if (type == null || type.isBlank()) {
+            return types;
+        }
+        for (String name : type.split(",")) {
+            if (!name.isBlank()) {
+                try {
+                    types.add(AutocompleteService.Type.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown autocomplete type: " + name.trim());
+                }
+            }
+        }
+        return types;
+    }
+}
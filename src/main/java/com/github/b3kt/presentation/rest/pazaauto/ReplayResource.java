@@ -0,0 +1,38 @@
+package com.github.b3kt.presentation.rest.pazaauto;
+
+import com.github.b3kt.application.dto.ApiResponse;
+import com.github.b3kt.application.dto.pazaauto.ReplayOperation;
+import com.github.b3kt.application.dto.pazaauto.ReplayResult;
+import com.github.b3kt.application.service.pazaauto.OfflineReplayService;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@RequestScoped
+@Path("/api/pazaauto/replay")
+@RequiredArgsConstructor
+public class ReplayResource {
+
+    final OfflineReplayService replayService;
+
+    /**
+     * Applies the SPK, penjualan and pembelian writes a client queued while offline, in order,
+     * and returns one result per operation.
+     */
+    @POST
+    @WithSpan("replay-offline-operations")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response replay(List<ReplayOperation> operations) {
+        List<ReplayResult> results = replayService.replay(operations);
+        return Response.ok(ApiResponse.success(results)).build();
+    }
+}
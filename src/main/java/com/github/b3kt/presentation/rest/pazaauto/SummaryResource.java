@@ -2,6 +2,9 @@ package com.github.b3kt.presentation.rest.pazaauto;
 
 import com.github.b3kt.application.dto.ApiResponse;
 import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import com.github.b3kt.application.helper.ExportWriter;
+import com.github.b3kt.application.service.pazaauto.ReportExportService;
+import com.github.b3kt.application.service.pazaauto.SummaryRollupService;
 import com.github.b3kt.application.service.pazaauto.SummaryService;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.enterprise.context.RequestScoped;
@@ -19,6 +22,8 @@ import java.time.format.DateTimeFormatter;
 public class SummaryResource {
 
     final SummaryService summaryService;
+    final SummaryRollupService rollupService;
+    final ReportExportService exportService;
 
     @GET
     @RolesAllowed("Owner")
@@ -38,4 +43,52 @@ public class SummaryResource {
         SummaryDto summary = summaryService.getSummary(startDate, endDate, statusPembelianFilter);
         return Response.ok(ApiResponse.success(summary)).build();
     }
+
+    @POST
+    @Path("/rekap-harian/rebuild")
+    @RolesAllowed("Owner")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response rebuildRekapHarian(
+            @QueryParam("startDate") String startDate,
+            @QueryParam("endDate") String endDate) {
+
+        if (startDate == null || startDate.isBlank()) {
+            startDate = LocalDate.now().withDayOfMonth(1).format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+        if (endDate == null || endDate.isBlank()) {
+            endDate = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
+        }
+
+        int days = rollupService.rebuild(LocalDate.parse(startDate), LocalDate.parse(endDate));
+        return Response.ok(ApiResponse.success("Rekap harian rebuilt for " + days + " days", days)).build();
+    }
+
+    /**
+     * Streams one summary breakdown (daily, sold-items or jasa) as CSV or NDJSON.
+     */
+    @GET
+    @Path("/export/{dataset}")
+    @RolesAllowed("Owner")
+    public Response export(
+            @PathParam("dataset") String dataset,
+            @QueryParam("startDate") String startDate,
+            @QueryParam("endDate") String endDate,
+            @QueryParam("statusPembelianFilter") String statusPembelianFilter,
+            @QueryParam("format") String format) {
+
+        ReportExportService.Dataset exportDataset = ReportExportService.Dataset.parse(dataset);
+        if (exportDataset == ReportExportService.Dataset.PENJUALAN) {
+            throw new IllegalArgumentException("Use /api/pazaauto/rekap-penjualan/export for penjualan rows");
+        }
+        LocalDate start = startDate == null || startDate.isBlank()
+                ? LocalDate.now().withDayOfMonth(1) : LocalDate.parse(startDate);
+        LocalDate end = endDate == null || endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate);
+        ExportWriter.Format exportFormat = ExportWriter.Format.parse(format);
+
+        return Response.ok(exportService.export(exportDataset, start, end, statusPembelianFilter, exportFormat))
+                .type(exportFormat.getMediaType())
+                .header("Content-Disposition",
+                        "attachment; filename=\"" + exportDataset.fileName(start, end, exportFormat) + "\"")
+                .build();
+    }
 }
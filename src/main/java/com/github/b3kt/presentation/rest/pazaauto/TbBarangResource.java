@@ -9,7 +9,7 @@ import jakarta.ws.rs.Path;
 
 @RequestScoped
 @Path("/api/pazaauto/barang")
-public class TbBarangResource extends AbstractCrudResource<TbBarangEntity, Long> {
+public class TbBarangResource extends AbstractSyncedCrudResource<TbBarangEntity, Long> {
 
     @Inject
     TbBarangService service;
@@ -10,7 +10,7 @@ import lombok.RequiredArgsConstructor;
 @RequestScoped
 @Path("/api/pazaauto/jasa")
 @RequiredArgsConstructor
-public class TbJasaResource extends AbstractCrudResource<TbJasaEntity, Long> {
+public class TbJasaResource extends AbstractSyncedCrudResource<TbJasaEntity, Long> {
 
     private final TbJasaService service;
 
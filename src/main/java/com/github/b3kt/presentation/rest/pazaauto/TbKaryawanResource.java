@@ -14,7 +14,7 @@ import jakarta.ws.rs.core.Response;
 
 @RequestScoped
 @Path("/api/pazaauto/karyawan")
-public class TbKaryawanResource extends AbstractCrudResource<TbKaryawanEntity, Long> {
+public class TbKaryawanResource extends AbstractSyncedCrudResource<TbKaryawanEntity, Long> {
 
     @Inject
     TbKaryawanService service;
@@ -15,7 +15,7 @@ import java.util.List;
 
 @RequestScoped
 @Path("/api/pazaauto/kendaraan")
-public class TbKendaraanResource extends AbstractCrudResource<TbKendaraanEntity, Long> {
+public class TbKendaraanResource extends AbstractSyncedCrudResource<TbKendaraanEntity, Long> {
 
     @Inject
     TbKendaraanService service;
@@ -14,7 +14,7 @@ import jakarta.ws.rs.core.Response;
 
 @RequestScoped
 @Path("/api/pazaauto/pelanggan")
-public class TbPelangganResource extends AbstractCrudResource<TbPelangganEntity, Long> {
+public class TbPelangganResource extends AbstractSyncedCrudResource<TbPelangganEntity, Long> {
 
     @Inject
     TbPelangganService service;
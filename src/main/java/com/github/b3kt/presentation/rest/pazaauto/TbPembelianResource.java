@@ -1,9 +1,11 @@
 package com.github.b3kt.presentation.rest.pazaauto;
 
 import com.github.b3kt.application.dto.ApiResponse;
+import com.github.b3kt.application.dto.CountStrategy;
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
 import com.github.b3kt.application.service.pazaauto.AbstractCrudService;
+import com.github.b3kt.application.service.pazaauto.PrintRenderService;
 import com.github.b3kt.application.service.pazaauto.TbPembelianDetailService;
 import com.github.b3kt.application.service.pazaauto.TbPembelianService;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity;
@@ -21,6 +23,7 @@ import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import lombok.RequiredArgsConstructor;
 
+import java.time.LocalDate;
 import java.util.Optional;
 
 @RequestScoped
@@ -32,6 +35,7 @@ public class TbPembelianResource extends AbstractCrudResource<TbPembelianEntity,
 
     private final TbPembelianService service;
     private final TbPembelianDetailService tbPembelianDetailService;
+    private final PrintRenderService renderService;
 
     @Override
     protected AbstractCrudService<TbPembelianEntity, Long> getService() {
@@ -61,7 +65,9 @@ public class TbPembelianResource extends AbstractCrudResource<TbPembelianEntity,
             @QueryParam("jenisPembelian") String jenisPembelian,
             @QueryParam("kategoriOperasional") String kategoriOperasional,
             @QueryParam("startDate") String startDate,
-            @QueryParam("endDate") String endDate) {
+            @QueryParam("endDate") String endDate,
+            @QueryParam("after") String after,
+            @QueryParam("count") String count) {
 
         PageRequest pageRequest = new PageRequest(page, rowsPerPage);
         pageRequest.setSortBy(sortBy);
@@ -73,11 +79,35 @@ public class TbPembelianResource extends AbstractCrudResource<TbPembelianEntity,
         pageRequest.setKategoriOperasionalFilter(kategoriOperasional);
         pageRequest.setStartDate(startDate);
         pageRequest.setEndDate(endDate);
+        pageRequest.setAfter(after);
+        pageRequest.setCountStrategy(CountStrategy.parse(count));
 
         PageResponse<TbPembelianEntity> pageResponse = getService().findPaginated(pageRequest);
         return Response.ok(ApiResponse.success(pageResponse)).build();
     }
 
+    /**
+     * The rekap pembelian print, rendered on the server as HTML while the rows are read.
+     */
+    @GET
+    @Path("/rekap/print")
+    @Produces(MediaType.TEXT_HTML)
+    public Response printRekap(
+            @QueryParam("startDate") String startDate,
+            @QueryParam("endDate") String endDate,
+            @QueryParam("statusFilter") String statusFilter,
+            @QueryParam("jenisPembelian") String jenisPembelian,
+            @QueryParam("kategoriOperasional") String kategoriOperasional) {
+
+        LocalDate start = startDate == null || startDate.isBlank()
+                ? LocalDate.now().withDayOfMonth(1) : LocalDate.parse(startDate);
+        LocalDate end = endDate == null || endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate);
+
+        return Response.ok(renderService.rekapPembelian(start, end, statusFilter, jenisPembelian, kategoriOperasional))
+                .type(PrintRenderService.Format.HTML.getMediaType())
+                .build();
+    }
+
     @GET
     @Path("/{noPembelian}")
     public Response getByNoPembelian(@PathParam("noPembelian") String noPembelian) {
@@ -1,10 +1,14 @@
 package com.github.b3kt.presentation.rest.pazaauto;
 
 import com.github.b3kt.application.dto.ApiResponse;
+import com.github.b3kt.application.dto.CountStrategy;
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
 import com.github.b3kt.application.dto.pazaauto.RekapPenjualanDto;
+import com.github.b3kt.application.helper.ExportWriter;
 import com.github.b3kt.application.service.pazaauto.AbstractCrudService;
+import com.github.b3kt.application.service.pazaauto.PrintRenderService;
+import com.github.b3kt.application.service.pazaauto.ReportExportService;
 import com.github.b3kt.application.service.pazaauto.TbKaryawanService;
 import com.github.b3kt.application.service.pazaauto.TbPelangganService;
 import com.github.b3kt.application.service.pazaauto.TbSpkService;
@@ -14,10 +18,11 @@ import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
 import com.github.b3kt.infrastructure.persistence.entity.subentity.SpkMekanik;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import lombok.RequiredArgsConstructor;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.Objects;
 
 @RequestScoped
@@ -28,6 +33,8 @@ public class TbRekapPenjualanResource extends AbstractCrudResource<TbSpkEntity,
     final TbSpkService service;
     final TbPelangganService pelangganService;
     final TbKaryawanService karyawanService;
+    final ReportExportService exportService;
+    final PrintRenderService renderService;
 
     @Override
     protected AbstractCrudService<TbSpkEntity, Long> getService() {
@@ -81,8 +88,18 @@ public class TbRekapPenjualanResource extends AbstractCrudResource<TbSpkEntity,
             @QueryParam("statusFilter") String statusFilter,
             @QueryParam("filterToday") @DefaultValue("false") boolean filterToday,
             @QueryParam("startDate") String startDate,
-            @QueryParam("endDate") String endDate) {
-
+            @QueryParam("endDate") String endDate,
+            @QueryParam("after") String after,
+            @QueryParam("count") String count) {
+
+        // The SPK + penjualan projection is served with offset paging and exact counts only;
+        // a cursor or another strategy is refused rather than silently answered with page 1
+        if (after != null && !after.isBlank()) {
+            throw new IllegalArgumentException("The rekap penjualan does not support cursor paging (after)");
+        }
+        if (CountStrategy.parse(count) != CountStrategy.EXACT) {
+            throw new IllegalArgumentException("The rekap penjualan only supports count=exact");
+        }
         PageRequest pageRequest = new PageRequest(page, rowsPerPage);
         pageRequest.setSortBy(sortBy);
         pageRequest.setDescending(descending);
@@ -96,15 +113,53 @@ public class TbRekapPenjualanResource extends AbstractCrudResource<TbSpkEntity,
         return Response.ok(ApiResponse.success(pageResponse)).build();
     }
 
+    /**
+     * Streams every sale of the range with its SPK as CSV or NDJSON.
+     */
+    @GET
+    @Path("/export")
+    public Response export(
+            @QueryParam("startDate") String startDate,
+            @QueryParam("endDate") String endDate,
+            @QueryParam("format") String format) {
+
+        LocalDate start = startDate == null || startDate.isBlank()
+                ? LocalDate.now().withDayOfMonth(1) : LocalDate.parse(startDate);
+        LocalDate end = endDate == null || endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate);
+        ExportWriter.Format exportFormat = ExportWriter.Format.parse(format);
+        ReportExportService.Dataset dataset = ReportExportService.Dataset.PENJUALAN;
+
+        return Response.ok(exportService.export(dataset, start, end, null, exportFormat))
+                .type(exportFormat.getMediaType())
+                .header("Content-Disposition",
+                        "attachment; filename=\"" + dataset.fileName(start, end, exportFormat) + "\"")
+                .build();
+    }
+
+    /**
+     * The rekap penjualan print, rendered on the server as HTML while the rows are read.
+     */
+    @GET
+    @Path("/print")
+    @Produces(MediaType.TEXT_HTML)
+    public Response print(
+            @QueryParam("startDate") String startDate,
+            @QueryParam("endDate") String endDate,
+            @QueryParam("statusFilter") String statusFilter) {
+
+        LocalDate start = startDate == null || startDate.isBlank()
+                ? LocalDate.now().withDayOfMonth(1) : LocalDate.parse(startDate);
+        LocalDate end = endDate == null || endDate.isBlank() ? LocalDate.now() : LocalDate.parse(endDate);
+
+        return Response.ok(renderService.rekapPenjualan(start, end, statusFilter))
+                .type(PrintRenderService.Format.HTML.getMediaType())
+                .build();
+    }
+
     @GET
     @Path("/get-next-spk-number")
     public Response getNextSpk() {
-        String lastSpkNumber = service.getNextSpkNumber(SPK_DATE_FORMATTER.format(LocalDateTime.now()));
-        String lastQueueNumber = lastSpkNumber.substring(lastSpkNumber.length() - 2);
-        int nextQueueNumber = Integer.parseInt(lastQueueNumber) + 1;
-        String nextSpkNumber = lastSpkNumber.substring(0, lastSpkNumber.length() - 2)
-                + String.format("%02d", nextQueueNumber);
-        return Response.ok(ApiResponse.success(nextSpkNumber)).build();
+        return Response.ok(ApiResponse.success(service.previewSpkNumber())).build();
     }
 
     @POST
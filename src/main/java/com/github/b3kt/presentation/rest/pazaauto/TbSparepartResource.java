@@ -1,6 +1,8 @@
 package com.github.b3kt.presentation.rest.pazaauto;
 
 import com.github.b3kt.application.service.pazaauto.AbstractCrudService;
+import com.github.b3kt.application.service.pazaauto.StockLedgerService;
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
 import com.github.b3kt.application.service.pazaauto.TbSparepartService;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSparepartEntity;
 import com.github.b3kt.application.dto.ApiResponse;
@@ -10,13 +12,18 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Response;
 
+import java.time.LocalDate;
+
 @RequestScoped
 @Path("/api/pazaauto/sparepart")
-public class TbSparepartResource extends AbstractCrudResource<TbSparepartEntity, Long> {
+public class TbSparepartResource extends AbstractSyncedCrudResource<TbSparepartEntity, Long> {
 
     @Inject
     TbSparepartService service;
 
+    @Inject
+    StockLedgerService stockLedger;
+
     @Override
     protected AbstractCrudService<TbSparepartEntity, Long> getService() {
         return service;
@@ -56,4 +63,15 @@ public class TbSparepartResource extends AbstractCrudResource<TbSparepartEntity,
                 .findPaginated(pageRequest);
         return Response.ok(ApiResponse.success(pageResponse)).build();
     }
+
+    /**
+     * The stok of every sparepart at the end of {@code tanggal} (today when absent), by
+     * sparepart id.
+     */
+    @GET
+    @Path("/stok")
+    public Response stockAt(@QueryParam("tanggal") String tanggal) {
+        LocalDate date = tanggal == null || tanggal.isBlank() ? LocalDate.now() : LocalDate.parse(tanggal);
+        return Response.ok(ApiResponse.success(stockLedger.stockAt(ItemType.SPAREPART, date))).build();
+    }
 }
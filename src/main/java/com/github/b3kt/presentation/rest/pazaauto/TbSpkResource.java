@@ -1,17 +1,10 @@
 package com.github.b3kt.presentation.rest.pazaauto;
 
-import java.time.LocalDateTime;
-import java.util.Objects;
-
 import com.github.b3kt.application.dto.ApiResponse;
 import com.github.b3kt.application.service.pazaauto.AbstractCrudService;
-import com.github.b3kt.application.service.pazaauto.TbKaryawanService;
-import com.github.b3kt.application.service.pazaauto.TbPelangganService;
+import com.github.b3kt.application.service.pazaauto.SpkBoardService;
 import com.github.b3kt.application.service.pazaauto.TbSpkService;
-import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKaryawanEntity;
-import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
-import com.github.b3kt.infrastructure.persistence.entity.subentity.SpkMekanik;
 import io.opentelemetry.instrumentation.annotations.SpanAttribute;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.enterprise.context.RequestScoped;
@@ -21,7 +14,12 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 import lombok.RequiredArgsConstructor;
 
 @RequestScoped
@@ -30,8 +28,7 @@ import lombok.RequiredArgsConstructor;
 public class TbSpkResource extends AbstractCrudResource<TbSpkEntity, Long> {
 
     final TbSpkService service;
-    final TbPelangganService pelangganService;
-    final TbKaryawanService karyawanService;
+    final SpkBoardService board;
 
     @Override
     protected AbstractCrudService<TbSpkEntity, Long> getService() {
@@ -62,15 +59,42 @@ public class TbSpkResource extends AbstractCrudResource<TbSpkEntity, Long> {
         return Response.ok(ApiResponse.success(service.findUnprocessedSpk())).build();
     }
 
+    @GET
+    @Path("/board")
+    @WithSpan("get-spk-board")
+    public Response getBoard() {
+        return Response.ok(ApiResponse.success(board.snapshot())).build();
+    }
+
+    /**
+     * Streams the SPK board: a {@code snapshot} event with every open SPK, then an
+     * {@code upsert} or {@code remove} event per change.
+     */
+    @GET
+    @Path("/board/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void streamBoard(@Context SseEventSink sink, @Context Sse sse) {
+        board.subscribe(event -> {
+            if (sink.isClosed()) {
+                return false;
+            }
+            sink.send(sse.newEventBuilder()
+                    .id(String.valueOf(event.sequence()))
+                    .name(event.type().name().toLowerCase())
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(SpkBoardService.Event.class, event)
+                    .build());
+            return true;
+        });
+    }
+
     @Override
     @GET
     @Path("/{id}")
     public Response getById(@PathParam("id") String id) {
         TbSpkEntity entity = getService().findById(parseId(id));
 
-        fillKaryawanDetail(entity);
-        fillPelangganDetail(entity);
-        fillKendaraanDetail(entity);
+        service.fillDetails(entity);
 
         return Response.ok(ApiResponse.success(entity)).build();
     }
@@ -80,21 +104,14 @@ public class TbSpkResource extends AbstractCrudResource<TbSpkEntity, Long> {
     @Path("/get-next-spk-number")
     @WithSpan("get-next-spk-number")
     public Response getNextSpk() {
-        String lastSpkNumber = service.getNextSpkNumber(SPK_DATE_FORMATTER.format(LocalDateTime.now()));
-        String lastQueueNumber = lastSpkNumber.substring(lastSpkNumber.length() - 2);
-        int nextQueueNumber = Integer.parseInt(lastQueueNumber) + 1;
-        String nextSpkNumber = lastSpkNumber.substring(0, lastSpkNumber.length() - 2)
-                + String.format("%02d", nextQueueNumber);
-        return Response.ok(ApiResponse.success(nextSpkNumber)).build();
+        return Response.ok(ApiResponse.success(service.previewSpkNumber())).build();
     }
 
     @POST
     @Override
     public Response create(TbSpkEntity entity) {
 
-        fillKaryawanDetail(entity);
-        fillPelangganDetail(entity);
-        fillKendaraanDetail(entity);
+        service.fillDetails(entity);
 
         TbSpkEntity created = getService().create(entity);
         return Response.ok(ApiResponse.success(getEntityName() + " created", created)).build();
@@ -105,9 +122,7 @@ public class TbSpkResource extends AbstractCrudResource<TbSpkEntity, Long> {
     @Path("/{id}")
     public Response update(@PathParam("id") String id, TbSpkEntity entity) {
 
-        fillKaryawanDetail(entity);
-        fillPelangganDetail(entity);
-        fillKendaraanDetail(entity);
+        service.fillDetails(entity);
 
         TbSpkEntity updated = getService().update(parseId(id), entity);
 
@@ -134,50 +149,4 @@ public class TbSpkResource extends AbstractCrudResource<TbSpkEntity, Long> {
         service.deleteByNoSpk(noSpk);
         return Response.ok(ApiResponse.success(getEntityName() + " deleted permanently")).build();
     }
-
-    private void fillPelangganDetail(TbSpkEntity entity) {
-
-        TbPelangganEntity pelanggan;
-        if (Objects.isNull(entity.getPelangganId())) {
-            pelanggan = pelangganService.findByNopol(entity.getNopol());
-            if (Objects.nonNull(pelanggan)) {
-                entity.setPelangganId(pelanggan.getId());
-                entity.setNamaPelanggan(pelanggan.getNamaPelanggan());
-            }
-        }else{
-            pelanggan = pelangganService.findById(entity.getPelangganId());
-        }
-
-        if(Objects.nonNull(pelanggan)){
-            entity.setAlamatPelanggan(pelanggan.getAlamat());
-            entity.setMerkKendaraan(pelanggan.getMerk());
-            entity.setJenisKendaraan(pelanggan.getJenis());
-        }
-    }
-
-    private void fillKaryawanDetail(TbSpkEntity entity) {
-        if (Objects.isNull(entity.getMekanikId())) {
-            if (entity.getMekanikList() == null || entity.getMekanikList().isEmpty()) {
-                return;
-            }
-            Long mekanikId = entity.getMekanikList().stream()
-                    .findFirst()
-                    .map(SpkMekanik::getId)
-                    .orElse(null);
-            if (mekanikId == null) {
-                return;
-            }
-            TbKaryawanEntity karyawan = karyawanService.findById(mekanikId);
-            if (Objects.nonNull(karyawan)) {
-                entity.setNamaKaryawan(karyawan.getNamaKaryawan());
-                entity.setMekanikId(karyawan.getId());
-            }
-        }
-    }
-
-    private void fillKendaraanDetail(TbSpkEntity entity) {
-        if (Objects.nonNull(entity.getKm())) {
-            entity.setKmSaatIni(entity.getKm());
-        }
-    }
 }
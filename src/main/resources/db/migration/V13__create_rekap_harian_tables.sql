@@ -0,0 +1,226 @@
+-- V13: Daily rekap (rollup) tables behind the Owner summary dashboard
+--
+-- SummaryService used to aggregate tb_penjualan / tb_spk / tb_spk_detail / tb_pembelian
+-- on every request. The tables below keep one row per day (and per barang, jasa,
+-- metode pembayaran, mekanik or pembelian status/jenis) so the cost of the summary
+-- depends on the number of days in the range, not on the number of transactions.
+--
+-- Rows are recomputed one day at a time by
+--   fn_refresh_rekap_harian_penjualan(date)
+--   fn_refresh_rekap_harian_pembelian(date)
+-- which the application calls in the same transaction as every write to
+-- tb_penjualan / tb_pembelian (see SummaryRollupService).
+
+-- ── Tables ─────────────────────────────────────────────────────────────────
+
+CREATE TABLE IF NOT EXISTS tb_rekap_harian (
+    tanggal            DATE                        NOT NULL,
+    total_customers    BIGINT                      NOT NULL DEFAULT 0,
+    total_income       NUMERIC(18, 2)              NOT NULL DEFAULT 0,
+    total_item_terjual BIGINT                      NOT NULL DEFAULT 0,
+    updated_at         TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tanggal)
+);
+
+CREATE TABLE IF NOT EXISTS tb_rekap_harian_barang (
+    tanggal                DATE                   NOT NULL,
+    id_sparepart           BIGINT                 NOT NULL,
+    nama_barang            CHARACTER VARYING(100) NOT NULL,
+    total_qty              BIGINT                 NOT NULL DEFAULT 0,
+    total_value            NUMERIC(18, 2)         NOT NULL DEFAULT 0,
+    total_nilai_adjustment NUMERIC(18, 2)         NOT NULL DEFAULT 0,
+    total_modal            NUMERIC(18, 2)         NOT NULL DEFAULT 0,
+    PRIMARY KEY (tanggal, id_sparepart, nama_barang)
+);
+
+CREATE TABLE IF NOT EXISTS tb_rekap_harian_jasa (
+    tanggal                DATE                   NOT NULL,
+    id_jasa                BIGINT                 NOT NULL,
+    nama_jasa              CHARACTER VARYING(100) NOT NULL,
+    total_qty              BIGINT                 NOT NULL DEFAULT 0,
+    total_nilai            NUMERIC(18, 2)         NOT NULL DEFAULT 0,
+    total_nilai_adjustment NUMERIC(18, 2)         NOT NULL DEFAULT 0,
+    total_modal            NUMERIC(18, 2)         NOT NULL DEFAULT 0,
+    PRIMARY KEY (tanggal, id_jasa, nama_jasa)
+);
+
+CREATE TABLE IF NOT EXISTS tb_rekap_harian_metode_bayar (
+    tanggal           DATE                  NOT NULL,
+    metode_pembayaran CHARACTER VARYING(25) NOT NULL,
+    total             NUMERIC(18, 2)        NOT NULL DEFAULT 0,
+    PRIMARY KEY (tanggal, metode_pembayaran)
+);
+
+CREATE TABLE IF NOT EXISTS tb_rekap_harian_mekanik (
+    tanggal         DATE   NOT NULL,
+    id_mekanik      BIGINT NOT NULL,
+    total_customers BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (tanggal, id_mekanik)
+);
+
+-- status_pembayaran is stored as '' when the pembelian has no status so it can be
+-- part of the primary key; the summary status filter never matches ''.
+CREATE TABLE IF NOT EXISTS tb_rekap_harian_pembelian (
+    tanggal           DATE                  NOT NULL,
+    status_pembayaran CHARACTER VARYING(25) NOT NULL DEFAULT '',
+    jenis_pembelian   CHARACTER VARYING(25) NOT NULL,
+    total             NUMERIC(18, 2)        NOT NULL DEFAULT 0,
+    PRIMARY KEY (tanggal, status_pembayaran, jenis_pembelian)
+);
+
+-- ── Refresh functions ──────────────────────────────────────────────────────
+-- Each function deletes and recomputes the rows of a single day. An advisory
+-- transaction lock per day serialises concurrent refreshes of the same day, and
+-- because every statement takes a fresh snapshot (READ COMMITTED) the second
+-- transaction sees the rows committed by the first.
+
+CREATE OR REPLACE FUNCTION fn_refresh_rekap_harian_penjualan(p_tanggal DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    v_start TIMESTAMP := p_tanggal::timestamp;
+    v_end   TIMESTAMP := (p_tanggal + 1)::timestamp;
+    v_rows  INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_rekap_harian_penjualan:' || p_tanggal::text));
+
+    DELETE FROM tb_rekap_harian WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_barang WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_jasa WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_metode_bayar WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_mekanik WHERE tanggal = p_tanggal;
+
+    INSERT INTO tb_rekap_harian (tanggal, total_customers, total_income, total_item_terjual, updated_at)
+    SELECT p_tanggal,
+           COUNT(DISTINCT s.no_spk),
+           COALESCE(SUM(p.grand_total), 0),
+           COALESCE((SELECT SUM(d.jumlah)
+                     FROM tb_spk_detail d
+                     JOIN tb_spk s2 ON s2.no_spk = d.no_spk
+                     JOIN tb_penjualan p2 ON p2.no_spk = s2.no_spk
+                     WHERE d.id_sparepart IS NOT NULL
+                       AND p2.tgl_jam_penjualan >= v_start
+                       AND p2.tgl_jam_penjualan < v_end), 0),
+           CURRENT_TIMESTAMP
+    FROM tb_penjualan p
+    JOIN tb_spk s ON s.no_spk = p.no_spk
+    WHERE p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    HAVING COUNT(*) > 0;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+
+    IF v_rows = 0 THEN
+        RETURN 0;
+    END IF;
+
+    INSERT INTO tb_rekap_harian_barang (tanggal, id_sparepart, nama_barang, total_qty, total_value,
+                                        total_nilai_adjustment, total_modal)
+    SELECT p_tanggal,
+           d.id_sparepart,
+           d.nama_jasa,
+           COALESCE(SUM(d.jumlah), 0),
+           COALESCE(SUM(d.harga_master * d.jumlah), 0),
+           COALESCE(SUM(d.harga * d.jumlah), 0),
+           COALESCE(SUM(b.harga_beli * d.jumlah), 0)
+    FROM tb_spk_detail d
+    JOIN tb_spk s ON s.no_spk = d.no_spk
+    JOIN tb_penjualan p ON p.no_spk = s.no_spk
+    LEFT JOIN tb_barang b ON b.id = d.id_sparepart
+    WHERE d.id_sparepart IS NOT NULL
+      AND p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY d.id_sparepart, d.nama_jasa;
+
+    INSERT INTO tb_rekap_harian_jasa (tanggal, id_jasa, nama_jasa, total_qty, total_nilai,
+                                      total_nilai_adjustment, total_modal)
+    SELECT p_tanggal,
+           d.id_jasa,
+           d.nama_jasa,
+           COALESCE(SUM(d.jumlah), 0),
+           COALESCE(SUM(d.harga_master * d.jumlah), 0),
+           COALESCE(SUM(d.harga * d.jumlah), 0),
+           COALESCE(SUM(j.harga_jasa * d.jumlah), 0)
+    FROM tb_spk_detail d
+    JOIN tb_spk s ON s.no_spk = d.no_spk
+    JOIN tb_penjualan p ON p.no_spk = s.no_spk
+    LEFT JOIN tb_jasa j ON j.id = d.id_jasa
+    WHERE d.id_jasa IS NOT NULL
+      AND p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY d.id_jasa, d.nama_jasa;
+
+    INSERT INTO tb_rekap_harian_metode_bayar (tanggal, metode_pembayaran, total)
+    SELECT p_tanggal,
+           COALESCE(p.metode_pembayaran, 'LAINNYA'),
+           COALESCE(SUM(p.grand_total), 0)
+    FROM tb_penjualan p
+    JOIN tb_spk s ON s.no_spk = p.no_spk
+    WHERE p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY COALESCE(p.metode_pembayaran, 'LAINNYA');
+
+    INSERT INTO tb_rekap_harian_mekanik (tanggal, id_mekanik, total_customers)
+    SELECT p_tanggal,
+           (m.value->>'id')::bigint,
+           COUNT(DISTINCT s.no_spk)
+    FROM tb_spk s
+    JOIN tb_penjualan p ON p.no_spk = s.no_spk
+    CROSS JOIN LATERAL jsonb_array_elements(s.mekanik_list) AS m(value)
+    WHERE m.value->>'id' IS NOT NULL
+      AND p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY (m.value->>'id')::bigint;
+
+    RETURN v_rows;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION fn_refresh_rekap_harian_penjualan(DATE) IS 'Recomputes the tb_rekap_harian* sales rows of one day';
+
+CREATE OR REPLACE FUNCTION fn_refresh_rekap_harian_pembelian(p_tanggal DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    v_rows INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_rekap_harian_pembelian:' || p_tanggal::text));
+
+    DELETE FROM tb_rekap_harian_pembelian WHERE tanggal = p_tanggal;
+
+    INSERT INTO tb_rekap_harian_pembelian (tanggal, status_pembayaran, jenis_pembelian, total)
+    SELECT p_tanggal,
+           COALESCE(b.status_pembayaran, ''),
+           COALESCE(b.jenis_pembelian, 'LAINNYA'),
+           COALESCE(SUM(b.grand_total), 0)
+    FROM tb_pembelian b
+    WHERE b.tgl_pembelian >= p_tanggal::timestamp
+      AND b.tgl_pembelian < (p_tanggal + 1)::timestamp
+    GROUP BY COALESCE(b.status_pembayaran, ''), COALESCE(b.jenis_pembelian, 'LAINNYA');
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+
+    RETURN v_rows;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION fn_refresh_rekap_harian_pembelian(DATE) IS 'Recomputes the tb_rekap_harian_pembelian rows of one day';
+
+-- ── Backfill ───────────────────────────────────────────────────────────────
+
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    FOR r IN
+        SELECT DISTINCT DATE(tgl_jam_penjualan) AS tanggal
+        FROM tb_penjualan
+        WHERE tgl_jam_penjualan IS NOT NULL
+    LOOP
+        PERFORM fn_refresh_rekap_harian_penjualan(r.tanggal);
+    END LOOP;
+
+    FOR r IN
+        SELECT DISTINCT DATE(tgl_pembelian) AS tanggal
+        FROM tb_pembelian
+        WHERE tgl_pembelian IS NOT NULL
+    LOOP
+        PERFORM fn_refresh_rekap_harian_pembelian(r.tanggal);
+    END LOOP;
+END $$;
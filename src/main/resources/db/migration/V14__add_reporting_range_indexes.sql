@@ -0,0 +1,28 @@
+-- V14: Indexes for the half-open time-range predicates of the reporting queries
+--
+-- SummaryService used to filter with DATE(tgl_jam_penjualan) BETWEEN ... and
+-- DATE(tgl_pembelian) BETWEEN ..., which no btree index can serve. The reporting
+-- queries now compare the raw column against [start of first day, start of day after
+-- the last day), so the ranges below are answered by index range scans. The INCLUDE
+-- columns let the income/outcome totals be read from the index alone, and the
+-- no_spk indexes serve the joins from the matching sales to tb_spk / tb_spk_detail.
+
+-- ── tb_penjualan ───────────────────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_penjualan_tgl_no_spk
+    ON tb_penjualan USING btree (tgl_jam_penjualan, no_spk)
+    INCLUDE (grand_total, metode_pembayaran);
+
+-- ── tb_pembelian ───────────────────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_pembelian_tgl_status
+    ON tb_pembelian USING btree (tgl_pembelian, status_pembayaran)
+    INCLUDE (grand_total, jenis_pembelian);
+
+-- idx_pembelian_tgl_pembelian (tgl_pembelian) is a prefix of the index above
+DROP INDEX IF EXISTS idx_pembelian_tgl_pembelian;
+
+-- ── Join keys ──────────────────────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_spk_no_spk ON tb_spk USING btree (no_spk);
+CREATE INDEX IF NOT EXISTS idx_spk_detail_no_spk ON tb_spk_detail USING btree (no_spk);
@@ -0,0 +1,140 @@
+-- V15: SPK-mechanic association table
+--
+-- tb_spk.mekanik_list (jsonb) stays the source the UI edits, but mechanic reports used to
+-- expand it with jsonb_array_elements and cast (value->>'id')::bigint for every SPK in
+-- range. tb_spk_mekanik holds one row per (no_spk, mechanic), written by TbSpkService on
+-- every create/update, so reports can join it and look SPKs up by mechanic and date.
+--
+-- tanggal is the SPK date (the date part of tgl_jam_spk, or created_at when that is not
+-- an ISO date).
+
+-- ── Table ──────────────────────────────────────────────────────────────────
+
+CREATE TABLE IF NOT EXISTS tb_spk_mekanik (
+    no_spk     CHARACTER VARYING(30)  NOT NULL,
+    id_mekanik BIGINT                 NOT NULL,
+    tugas      CHARACTER VARYING(100),
+    tanggal    DATE                   NOT NULL,
+    PRIMARY KEY (no_spk, id_mekanik)
+);
+
+CREATE INDEX IF NOT EXISTS idx_spk_mekanik_mekanik_tanggal
+    ON tb_spk_mekanik USING btree (id_mekanik, tanggal);
+
+-- ── Backfill ───────────────────────────────────────────────────────────────
+
+INSERT INTO tb_spk_mekanik (no_spk, id_mekanik, tugas, tanggal)
+SELECT DISTINCT ON (s.no_spk, (m.value->>'id')::bigint)
+       s.no_spk,
+       (m.value->>'id')::bigint,
+       left(m.value->>'tugas', 100),
+       CASE
+           WHEN s.tgl_jam_spk ~ '^[0-9]{4}-[0-9]{2}-[0-9]{2}' THEN substring(s.tgl_jam_spk FROM 1 FOR 10)::date
+           ELSE COALESCE(s.created_at::date, CURRENT_DATE)
+       END
+FROM (SELECT * FROM tb_spk WHERE jsonb_typeof(mekanik_list) = 'array') s
+CROSS JOIN LATERAL jsonb_array_elements(s.mekanik_list) AS m(value)
+WHERE m.value->>'id' IS NOT NULL
+ORDER BY s.no_spk, (m.value->>'id')::bigint, s.id DESC
+ON CONFLICT DO NOTHING;
+
+-- ── Rekap refresh ──────────────────────────────────────────────────────────
+-- Same as V13 except that the mechanic rows come from tb_spk_mekanik.
+
+CREATE OR REPLACE FUNCTION fn_refresh_rekap_harian_penjualan(p_tanggal DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    v_start TIMESTAMP := p_tanggal::timestamp;
+    v_end   TIMESTAMP := (p_tanggal + 1)::timestamp;
+    v_rows  INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('tb_rekap_harian_penjualan:' || p_tanggal::text));
+
+    DELETE FROM tb_rekap_harian WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_barang WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_jasa WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_metode_bayar WHERE tanggal = p_tanggal;
+    DELETE FROM tb_rekap_harian_mekanik WHERE tanggal = p_tanggal;
+
+    INSERT INTO tb_rekap_harian (tanggal, total_customers, total_income, total_item_terjual, updated_at)
+    SELECT p_tanggal,
+           COUNT(DISTINCT s.no_spk),
+           COALESCE(SUM(p.grand_total), 0),
+           COALESCE((SELECT SUM(d.jumlah)
+                     FROM tb_spk_detail d
+                     JOIN tb_spk s2 ON s2.no_spk = d.no_spk
+                     JOIN tb_penjualan p2 ON p2.no_spk = s2.no_spk
+                     WHERE d.id_sparepart IS NOT NULL
+                       AND p2.tgl_jam_penjualan >= v_start
+                       AND p2.tgl_jam_penjualan < v_end), 0),
+           CURRENT_TIMESTAMP
+    FROM tb_penjualan p
+    JOIN tb_spk s ON s.no_spk = p.no_spk
+    WHERE p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    HAVING COUNT(*) > 0;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+
+    IF v_rows = 0 THEN
+        RETURN 0;
+    END IF;
+
+    INSERT INTO tb_rekap_harian_barang (tanggal, id_sparepart, nama_barang, total_qty, total_value,
+                                        total_nilai_adjustment, total_modal)
+    SELECT p_tanggal,
+           d.id_sparepart,
+           d.nama_jasa,
+           COALESCE(SUM(d.jumlah), 0),
+           COALESCE(SUM(d.harga_master * d.jumlah), 0),
+           COALESCE(SUM(d.harga * d.jumlah), 0),
+           COALESCE(SUM(b.harga_beli * d.jumlah), 0)
+    FROM tb_spk_detail d
+    JOIN tb_spk s ON s.no_spk = d.no_spk
+    JOIN tb_penjualan p ON p.no_spk = s.no_spk
+    LEFT JOIN tb_barang b ON b.id = d.id_sparepart
+    WHERE d.id_sparepart IS NOT NULL
+      AND p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY d.id_sparepart, d.nama_jasa;
+
+    INSERT INTO tb_rekap_harian_jasa (tanggal, id_jasa, nama_jasa, total_qty, total_nilai,
+                                      total_nilai_adjustment, total_modal)
+    SELECT p_tanggal,
+           d.id_jasa,
+           d.nama_jasa,
+           COALESCE(SUM(d.jumlah), 0),
+           COALESCE(SUM(d.harga_master * d.jumlah), 0),
+           COALESCE(SUM(d.harga * d.jumlah), 0),
+           COALESCE(SUM(j.harga_jasa * d.jumlah), 0)
+    FROM tb_spk_detail d
+    JOIN tb_spk s ON s.no_spk = d.no_spk
+    JOIN tb_penjualan p ON p.no_spk = s.no_spk
+    LEFT JOIN tb_jasa j ON j.id = d.id_jasa
+    WHERE d.id_jasa IS NOT NULL
+      AND p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY d.id_jasa, d.nama_jasa;
+
+    INSERT INTO tb_rekap_harian_metode_bayar (tanggal, metode_pembayaran, total)
+    SELECT p_tanggal,
+           COALESCE(p.metode_pembayaran, 'LAINNYA'),
+           COALESCE(SUM(p.grand_total), 0)
+    FROM tb_penjualan p
+    JOIN tb_spk s ON s.no_spk = p.no_spk
+    WHERE p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY COALESCE(p.metode_pembayaran, 'LAINNYA');
+
+    INSERT INTO tb_rekap_harian_mekanik (tanggal, id_mekanik, total_customers)
+    SELECT p_tanggal,
+           sm.id_mekanik,
+           COUNT(DISTINCT sm.no_spk)
+    FROM tb_penjualan p
+    JOIN tb_spk_mekanik sm ON sm.no_spk = p.no_spk
+    WHERE p.tgl_jam_penjualan >= v_start
+      AND p.tgl_jam_penjualan < v_end
+    GROUP BY sm.id_mekanik;
+
+    RETURN v_rows;
+END;
+$$ LANGUAGE plpgsql;
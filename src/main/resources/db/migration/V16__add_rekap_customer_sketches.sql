@@ -0,0 +1,92 @@
+-- V16: Distinct-customer sketches on the daily rekap tables
+--
+-- Customer (vehicle) counts are not additive: the same nopol can come back on several
+-- days, so the number of distinct customers of a month cannot be summed from daily rows.
+-- Each tb_rekap_harian / tb_rekap_harian_mekanik row now carries a HyperLogLog sketch of
+-- the customer keys of that day. Sketches of any range are unioned by taking the maximum
+-- of every register (see CustomerSketch), which estimates the distinct count from at most
+-- one row per day instead of rescanning the sales.
+--
+-- Sketch layout: 2^10 = 1024 one-byte registers. A key is hashed with hashtext(); the top
+-- 10 bits of the 32-bit hash select the register and the register keeps the largest
+-- "position of the first 1 bit" seen in the remaining 22 bits.
+
+-- ── Columns ────────────────────────────────────────────────────────────────
+
+ALTER TABLE tb_rekap_harian ADD COLUMN IF NOT EXISTS customer_sketch BYTEA;
+ALTER TABLE tb_rekap_harian_mekanik ADD COLUMN IF NOT EXISTS customer_sketch BYTEA;
+
+-- ── Functions ──────────────────────────────────────────────────────────────
+
+-- A customer is identified by the normalized nopol; SPKs without nopol count on their own
+CREATE OR REPLACE FUNCTION fn_customer_key(p_nopol VARCHAR, p_no_spk VARCHAR)
+RETURNS TEXT AS $$
+    SELECT COALESCE(NULLIF(upper(replace(p_nopol, ' ', '')), ''), 'SPK:' || p_no_spk);
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION fn_hll_sketch(p_keys TEXT[])
+RETURNS BYTEA AS $$
+    WITH hashed AS (
+        SELECT hashtext(k)::bigint & 4294967295 AS h
+        FROM unnest(p_keys) AS k
+        WHERE k IS NOT NULL
+    ), registers AS (
+        SELECT (h >> 22)::int AS idx,
+               max(23 - length(ltrim(((h & 4194303)::int)::bit(22)::text, '0'))) AS rnk
+        FROM hashed
+        GROUP BY (h >> 22)::int
+    )
+    SELECT decode(string_agg(lpad(to_hex(COALESCE(r.rnk, 0)), 2, '0'), '' ORDER BY g.i), 'hex')
+    FROM generate_series(0, 1023) AS g(i)
+    LEFT JOIN registers r ON r.idx = g.i;
+$$ LANGUAGE sql IMMUTABLE;
+
+COMMENT ON FUNCTION fn_hll_sketch(TEXT[]) IS 'HyperLogLog sketch (1024 registers) of the given keys';
+
+-- Called after fn_refresh_rekap_harian_penjualan, in the same transaction
+CREATE OR REPLACE FUNCTION fn_refresh_rekap_harian_sketch(p_tanggal DATE)
+RETURNS INTEGER AS $$
+DECLARE
+    v_start TIMESTAMP := p_tanggal::timestamp;
+    v_end   TIMESTAMP := (p_tanggal + 1)::timestamp;
+    v_rows  INTEGER;
+    v_total INTEGER;
+BEGIN
+    UPDATE tb_rekap_harian r
+    SET customer_sketch = (
+        SELECT fn_hll_sketch(array_agg(fn_customer_key(s.nopol, s.no_spk)))
+        FROM tb_penjualan p
+        JOIN tb_spk s ON s.no_spk = p.no_spk
+        WHERE p.tgl_jam_penjualan >= v_start
+          AND p.tgl_jam_penjualan < v_end)
+    WHERE r.tanggal = p_tanggal;
+    GET DIAGNOSTICS v_total = ROW_COUNT;
+
+    UPDATE tb_rekap_harian_mekanik rm
+    SET customer_sketch = (
+        SELECT fn_hll_sketch(array_agg(fn_customer_key(s.nopol, s.no_spk)))
+        FROM tb_penjualan p
+        JOIN tb_spk s ON s.no_spk = p.no_spk
+        JOIN tb_spk_mekanik sm ON sm.no_spk = p.no_spk
+        WHERE sm.id_mekanik = rm.id_mekanik
+          AND p.tgl_jam_penjualan >= v_start
+          AND p.tgl_jam_penjualan < v_end)
+    WHERE rm.tanggal = p_tanggal;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+
+    RETURN v_total + v_rows;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION fn_refresh_rekap_harian_sketch(DATE) IS 'Recomputes the customer sketches of one day, returns rows updated';
+
+-- ── Backfill ───────────────────────────────────────────────────────────────
+
+DO $$
+DECLARE
+    r RECORD;
+BEGIN
+    FOR r IN SELECT tanggal FROM tb_rekap_harian LOOP
+        PERFORM fn_refresh_rekap_harian_sketch(r.tanggal);
+    END LOOP;
+END $$;
@@ -0,0 +1,51 @@
+-- V17: Trigram indexes for the list search boxes
+--
+-- The `search` parameter of the list endpoints is a substring match,
+-- lower(col) LIKE '%term%', OR-ed across a few columns (see SearchTerm). A leading
+-- wildcard defeats btree indexes, so every keystroke scanned the whole table. A
+-- pg_trgm GIN index on the same lower(col) expression answers these LIKE predicates;
+-- the planner combines the per-column indexes with a BitmapOr. pg_trgm also provides
+-- word_similarity(), used when a list is sorted by relevance.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- ── tb_spk ─────────────────────────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_spk_no_spk_trgm
+    ON tb_spk USING gin (lower(no_spk) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_spk_nopol_trgm
+    ON tb_spk USING gin (lower(nopol) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_spk_nama_karyawan_trgm
+    ON tb_spk USING gin (lower(nama_karyawan) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_spk_nama_pelanggan_trgm
+    ON tb_spk USING gin (lower(nama_pelanggan) gin_trgm_ops);
+
+-- ── tb_pelanggan ───────────────────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_pelanggan_nama_pelanggan_trgm
+    ON tb_pelanggan USING gin (lower(nama_pelanggan) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_pelanggan_nopol_trgm
+    ON tb_pelanggan USING gin (lower(nopol) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_pelanggan_email_trgm
+    ON tb_pelanggan USING gin (lower(email) gin_trgm_ops);
+
+-- ── tb_barang / tb_sparepart ───────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_barang_kode_barang_trgm
+    ON tb_barang USING gin (lower(kode_barang) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_barang_nama_barang_trgm
+    ON tb_barang USING gin (lower(nama_barang) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_sparepart_kode_sparepart_trgm
+    ON tb_sparepart USING gin (lower(kode_sparepart) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_sparepart_nama_sparepart_trgm
+    ON tb_sparepart USING gin (lower(nama_sparepart) gin_trgm_ops);
+
+-- ── tb_audit_trail ─────────────────────────────────────────────────────────
+
+CREATE INDEX IF NOT EXISTS idx_audit_trail_table_name_trgm
+    ON tb_audit_trail USING gin (lower(table_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_audit_trail_username_trgm
+    ON tb_audit_trail USING gin (lower(username) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_audit_trail_action_trgm
+    ON tb_audit_trail USING gin (lower(action) gin_trgm_ops);
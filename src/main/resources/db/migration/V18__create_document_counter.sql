@@ -0,0 +1,46 @@
+-- V18: Document number counters
+--
+-- SPK and pembelian numbers are <prefix><yyyyMMdd><sequence>. The next sequence used to be
+-- derived from the documents already saved (latest SPK of the day, MAX(no_urut) plus a
+-- collision loop for pembelian), so two requests at the same time could get the same
+-- number. tb_document_counter keeps the last sequence issued per document type and day;
+-- DocumentNumberService increments it with one INSERT ... ON CONFLICT DO UPDATE, which
+-- serializes concurrent allocations on the row lock across all app instances.
+
+-- ── Table ──────────────────────────────────────────────────────────────────
+
+CREATE TABLE IF NOT EXISTS tb_document_counter (
+    doc_type   CHARACTER VARYING(30) NOT NULL,
+    tanggal    DATE                  NOT NULL,
+    last_value BIGINT                NOT NULL,
+    updated_at TIMESTAMP             NOT NULL DEFAULT now(),
+    PRIMARY KEY (doc_type, tanggal)
+);
+
+-- ── Seed ───────────────────────────────────────────────────────────────────
+
+-- Numbers are only ever allocated for the current day, so the counters are seeded for the
+-- days around the deployment (the app clock may not be in the database time zone).
+
+INSERT INTO tb_document_counter (doc_type, tanggal, last_value)
+SELECT 'SPK', d.day::date, max(substring(s.no_spk FROM 9)::bigint)
+FROM generate_series(CURRENT_DATE - 1, CURRENT_DATE + 1, interval '1 day') AS d(day)
+JOIN tb_spk s ON s.no_spk LIKE to_char(d.day, 'YYYYMMDD') || '%'
+WHERE substring(s.no_spk FROM 9) ~ '^[0-9]{1,9}$'
+GROUP BY d.day
+ON CONFLICT DO NOTHING;
+
+INSERT INTO tb_document_counter (doc_type, tanggal, last_value)
+SELECT CASE left(b.no_pembelian, 2)
+           WHEN 'FS' THEN 'PEMBELIAN_SPAREPART'
+           WHEN 'FB' THEN 'PEMBELIAN_BARANG'
+           ELSE 'PEMBELIAN_OPERASIONAL'
+       END,
+       d.day::date,
+       max(substring(b.no_pembelian FROM 11)::bigint)
+FROM generate_series(CURRENT_DATE - 1, CURRENT_DATE + 1, interval '1 day') AS d(day)
+JOIN tb_pembelian b ON substring(b.no_pembelian FROM 3 FOR 8) = to_char(d.day, 'YYYYMMDD')
+WHERE left(b.no_pembelian, 2) IN ('FS', 'FB', 'FO')
+  AND substring(b.no_pembelian FROM 11) ~ '^[0-9]{1,9}$'
+GROUP BY 1, 2
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,50 @@
+-- flyway:executeInTransaction=false
+-- V19: tb_spk.spk_at, tgl_jam_spk as a real timestamp
+--
+-- tgl_jam_spk is the varchar the UI sends ('yyyy-MM-dd HH:mm'; older rows have a 'T'
+-- instead of the space). The SPK date filters compared it as a string against
+-- 'yyyy-MM-dd 23:59:59', which no range index serves and which dropped the 'T' rows of
+-- the last day. spk_at holds the parsed value, or created_at when tgl_jam_spk does not
+-- parse; TbSpkEntity derives it on every write from now on.
+--
+-- The script runs outside a transaction: the backfill commits every 5000 ids, so it never
+-- holds row locks on the whole table, and the indexes are built CONCURRENTLY.
+
+ALTER TABLE tb_spk ADD COLUMN IF NOT EXISTS spk_at timestamp;
+
+CREATE OR REPLACE FUNCTION pg_temp.parse_tgl_jam_spk(tgl_jam_spk text, fallback timestamp)
+RETURNS timestamp AS $$
+BEGIN
+    BEGIN
+        RETURN tgl_jam_spk::timestamp;
+    EXCEPTION WHEN others THEN
+        BEGIN
+            RETURN substring(tgl_jam_spk FROM 1 FOR 10)::date::timestamp;
+        EXCEPTION WHEN others THEN
+            RETURN fallback;
+        END;
+    END;
+END;
+$$ LANGUAGE plpgsql;
+
+DO $$
+DECLARE
+    batch_size CONSTANT bigint := 5000;
+    next_id bigint;
+    max_id bigint;
+BEGIN
+    SELECT min(id), max(id) INTO next_id, max_id FROM tb_spk WHERE spk_at IS NULL;
+    WHILE next_id <= max_id LOOP
+        UPDATE tb_spk
+        SET spk_at = pg_temp.parse_tgl_jam_spk(tgl_jam_spk, coalesce(created_at, now()::timestamp))
+        WHERE id >= next_id AND id < next_id + batch_size AND spk_at IS NULL;
+        COMMIT;
+        next_id := next_id + batch_size;
+    END LOOP;
+END $$;
+
+-- SPK list and rekap: status filter plus date range, and date range alone
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_spk_status_spk_at
+    ON tb_spk USING btree (status_spk, spk_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_spk_spk_at
+    ON tb_spk USING btree (spk_at);
@@ -0,0 +1,46 @@
+-- V20: Stock ledger and daily stock snapshots
+--
+-- tb_sparepart.stok used to be changed by loading the row, adding in Java and saving it,
+-- once per pembelian line, so two concurrent purchases of the same part could lose an
+-- update. StockLedgerService now changes it with one conditional
+-- UPDATE ... SET stok = stok + delta WHERE stok + delta >= 0 per part and appends every
+-- movement to tb_stock_ledger. tb_stock_snapshot holds the closing stok of every part per
+-- day, written by a nightly job, so the stok at a past date is one snapshot plus the
+-- movements of a single day.
+
+-- ── Ledger ─────────────────────────────────────────────────────────────────
+
+CREATE SEQUENCE IF NOT EXISTS tb_stock_ledger_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS tb_stock_ledger (
+    id           BIGINT                NOT NULL DEFAULT nextval('tb_stock_ledger_seq') PRIMARY KEY,
+    sparepart_id BIGINT                NOT NULL,
+    delta        INTEGER               NOT NULL,
+    source_type  CHARACTER VARYING(30) NOT NULL,
+    source_no    CHARACTER VARYING(50),
+    created_at   TIMESTAMP             NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_created_sparepart
+    ON tb_stock_ledger USING btree (created_at, sparepart_id) INCLUDE (delta);
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_sparepart
+    ON tb_stock_ledger USING btree (sparepart_id, created_at);
+
+-- ── Snapshots ──────────────────────────────────────────────────────────────
+
+CREATE TABLE IF NOT EXISTS tb_stock_snapshot (
+    sparepart_id  BIGINT  NOT NULL,
+    snapshot_date DATE    NOT NULL,
+    stok          INTEGER NOT NULL,
+    PRIMARY KEY (sparepart_id, snapshot_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_snapshot_date ON tb_stock_snapshot USING btree (snapshot_date);
+
+-- ── Opening balances ───────────────────────────────────────────────────────
+
+-- The current stok of every part is its opening movement, so the ledger sums to stok
+INSERT INTO tb_stock_ledger (sparepart_id, delta, source_type)
+SELECT id, stok, 'OPENING'
+FROM tb_sparepart
+WHERE coalesce(stok, 0) <> 0;
@@ -0,0 +1,49 @@
+-- V21: Barang stock reservations for SPKs in progress
+--
+-- The parts on an SPK line are tb_barang rows. While an SPK is worked on (PROSES, SELESAI)
+-- its quantities are held in tb_barang.stok_reserved, so two SPKs cannot both promise the
+-- last unit; the per-SPK amounts are kept in tb_stock_reservation. When the SPK is sold the
+-- reservation is turned into a stok decrement in the same conditional UPDATE, and the
+-- movement goes to the stock ledger, which now records barang as well as spareparts.
+
+-- ── Ledger and snapshots per item type ─────────────────────────────────────
+
+ALTER TABLE tb_stock_ledger RENAME COLUMN sparepart_id TO item_id;
+ALTER TABLE tb_stock_ledger
+    ADD COLUMN IF NOT EXISTS item_type CHARACTER VARYING(20) NOT NULL DEFAULT 'SPAREPART';
+
+DROP INDEX IF EXISTS idx_stock_ledger_created_sparepart;
+DROP INDEX IF EXISTS idx_stock_ledger_sparepart;
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_created_item
+    ON tb_stock_ledger USING btree (created_at, item_type, item_id) INCLUDE (delta);
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_item
+    ON tb_stock_ledger USING btree (item_type, item_id, created_at);
+
+ALTER TABLE tb_stock_snapshot RENAME COLUMN sparepart_id TO item_id;
+ALTER TABLE tb_stock_snapshot
+    ADD COLUMN IF NOT EXISTS item_type CHARACTER VARYING(20) NOT NULL DEFAULT 'SPAREPART';
+ALTER TABLE tb_stock_snapshot DROP CONSTRAINT IF EXISTS tb_stock_snapshot_pkey;
+ALTER TABLE tb_stock_snapshot ADD PRIMARY KEY (item_type, item_id, snapshot_date);
+
+-- ── Reservations ───────────────────────────────────────────────────────────
+
+ALTER TABLE tb_barang ADD COLUMN IF NOT EXISTS stok_reserved INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS tb_stock_reservation (
+    no_spk     CHARACTER VARYING(30) NOT NULL,
+    barang_id  BIGINT                NOT NULL,
+    kuantiti   INTEGER               NOT NULL,
+    status     CHARACTER VARYING(20) NOT NULL,
+    updated_at TIMESTAMP             NOT NULL DEFAULT now(),
+    PRIMARY KEY (no_spk, barang_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_barang
+    ON tb_stock_reservation USING btree (barang_id) WHERE status = 'RESERVED';
+
+-- ── Opening balances ───────────────────────────────────────────────────────
+
+INSERT INTO tb_stock_ledger (item_type, item_id, delta, source_type)
+SELECT 'BARANG', id, stok, 'OPENING'
+FROM tb_barang
+WHERE coalesce(stok, 0) <> 0;
@@ -0,0 +1,47 @@
+-- flyway:executeInTransaction=false
+-- V22: Delta sync of the master tables
+--
+-- The web UI keeps full copies of the master tables and reloaded them through the unpaged
+-- list endpoints. GET <resource>/sync?since=<watermark> now returns only the rows changed
+-- since the watermark, read by (updated_at, id), plus the ids deleted since then, which
+-- AbstractCrudService.delete records in tb_sync_tombstone.
+--
+-- Rows written before the audit listener existed have no updated_at and would never be
+-- found, so they are stamped with their created_at (or now). The script runs outside a
+-- transaction so the indexes can be built CONCURRENTLY.
+
+-- ── Tombstones ─────────────────────────────────────────────────────────────
+
+CREATE TABLE IF NOT EXISTS tb_sync_tombstone (
+    id         BIGSERIAL PRIMARY KEY,
+    table_name CHARACTER VARYING(100) NOT NULL,
+    record_id  BIGINT                 NOT NULL,
+    deleted_at TIMESTAMP              NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_sync_tombstone_table_deleted
+    ON tb_sync_tombstone USING btree (table_name, deleted_at);
+
+-- ── Change order ───────────────────────────────────────────────────────────
+
+UPDATE tb_jasa SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
+UPDATE tb_barang SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
+UPDATE tb_sparepart SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
+UPDATE tb_karyawan SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
+UPDATE tb_pelanggan SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
+UPDATE tb_kendaraan SET updated_at = coalesce(created_at, now()) WHERE updated_at IS NULL;
+
+-- Rows inserted by SQL outside the application are stamped too
+ALTER TABLE tb_jasa ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE tb_barang ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE tb_sparepart ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE tb_karyawan ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE tb_pelanggan ALTER COLUMN updated_at SET DEFAULT now();
+ALTER TABLE tb_kendaraan ALTER COLUMN updated_at SET DEFAULT now();
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_jasa_updated_at ON tb_jasa USING btree (updated_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_barang_updated_at ON tb_barang USING btree (updated_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_sparepart_updated_at ON tb_sparepart USING btree (updated_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_karyawan_updated_at ON tb_karyawan USING btree (updated_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pelanggan_updated_at ON tb_pelanggan USING btree (updated_at, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_kendaraan_updated_at ON tb_kendaraan USING btree (updated_at, id);
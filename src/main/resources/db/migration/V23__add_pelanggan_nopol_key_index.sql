@@ -0,0 +1,10 @@
+-- flyway:executeInTransaction=false
+-- V23: Case- and space-insensitive nopol lookup
+--
+-- TbPelangganService.findByNopol is answered by PelangganNopolIndex, keyed by the
+-- normalized nopol of fn_customer_key (V16): upper case without spaces. A miss reads the
+-- last updated pelanggan of that key, which this index serves without a scan. The script
+-- runs outside a transaction so the index can be built CONCURRENTLY.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pelanggan_nopol_key
+    ON tb_pelanggan USING btree ((upper(replace(nopol, ' ', ''))), updated_at DESC);
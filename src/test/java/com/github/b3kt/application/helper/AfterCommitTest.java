@@ -0,0 +1,71 @@
+package com.github.b3kt.application.helper;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AfterCommitTest {
+
+    private TransactionSynchronizationRegistry registry;
+    private final List<String> ran = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        registry = mock(TransactionSynchronizationRegistry.class);
+    }
+
+    @Test
+    @DisplayName("Should run at once without a transaction")
+    void testNoTransaction() {
+        AfterCommit.run(registry, () -> ran.add("commit"), () -> ran.add("rollback"));
+
+        assertEquals(List.of("commit"), ran);
+        verify(registry, never()).registerInterposedSynchronization(any());
+    }
+
+    @Test
+    @DisplayName("Should run the commit action only once the transaction commits")
+    void testCommitted() {
+        when(registry.getTransactionKey()).thenReturn(new Object());
+
+        AfterCommit.run(registry, () -> ran.add("commit"), () -> ran.add("rollback"));
+        assertTrue(ran.isEmpty());
+
+        complete(Status.STATUS_COMMITTED);
+        assertEquals(List.of("commit"), ran);
+    }
+
+    @Test
+    @DisplayName("Should run the rollback action, if any, when the transaction rolls back")
+    void testRolledBack() {
+        when(registry.getTransactionKey()).thenReturn(new Object());
+
+        AfterCommit.run(registry, () -> ran.add("commit"), () -> ran.add("rollback"));
+        complete(Status.STATUS_ROLLEDBACK);
+        assertEquals(List.of("rollback"), ran);
+
+        ran.clear();
+        reset(registry);
+        when(registry.getTransactionKey()).thenReturn(new Object());
+        AfterCommit.run(registry, () -> ran.add("commit"), null);
+        complete(Status.STATUS_ROLLEDBACK);
+        assertTrue(ran.isEmpty());
+    }
+
+    private void complete(int status) {
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(registry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(status);
+    }
+}
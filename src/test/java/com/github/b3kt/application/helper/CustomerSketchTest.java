@@ -0,0 +1,61 @@
+package com.github.b3kt.application.helper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSketchTest {
+
+    @Test
+    @DisplayName("Should estimate zero for days without sales")
+    void testEmpty() {
+        assertEquals(0, new CustomerSketch().union(null).estimate());
+    }
+
+    @Test
+    @DisplayName("Should not double count customers seen on several days")
+    void testUnionIsIdempotent() {
+        byte[] day = sketch(new Random(1), 200);
+
+        long once = new CustomerSketch().union(day).estimate();
+        long twice = new CustomerSketch().union(day).union(day.clone()).estimate();
+
+        assertEquals(once, twice);
+    }
+
+    @Test
+    @DisplayName("Should estimate the union of disjoint days within a few percent")
+    void testUnionEstimate() {
+        Random random = new Random(42);
+        CustomerSketch range = new CustomerSketch();
+        for (int day = 0; day < 90; day++) {
+            range.union(sketch(random, 100));
+        }
+
+        long estimate = range.estimate();
+
+        assertTrue(Math.abs(estimate - 9000) < 9000 * 0.1, "estimate was " + estimate);
+    }
+
+    @Test
+    @DisplayName("Should reject sketches of the wrong size")
+    void testWrongSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CustomerSketch().union(new byte[16]));
+    }
+
+    // Same register layout as fn_hll_sketch: top 10 bits pick the register, rank of the low 22 bits
+    private static byte[] sketch(Random random, int customers) {
+        byte[] registers = new byte[CustomerSketch.REGISTERS];
+        for (int i = 0; i < customers; i++) {
+            long hash = random.nextInt() & 0xFFFFFFFFL;
+            int index = (int) (hash >>> 22);
+            int low = (int) (hash & 0x3FFFFF);
+            byte rank = (byte) (23 - (32 - Integer.numberOfLeadingZeros(low)));
+            registers[index] = (byte) Math.max(registers[index], rank);
+        }
+        return registers;
+    }
+}
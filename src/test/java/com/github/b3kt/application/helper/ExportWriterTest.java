@@ -0,0 +1,56 @@
+package com.github.b3kt.application.helper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWriterTest {
+
+    private static final String[] COLUMNS = {"no_spk", "nama", "grand_total"};
+
+    @Test
+    @DisplayName("Should write a CSV header and quote values with separators")
+    void testCsv() throws Exception {
+        String csv = export(ExportWriter.Format.CSV,
+                new Object[]{"SPK001", "Oli, \"Shell\"", new BigDecimal("1.5E+5")},
+                new Object[]{"SPK002", null, 0L});
+
+        assertEquals("no_spk,nama,grand_total\r\n"
+                + "SPK001,\"Oli, \"\"Shell\"\"\",150000\r\n"
+                + "SPK002,,0\r\n", csv);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON object per line")
+    void testNdjson() throws Exception {
+        String ndjson = export(ExportWriter.Format.NDJSON,
+                new Object[]{"SPK001", "Ban \"depan\"\n", new BigDecimal("25000.00")},
+                new Object[]{"SPK002", null, 3L});
+
+        assertEquals("{\"no_spk\":\"SPK001\",\"nama\":\"Ban \\\"depan\\\"\\n\",\"grand_total\":25000.00}\n"
+                + "{\"no_spk\":\"SPK002\",\"nama\":null,\"grand_total\":3}\n", ndjson);
+    }
+
+    @Test
+    @DisplayName("Should default to CSV and reject unknown formats")
+    void testParseFormat() {
+        assertEquals(ExportWriter.Format.CSV, ExportWriter.Format.parse(null));
+        assertEquals(ExportWriter.Format.NDJSON, ExportWriter.Format.parse("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ExportWriter.Format.parse("xlsx"));
+    }
+
+    private static String export(ExportWriter.Format format, Object[]... rows) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ExportWriter writer = ExportWriter.open(format, output, COLUMNS)) {
+            for (Object[] row : rows) {
+                writer.write(row);
+            }
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.b3kt.application.helper;
+
+import com.github.b3kt.application.dto.PageRequest;
+import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.entity.AuditTrailEntity;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.panache.common.Sort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class KeysetPageTest {
+
+    private PanacheRepositoryBase<AuditTrailEntity, Long> repository;
+    private PanacheQuery<AuditTrailEntity> query;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(PanacheRepositoryBase.class);
+        query = mock(PanacheQuery.class);
+        when(repository.find(anyString(), any(Sort.class), any(Object[].class))).thenReturn(query);
+        when(query.range(anyInt(), anyInt())).thenReturn(query);
+    }
+
+    @Test
+    @DisplayName("Should fetch one extra row and hand out a cursor for the next page")
+    void testFirstPage() {
+        when(query.list()).thenReturn(List.of(audit(3L, 12), audit(2L, 11), audit(1L, 10)));
+
+        PageResponse<AuditTrailEntity> page = KeysetPage.of(request(2, null), "timestamp").list(repository, "1=1");
+
+        verify(repository).find(eq("1=1"), any(Sort.class), eq(new Object[0]));
+        verify(query).range(0, 2);
+        assertEquals(2, page.getRows().size());
+        assertEquals(-1, page.getRowsNumber());
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should seek past the last row with a row comparison")
+    void testNextPage() {
+        when(query.list()).thenReturn(List.of(audit(3L, 12), audit(2L, 11), audit(1L, 10)));
+        String cursor = KeysetPage.of(request(2, null), "timestamp").list(repository, "1=1").getNextCursor();
+        when(query.list()).thenReturn(List.of(audit(1L, 10)));
+
+        PageResponse<AuditTrailEntity> page = KeysetPage.of(request(2, cursor), "timestamp")
+                .list(repository, "lower(action) like ?1", "%create%");
+
+        verify(repository).find(eq("lower(action) like ?1 and (timestamp, id) < (?2, ?3)"), any(Sort.class),
+                eq(new Object[]{"%create%", LocalDateTime.of(2026, 3, 1, 11, 0), 2L}));
+        assertEquals(1, page.getRows().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor issued for another sort order")
+    void testSortMismatch() {
+        when(query.list()).thenReturn(List.of(audit(3L, 12), audit(2L, 11)));
+        String cursor = KeysetPage.of(request(1, null), "timestamp").list(repository, "1=1").getNextCursor();
+
+        PageRequest ascending = request(1, cursor);
+        ascending.setDescending(false);
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetPage.of(ascending, "timestamp"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPage.of(request(1, "not-a-cursor"), "timestamp"));
+    }
+
+    private static PageRequest request(int rowsPerPage, String after) {
+        PageRequest request = new PageRequest(1, rowsPerPage);
+        request.setDescending(true);
+        request.setAfter(after == null ? "" : after);
+        return request;
+    }
+
+    private static AuditTrailEntity audit(Long id, int hour) {
+        AuditTrailEntity entity = new AuditTrailEntity();
+        entity.setId(id);
+        entity.setTimestamp(LocalDateTime.of(2026, 3, 1, hour, 0));
+        return entity;
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.b3kt.application.helper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrintFormatTest {
+
+    @Test
+    @DisplayName("Should format amounts like the web client")
+    void testNumber() {
+        assertEquals("1.234.567", PrintFormat.number(new BigDecimal("1234567")));
+        assertEquals("1.500,5", PrintFormat.number(new BigDecimal("1500.50")));
+        assertEquals("Rp 0", PrintFormat.currency(null));
+    }
+
+    @Test
+    @DisplayName("Should lay receipt columns out to the printer width")
+    void testColumns() {
+        String line = PrintFormat.item(2, new BigDecimal("45000"), new BigDecimal("90000"));
+
+        assertEquals(PrintFormat.RECEIPT_WIDTH, line.length());
+        assertTrue(line.startsWith("  2 x 45.000 "));
+        assertTrue(line.endsWith(" 90.000"));
+    }
+
+    @Test
+    @DisplayName("Should cut a name too long for the line")
+    void testColumnsTruncates() {
+        String line = PrintFormat.columns("X".repeat(60), "Rp 1.000");
+
+        assertEquals(PrintFormat.RECEIPT_WIDTH, line.length());
+        assertTrue(line.endsWith(" Rp 1.000"));
+    }
+}
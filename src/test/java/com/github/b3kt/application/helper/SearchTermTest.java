@@ -0,0 +1,79 @@
+package com.github.b3kt.application.helper;
+
+import com.github.b3kt.application.dto.PageRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTermTest {
+
+    @Test
+    @DisplayName("Should match user-typed wildcards literally")
+    void testPatternEscapesWildcards() {
+        assertEquals("%b 1234%", SearchTerm.pattern("  B 1234 "));
+        assertEquals("%50\\%\\_off\\\\%", SearchTerm.pattern("50%_off\\"));
+    }
+
+    @Test
+    @DisplayName("Should OR the trigram-indexed columns")
+    void testMatchClause() {
+        assertEquals("(lower(kodeBarang) like ?2 or lower(namaBarang) like ?2)",
+                SearchTerm.matchClause("?2", "kodeBarang", "namaBarang"));
+    }
+
+    @Test
+    @DisplayName("Should build the search clause into the SPK filter")
+    void testQueryFilterBuilderSearch() {
+        QueryFilterBuilder builder = QueryFilterBuilder.create()
+                .withStatusFilter("PROSES", "statusSpk")
+                .withSearch("b1234");
+
+        assertEquals("1=1 and (statusSpk = ?1) and (lower(noSpk) like ?2 or lower(nopol) like ?2"
+                + " or lower(namaKaryawan) like ?2 or lower(namaPelanggan) like ?2)", builder.getQueryString());
+        assertArrayEquals(new Object[]{"PROSES", "%b1234%"}, builder.getParams());
+        assertTrue(builder.getRelevanceOrder().startsWith(" order by function('word_similarity', ?2,"));
+    }
+
+    @Test
+    @DisplayName("Should filter dates as a half-open timestamp range")
+    void testQueryFilterBuilderDateRange() {
+        QueryFilterBuilder builder = QueryFilterBuilder.create()
+                .withDateRange("2024-01-01", "2024-01-31", "spkAt");
+
+        assertEquals("1=1 and spkAt >= ?1 and spkAt < ?2", builder.getQueryString());
+        assertArrayEquals(new Object[]{LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2024, 2, 1, 0, 0)},
+                builder.getParams());
+        assertThrows(IllegalArgumentException.class,
+                () -> QueryFilterBuilder.create().withDateRange("31/01/2024", null, "spkAt"));
+    }
+
+    @Test
+    @DisplayName("Should rank only when searching with sortBy=relevance")
+    void testRanking() {
+        PageRequest request = new PageRequest(1, 10);
+        request.setSortBy("relevance");
+        assertFalse(SearchTerm.isRanked(request));
+        assertNull(SearchTerm.sortColumn(request));
+
+        request.setSearch("oli");
+        assertTrue(SearchTerm.isRanked(request));
+
+        request.setSortBy("namaBarang");
+        assertFalse(SearchTerm.isRanked(request));
+        assertEquals("namaBarang", SearchTerm.sortColumn(request));
+    }
+
+    @Test
+    @DisplayName("Should reject relevance ranking with cursor paging")
+    void testRankingWithCursor() {
+        PageRequest request = new PageRequest(1, 10);
+        request.setSearch("oli");
+        request.setSortBy("relevance");
+        request.setAfter("abc");
+
+        assertThrows(IllegalArgumentException.class, () -> SearchTerm.isRanked(request));
+    }
+}
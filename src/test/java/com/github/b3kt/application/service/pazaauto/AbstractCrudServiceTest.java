@@ -1,7 +1,10 @@
 package com.github.b3kt.application.service.pazaauto;
 
+import com.github.b3kt.application.dto.CountStrategy;
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.ChangeFeed;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import io.quarkus.panache.common.Page;
@@ -32,6 +35,9 @@ class AbstractCrudServiceTest {
     @Mock
     private EntityManager entityManager;
 
+    @Mock
+    private ChangeFeed changeFeed;
+
     private TestCrudService service;
     private TestEntity testEntity;
     
@@ -59,6 +65,8 @@ class AbstractCrudServiceTest {
         when(repository.deleteById(1L)).thenReturn(true);
         
         service = new TestCrudService(repository);
+        service.pageCounter = new PageCounter();
+        service.changeFeed = changeFeed;
     }
 
     @Test
@@ -154,6 +162,7 @@ class AbstractCrudServiceTest {
         
         // Then
         verify(repository).deleteById(1L);
+        verify(changeFeed).deleted(TestEntity.class, 1L);
     }
 
     @Test
@@ -167,6 +176,7 @@ class AbstractCrudServiceTest {
         
         // Then
         verify(repository).deleteById(999L);
+        verify(changeFeed, never()).deleted(any(), any());
     }
 
     @Test
@@ -210,6 +220,28 @@ class AbstractCrudServiceTest {
         verify(query).list();
     }
 
+    @Test
+    @DisplayName("Should skip the count and fetch one extra row in hasNext mode")
+    void testGetPageHasNext() {
+        PageRequest pageRequest = new PageRequest(2, 1);
+        pageRequest.setCountStrategy(CountStrategy.HAS_NEXT);
+        TestEntity next = new TestEntity();
+        next.setId(2L);
+
+        when(repository.findAll()).thenReturn(query);
+        when(query.range(anyInt(), anyInt())).thenReturn(query);
+        when(query.list()).thenReturn(Arrays.asList(testEntity, next));
+
+        PageResponse<TestEntity> result = service.findPaginated(pageRequest);
+
+        assertEquals(List.of(testEntity), result.getRows());
+        assertTrue(result.getHasNext());
+        assertEquals(-1, result.getRowsNumber());
+        assertEquals(CountStrategy.HAS_NEXT, result.getCountStrategy());
+        verify(query).range(1, 2);
+        verify(query, never()).count();
+    }
+
     @Test
     @DisplayName("Should search entities")
     void testSearch() {
@@ -0,0 +1,177 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.AutocompleteService.Suggestion;
+import com.github.b3kt.application.service.pazaauto.AutocompleteService.Type;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbBarangEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AutocompleteService Tests")
+class AutocompleteServiceTest {
+
+    /** Serves fixed rows and counts table loads instead of querying. */
+    private static class FakeAutocomplete extends AutocompleteService {
+        final Map<Type, Integer> loads = new EnumMap<>(Type.class);
+
+        @Override
+        List<Suggestion> load(Type type) {
+            loads.merge(type, 1, Integer::sum);
+            List<Suggestion> rows = new ArrayList<>();
+            switch (type) {
+                case BARANG -> {
+                    rows.add(barang(1L, "Oli Mesin 1L", "OLI-001"));
+                    rows.add(barang(2L, "Filter Oli", "FLT-010"));
+                    rows.add(barang(3L, "Oli Gardan", "OLI-002"));
+                    rows.add(barang(4L, "Busi Iridium", "BSI-001"));
+                    rows.add(barang(5L, "Kampas Rem Depan", "KMP-001"));
+                }
+                case JASA -> rows.add(new Suggestion(type, 1L, "Ganti Oli", null, new BigDecimal("25000")));
+                case PELANGGAN -> {
+                    rows.add(new Suggestion(type, 1L, "B 1234 ABC", "Budi", null));
+                    rows.add(new Suggestion(type, 2L, "B 1299 XY", "Oliver", null));
+                }
+                default -> {
+                }
+            }
+            return rows;
+        }
+    }
+
+    private FakeAutocomplete autocomplete;
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        autocomplete = new FakeAutocomplete();
+        autocomplete.maxAge = Duration.ofMinutes(5);
+        autocomplete.maxLimit = 50;
+        transactionRegistry = mock(TransactionSynchronizationRegistry.class);
+        autocomplete.transactionRegistry = transactionRegistry;
+        // Resources live as long as the (single) transaction of a test
+        Map<Object, Object> resources = new HashMap<>();
+        doAnswer(invocation -> resources.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(transactionRegistry).putResource(any(), any());
+        when(transactionRegistry.getResource(any())).thenAnswer(invocation -> resources.get(invocation.getArgument(0)));
+    }
+
+    @Test
+    @DisplayName("Should rank name prefixes before word prefixes and the shorter label first")
+    void testRanking() {
+        List<Suggestion> found = autocomplete.suggest("oli", List.of(Type.BARANG), 10);
+
+        // "Oli Gardan" and "Oli Mesin 1L" start with the term, "Filter Oli" has it as a later word
+        assertEquals(List.of(3L, 1L, 2L), ids(found));
+    }
+
+    @Test
+    @DisplayName("Should match every typed word as a prefix, in any order")
+    void testWordPrefixes() {
+        assertEquals(List.of(5L), ids(autocomplete.suggest("rem kamp", List.of(Type.BARANG), 10)));
+        assertEquals(List.of(4L), ids(autocomplete.suggest("bsi-0", List.of(Type.BARANG), 10)));
+    }
+
+    @Test
+    @DisplayName("Should find a nopol typed without its spaces")
+    void testNopol() {
+        List<Suggestion> found = autocomplete.suggest("b12", List.of(Type.PELANGGAN), 10);
+
+        // Both nopols start with it; the shorter one comes first
+        assertEquals(List.of(2L, 1L), ids(found));
+        assertEquals("Budi", found.get(1).detail());
+    }
+
+    @Test
+    @DisplayName("Should find a misspelled name through its trigrams")
+    void testTypo() {
+        assertEquals(List.of(4L), ids(autocomplete.suggest("iridiun", List.of(Type.BARANG), 10)));
+    }
+
+    @Test
+    @DisplayName("Should keep only the best matches across types")
+    void testLimitAcrossTypes() {
+        List<Suggestion> found = autocomplete.suggest("oli", List.of(), 2);
+
+        assertEquals(2, found.size());
+        assertEquals(List.of(Type.BARANG, Type.BARANG), found.stream().map(Suggestion::type).toList());
+        assertEquals(1, autocomplete.loads.get(Type.PELANGGAN));
+        assertEquals(1, autocomplete.loads.get(Type.SPAREPART));
+    }
+
+    @Test
+    @DisplayName("Should load a table once for any number of lookups")
+    void testLoadsOnce() {
+        for (String term : List.of("o", "ol", "oli", "oli m", "")) {
+            autocomplete.suggest(term, List.of(Type.BARANG), 5);
+        }
+
+        assertEquals(1, autocomplete.loads.get(Type.BARANG));
+    }
+
+    @Test
+    @DisplayName("Should put the rows of a transaction into the index together after commit without reloading")
+    void testWriteThrough() {
+        autocomplete.suggest("oli", List.of(Type.BARANG), 10);
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+        TbBarangEntity barang = new TbBarangEntity();
+        barang.setId(6L);
+        barang.setNamaBarang("Oli Samping");
+        barang.setKodeBarang("OLI-003");
+        autocomplete.changed(barang);
+        autocomplete.removed(Type.BARANG, 3L);
+
+        // Nothing changes until the transaction commits
+        assertEquals(List.of(3L, 1L, 2L), ids(autocomplete.suggest("oli", List.of(Type.BARANG), 10)));
+
+        // One batch for both writes
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        assertEquals(List.of(1L, 6L, 2L), ids(autocomplete.suggest("oli", List.of(Type.BARANG), 10)));
+        assertEquals(1, autocomplete.loads.get(Type.BARANG));
+    }
+
+    @Test
+    @DisplayName("Should leave the index alone when the write is rolled back")
+    void testRollback() {
+        autocomplete.suggest("", List.of(Type.PELANGGAN), 10);
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+        TbPelangganEntity pelanggan = new TbPelangganEntity();
+        pelanggan.setId(3L);
+        pelanggan.setNopol("D 77 Z");
+        autocomplete.changed(pelanggan);
+
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+
+        assertTrue(autocomplete.suggest("d77", List.of(Type.PELANGGAN), 10).isEmpty());
+    }
+
+    private static Suggestion barang(Long id, String nama, String kode) {
+        return new Suggestion(Type.BARANG, id, nama, kode, new BigDecimal("10000"));
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::id).toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.DocumentNumberService.DocumentType;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Allocates numbers from many threads at once against PostgreSQL; every thread holds its own
+ * connection, as separate app instances would.
+ */
+@QuarkusTest
+class DocumentNumberConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 25;
+
+    @Inject
+    DocumentNumberService numberService;
+
+    @Test
+    @DisplayName("Concurrent allocations should never return the same number")
+    void testNoDuplicatesUnderLoad() throws Exception {
+        // A day of its own, so reruns against a reused database start from an empty counter
+        LocalDate day = LocalDate.of(2000, 1, 1).plusDays(Math.floorMod(System.nanoTime(), 10_000));
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                boolean inBlocks = t % 2 == 0;
+                Callable<List<String>> worker = () -> {
+                    start.await();
+                    List<String> numbers = new ArrayList<>();
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        if (inBlocks) {
+                            numbers.addAll(numberService.reserve(DocumentType.SPK, day, 2));
+                        } else {
+                            numbers.add(DocumentType.SPK.format(day, numberService.nextSequence(DocumentType.SPK, day)));
+                        }
+                    }
+                    return numbers;
+                };
+                futures.add(executor.submit(worker));
+            }
+            start.countDown();
+
+            Set<String> issued = new HashSet<>();
+            int total = 0;
+            for (Future<List<String>> future : futures) {
+                for (String number : future.get()) {
+                    assertTrue(issued.add(number), "duplicate " + number);
+                    total++;
+                }
+            }
+
+            int expected = THREADS / 2 * PER_THREAD * 2 + THREADS / 2 * PER_THREAD;
+            assertEquals(expected, total);
+            // No gaps either: every number up to the last one was handed out
+            assertTrue(issued.contains(DocumentType.SPK.format(day, expected)));
+            assertFalse(issued.contains(DocumentType.SPK.format(day, expected + 1)));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.DocumentNumberService.DocumentType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DocumentNumberService Tests")
+class DocumentNumberServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    /** Stands in for the counter row: an atomic add, like the upsert. */
+    private static class FakeCounterService extends DocumentNumberService {
+        final AtomicLong counter = new AtomicLong();
+        final AtomicInteger roundTrips = new AtomicInteger();
+
+        @Override
+        long allocate(DocumentType type, LocalDate day, int count, boolean separately) {
+            roundTrips.incrementAndGet();
+            return counter.addAndGet(count);
+        }
+
+        @Override
+        long lastValue(DocumentType type, LocalDate day) {
+            return counter.get();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the existing SPK and pembelian number formats")
+    void testFormat() {
+        assertEquals("2026101807", DocumentType.SPK.format(DAY, 7));
+        assertEquals("20261018123", DocumentType.SPK.format(DAY, 123));
+        assertEquals("FS202610183", DocumentType.forPembelian("sparepart").format(DAY, 3));
+        assertEquals("FB2026101812", DocumentType.forPembelian("BARANG").format(DAY, 12));
+        assertEquals(DocumentType.PEMBELIAN_OPERASIONAL, DocumentType.forPembelian("OPERASIONAL"));
+        assertEquals(DocumentType.PEMBELIAN_OPERASIONAL, DocumentType.forPembelian(null));
+    }
+
+    @Test
+    @DisplayName("Should preview the next number without taking it")
+    void testPreview() {
+        FakeCounterService service = new FakeCounterService();
+        service.counter.set(6);
+
+        String preview = service.preview(DocumentType.SPK);
+
+        assertTrue(preview.endsWith("07"));
+        assertEquals(preview, service.preview(DocumentType.SPK));
+        assertEquals(0, service.roundTrips.get());
+        assertEquals(preview, service.next(DocumentType.SPK));
+    }
+
+    @Test
+    @DisplayName("Should reserve a block of consecutive numbers in one round trip")
+    void testReserve() {
+        FakeCounterService service = new FakeCounterService();
+        service.counter.set(4);
+
+        List<String> numbers = service.reserve(DocumentType.SPK, DAY, 3);
+
+        assertEquals(List.of("2026101805", "2026101806", "2026101807"), numbers);
+        assertEquals(1, service.roundTrips.get());
+        assertThrows(IllegalArgumentException.class, () -> service.reserve(DocumentType.SPK, DAY, 0));
+    }
+
+    @Test
+    @DisplayName("Should hand out block-reserved numbers without duplicates under load")
+    void testBlockReservationConcurrent() throws Exception {
+        FakeCounterService service = new FakeCounterService();
+        service.blockSize = 10;
+
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> assertTrue(issued.add(service.nextSequence(DocumentType.SPK, DAY)))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(1000, issued.size());
+        assertEquals(100, service.roundTrips.get());
+    }
+}
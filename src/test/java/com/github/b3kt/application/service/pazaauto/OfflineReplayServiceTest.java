@@ -0,0 +1,190 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.b3kt.application.dto.pazaauto.ReplayOperation;
+import com.github.b3kt.application.dto.pazaauto.ReplayOperation.Action;
+import com.github.b3kt.application.dto.pazaauto.ReplayOperation.Target;
+import com.github.b3kt.application.dto.pazaauto.ReplayResult;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("OfflineReplayService Tests")
+class OfflineReplayServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private TbSpkService spkService;
+
+    @Mock
+    private TbPenjualanService penjualanService;
+
+    @Mock
+    private TbPembelianService pembelianService;
+
+    private final Map<String, Integer> versions = new HashMap<>();
+
+    private OfflineReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        replayService = new OfflineReplayService();
+        replayService.em = em;
+        replayService.objectMapper = objectMapper;
+        replayService.spkService = spkService;
+        replayService.penjualanService = penjualanService;
+        replayService.pembelianService = pembelianService;
+        replayService.chunkSize = 50;
+        replayService.maxOperations = 2;
+
+        when(spkService.create(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(spkService.update(anyLong(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+    }
+
+    @Test
+    @DisplayName("Should create an SPK through the same path as the endpoint")
+    void testCreate() {
+        ObjectNode payload = objectMapper.createObjectNode().put("noSpk", "SPK001").put("km", 12000);
+
+        ReplayResult result = replayService.apply(operation(Action.CREATE, null, null, payload), versions);
+
+        assertEquals(ReplayResult.Status.APPLIED, result.status());
+        assertEquals("op-1", result.ref());
+        ArgumentCaptor<TbSpkEntity> created = ArgumentCaptor.forClass(TbSpkEntity.class);
+        verify(spkService).fillDetails(created.capture());
+        verify(spkService).create(created.getValue());
+        assertEquals("SPK001", created.getValue().getNoSpk());
+    }
+
+    @Test
+    @DisplayName("Should refuse an update of a row changed since the client read it")
+    void testConflict() {
+        TbSpkEntity current = spk(3);
+        when(em.find(TbSpkEntity.class, 7L)).thenReturn(current);
+
+        ReplayResult result = replayService.apply(
+                operation(Action.UPDATE, "7", 2, objectMapper.createObjectNode().put("km", 12500)), versions);
+
+        assertEquals(ReplayResult.Status.CONFLICT, result.status());
+        assertSame(current, result.data());
+        verify(spkService, never()).update(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should apply queued writes to the same row that carry the version the client saw")
+    void testChainedUpdates() {
+        TbSpkEntity current = spk(3);
+        when(em.find(TbSpkEntity.class, 7L)).thenReturn(current);
+        // Each write increments the version, as the flush does
+        when(spkService.update(eq(7L), any())).thenAnswer(invocation -> {
+            current.setVersion(current.getVersion() + 1);
+            return current;
+        });
+
+        ReplayResult first = replayService.apply(
+                operation(Action.UPDATE, "7", 3, objectMapper.createObjectNode().put("km", 12500)), versions);
+        ReplayResult second = replayService.apply(
+                operation(Action.UPDATE, "7", 3, objectMapper.createObjectNode().put("km", 12600)), versions);
+
+        assertEquals(ReplayResult.Status.APPLIED, first.status());
+        assertEquals(ReplayResult.Status.APPLIED, second.status());
+        ArgumentCaptor<TbSpkEntity> updated = ArgumentCaptor.forClass(TbSpkEntity.class);
+        verify(spkService, times(2)).update(eq(7L), updated.capture());
+        // The payload is merged with the row's own version
+        assertEquals(4, updated.getAllValues().get(1).getVersion());
+        assertEquals(12600, updated.getAllValues().get(1).getKm());
+        assertEquals(5, versions.get("SPK:7"));
+    }
+
+    @Test
+    @DisplayName("Should refuse a queued write when someone else changed the row after the batch wrote it")
+    void testConflictBetweenQueuedWrites() {
+        TbSpkEntity current = spk(3);
+        when(em.find(TbSpkEntity.class, 7L)).thenReturn(current);
+        when(spkService.update(eq(7L), any())).thenAnswer(invocation -> {
+            current.setVersion(current.getVersion() + 1);
+            return current;
+        });
+
+        replayService.apply(operation(Action.UPDATE, "7", 3, objectMapper.createObjectNode().put("km", 12500)),
+                versions);
+        // Another user saves the SPK between the two queued writes
+        current.setVersion(5);
+        ReplayResult second = replayService.apply(
+                operation(Action.UPDATE, "7", 3, objectMapper.createObjectNode().put("km", 12600)), versions);
+
+        assertEquals(ReplayResult.Status.CONFLICT, second.status());
+        verify(spkService, times(1)).update(eq(7L), any());
+    }
+
+    @Test
+    @DisplayName("Should report a delete of a row that no longer exists")
+    void testNotFound() {
+        ReplayResult result = replayService.apply(new ReplayOperation("op-1", Target.PEMBELIAN, Action.DELETE,
+                "9", 1, null), versions);
+
+        assertEquals(ReplayResult.Status.NOT_FOUND, result.status());
+        verify(pembelianService, never()).delete(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should delete a pembelian through the service so its stock is reversed")
+    void testDelete() {
+        TbPembelianEntity pembelian = new TbPembelianEntity();
+        pembelian.setId(9L);
+        pembelian.setVersion(1);
+        when(em.find(TbPembelianEntity.class, 9L)).thenReturn(pembelian);
+
+        ReplayResult result = replayService.apply(new ReplayOperation("op-1", Target.PEMBELIAN, Action.DELETE,
+                "9", 1, null), versions);
+
+        assertEquals(ReplayResult.Status.APPLIED, result.status());
+        verify(pembelianService).delete(9L);
+    }
+
+    @Test
+    @DisplayName("Should reject a batch larger than the limit")
+    void testTooManyOperations() {
+        ReplayOperation operation = operation(Action.CREATE, null, null, objectMapper.createObjectNode());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> replayService.replay(Collections.nCopies(3, operation)));
+        verifyNoInteractions(spkService);
+    }
+
+    private static ReplayOperation operation(Action action, String id, Integer version, ObjectNode payload) {
+        return new ReplayOperation("op-1", Target.SPK, action, id, version, payload);
+    }
+
+    private static TbSpkEntity spk(int version) {
+        TbSpkEntity spk = new TbSpkEntity();
+        spk.setId(7L);
+        spk.setNoSpk("SPK007");
+        spk.setVersion(version);
+        return spk;
+    }
+}
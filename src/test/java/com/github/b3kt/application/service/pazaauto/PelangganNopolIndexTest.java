@@ -0,0 +1,220 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CaffeineCache;
+import io.smallrye.mutiny.Uni;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PelangganNopolIndex Tests")
+class PelangganNopolIndexTest {
+
+    /** Serves fixed rows by key and records the keys read instead of querying. */
+    private static class FakeNopolIndex extends PelangganNopolIndex {
+        final Map<String, TbPelangganEntity> rows = new HashMap<>();
+        final List<Collection<String>> loads = new ArrayList<>();
+
+        @Override
+        TbPelangganEntity load(String key) {
+            loads.add(List.of(key));
+            return rows.get(key);
+        }
+
+        @Override
+        Map<String, TbPelangganEntity> loadAll(Collection<String> keys) {
+            loads.add(List.copyOf(keys));
+            Map<String, TbPelangganEntity> byKey = new HashMap<>();
+            keys.stream().filter(rows::containsKey).forEach(key -> byKey.put(key, rows.get(key)));
+            return byKey;
+        }
+    }
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private CaffeineCache caffeine;
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private Query query;
+
+    @Mock
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private FakeNopolIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        index = new FakeNopolIndex();
+        index.cache = cache;
+        index.em = em;
+        index.transactionRegistry = transactionRegistry;
+        index.registry = registry;
+        index.listen = true;
+        index.poll = Duration.ofSeconds(5);
+
+        when(cache.as(CaffeineCache.class)).thenReturn(caffeine);
+        when(cache.invalidate(any())).thenReturn(Uni.createFrom().voidItem());
+        when(cache.get(any(), any())).thenAnswer(invocation -> Uni.createFrom().item(
+                ((Function<Object, Object>) invocation.getArgument(1)).apply(invocation.getArgument(0))));
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+        when(query.setParameter(anyInt(), any())).thenReturn(query);
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+    }
+
+    @Test
+    @DisplayName("Should key a nopol by its upper case form without spaces")
+    void testKey() {
+        assertEquals("B1234ABC", PelangganNopolIndex.key(" b 1234  abc"));
+        assertEquals("B1234ABC", PelangganNopolIndex.key("B1234ABC"));
+        assertNull(PelangganNopolIndex.key("   "));
+        assertNull(PelangganNopolIndex.key(null));
+    }
+
+    @Test
+    @DisplayName("Should look up a nopol by its key regardless of how it is typed")
+    void testGet() {
+        TbPelangganEntity pelanggan = pelanggan(1L, "B 1234 ABC");
+        index.rows.put("B1234ABC", pelanggan);
+
+        assertSame(pelanggan, index.get("b1234 abc"));
+        verify(cache).get(eq("B1234ABC"), any());
+        assertNull(index.get(" "));
+        assertEquals(1, index.loads.size());
+    }
+
+    @Test
+    @DisplayName("Should read only the uncached nopols of a bulk lookup, in one query")
+    void testGetAll() {
+        TbPelangganEntity cached = pelanggan(1L, "B 1234 ABC");
+        TbPelangganEntity stored = pelanggan(2L, "D 77 Z");
+        index.rows.put("D77Z", stored);
+        when(caffeine.<TbPelangganEntity>getIfPresent("B1234ABC"))
+                .thenReturn(CompletableFuture.completedFuture(cached));
+
+        Map<String, TbPelangganEntity> found = index.getAll(List.of("B 1234 ABC", "d77z", "D 77 Z", "F 1 X"));
+
+        assertEquals(List.of(List.of("D77Z", "F1X")), index.loads);
+        assertSame(cached, found.get("B 1234 ABC"));
+        assertSame(stored, found.get("d77z"));
+        assertSame(stored, found.get("D 77 Z"));
+        assertFalse(found.containsKey("F 1 X"));
+        verify(caffeine).put(eq("D77Z"), any());
+    }
+
+    @Test
+    @DisplayName("Should put an updated pelanggan under its new nopol and drop the old one after commit")
+    @SuppressWarnings("unchecked")
+    void testWriteThrough() {
+        TbPelangganEntity pelanggan = pelanggan(1L, "B 99 NEW");
+
+        index.written("B 1234 ABC", pelanggan);
+
+        // Both keys are announced inside the transaction; nothing changes locally until it commits
+        verify(query, times(2)).getSingleResult();
+        verify(caffeine, never()).put(any(), any());
+        verify(cache, never()).invalidate(any());
+
+        commit(Status.STATUS_COMMITTED);
+
+        ArgumentCaptor<CompletableFuture<Object>> value = ArgumentCaptor.forClass(CompletableFuture.class);
+        verify(caffeine).put(eq("B99NEW"), value.capture());
+        assertSame(pelanggan, value.getValue().join());
+        verify(cache).invalidate("B1234ABC");
+        assertEquals(2.0, registry.counter("pelanggan.nopol.notifications", "direction", "sent").count());
+    }
+
+    @Test
+    @DisplayName("Should drop the keys of a write that is rolled back")
+    void testRollback() {
+        index.written(null, pelanggan(1L, "B 1234 ABC"));
+
+        commit(Status.STATUS_ROLLEDBACK);
+
+        verify(caffeine, never()).put(any(), any());
+        verify(cache).invalidate("B1234ABC");
+    }
+
+    @Test
+    @DisplayName("Should drop a deleted nopol after commit")
+    void testRemoved() {
+        index.removed("b 1234 abc");
+
+        commit(Status.STATUS_COMMITTED);
+
+        verify(cache).invalidate("B1234ABC");
+    }
+
+    @Test
+    @DisplayName("Should drop keys written by other instances and ignore its own notifications")
+    void testReceived() {
+        index.written(null, pelanggan(1L, "B 1234 ABC"));
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(query).setParameter(eq(2), payload.capture());
+
+        index.received((String) payload.getValue());
+        verify(cache, never()).invalidate(any());
+
+        index.received("another-instance:D77Z");
+        verify(cache).invalidate("D77Z");
+        assertEquals(1.0, registry.counter("pelanggan.nopol.notifications", "direction", "received").count());
+    }
+
+    @Test
+    @DisplayName("Should not notify when listening is disabled")
+    void testListenDisabled() {
+        index.listen = false;
+
+        index.removed("B 1234 ABC");
+
+        verifyNoInteractions(em);
+    }
+
+    private void commit(int status) {
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(status);
+    }
+
+    private static TbPelangganEntity pelanggan(Long id, String nopol) {
+        TbPelangganEntity pelanggan = new TbPelangganEntity();
+        pelanggan.setId(id);
+        pelanggan.setNopol(nopol);
+        return pelanggan;
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.PenjualanPrintDto;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPenjualanEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailId;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbPelangganRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkDetailRepository;
+import io.quarkus.cache.Cache;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.smallrye.mutiny.Uni;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PenjualanPrintService Tests")
+class PenjualanPrintServiceTest {
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private TypedQuery<Object[]> headerQuery;
+
+    @Mock
+    private TbSpkDetailRepository detailRepository;
+
+    @Mock
+    private TbPelangganRepository pelangganRepository;
+
+    @Mock
+    private PelangganNopolIndex nopolIndex;
+
+    @Mock
+    private PriceCatalogService catalog;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private PenjualanPrintService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PenjualanPrintService();
+        service.em = em;
+        service.detailRepository = detailRepository;
+        service.pelangganRepository = pelangganRepository;
+        service.nopolIndex = nopolIndex;
+        service.catalog = catalog;
+        service.cache = cache;
+        service.transactionRegistry = transactionRegistry;
+
+        when(em.createQuery(anyString(), eq(Object[].class))).thenReturn(headerQuery);
+        when(headerQuery.setParameter(anyInt(), any())).thenReturn(headerQuery);
+        when(headerQuery.setMaxResults(anyInt())).thenReturn(headerQuery);
+        when(cache.invalidate(any())).thenReturn(Uni.createFrom().voidItem());
+    }
+
+    @Test
+    @DisplayName("Should price every line from the catalog in one lookup per master table")
+    @SuppressWarnings("unchecked")
+    void testAssembleUsesFixedQueries() {
+        TbPenjualanEntity penjualan = new TbPenjualanEntity();
+        penjualan.setNoPenjualan("PJ001");
+        penjualan.setNoSpk("SPK001");
+        penjualan.setTanggalJamPenjualan(new Date());
+        TbSpkEntity spk = new TbSpkEntity();
+        spk.setNoSpk("SPK001");
+        List<Object[]> header = new ArrayList<>();
+        header.add(new Object[]{penjualan, spk});
+        when(headerQuery.getResultList()).thenReturn(header);
+
+        List<TbSpkDetailEntity> details = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            details.add(detail("Servis " + i, 1L, null, 1));
+        }
+        details.add(detail("Oli", null, 10L, 2));
+        details.add(detail("Busi", null, 11L, 3));
+        PanacheQuery<TbSpkDetailEntity> detailQuery = mock(PanacheQuery.class);
+        when(detailRepository.find("id.noSpk", "SPK001")).thenReturn(detailQuery);
+        when(detailQuery.list()).thenReturn(details);
+
+        when(catalog.getAll(eq(PriceCatalogService.Type.JASA), any()))
+                .thenReturn(Map.of(1L, item(PriceCatalogService.Type.JASA, 1L, "50000")));
+        when(catalog.getAll(eq(PriceCatalogService.Type.SPAREPART), any()))
+                .thenReturn(Map.of(10L, item(PriceCatalogService.Type.SPAREPART, 10L, "45000")));
+        when(catalog.getAll(eq(PriceCatalogService.Type.BARANG), any()))
+                .thenReturn(Map.of(11L, item(PriceCatalogService.Type.BARANG, 11L, "20000")));
+
+        PenjualanPrintDto invoice = service.assemble("PJ001");
+
+        assertEquals(22, invoice.getItems().size());
+        assertEquals("Servis 0", invoice.getItems().get(0).getNama());
+        assertEquals("JASA", invoice.getItems().get(0).getType());
+        assertEquals(new BigDecimal("90000"), invoice.getItems().get(20).getSubTotal());
+        assertEquals(new BigDecimal("60000"), invoice.getItems().get(21).getSubTotal());
+        assertEquals(new BigDecimal("1150000"), invoice.getSubTotal());
+        assertEquals("BARANG", invoice.getItems().get(21).getType());
+        verify(catalog).getAll(PriceCatalogService.Type.JASA, Set.of(1L));
+        verify(catalog).getAll(PriceCatalogService.Type.SPAREPART, Set.of(10L, 11L));
+        // Only the id that is not a sparepart falls back to tb_barang
+        verify(catalog).getAll(PriceCatalogService.Type.BARANG, Set.of(11L));
+    }
+
+    @Test
+    @DisplayName("Should take the vehicle of the pelanggan registered for the normalized nopol")
+    @SuppressWarnings("unchecked")
+    void testAssembleVehicleByNopol() {
+        TbPenjualanEntity penjualan = new TbPenjualanEntity();
+        penjualan.setNoPenjualan("PJ001");
+        penjualan.setNoSpk("SPK001");
+        penjualan.setPelangganId(5L);
+        penjualan.setTanggalJamPenjualan(new Date());
+        TbSpkEntity spk = new TbSpkEntity();
+        spk.setNoSpk("SPK001");
+        spk.setNopol("b 1234 xyz");
+        List<Object[]> header = new ArrayList<>();
+        header.add(new Object[]{penjualan, spk});
+        when(headerQuery.getResultList()).thenReturn(header);
+        PanacheQuery<TbSpkDetailEntity> detailQuery = mock(PanacheQuery.class);
+        when(detailRepository.find("id.noSpk", "SPK001")).thenReturn(detailQuery);
+        when(detailQuery.list()).thenReturn(List.of());
+
+        TbPelangganEntity owner = new TbPelangganEntity();
+        owner.setId(5L);
+        owner.setNamaPelanggan("Citra");
+        when(pelangganRepository.findById(5L)).thenReturn(owner);
+        TbPelangganEntity registered = new TbPelangganEntity();
+        registered.setNopol("B1234XYZ");
+        registered.setMerk("Honda");
+        registered.setJenis("Jazz");
+        when(nopolIndex.get("b 1234 xyz")).thenReturn(registered);
+
+        PenjualanPrintDto invoice = service.assemble("PJ001");
+
+        assertEquals("Citra", invoice.getNamaPelanggan());
+        assertEquals("Honda", invoice.getMerk());
+        assertEquals("Jazz", invoice.getModel());
+        verify(pelangganRepository, never()).find(anyString(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should return null for an unknown sale")
+    void testAssembleNotFound() {
+        when(headerQuery.getResultList()).thenReturn(Collections.emptyList());
+
+        assertNull(service.assemble("NONEXISTENT"));
+    }
+
+    @Test
+    @DisplayName("Should evict an invoice at once and again when the transaction completes")
+    void testInvalidateAfterCommit() {
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+        service.invalidate("PJ001");
+
+        verify(cache).invalidate("PJ001");
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+        verify(cache, times(2)).invalidate("PJ001");
+    }
+
+    @Test
+    @DisplayName("Should evict only the invoice of the sale of an SPK")
+    @SuppressWarnings("unchecked")
+    void testInvalidateBySpk() {
+        TypedQuery<String> numberQuery = mock(TypedQuery.class);
+        when(em.createQuery(anyString(), eq(String.class))).thenReturn(numberQuery);
+        when(numberQuery.setParameter(anyInt(), any())).thenReturn(numberQuery);
+        when(numberQuery.getResultList()).thenReturn(List.of("PJ001"));
+
+        service.invalidateBySpk("SPK001");
+
+        verify(numberQuery).setParameter(1, "SPK001");
+        verify(cache).invalidate("PJ001");
+        verify(cache, never()).invalidateAll();
+    }
+
+    private static PriceCatalogService.Item item(PriceCatalogService.Type type, Long id, String hargaJual) {
+        return new PriceCatalogService.Item(type, id, "Item " + id, new BigDecimal(hargaJual), null);
+    }
+
+    private static TbSpkDetailEntity detail(String nama, Long jasaId, Long sparepartId, int jumlah) {
+        TbSpkDetailId id = new TbSpkDetailId();
+        id.setNoSpk("SPK001");
+        id.setNamaJasa(nama);
+        TbSpkDetailEntity detail = new TbSpkDetailEntity();
+        detail.setId(id);
+        detail.setJasaId(jasaId);
+        detail.setSparepartId(sparepartId);
+        detail.setJumlah(jumlah);
+        return detail;
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.PriceCatalogService.Item;
+import com.github.b3kt.application.service.pazaauto.PriceCatalogService.Type;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("PriceCatalogService Tests")
+class PriceCatalogServiceTest {
+
+    /** Counts table loads instead of querying. */
+    private static class FakeCatalog extends PriceCatalogService {
+        final Map<Type, Integer> loads = new EnumMap<>(Type.class);
+        BigDecimal jasaPrice = new BigDecimal("50000");
+
+        @Override
+        Map<Long, Item> load(Type type) {
+            loads.merge(type, 1, Integer::sum);
+            Map<Long, Item> items = new HashMap<>();
+            for (long id = 1; id <= 20; id++) {
+                items.put(id, new Item(type, id, type + " " + id, jasaPrice, new BigDecimal("30000")));
+            }
+            return items;
+        }
+    }
+
+    private FakeCatalog catalog;
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new FakeCatalog();
+        catalog.maxAge = Duration.ofMinutes(5);
+        transactionRegistry = mock(TransactionSynchronizationRegistry.class);
+        catalog.transactionRegistry = transactionRegistry;
+    }
+
+    @Test
+    @DisplayName("Should load a master table once for any number of lookups")
+    void testLoadsOnce() {
+        for (long id = 1; id <= 20; id++) {
+            assertEquals(new BigDecimal("50000"), catalog.hargaJual(Type.JASA, id));
+        }
+        Map<Long, Item> found = catalog.getAll(Type.BARANG, Arrays.asList(1L, 2L, 99L, null));
+
+        assertEquals(List.of(1L, 2L), found.keySet().stream().sorted().toList());
+        assertNull(catalog.get(Type.JASA, 99L));
+        assertNull(catalog.get(Type.JASA, null));
+        assertEquals(1, catalog.loads.get(Type.JASA));
+        assertEquals(1, catalog.loads.get(Type.BARANG));
+        assertNull(catalog.loads.get(Type.SPAREPART));
+    }
+
+    @Test
+    @DisplayName("Should reload only the changed table after a write")
+    void testChanged() {
+        catalog.get(Type.JASA, 1L);
+        catalog.get(Type.BARANG, 1L);
+
+        catalog.jasaPrice = new BigDecimal("65000");
+        catalog.changed(Type.JASA);
+
+        assertEquals(new BigDecimal("65000"), catalog.hargaJual(Type.JASA, 1L));
+        catalog.get(Type.BARANG, 1L);
+        assertEquals(2, catalog.loads.get(Type.JASA));
+        assertEquals(1, catalog.loads.get(Type.BARANG));
+        verify(transactionRegistry, never()).registerInterposedSynchronization(any());
+    }
+
+    @Test
+    @DisplayName("Should drop the table again when the writing transaction completes")
+    void testChangedInTransaction() {
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+        catalog.changed(Type.SPAREPART);
+
+        verify(transactionRegistry).registerInterposedSynchronization(any());
+    }
+
+    @Test
+    @DisplayName("Should reload a table once it is older than max-age")
+    void testExpiry() {
+        catalog.maxAge = Duration.ZERO;
+
+        catalog.get(Type.JASA, 1L);
+        catalog.get(Type.JASA, 2L);
+
+        assertEquals(2, catalog.loads.get(Type.JASA));
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.PenjualanPrintDto;
+import com.github.b3kt.application.helper.PrintFormat;
+import com.github.b3kt.application.service.pazaauto.PrintRenderService.Format;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Renders the Qute print templates through {@link PrintRenderService}, in each format, and
+ * checks the lines and ESC/POS control sequences the printers and the web client rely on.
+ */
+@QuarkusTest
+class PrintRenderServiceTest {
+
+    private static final String INIT = "\u001b@";
+    private static final String BOLD_ON = "\u001bE\u0001";
+    private static final String BOLD_OFF = "\u001bE\u0000";
+    private static final String CENTER = "\u001ba\u0001";
+    private static final String LEFT = "\u001ba\u0000";
+    private static final String CUT = "\u001dVB\u0003";
+
+    private static final LocalDate DAY = LocalDate.of(2031, 5, 10);
+
+    @Inject
+    PrintRenderService render;
+
+    @Inject
+    EntityManager em;
+
+    @InjectMock
+    PenjualanPrintService printService;
+
+    @BeforeEach
+    void seed() {
+        when(printService.findInvoice("PPRN0510A")).thenReturn(invoice("PPRN0510A"));
+        when(printService.findInvoice("PPRN0510B")).thenReturn(invoice("PPRN0510B"));
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            long mekanik = ((Number) em.createNativeQuery(
+                    "INSERT INTO tb_karyawan (nama_karyawan) VALUES ('PRN Andi') RETURNING id").getSingleResult()).longValue();
+            sale("PRN0510A", "2031-05-10 09:30:00", mekanik);
+            sale("PRN0510B", "2031-05-10 14:00:00", mekanik);
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("DELETE FROM tb_spk_mekanik WHERE no_spk LIKE 'PRN%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_penjualan WHERE no_spk LIKE 'PRN%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_spk WHERE no_spk LIKE 'PRN%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_karyawan WHERE nama_karyawan LIKE 'PRN %'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_pelanggan WHERE nama_pelanggan LIKE 'PRN %'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Should render an HTML faktur with the jasa block before the barang block")
+    void testFakturHtml() {
+        String html = write(render.faktur("PPRN0510A", Format.HTML));
+
+        assertTrue(html.contains("<title>Print Penjualan PPRN0510A</title>"));
+        assertTrue(html.contains("<div class=\"invoice-header\">FAKTUR PENJUALAN</div>"));
+        assertTrue(html.contains("<div class=\"value uppercase\">Citra</div>"));
+        assertTrue(html.contains("<div class=\"value uppercase\">B 1234 XYZ</div>"));
+        assertTrue(html.contains("<div class=\"value uppercase\">Honda Jazz</div>"));
+        assertTrue(html.contains("<div class=\"value\">PPRN0510A</div>"));
+        assertTrue(html.contains("<div>Rp 210.000</div>"));
+        // Names are escaped
+        assertTrue(html.contains("<td class=\"uppercase\">Oli &amp; Filter</td>"));
+
+        int jasa = html.indexOf("<td class=\"group-header\">Jasa</td>");
+        int barang = html.indexOf("<td class=\"group-header\">Barang</td>");
+        assertTrue(jasa > 0 && barang > jasa);
+        assertTrue(html.indexOf("<td class=\"uppercase\">Servis</td>") > jasa);
+        assertTrue(html.contains("<td class=\"text-right\">110.000</td>"));
+        assertTrue(html.strip().endsWith("</html>"));
+    }
+
+    @Test
+    @DisplayName("Should render an ESC/POS faktur as printer commands and 48 column lines")
+    void testFakturEscPos() {
+        String receipt = write(render.faktur("PPRN0510A", Format.ESCPOS));
+
+        assertTrue(receipt.strip().startsWith(INIT + CENTER + BOLD_ON + "PASA AUTO" + BOLD_OFF + "\n"));
+        assertTrue(receipt.contains(BOLD_ON + "FAKTUR PENJUALAN" + BOLD_OFF + "\n" + LEFT + PrintFormat.rule() + "\n"));
+        assertTrue(receipt.contains("\nNo Faktur : PPRN0510A\n"));
+        assertTrue(receipt.contains("\nPelanggan : Citra\n"));
+        assertTrue(receipt.contains("\nNo Polisi : B 1234 XYZ\n"));
+        assertTrue(receipt.contains("\n" + BOLD_ON + "Jasa" + BOLD_OFF + "\n1. Servis\n"
+                + PrintFormat.item(1, new BigDecimal("100000"), new BigDecimal("100000")) + "\n"));
+        assertTrue(receipt.contains("\n" + BOLD_ON + "Barang" + BOLD_OFF + "\n2. Oli & Filter\n"
+                + PrintFormat.item(2, new BigDecimal("55000"), new BigDecimal("110000")) + "\n"));
+        assertTrue(receipt.contains("\n" + BOLD_ON + PrintFormat.total("GRAND TOTAL", new BigDecimal("210000")) + BOLD_OFF + "\n"));
+        assertTrue(receipt.contains("\n" + PrintFormat.total("Kembali", new BigDecimal("40000")) + "\n"));
+        assertTrue(receipt.strip().endsWith(CUT));
+        assertEquals(1, count(receipt, CUT));
+
+        for (String line : text(receipt).split("\n")) {
+            assertTrue(line.length() <= PrintFormat.RECEIPT_WIDTH, line);
+        }
+        // Written as US-ASCII, which every printer code page starts with
+        for (byte b : writeBytes(render.faktur("PPRN0510A", Format.ESCPOS))) {
+            assertTrue(b >= 0, "non-ASCII byte " + b);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return no faktur for an unknown sale")
+    void testFakturMissing() {
+        assertNull(render.faktur("PPRN0000X", Format.HTML));
+        assertNull(render.faktur("PPRN0000X", Format.ESCPOS));
+    }
+
+    @Test
+    @DisplayName("Should render the faktur of a day as one document or one receipt stream")
+    void testFakturBatch() {
+        String html = write(render.fakturBatch(DAY, Format.HTML));
+        assertEquals(1, count(html, "<html>"));
+        assertTrue(html.contains("<title>Faktur 10-05-2031</title>"));
+        assertTrue(html.indexOf("<div class=\"value\">PPRN0510A</div>") < html.indexOf("<div class=\"value\">PPRN0510B</div>"));
+
+        String receipts = write(render.fakturBatch(DAY, Format.ESCPOS));
+        assertEquals(2, count(receipts, INIT));
+        assertEquals(2, count(receipts, CUT));
+        assertTrue(receipts.indexOf("No Faktur : PPRN0510A") < receipts.indexOf(CUT));
+        assertTrue(receipts.indexOf("No Faktur : PPRN0510B") > receipts.indexOf(CUT));
+    }
+
+    @Test
+    @DisplayName("Should list each sale of the rekap with its SPK, pelanggan and mechanics")
+    void testRekapPenjualan() {
+        String html = write(render.rekapPenjualan(DAY, DAY, "LUNAS"));
+
+        assertTrue(html.contains("<div class=\"value\">10-05-2031 s/d 10-05-2031</div>"));
+        assertTrue(html.contains("<td class=\"uppercase\">PRN0510A</td>"));
+        assertTrue(html.contains("<td class=\"uppercase\">PRN0510B</td>"));
+        assertTrue(html.contains("<td>10-05-2031 09:30</td>"));
+        assertTrue(html.contains("<td class=\"uppercase\">PRN Citra</td>"));
+        assertTrue(html.contains("<td class=\"uppercase\">PRN Andi</td>"));
+        assertTrue(html.contains("<td class=\"text-right\">Rp 210.000</td>"));
+        assertTrue(html.contains("<div>Rp 420.000</div>"));
+
+        String none = write(render.rekapPenjualan(DAY, DAY, "BELUM_LUNAS"));
+        assertFalse(none.contains("PRN0510A"));
+        assertTrue(none.contains("<div>Rp 0</div>"));
+    }
+
+    @Test
+    @DisplayName("Should name the pelanggan of an SPK without one by its nopol, however it is spaced")
+    void testRekapPenjualanPelangganByNopol() {
+        LocalDate day = DAY.plusDays(1);
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("INSERT INTO tb_pelanggan (nopol, merk, nama_pelanggan, updated_at) "
+                    + "VALUES ('B9876PRN', 'Honda', 'PRN Dewi', CURRENT_TIMESTAMP)").executeUpdate();
+            em.createNativeQuery("INSERT INTO tb_spk (no_spk, nopol, mekanik_list, status) "
+                    + "VALUES ('PRN0511A', 'b 9876 prn', CAST('[]' AS jsonb), 'SELESAI')").executeUpdate();
+            em.createNativeQuery("INSERT INTO tb_penjualan (no_penjualan, tgl_jam_penjualan, no_spk, grand_total, "
+                    + "status_pembayaran, metode_pembayaran) "
+                    + "VALUES ('PPRN0511A', CAST('2031-05-11 10:00:00' AS timestamp), 'PRN0511A', 50000, 'LUNAS', 'CASH')")
+                    .executeUpdate();
+        });
+
+        String html = write(render.rekapPenjualan(day, day, "LUNAS"));
+
+        assertTrue(html.contains("<td class=\"uppercase\">PRN0511A</td>"));
+        assertTrue(html.contains("<td class=\"uppercase\">PRN Dewi</td>"));
+    }
+
+    private void sale(String noSpk, String at, long mekanik) {
+        em.createNativeQuery("INSERT INTO tb_spk (no_spk, nopol, nama_pelanggan, mekanik_list, status) "
+                        + "VALUES (?1, 'B 1234 XYZ', 'PRN Citra', CAST('[]' AS jsonb), 'SELESAI')")
+                .setParameter(1, noSpk)
+                .executeUpdate();
+        em.createNativeQuery("INSERT INTO tb_penjualan (no_penjualan, tgl_jam_penjualan, no_spk, grand_total, "
+                        + "status_pembayaran, metode_pembayaran) "
+                        + "VALUES (?1, CAST(?2 AS timestamp), ?3, 210000, 'LUNAS', 'CASH')")
+                .setParameter(1, "P" + noSpk)
+                .setParameter(2, at)
+                .setParameter(3, noSpk)
+                .executeUpdate();
+        em.createNativeQuery("INSERT INTO tb_spk_mekanik (no_spk, id_mekanik, tanggal) VALUES (?1, ?2, CAST(?3 AS date))")
+                .setParameter(1, noSpk)
+                .setParameter(2, mekanik)
+                .setParameter(3, at.substring(0, 10))
+                .executeUpdate();
+    }
+
+    private static PenjualanPrintDto invoice(String noPenjualan) {
+        PenjualanPrintDto invoice = new PenjualanPrintDto();
+        invoice.setNoPenjualan(noPenjualan);
+        invoice.setTanggal("10-05-2031 09:30");
+        invoice.setNamaPelanggan("Citra");
+        invoice.setNopol("B 1234 XYZ");
+        invoice.setMerk("Honda");
+        invoice.setModel("Jazz");
+        invoice.setKm(45000);
+        invoice.setNamaMekanik("Andi");
+        // Barang listed first; the faktur puts jasa first
+        invoice.setItems(List.of(item("Oli & Filter", "BARANG", 2, "55000"), item("Servis", "JASA", 1, "100000")));
+        invoice.setGrandTotal(new BigDecimal("210000"));
+        invoice.setUangDibayar(new BigDecimal("250000"));
+        invoice.setKembalian(new BigDecimal("40000"));
+        return invoice;
+    }
+
+    private static PenjualanPrintDto.ItemDto item(String nama, String type, int qty, String harga) {
+        PenjualanPrintDto.ItemDto item = new PenjualanPrintDto.ItemDto();
+        item.setNama(nama);
+        item.setType(type);
+        item.setQty(qty);
+        item.setHarga(new BigDecimal(harga));
+        item.setSubTotal(new BigDecimal(harga).multiply(BigDecimal.valueOf(qty)));
+        return item;
+    }
+
+    private static byte[] writeBytes(StreamingOutput output) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            output.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String write(StreamingOutput output) {
+        return new String(writeBytes(output), StandardCharsets.UTF_8);
+    }
+
+    // The printable text of a receipt, without its control sequences
+    private static String text(String receipt) {
+        return receipt.replaceAll("\u001b@|\u001b[Ea][\u0000\u0001]|\u001dVB\u0003", "");
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + part.length())) {
+            count++;
+        }
+        return count;
+    }
+}
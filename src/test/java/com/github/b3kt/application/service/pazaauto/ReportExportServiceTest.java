@@ -0,0 +1,201 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import com.github.b3kt.application.helper.ExportWriter;
+import com.github.b3kt.application.service.pazaauto.ReportExportService.Dataset;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streams the DAILY and SOLD_ITEMS exports of {@link ReportExportService} and checks them
+ * against the summary of {@link SummaryReportEngine} for the same range, so the downloaded
+ * figures match the ones on screen.
+ */
+@QuarkusTest
+class ReportExportServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2031, 4, 1);
+    private static final LocalDate END = LocalDate.of(2031, 4, 3);
+
+    @Inject
+    ReportExportService exportService;
+
+    @Inject
+    SummaryReportEngine engine;
+
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    EntityManager em;
+
+    @BeforeEach
+    void seed() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            long oli = insert("INSERT INTO tb_barang (nama_barang, harga_jual, harga_beli) "
+                    + "VALUES ('EXP Oli', 55000, 40000) RETURNING id");
+            long busi = insert("INSERT INTO tb_barang (nama_barang, harga_jual, harga_beli) "
+                    + "VALUES ('EXP Busi', 30000, 18000) RETURNING id");
+            long servis = insert("INSERT INTO tb_jasa (nama_jasa, harga_jasa) "
+                    + "VALUES ('EXP Servis', 90000) RETURNING id");
+
+            // Sales on the first and third day, a purchase only on the second
+            sale("EXP0401A", "2031-04-01 09:15:00", "210000");
+            detail("EXP0401A", "Oli", oli, null, 2, "50000", "55000");
+            detail("EXP0401A", "Servis", null, servis, 1, "100000", "100000");
+            sale("EXP0401B", "2031-04-01 16:40:00", "75000");
+            detail("EXP0401B", "Busi", busi, null, 1, "30000", "30000");
+            sale("EXP0403A", "2031-04-03 23:59:59", "160000");
+            detail("EXP0403A", "Oli", oli, null, 3, "52000", "55000");
+            sale("EXP0404A", "2031-04-04 00:00:00", "999000");
+            detail("EXP0404A", "Oli", oli, null, 9, "55000", "55000");
+
+            purchase("EXPB1", "2031-04-01 08:00:00", "300000");
+            purchase("EXPB2", "2031-04-02 10:00:00", "50000");
+        });
+        catalog.changed(PriceCatalogService.Type.BARANG);
+        catalog.changed(PriceCatalogService.Type.JASA);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("DELETE FROM tb_spk_detail WHERE no_spk LIKE 'EXP%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_penjualan WHERE no_spk LIKE 'EXP%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_spk WHERE no_spk LIKE 'EXP%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_pembelian WHERE no_pembelian LIKE 'EXP%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_barang WHERE nama_barang LIKE 'EXP %'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_jasa WHERE nama_jasa LIKE 'EXP %'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("The DAILY export should match the daily breakdown of the summary")
+    void testDailyMatchesSummary() {
+        SummaryDto summary = engine.getSummary(START, END, null);
+
+        List<List<String>> rows = export(Dataset.DAILY);
+
+        // The export also lists days with purchases only
+        assertEquals(List.of("2031-04-01", "2031-04-02", "2031-04-03"), rows.stream().map(row -> row.get(0)).toList());
+        List<String> purchasesOnly = rows.get(1);
+        assertEquals(row("2031-04-02", 0, 0, 50000, -50000, 0), purchasesOnly);
+
+        Set<List<String>> withSales = rows.stream()
+                .filter(row -> !row.equals(purchasesOnly))
+                .collect(Collectors.toSet());
+        assertEquals(summary.getDailyBreakdown().stream()
+                .map(day -> row(day.getDate(), day.getCustomers(), day.getIncome(), day.getOutcome(), day.getNet(),
+                        day.getItemsTerjual()))
+                .collect(Collectors.toSet()), withSales);
+        assertEquals(0, summary.getTotalOutcome().compareTo(rows.stream()
+                .map(row -> new BigDecimal(row.get(3)))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    @Test
+    @DisplayName("The SOLD_ITEMS export should match the sold items breakdown of the summary")
+    void testSoldItemsMatchesSummary() {
+        SummaryDto summary = engine.getSummary(START, END, null);
+
+        List<List<String>> rows = export(Dataset.SOLD_ITEMS);
+
+        assertEquals(3, rows.size());
+        assertEquals(summary.getSoldItemsBreakdown().stream()
+                .map(item -> row(item.getDate(), item.getSparepartId(), item.getNamaBarang(), item.getTotalQty(),
+                        item.getTotalValue(), item.getTotalNilaiAdjustment(), item.getTotalModal()))
+                .collect(Collectors.toSet()), Set.copyOf(rows));
+    }
+
+    /** The data rows of a CSV export, without its header. */
+    private List<List<String>> export(Dataset dataset) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            exportService.export(dataset, START, END, null, ExportWriter.Format.CSV).write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Arrays.stream(bytes.toString(StandardCharsets.UTF_8).split("\r\n"))
+                .skip(1)
+                .map(line -> row((Object[]) line.split(",", -1)))
+                .toList();
+    }
+
+    /**
+     * One comparable row: numbers as plain decimals, so CSV text and DTO values compare
+     * equal.
+     */
+    private static List<String> row(Object... columns) {
+        return Arrays.stream(columns)
+                .map(column -> {
+                    String text = column == null ? "" : column.toString();
+                    try {
+                        return new BigDecimal(text).stripTrailingZeros().toPlainString();
+                    } catch (NumberFormatException e) {
+                        return text;
+                    }
+                })
+                .toList();
+    }
+
+    // ── Seed data ─────────────────────────────────────────────────────────
+
+    private long insert(String sql) {
+        return ((Number) em.createNativeQuery(sql).getSingleResult()).longValue();
+    }
+
+    private void sale(String noSpk, String at, String grandTotal) {
+        em.createNativeQuery("INSERT INTO tb_spk (no_spk, mekanik_list, status) VALUES (?1, CAST('[]' AS jsonb), 'SELESAI')")
+                .setParameter(1, noSpk)
+                .executeUpdate();
+        em.createNativeQuery("INSERT INTO tb_penjualan (no_penjualan, tgl_jam_penjualan, no_spk, grand_total, "
+                        + "metode_pembayaran) VALUES (?1, CAST(?2 AS timestamp), ?3, CAST(?4 AS numeric), 'CASH')")
+                .setParameter(1, "P" + noSpk)
+                .setParameter(2, at)
+                .setParameter(3, noSpk)
+                .setParameter(4, grandTotal)
+                .executeUpdate();
+    }
+
+    private void detail(String noSpk, String nama, Long sparepart, Long jasa, int jumlah, String harga,
+                        String hargaMaster) {
+        em.createNativeQuery("INSERT INTO tb_spk_detail (no_spk, nama_jasa, id_sparepart, id_jasa, jumlah, harga, "
+                        + "harga_master) VALUES (?1, ?2, " + sparepart + ", " + jasa + ", ?3, CAST(?4 AS numeric), "
+                        + "CAST(?5 AS numeric))")
+                .setParameter(1, noSpk)
+                .setParameter(2, nama)
+                .setParameter(3, jumlah)
+                .setParameter(4, harga)
+                .setParameter(5, hargaMaster)
+                .executeUpdate();
+    }
+
+    private void purchase(String noPembelian, String at, String grandTotal) {
+        em.createNativeQuery("INSERT INTO tb_pembelian (no_pembelian, tgl_pembelian, jenis_pembelian, "
+                        + "status_pembayaran, grand_total) VALUES (?1, CAST(?2 AS timestamp), 'SPAREPART', 'LUNAS', "
+                        + "CAST(?3 AS numeric))")
+                .setParameter(1, noPembelian)
+                .setParameter(2, at)
+                .setParameter(3, grandTotal)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.SpkBoardService.Event;
+import com.github.b3kt.application.service.pazaauto.SpkBoardService.EventType;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SpkBoardService Tests")
+class SpkBoardServiceTest {
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private TypedQuery<TbSpkEntity> boardQuery;
+
+    @Mock
+    private TypedQuery<Long> soldQuery;
+
+    @Mock
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private SpkBoardService board;
+
+    private final List<Event> received = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        board = new SpkBoardService();
+        board.em = em;
+        board.transactionRegistry = transactionRegistry;
+        board.maxAge = Duration.ofMinutes(1);
+
+        when(em.createQuery(anyString(), eq(TbSpkEntity.class))).thenReturn(boardQuery);
+        when(boardQuery.getResultList()).thenReturn(List.of(spk("SPK02", "PROSES"), spk("SPK01", "OPEN")));
+        when(em.createQuery(anyString(), eq(Long.class))).thenReturn(soldQuery);
+        when(soldQuery.setParameter(anyInt(), any())).thenReturn(soldQuery);
+        when(soldQuery.getSingleResult()).thenReturn(0L);
+    }
+
+    @Test
+    @DisplayName("Should send the board first and then every change in order")
+    void testSubscribe() {
+        board.subscribe(received::add);
+
+        board.changed(spk("SPK03", "OPEN"));
+        board.changed(spk("SPK01", "SELESAI"));
+        board.changed(spk("SPK02", "BATAL"));
+
+        assertEquals(4, received.size());
+        Event snapshot = received.get(0);
+        assertEquals(EventType.SNAPSHOT, snapshot.type());
+        assertEquals(List.of("SPK01", "SPK02"), snapshot.entries().stream().map(SpkBoardService.Entry::noSpk).toList());
+        assertEquals(EventType.UPSERT, received.get(1).type());
+        assertEquals("SELESAI", received.get(2).entry().statusSpk());
+        assertEquals(EventType.REMOVE, received.get(3).type());
+        assertEquals(List.of(1L, 2L, 3L), received.subList(1, 4).stream().map(Event::sequence).toList());
+        assertEquals(List.of("SPK01", "SPK03"), board.snapshot().stream().map(SpkBoardService.Entry::noSpk).toList());
+        verify(boardQuery, times(1)).getResultList();
+    }
+
+    @Test
+    @DisplayName("Should take a sold SPK off the board")
+    void testSold() {
+        board.snapshot();
+        when(soldQuery.getSingleResult()).thenReturn(1L);
+
+        board.changed(spk("SPK01", "SELESAI"));
+        board.removed("SPK02");
+
+        assertTrue(board.snapshot().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should apply a change only once its transaction has committed")
+    void testAfterCommit() {
+        board.subscribe(received::add);
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+        ArgumentCaptor<Synchronization> synchronizations = ArgumentCaptor.forClass(Synchronization.class);
+
+        board.changed(spk("SPK03", "OPEN"));
+        board.removed("SPK01");
+        verify(transactionRegistry, times(2)).registerInterposedSynchronization(synchronizations.capture());
+        assertEquals(1, received.size());
+
+        synchronizations.getAllValues().get(0).afterCompletion(Status.STATUS_ROLLEDBACK);
+        synchronizations.getAllValues().get(1).afterCompletion(Status.STATUS_COMMITTED);
+
+        assertEquals(2, received.size());
+        assertEquals(EventType.REMOVE, received.get(1).type());
+        assertEquals(List.of("SPK02"), board.snapshot().stream().map(SpkBoardService.Entry::noSpk).toList());
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber whose connection is closed")
+    void testClosedSubscriber() {
+        board.subscribe(event -> {
+            received.add(event);
+            return received.size() < 2;
+        });
+
+        board.changed(spk("SPK03", "OPEN"));
+        board.changed(spk("SPK04", "OPEN"));
+
+        assertEquals(2, received.size());
+    }
+
+    private static TbSpkEntity spk(String noSpk, String status) {
+        TbSpkEntity spk = new TbSpkEntity();
+        spk.setNoSpk(noSpk);
+        spk.setStatusSpk(status);
+        return spk;
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Moves the stock of the same parts from many threads at once against PostgreSQL.
+ */
+@QuarkusTest
+class StockLedgerConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 25;
+
+    @Inject
+    StockLedgerService stockLedger;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    @DisplayName("Concurrent movements should neither lose an update nor go below zero")
+    void testNoLostUpdates() throws Exception {
+        long first = createSparepart();
+        long second = createSparepart();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Integer>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                boolean buying = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int rejected = 0;
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        try {
+                            // The two parts in both orders: locks are still taken by ascending id
+                            stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, "T" + i, buying
+                                    ? Map.of(second, 2, first, 2)
+                                    : Map.of(first, -1, second, -1));
+                        } catch (IllegalStateException e) {
+                            rejected++;
+                        }
+                    }
+                    return rejected;
+                }));
+            }
+            start.countDown();
+
+            int rejected = 0;
+            for (Future<Integer> future : futures) {
+                rejected += future.get();
+            }
+
+            int expected = THREADS / 2 * PER_THREAD * 2 - (THREADS / 2 * PER_THREAD - rejected);
+            assertEquals(expected, stok(first));
+            assertEquals(expected, stok(second));
+            assertEquals(expected, ledgerSum(first));
+        }
+    }
+
+    private long createSparepart() {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) em.createNativeQuery(
+                        "INSERT INTO tb_sparepart (kode_sparepart, nama_sparepart, is_active, stok, version) "
+                                + "VALUES (?1, 'Test', true, 0, 0) RETURNING id")
+                .setParameter(1, "T" + System.nanoTime() % 1_000_000_000L)
+                .getSingleResult()).longValue());
+    }
+
+    private int stok(long sparepartId) {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) em.createNativeQuery(
+                        "SELECT stok FROM tb_sparepart WHERE id = ?1")
+                .setParameter(1, sparepartId)
+                .getSingleResult()).intValue());
+    }
+
+    private int ledgerSum(long sparepartId) {
+        return QuarkusTransaction.requiringNew().call(() -> ((Number) em.createNativeQuery(
+                        "SELECT coalesce(sum(delta), 0) FROM tb_stock_ledger WHERE item_type = 'SPAREPART' AND item_id = ?1")
+                .setParameter(1, sparepartId)
+                .getSingleResult()).intValue());
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbStockLedgerEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StockLedgerService Tests")
+class StockLedgerServiceTest {
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private Query moveQuery;
+
+    @Mock
+    private Query stokQuery;
+
+    private StockLedgerService stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedgerService();
+        stockLedger.em = em;
+
+        when(em.createNativeQuery(startsWith("UPDATE tb_sparepart"))).thenReturn(moveQuery);
+        when(moveQuery.setParameter(anyInt(), any())).thenReturn(moveQuery);
+        when(moveQuery.executeUpdate()).thenReturn(1);
+        when(em.createNativeQuery(startsWith("SELECT coalesce(stok, 0)"))).thenReturn(stokQuery);
+        when(stokQuery.setParameter(anyInt(), any())).thenReturn(stokQuery);
+    }
+
+    @Test
+    @DisplayName("Should move each part once with the summed delta and then write the ledger")
+    void testApply() {
+        Map<Long, Integer> movements = new HashMap<>();
+        movements.put(30L, 5);
+        movements.put(10L, 2);
+        movements.put(20L, 0);
+        movements.put(null, 4);
+
+        stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, "FS2024010101", movements);
+
+        InOrder inOrder = inOrder(moveQuery, em);
+        inOrder.verify(moveQuery).setParameter(2, 10L);
+        inOrder.verify(moveQuery).setParameter(2, 30L);
+        inOrder.verify(em, times(2)).persist(any(TbStockLedgerEntity.class));
+        verify(moveQuery, times(2)).executeUpdate();
+
+        ArgumentCaptor<TbStockLedgerEntity> rows = ArgumentCaptor.forClass(TbStockLedgerEntity.class);
+        verify(em, times(2)).persist(rows.capture());
+        assertEquals(List.of(10L, 30L), rows.getAllValues().stream().map(TbStockLedgerEntity::getItemId).toList());
+        assertEquals(List.of(2, 5), rows.getAllValues().stream().map(TbStockLedgerEntity::getDelta).toList());
+        assertEquals("FS2024010101", rows.getAllValues().get(0).getSourceNo());
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when the movements cancel out")
+    void testApplyNothing() {
+        stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, "FS2024010101", Map.of());
+
+        verifyNoInteractions(em);
+    }
+
+    @Test
+    @DisplayName("Should reject a movement below zero without writing the ledger")
+    void testApplyBelowZero() {
+        when(moveQuery.executeUpdate()).thenReturn(0);
+        when(stokQuery.getResultList()).thenReturn(List.of(3));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, "FS2024010101", Map.of(10L, -5)));
+
+        assertEquals("Cannot decrease stock below zero. Current stock: 3, requested decrease: 5", e.getMessage());
+        verify(em, never()).persist(any());
+    }
+
+    @Test
+    @DisplayName("Should report an unknown sparepart")
+    void testApplyUnknownSparepart() {
+        when(moveQuery.executeUpdate()).thenReturn(0);
+        when(stokQuery.getResultList()).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> stockLedger.apply(ItemType.SPAREPART, StockLedgerService.SOURCE_PEMBELIAN, "FS2024010101", Map.of(99L, 1)));
+    }
+}
@@ -0,0 +1,211 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailId;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbStockReservationEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbStockReservationId;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkDetailRepository;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StockReservationService Tests")
+class StockReservationServiceTest {
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private TbSpkDetailRepository detailRepository;
+
+    @Mock
+    private PriceCatalogService catalog;
+
+    @Mock
+    private StockLedgerService stockLedger;
+
+    @Mock
+    private TypedQuery<TbStockReservationEntity> heldQuery;
+
+    @Mock
+    private PanacheQuery<TbSpkDetailEntity> detailQuery;
+
+    @Mock
+    private Query reserveQuery;
+
+    @Mock
+    private Query commitQuery;
+
+    @Mock
+    private Query availableQuery;
+
+    private final List<TbStockReservationEntity> held = new ArrayList<>();
+
+    private StockReservationService reservations;
+
+    @BeforeEach
+    void setUp() {
+        reservations = new StockReservationService();
+        reservations.em = em;
+        reservations.detailRepository = detailRepository;
+        reservations.catalog = catalog;
+        reservations.stockLedger = stockLedger;
+        reservations.enabled = true;
+
+        when(em.createQuery(anyString(), eq(TbStockReservationEntity.class))).thenReturn(heldQuery);
+        when(heldQuery.setParameter(anyInt(), any())).thenReturn(heldQuery);
+        when(heldQuery.getResultList()).thenReturn(held);
+        when(detailRepository.find("id.noSpk", "SPK001")).thenReturn(detailQuery);
+
+        when(em.createNativeQuery(startsWith("UPDATE tb_barang SET stok_reserved"))).thenReturn(reserveQuery);
+        when(reserveQuery.setParameter(anyInt(), any())).thenReturn(reserveQuery);
+        when(reserveQuery.executeUpdate()).thenReturn(1);
+        when(em.createNativeQuery(startsWith("UPDATE tb_barang SET stok ="))).thenReturn(commitQuery);
+        when(commitQuery.setParameter(anyInt(), any())).thenReturn(commitQuery);
+        when(commitQuery.executeUpdate()).thenReturn(1);
+        when(em.createNativeQuery(startsWith("SELECT coalesce(stok, 0) - stok_reserved"))).thenReturn(availableQuery);
+        when(availableQuery.setParameter(anyInt(), any())).thenReturn(availableQuery);
+    }
+
+    @Test
+    @DisplayName("Should reserve the summed quantity of every barang line in ascending id order")
+    void testReserve() {
+        lines(detail("Busi", 20L, 1), detail("Oli", 10L, 2), detail("Oli 2", 10L, 1), detail("Lama", 99L, 5));
+        barang(10L, 20L);
+
+        reservations.reserve("SPK001");
+
+        InOrder inOrder = inOrder(reserveQuery);
+        inOrder.verify(reserveQuery).setParameter(1, 3);
+        inOrder.verify(reserveQuery).setParameter(2, 10L);
+        inOrder.verify(reserveQuery).setParameter(1, 1);
+        inOrder.verify(reserveQuery).setParameter(2, 20L);
+        // 99 is not a barang and holds nothing
+        verify(reserveQuery, times(2)).executeUpdate();
+
+        ArgumentCaptor<TbStockReservationEntity> rows = ArgumentCaptor.forClass(TbStockReservationEntity.class);
+        verify(em, times(2)).persist(rows.capture());
+        assertEquals(List.of(3, 1), rows.getAllValues().stream().map(TbStockReservationEntity::getKuantiti).toList());
+        assertEquals(TbStockReservationEntity.RESERVED, rows.getAllValues().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should reserve only the change of an SPK that already holds stock")
+    void testReserveChange() {
+        held.add(row(10L, 2, TbStockReservationEntity.RESERVED));
+        lines(detail("Oli", 10L, 3));
+        barang(10L);
+
+        reservations.reserve("SPK001");
+
+        verify(reserveQuery).setParameter(1, 1);
+        verify(em, never()).persist(any());
+        assertEquals(3, held.get(0).getKuantiti());
+    }
+
+    @Test
+    @DisplayName("Should refuse to promise more than the unreserved stock")
+    void testReserveInsufficient() {
+        lines(detail("Oli", 10L, 4));
+        barang(10L);
+        when(reserveQuery.executeUpdate()).thenReturn(0);
+        when(availableQuery.getResultList()).thenReturn(List.of(1));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> reservations.reserve("SPK001"));
+
+        assertEquals("Insufficient stock for barang 10. Available: 1, requested: 4", e.getMessage());
+        verify(em, never()).persist(any());
+    }
+
+    @Test
+    @DisplayName("Should take reserved stock out of stok and write the ledger on sale")
+    void testCommit() {
+        held.add(row(10L, 2, TbStockReservationEntity.RESERVED));
+        lines(detail("Oli", 10L, 2));
+        barang(10L);
+
+        reservations.commit("SPK001");
+
+        verify(reserveQuery, never()).executeUpdate();
+        verify(commitQuery).setParameter(1, 2);
+        verify(commitQuery).setParameter(2, 10L);
+        verify(stockLedger).record(ItemType.BARANG, StockLedgerService.SOURCE_PENJUALAN, "SPK001", 10L, -2);
+        assertEquals(TbStockReservationEntity.COMMITTED, held.get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should return sold stock when the sale is cancelled")
+    void testRestock() {
+        TbStockReservationEntity sold = row(10L, 2, TbStockReservationEntity.COMMITTED);
+        held.add(sold);
+
+        reservations.restock("SPK001");
+
+        verify(reserveQuery, never()).executeUpdate();
+        verify(em).remove(sold);
+        verify(stockLedger).apply(ItemType.BARANG, StockLedgerService.SOURCE_PENJUALAN, "SPK001", Map.of(10L, 2));
+    }
+
+    @Test
+    @DisplayName("Should do nothing while stock integration is disabled")
+    void testDisabled() {
+        reservations.enabled = false;
+
+        reservations.reserve("SPK001");
+        reservations.commit("SPK001");
+        reservations.release("SPK001");
+
+        verifyNoInteractions(em, stockLedger);
+    }
+
+    private void lines(TbSpkDetailEntity... details) {
+        when(detailQuery.list()).thenReturn(List.of(details));
+    }
+
+    private void barang(Long... ids) {
+        Map<Long, PriceCatalogService.Item> items = new HashMap<>();
+        for (Long id : ids) {
+            items.put(id, new PriceCatalogService.Item(PriceCatalogService.Type.BARANG, id, "Barang " + id, null, null));
+        }
+        when(catalog.getAll(eq(PriceCatalogService.Type.BARANG), any())).thenReturn(items);
+    }
+
+    private static TbStockReservationEntity row(Long barangId, int kuantiti, String status) {
+        TbStockReservationEntity row = new TbStockReservationEntity();
+        row.setId(new TbStockReservationId("SPK001", barangId));
+        row.setKuantiti(kuantiti);
+        row.setStatus(status);
+        return row;
+    }
+
+    private static TbSpkDetailEntity detail(String nama, Long barangId, int jumlah) {
+        TbSpkDetailEntity detail = new TbSpkDetailEntity();
+        detail.setId(new TbSpkDetailId("SPK001", nama));
+        detail.setSparepartId(barangId);
+        detail.setJumlah(jumlah);
+        return detail;
+    }
+}
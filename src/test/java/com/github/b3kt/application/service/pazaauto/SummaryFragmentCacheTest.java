@@ -0,0 +1,203 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.DailyBreakdownDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.IncomeByMethodDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.MekanikSummaryDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.SoldItemDailyDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.TopItemDto;
+import com.github.b3kt.application.dto.pazaauto.SummaryDto.OutcomeByTypeDto;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CaffeineCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SummaryFragmentCacheTest {
+
+    @Test
+    @DisplayName("Should add up headline totals of all days")
+    void testMergeTotals() {
+        SummaryDto merged = SummaryFragmentCache.merge(List.of(
+                day("2026-03-01", 2, "100000", "40000", 3),
+                day("2026-03-02", 1, "50000", "0", 1)));
+
+        assertEquals(3, merged.getTotalCustomers());
+        assertEquals(new BigDecimal("150000"), merged.getTotalIncome());
+        assertEquals(new BigDecimal("40000"), merged.getTotalOutcome());
+        assertEquals(new BigDecimal("110000"), merged.getNetProfit());
+        assertEquals(4, merged.getTotalItemTerjual());
+    }
+
+    @Test
+    @DisplayName("Should list per-day breakdowns newest first")
+    void testMergeKeepsDailyOrder() {
+        SummaryDto merged = SummaryFragmentCache.merge(List.of(
+                day("2026-03-01", 2, "100000", "0", 0),
+                day("2026-03-02", 1, "50000", "0", 0)));
+
+        assertEquals(List.of("2026-03-02", "2026-03-01"),
+                merged.getDailyBreakdown().stream().map(DailyBreakdownDto::getDate).toList());
+    }
+
+    @Test
+    @DisplayName("Should derive top items and payment methods across days")
+    void testMergeTopItemsAndIncomeByMethod() {
+        SummaryDto first = day("2026-03-01", 1, "100000", "0", 2);
+        first.getSoldItemsBreakdown().add(sold("2026-03-01", 7L, "Oli", 2, "60000"));
+        first.getIncomeByMethod().add(income("CASH", "100000"));
+        SummaryDto second = day("2026-03-02", 1, "80000", "0", 5);
+        second.getSoldItemsBreakdown().add(sold("2026-03-02", 7L, "Oli", 1, "30000"));
+        second.getSoldItemsBreakdown().add(sold("2026-03-02", 9L, "Busi", 4, "40000"));
+        second.getIncomeByMethod().add(income("CASH", "30000"));
+        second.getIncomeByMethod().add(income("QRIS", "50000"));
+
+        SummaryDto merged = SummaryFragmentCache.merge(List.of(first, second));
+
+        List<TopItemDto> top = merged.getTopItems();
+        assertEquals(2, top.size());
+        assertEquals("Busi", top.get(0).getNamaBarang());
+        assertEquals(4, top.get(0).getTotalQty());
+        assertEquals("Oli", top.get(1).getNamaBarang());
+        assertEquals(3, top.get(1).getTotalQty());
+        assertEquals(new BigDecimal("90000"), top.get(1).getTotalValue());
+
+        List<IncomeByMethodDto> methods = merged.getIncomeByMethod();
+        assertEquals("CASH", methods.get(0).getLabel());
+        assertEquals(new BigDecimal("130000"), methods.get(0).getAmount());
+        assertEquals("QRIS", methods.get(1).getLabel());
+    }
+
+    @Test
+    @DisplayName("Should count mechanic days and average customers per day")
+    void testMergeMekanikSummary() {
+        SummaryDto first = day("2026-03-01", 3, "0", "0", 0);
+        first.getMekanikBreakdown().add(mekanik("2026-03-01", 5L, "Budi", 3));
+        SummaryDto second = day("2026-03-02", 2, "0", "0", 0);
+        second.getMekanikBreakdown().add(mekanik("2026-03-02", 5L, "Budi", 2));
+        second.getMekanikBreakdown().add(mekanik("2026-03-02", 6L, "Andi", 1));
+
+        List<MekanikSummaryDto> summary = SummaryFragmentCache.merge(List.of(first, second)).getMekanikSummary();
+
+        assertEquals(2, summary.size());
+        assertEquals("Budi", summary.get(0).getNamaMekanik());
+        assertEquals(5, summary.get(0).getTotalCustomers());
+        assertEquals(2, summary.get(0).getTotalHari());
+        assertEquals(2.5, summary.get(0).getRataPerHari());
+        assertEquals(1, summary.get(1).getTotalHari());
+    }
+
+    @Test
+    @DisplayName("Should split a range read into one fragment per day, empty days included")
+    void testSplit() {
+        SummaryDto range = day("2026-03-02", 2, "150000", "0", 3);
+        range.getSoldItemsBreakdown().add(sold("2026-03-02", 7L, "Oli", 3, "90000"));
+        range.getMekanikBreakdown().add(mekanik("2026-03-02", 5L, "Budi", 2));
+        OutcomeByTypeDto purchase = new OutcomeByTypeDto();
+        purchase.setLabel("BARANG");
+        purchase.setAmount(new BigDecimal("40000"));
+
+        Map<LocalDate, SummaryDto> days = SummaryFragmentCache.split(LocalDate.of(2026, 3, 1),
+                LocalDate.of(2026, 3, 3), range,
+                Map.of(LocalDate.of(2026, 3, 2), List.of(income("CASH", "150000"))),
+                Map.of(LocalDate.of(2026, 3, 3), List.of(purchase)));
+
+        assertEquals(3, days.size());
+        assertTrue(days.get(LocalDate.of(2026, 3, 1)).getDailyBreakdown().isEmpty());
+        SummaryDto sale = days.get(LocalDate.of(2026, 3, 2));
+        assertEquals(2, sale.getTotalCustomers());
+        assertEquals(new BigDecimal("150000"), sale.getNetProfit());
+        assertEquals(1, sale.getSoldItemsBreakdown().size());
+        assertEquals("CASH", sale.getIncomeByMethod().get(0).getLabel());
+        // A day with purchases only still carries its outcome
+        SummaryDto purchaseDay = days.get(LocalDate.of(2026, 3, 3));
+        assertEquals(new BigDecimal("40000"), purchaseDay.getTotalOutcome());
+        assertEquals(new BigDecimal("-40000"), purchaseDay.getNetProfit());
+    }
+
+    @Test
+    @DisplayName("Should load the uncached days of a range with one call and cache them")
+    @SuppressWarnings("unchecked")
+    void testGetLoadsMissingDaysAtOnce() {
+        Cache closedDays = mock(Cache.class);
+        CaffeineCache closed = mock(CaffeineCache.class);
+        when(closedDays.as(CaffeineCache.class)).thenReturn(closed);
+        SummaryFragmentCache cache = new SummaryFragmentCache();
+        cache.closedDays = closedDays;
+        cache.openDays = closedDays;
+
+        LocalDate first = LocalDate.of(2026, 3, 1);
+        SummaryDto cached = day("2026-03-02", 1, "50000", "0", 0);
+        when(closed.getIfPresent(any())).thenAnswer(invocation -> invocation.getArgument(0).toString()
+                .contains("2026-03-02") ? CompletableFuture.completedFuture(cached) : null);
+        List<List<LocalDate>> loads = new ArrayList<>();
+
+        SummaryDto summary = cache.get(first, first.plusDays(2), null, (from, to) -> {
+            loads.add(List.of(from, to));
+            return Map.of(first, day("2026-03-01", 2, "100000", "0", 0));
+        });
+
+        assertEquals(List.of(List.of(first, first.plusDays(2))), loads);
+        assertEquals(3, summary.getTotalCustomers());
+        verify(closed, times(2)).put(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should normalize the status filter into a stable cache key")
+    void testNormalizeStatusFilter() {
+        assertEquals("", SummaryFragmentCache.normalizeStatusFilter(null));
+        assertEquals("", SummaryFragmentCache.normalizeStatusFilter(" "));
+        assertEquals("BELUM_LUNAS,LUNAS", SummaryFragmentCache.normalizeStatusFilter("LUNAS, BELUM_LUNAS,,LUNAS"));
+    }
+
+    private static SummaryDto day(String date, long customers, String income, String outcome, long items) {
+        SummaryDto dto = new SummaryDto();
+        dto.setTotalCustomers(customers);
+        dto.setTotalIncome(new BigDecimal(income));
+        dto.setTotalOutcome(new BigDecimal(outcome));
+        dto.setNetProfit(dto.getTotalIncome().subtract(dto.getTotalOutcome()));
+        dto.setTotalItemTerjual(items);
+        DailyBreakdownDto daily = new DailyBreakdownDto();
+        daily.setDate(date);
+        daily.setCustomers(customers);
+        daily.setIncome(dto.getTotalIncome());
+        dto.getDailyBreakdown().add(daily);
+        return dto;
+    }
+
+    private static SoldItemDailyDto sold(String date, Long sparepartId, String nama, long qty, String nilai) {
+        SoldItemDailyDto item = new SoldItemDailyDto();
+        item.setDate(date);
+        item.setSparepartId(sparepartId);
+        item.setNamaBarang(nama);
+        item.setTotalQty(qty);
+        item.setTotalNilaiAdjustment(new BigDecimal(nilai));
+        return item;
+    }
+
+    private static IncomeByMethodDto income(String label, String amount) {
+        IncomeByMethodDto item = new IncomeByMethodDto();
+        item.setLabel(label);
+        item.setAmount(new BigDecimal(amount));
+        return item;
+    }
+
+    private static MekanikDailyDto mekanik(String date, Long id, String nama, long customers) {
+        MekanikDailyDto item = new MekanikDailyDto();
+        item.setDate(date);
+        item.setMekanikId(id);
+        item.setNamaMekanik(nama);
+        item.setTotalCustomers(customers);
+        return item;
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks with EXPLAIN that the range predicates of the summary, export and unique customer
+ * statements, as the services run them, are served by the V14 indexes.
+ * <p>
+ * The tables are empty in tests, so sequential scans are disabled for the explained statement;
+ * the planner still falls back to one when no index can serve the predicate.
+ */
+@QuarkusTest
+class SummaryQueryPlanTest {
+
+    private static final String MIGRATION = "db/migration/V14__add_reporting_range_indexes.sql";
+    private static final LocalDate MONTH = LocalDate.of(2026, 1, 1);
+
+    @Inject
+    EntityManager em;
+
+    @BeforeEach
+    @Transactional
+    void createReportingIndexes() throws IOException {
+        // Flyway is disabled in tests, so apply the index migration on top of the generated schema
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(MIGRATION)) {
+            assertNotNull(in, MIGRATION + " not found");
+            String script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            for (String statement : script.split(";")) {
+                String sql = statement.lines()
+                        .filter(line -> !line.trim().startsWith("--"))
+                        .collect(Collectors.joining("\n"))
+                        .trim();
+                if (!sql.isEmpty()) {
+                    em.createNativeQuery(sql).executeUpdate();
+                }
+            }
+        }
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("The summary report should read sales and purchases through the range indexes")
+    void testSummaryReportUsesIndexes() {
+        String plan = explain(SummaryReportEngine.REPORT_SQL, true);
+
+        assertTrue(plan.contains("idx_penjualan_tgl_no_spk"), plan);
+        assertTrue(plan.contains("idx_pembelian_tgl_status"), plan);
+        assertNoSeqScan(plan, "tb_penjualan", "tb_pembelian", "tb_spk", "tb_spk_detail");
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("The daily and sold items exports should read through the range indexes")
+    void testExportsUseIndexes() {
+        String daily = explain(ReportExportService.Dataset.DAILY.sql, true);
+        assertTrue(daily.contains("idx_penjualan_tgl_no_spk"), daily);
+        assertTrue(daily.contains("idx_pembelian_tgl_status"), daily);
+        assertNoSeqScan(daily, "tb_penjualan", "tb_pembelian", "tb_spk", "tb_spk_detail");
+
+        String soldItems = explain(ReportExportService.Dataset.SOLD_ITEMS.sql, false);
+        assertTrue(soldItems.contains("idx_penjualan_tgl_no_spk"), soldItems);
+        assertNoSeqScan(soldItems, "tb_penjualan", "tb_spk", "tb_spk_detail");
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("The exact unique customer counts should read sales through the range index")
+    void testUniqueCustomersUsesIndex() {
+        for (String sql : List.of(SummaryRollupService.UNIQUE_CUSTOMERS_SQL,
+                SummaryRollupService.UNIQUE_CUSTOMERS_BY_MEKANIK_SQL)) {
+            String plan = explain(sql, false);
+
+            assertTrue(plan.contains("idx_penjualan_tgl_no_spk"), plan);
+            assertNoSeqScan(plan, "tb_penjualan", "tb_spk");
+        }
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("The former DATE() predicate cannot use the index")
+    void testDateFunctionPredicateIsNotSargable() {
+        String plan = explain("SELECT COALESCE(SUM(p.grand_total), 0) FROM tb_penjualan p " +
+                "WHERE DATE(p.tgl_jam_penjualan) BETWEEN CAST('2026-01-01' AS date) AND CAST('2026-01-31' AS date)");
+
+        assertFalse(plan.contains("Index Cond"), plan);
+    }
+
+    /**
+     * Explains {@code sql} with the range of a month bound to {@code ?1} and {@code ?2} and,
+     * for statements that filter purchases, the LUNAS and BELUM_LUNAS statuses to {@code ?3}.
+     */
+    @SuppressWarnings("unchecked")
+    private String explain(String sql, boolean filtersPembelian) {
+        em.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+        Query query = em.createNativeQuery("EXPLAIN " + sql)
+                .setParameter(1, Timestamp.valueOf(MONTH.atStartOfDay()))
+                .setParameter(2, Timestamp.valueOf(MONTH.plusMonths(1).atStartOfDay()));
+        if (filtersPembelian) {
+            query.setParameter(3, new String[]{"LUNAS", "BELUM_LUNAS"});
+        }
+        List<Object> rows = query.getResultList();
+        return rows.stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String explain(String sql) {
+        em.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+        List<Object> rows = em.createNativeQuery("EXPLAIN " + sql).getResultList();
+        return rows.stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    private static void assertNoSeqScan(String plan, String... tables) {
+        for (String table : tables) {
+            assertFalse(plan.contains("Seq Scan on " + table + " "), plan);
+        }
+    }
+}
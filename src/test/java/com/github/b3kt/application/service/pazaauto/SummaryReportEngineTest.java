@@ -0,0 +1,387 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.pazaauto.SummaryDto;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the single-pass summary query of {@link SummaryReportEngine} against PostgreSQL and
+ * checks every section of the result against the per-metric queries it replaced.
+ * <p>
+ * The reference queries are those of the former {@code SummaryService}, with two changes:
+ * mechanics are read from {@code tb_spk_mekanik} (V15) instead of the jsonb list, and the
+ * daily income no longer joins the detail rows, which counted a sale once per sparepart line.
+ */
+@QuarkusTest
+class SummaryReportEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2031, 3, 1);
+    private static final LocalDate END = LocalDate.of(2031, 3, 3);
+
+    @Inject
+    SummaryReportEngine engine;
+
+    @Inject
+    PriceCatalogService catalog;
+
+    @Inject
+    EntityManager em;
+
+    @BeforeEach
+    void seed() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            long mekanikA = insert("INSERT INTO tb_karyawan (nama_karyawan) VALUES ('RPT Andi') RETURNING id");
+            long mekanikB = insert("INSERT INTO tb_karyawan (nama_karyawan) VALUES ('RPT Budi') RETURNING id");
+            long oli = insert("INSERT INTO tb_barang (nama_barang, harga_jual, harga_beli) "
+                    + "VALUES ('RPT Oli', 55000, 40000) RETURNING id");
+            long busi = insert("INSERT INTO tb_barang (nama_barang, harga_jual, harga_beli) "
+                    + "VALUES ('RPT Busi', 30000, 18000) RETURNING id");
+            long servis = insert("INSERT INTO tb_jasa (nama_jasa, harga_jasa) "
+                    + "VALUES ('RPT Servis', 90000) RETURNING id");
+
+            // Two sales on the first day, none on the second, one on the third, one after the range
+            sale("RPT0301A", "2031-03-01 09:15:00", "CASH", "210000", mekanikA);
+            detail("RPT0301A", "Oli", oli, null, 2, "50000", "55000");
+            detail("RPT0301A", "Servis", null, servis, 1, "100000", "100000");
+            sale("RPT0301B", "2031-03-01 16:40:00", "TRANSFER", "75000", mekanikA, mekanikB);
+            detail("RPT0301B", "Busi", busi, null, 1, "30000", "30000");
+            detail("RPT0301B", "Oli", oli, null, 1, "45000", "55000");
+            sale("RPT0303A", "2031-03-03 23:59:59", null, "160000", mekanikB);
+            detail("RPT0303A", "Oli", oli, null, 3, "52000", "55000");
+            sale("RPT0304A", "2031-03-04 00:00:00", "CASH", "999000", mekanikA);
+            detail("RPT0304A", "Oli", oli, null, 9, "55000", "55000");
+
+            purchase("RPTB1", "2031-03-01 08:00:00", "SPAREPART", "LUNAS", "300000");
+            purchase("RPTB2", "2031-03-02 10:00:00", "OPERASIONAL", "LUNAS", "50000");
+            purchase("RPTB3", "2031-03-02 11:00:00", "SPAREPART", "BELUM_LUNAS", "125000");
+            purchase("RPTB4", "2031-03-03 12:00:00", "OPERASIONAL", "BELUM_LUNAS", "20000");
+            purchase("RPTB5", "2031-02-28 23:00:00", "SPAREPART", "LUNAS", "777000");
+        });
+        catalog.changed(PriceCatalogService.Type.BARANG);
+        catalog.changed(PriceCatalogService.Type.JASA);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            em.createNativeQuery("DELETE FROM tb_spk_mekanik WHERE no_spk LIKE 'RPT%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_spk_detail WHERE no_spk LIKE 'RPT%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_penjualan WHERE no_spk LIKE 'RPT%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_spk WHERE no_spk LIKE 'RPT%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_pembelian WHERE no_pembelian LIKE 'RPT%'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_barang WHERE nama_barang LIKE 'RPT %'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_jasa WHERE nama_jasa LIKE 'RPT %'").executeUpdate();
+            em.createNativeQuery("DELETE FROM tb_karyawan WHERE nama_karyawan LIKE 'RPT %'").executeUpdate();
+        });
+    }
+
+    @Test
+    @DisplayName("Every section should match the per-metric queries")
+    void testMatchesPerMetricQueries() {
+        SummaryDto summary = engine.getSummary(START, END, null);
+
+        assertMatches(summary, START, END);
+        assertEquals(3L, summary.getTotalCustomers());
+        assertEquals(7L, summary.getTotalItemTerjual());
+        assertDecimal("445000", summary.getTotalIncome());
+        assertDecimal("495000", summary.getTotalOutcome());
+        assertDecimal("-50000", summary.getNetProfit());
+        assertEquals(List.of("CASH", "LAINNYA", "TRANSFER"), summary.getIncomeByMethod().stream()
+                .map(SummaryDto.IncomeByMethodDto::getLabel).toList());
+        assertEquals(List.of(oliId(), busiId()), summary.getTopItems().stream()
+                .map(SummaryDto.TopItemDto::getSparepartId).toList());
+    }
+
+    @Test
+    @DisplayName("The status filter should only narrow the purchases")
+    void testStatusFilter() {
+        SummaryDto summary = engine.getSummary(START, END, "LUNAS");
+
+        assertMatches(summary, START, END, "LUNAS");
+        assertDecimal("350000", summary.getTotalOutcome());
+        assertDecimal("445000", summary.getTotalIncome());
+        assertEquals(List.of("SPAREPART", "OPERASIONAL"), summary.getOutcomeByType().stream()
+                .map(SummaryDto.OutcomeByTypeDto::getLabel).toList());
+
+        SummaryDto both = engine.getSummary(START, END, " LUNAS , BELUM_LUNAS ");
+        assertMatches(both, START, END, "LUNAS", "BELUM_LUNAS");
+        assertDecimal("495000", both.getTotalOutcome());
+    }
+
+    @Test
+    @DisplayName("A range without rows should give zero totals and empty breakdowns")
+    void testEmptyRange() {
+        LocalDate start = LocalDate.of(2031, 6, 1);
+        LocalDate end = LocalDate.of(2031, 6, 30);
+
+        SummaryDto summary = engine.getSummary(start, end, "LUNAS");
+
+        assertMatches(summary, start, end, "LUNAS");
+        assertEquals(0L, summary.getTotalCustomers());
+        assertEquals(0L, summary.getTotalItemTerjual());
+        assertDecimal("0", summary.getTotalIncome());
+        assertDecimal("0", summary.getTotalOutcome());
+        assertDecimal("0", summary.getNetProfit());
+        assertTrue(summary.getDailyBreakdown().isEmpty());
+        assertTrue(summary.getSoldItemsBreakdown().isEmpty());
+        assertTrue(summary.getJasaSummaryBreakdown().isEmpty());
+        assertTrue(summary.getTopItems().isEmpty());
+        assertTrue(summary.getIncomeByMethod().isEmpty());
+        assertTrue(summary.getOutcomeByType().isEmpty());
+        assertTrue(summary.getMekanikSummary().isEmpty());
+        assertTrue(summary.getMekanikBreakdown().isEmpty());
+    }
+
+    @Test
+    @DisplayName("The single-day summaries should add up to the summary of the range")
+    void testDailySummaries() {
+        SummaryDto range = engine.getSummary(START, END, null);
+
+        Map<LocalDate, SummaryDto> days = engine.getDailySummaries(START, END, null);
+
+        assertEquals(3, days.size());
+        assertEquals(range.getTotalCustomers(), days.values().stream()
+                .mapToLong(SummaryDto::getTotalCustomers).sum());
+        assertDecimal(range.getTotalIncome().toPlainString(), days.values().stream()
+                .map(SummaryDto::getTotalIncome).reduce(BigDecimal.ZERO, BigDecimal::add));
+        assertDecimal(range.getTotalOutcome().toPlainString(), days.values().stream()
+                .map(SummaryDto::getTotalOutcome).reduce(BigDecimal.ZERO, BigDecimal::add));
+        assertDecimal("0", days.get(LocalDate.of(2031, 3, 2)).getTotalIncome());
+        assertDecimal("175000", days.get(LocalDate.of(2031, 3, 2)).getTotalOutcome());
+    }
+
+    // ── Reference queries ────────────────────────────────────────────────
+
+    private void assertMatches(SummaryDto summary, LocalDate start, LocalDate end, String... statuses) {
+        Timestamp from = Timestamp.valueOf(start.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(end.plusDays(1).atStartOfDay());
+        String status = statuses.length == 0 ? "" : Arrays.stream(statuses)
+                .map(s -> "'" + s + "'")
+                .collect(Collectors.joining(",", " AND b.status_pembayaran IN (", ")"));
+
+        List<Object> totals = query(from, to,
+                "SELECT (SELECT COUNT(DISTINCT s.no_spk) FROM tb_penjualan p JOIN tb_spk s ON s.no_spk = p.no_spk "
+                        + "        WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2), "
+                        + "(SELECT COALESCE(SUM(d.jumlah), 0) FROM tb_spk_detail d JOIN tb_spk s ON s.no_spk = d.no_spk "
+                        + "        JOIN tb_penjualan p ON p.no_spk = s.no_spk WHERE d.id_sparepart IS NOT NULL "
+                        + "        AND p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2), "
+                        + "(SELECT COALESCE(SUM(p.grand_total), 0) FROM tb_penjualan p JOIN tb_spk s ON s.no_spk = p.no_spk "
+                        + "        WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2), "
+                        + "(SELECT COALESCE(SUM(b.grand_total), 0) FROM tb_pembelian b "
+                        + "        WHERE b.tgl_pembelian >= ?1 AND b.tgl_pembelian < ?2" + status + ")")
+                .iterator().next();
+        assertEquals(totals, row(summary.getTotalCustomers(), summary.getTotalItemTerjual(),
+                summary.getTotalIncome(), summary.getTotalOutcome()), "totals");
+        assertDecimal(summary.getTotalIncome().subtract(summary.getTotalOutcome()).toPlainString(),
+                summary.getNetProfit());
+
+        assertEquals(query(from, to,
+                "SELECT sa.tanggal, sa.customers, COALESCE(it.items, 0), sa.income, COALESCE(pu.outcome, 0) "
+                        + "FROM (SELECT DATE(p.tgl_jam_penjualan) AS tanggal, COUNT(DISTINCT s.no_spk) AS customers, "
+                        + "             SUM(p.grand_total) AS income "
+                        + "      FROM tb_penjualan p JOIN tb_spk s ON s.no_spk = p.no_spk "
+                        + "      WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "      GROUP BY DATE(p.tgl_jam_penjualan)) sa "
+                        + "LEFT JOIN (SELECT DATE(p.tgl_jam_penjualan) AS tanggal, SUM(d.jumlah) AS items "
+                        + "           FROM tb_spk_detail d JOIN tb_penjualan p ON p.no_spk = d.no_spk "
+                        + "           WHERE d.id_sparepart IS NOT NULL "
+                        + "           AND p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "           GROUP BY DATE(p.tgl_jam_penjualan)) it ON it.tanggal = sa.tanggal "
+                        + "LEFT JOIN (SELECT DATE(b.tgl_pembelian) AS tanggal, SUM(b.grand_total) AS outcome "
+                        + "           FROM tb_pembelian b WHERE b.tgl_pembelian >= ?1 AND b.tgl_pembelian < ?2" + status
+                        + "           GROUP BY DATE(b.tgl_pembelian)) pu ON pu.tanggal = sa.tanggal"),
+                rows(summary.getDailyBreakdown().stream().map(day -> row(day.getDate(), day.getCustomers(),
+                        day.getItemsTerjual(), day.getIncome(), day.getOutcome()))), "dailyBreakdown");
+        summary.getDailyBreakdown().forEach(day ->
+                assertDecimal(day.getIncome().subtract(day.getOutcome()).toPlainString(), day.getNet()));
+
+        assertEquals(query(from, to,
+                "SELECT DATE(p.tgl_jam_penjualan), d.id_sparepart, d.nama_jasa, SUM(d.jumlah), "
+                        + "COALESCE(SUM(d.harga_master * d.jumlah), 0), COALESCE(SUM(d.harga * d.jumlah), 0), "
+                        + "COALESCE(SUM(b.harga_beli * d.jumlah), 0) "
+                        + "FROM tb_spk_detail d JOIN tb_spk s ON s.no_spk = d.no_spk "
+                        + "JOIN tb_penjualan p ON p.no_spk = s.no_spk LEFT JOIN tb_barang b ON b.id = d.id_sparepart "
+                        + "WHERE d.id_sparepart IS NOT NULL AND p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "GROUP BY DATE(p.tgl_jam_penjualan), d.id_sparepart, d.nama_jasa"),
+                rows(summary.getSoldItemsBreakdown().stream().map(item -> row(item.getDate(), item.getSparepartId(),
+                        item.getNamaBarang(), item.getTotalQty(), item.getTotalValue(),
+                        item.getTotalNilaiAdjustment(), item.getTotalModal()))), "soldItemsBreakdown");
+
+        assertEquals(query(from, to,
+                "SELECT DATE(p.tgl_jam_penjualan), d.id_jasa, d.nama_jasa, SUM(d.jumlah), "
+                        + "COALESCE(SUM(d.harga_master * d.jumlah), 0), COALESCE(SUM(d.harga * d.jumlah), 0), "
+                        + "COALESCE(SUM(j.harga_jasa * d.jumlah), 0) "
+                        + "FROM tb_spk_detail d JOIN tb_spk s ON s.no_spk = d.no_spk "
+                        + "JOIN tb_penjualan p ON p.no_spk = s.no_spk LEFT JOIN tb_jasa j ON j.id = d.id_jasa "
+                        + "WHERE d.id_jasa IS NOT NULL AND p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "GROUP BY DATE(p.tgl_jam_penjualan), d.id_jasa, d.nama_jasa"),
+                rows(summary.getJasaSummaryBreakdown().stream().map(item -> row(item.getDate(), item.getJasaId(),
+                        item.getNamaJasa(), item.getTotalQty(), item.getTotalNilai(),
+                        item.getTotalNilaiAdjustment(), item.getTotalModal()))), "jasaSummaryBreakdown");
+
+        assertEquals(queryOrdered(from, to,
+                "SELECT d.id_sparepart, d.nama_jasa, SUM(d.jumlah) AS qty, COALESCE(SUM(d.harga * d.jumlah), 0) "
+                        + "FROM tb_spk_detail d JOIN tb_spk s ON s.no_spk = d.no_spk "
+                        + "JOIN tb_penjualan p ON p.no_spk = s.no_spk "
+                        + "WHERE d.id_sparepart IS NOT NULL AND p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "GROUP BY d.id_sparepart, d.nama_jasa ORDER BY qty DESC LIMIT 10"),
+                summary.getTopItems().stream().map(item -> row(item.getSparepartId(), item.getNamaBarang(),
+                        item.getTotalQty(), item.getTotalValue())).toList(), "topItems");
+
+        assertEquals(queryOrdered(from, to,
+                "SELECT COALESCE(p.metode_pembayaran, 'LAINNYA'), COALESCE(SUM(p.grand_total), 0) AS amount "
+                        + "FROM tb_penjualan p JOIN tb_spk s ON s.no_spk = p.no_spk "
+                        + "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "GROUP BY COALESCE(p.metode_pembayaran, 'LAINNYA') ORDER BY amount DESC"),
+                summary.getIncomeByMethod().stream().map(item -> row(item.getLabel(), item.getAmount())).toList(),
+                "incomeByMethod");
+
+        assertEquals(queryOrdered(from, to,
+                "SELECT COALESCE(b.jenis_pembelian, 'LAINNYA'), COALESCE(SUM(b.grand_total), 0) AS amount "
+                        + "FROM tb_pembelian b WHERE b.tgl_pembelian >= ?1 AND b.tgl_pembelian < ?2" + status
+                        + " GROUP BY COALESCE(b.jenis_pembelian, 'LAINNYA') ORDER BY amount DESC"),
+                summary.getOutcomeByType().stream().map(item -> row(item.getLabel(), item.getAmount())).toList(),
+                "outcomeByType");
+
+        assertEquals(query(from, to,
+                "SELECT sm.id_mekanik, k.nama_karyawan, COUNT(DISTINCT s.no_spk), "
+                        + "COUNT(DISTINCT DATE(p.tgl_jam_penjualan)) "
+                        + "FROM tb_spk s JOIN tb_penjualan p ON p.no_spk = s.no_spk "
+                        + "JOIN tb_spk_mekanik sm ON sm.no_spk = s.no_spk JOIN tb_karyawan k ON k.id = sm.id_mekanik "
+                        + "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "GROUP BY sm.id_mekanik, k.nama_karyawan"),
+                rows(summary.getMekanikSummary().stream().map(item -> row(item.getMekanikId(),
+                        item.getNamaMekanik(), item.getTotalCustomers(), item.getTotalHari()))), "mekanikSummary");
+
+        assertEquals(query(from, to,
+                "SELECT DATE(p.tgl_jam_penjualan), sm.id_mekanik, k.nama_karyawan, COUNT(DISTINCT s.no_spk) "
+                        + "FROM tb_spk s JOIN tb_penjualan p ON p.no_spk = s.no_spk "
+                        + "JOIN tb_spk_mekanik sm ON sm.no_spk = s.no_spk JOIN tb_karyawan k ON k.id = sm.id_mekanik "
+                        + "WHERE p.tgl_jam_penjualan >= ?1 AND p.tgl_jam_penjualan < ?2 "
+                        + "GROUP BY DATE(p.tgl_jam_penjualan), sm.id_mekanik, k.nama_karyawan"),
+                rows(summary.getMekanikBreakdown().stream().map(item -> row(item.getDate(), item.getMekanikId(),
+                        item.getNamaMekanik(), item.getTotalCustomers()))), "mekanikBreakdown");
+    }
+
+    private Set<List<Object>> query(Timestamp from, Timestamp to, String sql) {
+        return new HashSet<>(queryOrdered(from, to, sql));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object>> queryOrdered(Timestamp from, Timestamp to, String sql) {
+        return QuarkusTransaction.requiringNew().call(() -> {
+            List<Object> rows = em.createNativeQuery(sql)
+                    .setParameter(1, from)
+                    .setParameter(2, to)
+                    .getResultList();
+            return rows.stream()
+                    .map(result -> result instanceof Object[] columns ? row(columns) : row(result))
+                    .toList();
+        });
+    }
+
+    private static Set<List<Object>> rows(Stream<List<Object>> rows) {
+        return rows.collect(Collectors.toSet());
+    }
+
+    /**
+     * One comparable row: numbers as plain decimals and dates as ISO strings, so the JDBC
+     * types of the reference queries and the DTO types compare equal.
+     */
+    private static List<Object> row(Object... columns) {
+        return Arrays.stream(columns)
+                .map(column -> column instanceof Number number
+                        ? new BigDecimal(number.toString()).stripTrailingZeros().toPlainString()
+                        : column == null ? "" : column.toString())
+                .toList();
+    }
+
+    private static void assertDecimal(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> expected + " != " + actual);
+    }
+
+    // ── Seed data ─────────────────────────────────────────────────────────
+
+    private long oliId() {
+        return idOf("SELECT id FROM tb_barang WHERE nama_barang = 'RPT Oli'");
+    }
+
+    private long busiId() {
+        return idOf("SELECT id FROM tb_barang WHERE nama_barang = 'RPT Busi'");
+    }
+
+    private long idOf(String sql) {
+        return QuarkusTransaction.requiringNew().call(() ->
+                ((Number) em.createNativeQuery(sql).getSingleResult()).longValue());
+    }
+
+    private long insert(String sql) {
+        return ((Number) em.createNativeQuery(sql).getSingleResult()).longValue();
+    }
+
+    private void sale(String noSpk, String at, String metode, String grandTotal, long... mekanik) {
+        em.createNativeQuery("INSERT INTO tb_spk (no_spk, mekanik_list, status) VALUES (?1, CAST('[]' AS jsonb), 'SELESAI')")
+                .setParameter(1, noSpk)
+                .executeUpdate();
+        // Nullable columns are written as literals; an untyped null parameter has no SQL type
+        em.createNativeQuery("INSERT INTO tb_penjualan (no_penjualan, tgl_jam_penjualan, no_spk, grand_total, "
+                        + "metode_pembayaran) VALUES (?1, CAST(?2 AS timestamp), ?3, CAST(?4 AS numeric), "
+                        + (metode == null ? "NULL" : "'" + metode + "'") + ")")
+                .setParameter(1, "P" + noSpk)
+                .setParameter(2, at)
+                .setParameter(3, noSpk)
+                .setParameter(4, grandTotal)
+                .executeUpdate();
+        for (long id : mekanik) {
+            em.createNativeQuery("INSERT INTO tb_spk_mekanik (no_spk, id_mekanik, tanggal) "
+                            + "VALUES (?1, ?2, CAST(?3 AS date))")
+                    .setParameter(1, noSpk)
+                    .setParameter(2, id)
+                    .setParameter(3, at.substring(0, 10))
+                    .executeUpdate();
+        }
+    }
+
+    private void detail(String noSpk, String nama, Long sparepart, Long jasa, int jumlah, String harga,
+                        String hargaMaster) {
+        em.createNativeQuery("INSERT INTO tb_spk_detail (no_spk, nama_jasa, id_sparepart, id_jasa, jumlah, harga, "
+                        + "harga_master) VALUES (?1, ?2, " + sparepart + ", " + jasa + ", ?3, CAST(?4 AS numeric), "
+                        + "CAST(?5 AS numeric))")
+                .setParameter(1, noSpk)
+                .setParameter(2, nama)
+                .setParameter(3, jumlah)
+                .setParameter(4, harga)
+                .setParameter(5, hargaMaster)
+                .executeUpdate();
+    }
+
+    private void purchase(String noPembelian, String at, String jenis, String status, String grandTotal) {
+        em.createNativeQuery("INSERT INTO tb_pembelian (no_pembelian, tgl_pembelian, jenis_pembelian, "
+                        + "status_pembayaran, grand_total) VALUES (?1, CAST(?2 AS timestamp), ?3, ?4, CAST(?5 AS numeric))")
+                .setParameter(1, noPembelian)
+                .setParameter(2, at)
+                .setParameter(3, jenis)
+                .setParameter(4, status)
+                .setParameter(5, grandTotal)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPenjualanEntity;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes sales and purchases through the services on a schema built by Flyway, so the
+ * V13/V15/V16 refresh functions exist, and checks after every write that the rekap rows of
+ * the touched days equal the aggregates of the raw rows.
+ */
+@QuarkusTest
+@TestProfile(SummaryRollupServiceTest.FlywayProfile.class)
+class SummaryRollupServiceTest {
+
+    /** The migrated schema instead of the generated one, in a database of its own. */
+    public static class FlywayProfile implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "quarkus.datasource.jdbc.url",
+                    "jdbc:tc:postgresql:15-alpine:///pasa_auto_rollup?TC_INITSCRIPT=init-test.sql",
+                    "quarkus.hibernate-orm.database.generation", "none",
+                    "quarkus.flyway.migrate-at-start", "true",
+                    "app.features.summary-rollup.enabled", "true");
+        }
+    }
+
+    private static final LocalDate DAY = LocalDate.of(2031, 5, 1);
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+
+    @Inject
+    TbPenjualanService penjualanService;
+
+    @Inject
+    TbPembelianService pembelianService;
+
+    @Inject
+    SummaryRollupService rollupService;
+
+    @Inject
+    EntityManager em;
+
+    @Test
+    @DisplayName("Sales rekap rows should follow the raw rows through create, update and cancel")
+    void testPenjualan() {
+        String noSpk = "RLP0501A";
+        QuarkusTransaction.requiringNew().run(() -> {
+            long mekanik = ((Number) em.createNativeQuery(
+                    "INSERT INTO tb_karyawan (nama_karyawan) VALUES ('RLP Andi') RETURNING id")
+                    .getSingleResult()).longValue();
+            long oli = ((Number) em.createNativeQuery("INSERT INTO tb_barang (nama_barang, harga_jual, harga_beli) "
+                    + "VALUES ('RLP Oli', 55000, 40000) RETURNING id").getSingleResult()).longValue();
+            long servis = ((Number) em.createNativeQuery("INSERT INTO tb_jasa (nama_jasa, harga_jasa) "
+                    + "VALUES ('RLP Servis', 90000) RETURNING id").getSingleResult()).longValue();
+            execute("INSERT INTO tb_spk (no_spk, mekanik_list, status) VALUES ('" + noSpk + "', "
+                    + "CAST('[{\"id\": " + mekanik + "}]' AS jsonb), 'OPEN')");
+            execute("INSERT INTO tb_spk_mekanik (no_spk, id_mekanik, tanggal) "
+                    + "VALUES ('" + noSpk + "', " + mekanik + ", DATE '2031-05-01')");
+            execute("INSERT INTO tb_spk_detail (no_spk, nama_jasa, id_sparepart, jumlah, harga, harga_master) "
+                    + "VALUES ('" + noSpk + "', 'Oli', " + oli + ", 2, 50000, 55000)");
+            execute("INSERT INTO tb_spk_detail (no_spk, nama_jasa, id_jasa, jumlah, harga, harga_master) "
+                    + "VALUES ('" + noSpk + "', 'Servis', " + servis + ", 1, 100000, 90000)");
+        });
+
+        TbPenjualanEntity penjualan = new TbPenjualanEntity();
+        penjualan.setNoPenjualan("P" + noSpk);
+        penjualan.setNoSpk(noSpk);
+        penjualan.setTanggalJamPenjualan(at(DAY.atTime(10, 30)));
+        penjualan.setGrandTotal(new BigDecimal("200000"));
+        penjualan.setMetodePembayaran("CASH");
+        penjualanService.createWithNoSpkValidation(penjualan);
+
+        assertRekapMatches(DAY);
+        assertEquals(1, count("SELECT COUNT(*) FROM tb_rekap_harian WHERE tanggal = DATE '2031-05-01'"));
+
+        // A corrected total and quantity, with the sale moved to the next day: both days are
+        // refreshed, the old one by date and the SPK's current one by no_spk, as the services do
+        QuarkusTransaction.requiringNew().run(() -> {
+            execute("UPDATE tb_penjualan SET grand_total = 255000, metode_pembayaran = 'TRANSFER', "
+                    + "tgl_jam_penjualan = TIMESTAMP '2031-05-02 09:00:00' WHERE no_spk = '" + noSpk + "'");
+            execute("UPDATE tb_spk_detail SET jumlah = 3 WHERE no_spk = '" + noSpk + "' AND nama_jasa = 'Oli'");
+            rollupService.refreshPenjualan(DAY);
+            rollupService.refreshPenjualanBySpk(noSpk);
+        });
+
+        assertRekapMatches(DAY);
+        assertRekapMatches(NEXT_DAY);
+        assertEquals(0, count("SELECT COUNT(*) FROM tb_rekap_harian WHERE tanggal = DATE '2031-05-01'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM tb_rekap_harian_metode_bayar "
+                + "WHERE tanggal = DATE '2031-05-02' AND metode_pembayaran = 'TRANSFER'"));
+
+        penjualanService.cancelPenjualanBySpk(noSpk);
+
+        assertRekapMatches(NEXT_DAY);
+        assertEquals(0, count("SELECT COUNT(*) FROM tb_rekap_harian WHERE tanggal = DATE '2031-05-02'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM tb_rekap_harian_barang WHERE tanggal = DATE '2031-05-02'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM tb_rekap_harian_mekanik WHERE tanggal = DATE '2031-05-02'"));
+    }
+
+    @Test
+    @DisplayName("Purchase rekap rows should follow the raw rows through create, update and delete")
+    void testPembelian() {
+        TbPembelianEntity pembelian = new TbPembelianEntity();
+        pembelian.setTanggalPembelian(LocalDateTime.of(2031, 5, 10, 8, 0));
+        pembelian.setJenisPembelian("OPERASIONAL");
+        pembelian.setStatusPembayaran("LUNAS");
+        pembelian.setGrandTotal(new BigDecimal("120000"));
+        Long id = pembelianService.create(pembelian).getId();
+
+        LocalDate day = LocalDate.of(2031, 5, 10);
+        assertRekapMatches(day);
+        assertEquals(1, count("SELECT COUNT(*) FROM tb_rekap_harian_pembelian WHERE tanggal = DATE '2031-05-10'"));
+
+        TbPembelianEntity changed = QuarkusTransaction.requiringNew().call(() -> em.find(TbPembelianEntity.class, id));
+        changed.setTanggalPembelian(LocalDateTime.of(2031, 5, 11, 14, 0));
+        changed.setStatusPembayaran("BELUM_LUNAS");
+        changed.setGrandTotal(new BigDecimal("80000"));
+        pembelianService.update(id, changed);
+
+        assertRekapMatches(day);
+        assertRekapMatches(day.plusDays(1));
+        assertEquals(0, count("SELECT COUNT(*) FROM tb_rekap_harian_pembelian WHERE tanggal = DATE '2031-05-10'"));
+
+        pembelianService.delete(id);
+
+        assertRekapMatches(day.plusDays(1));
+        assertEquals(0, count("SELECT COUNT(*) FROM tb_rekap_harian_pembelian WHERE tanggal = DATE '2031-05-11'"));
+    }
+
+    // ── Rekap rows against the raw rows ──────────────────────────────────
+
+    private void assertRekapMatches(LocalDate day) {
+        String from = "TIMESTAMP '" + day + " 00:00:00'";
+        String to = "TIMESTAMP '" + day.plusDays(1) + " 00:00:00'";
+        String sales = " FROM tb_penjualan p JOIN tb_spk s ON s.no_spk = p.no_spk "
+                + "WHERE p.tgl_jam_penjualan >= " + from + " AND p.tgl_jam_penjualan < " + to;
+        String details = " FROM tb_spk_detail d JOIN tb_penjualan p ON p.no_spk = d.no_spk "
+                + "WHERE p.tgl_jam_penjualan >= " + from + " AND p.tgl_jam_penjualan < " + to;
+        String tanggal = " WHERE tanggal = DATE '" + day + "'";
+
+        assertEquals(rows("SELECT COUNT(DISTINCT s.no_spk), SUM(p.grand_total), "
+                        + "(SELECT COALESCE(SUM(d.jumlah), 0)" + details + " AND d.id_sparepart IS NOT NULL)"
+                        + sales + " HAVING COUNT(*) > 0"),
+                rows("SELECT total_customers, total_income, total_item_terjual FROM tb_rekap_harian" + tanggal),
+                "tb_rekap_harian " + day);
+        assertEquals(rows("SELECT d.id_sparepart, d.nama_jasa, SUM(d.jumlah), SUM(d.harga_master * d.jumlah), "
+                        + "SUM(d.harga * d.jumlah), COALESCE(SUM(b.harga_beli * d.jumlah), 0)"
+                        + details.replace(" WHERE", " LEFT JOIN tb_barang b ON b.id = d.id_sparepart WHERE")
+                        + " AND d.id_sparepart IS NOT NULL GROUP BY d.id_sparepart, d.nama_jasa"),
+                rows("SELECT id_sparepart, nama_barang, total_qty, total_value, total_nilai_adjustment, total_modal "
+                        + "FROM tb_rekap_harian_barang" + tanggal),
+                "tb_rekap_harian_barang " + day);
+        assertEquals(rows("SELECT d.id_jasa, d.nama_jasa, SUM(d.jumlah), SUM(d.harga_master * d.jumlah), "
+                        + "SUM(d.harga * d.jumlah), COALESCE(SUM(j.harga_jasa * d.jumlah), 0)"
+                        + details.replace(" WHERE", " LEFT JOIN tb_jasa j ON j.id = d.id_jasa WHERE")
+                        + " AND d.id_jasa IS NOT NULL GROUP BY d.id_jasa, d.nama_jasa"),
+                rows("SELECT id_jasa, nama_jasa, total_qty, total_nilai, total_nilai_adjustment, total_modal "
+                        + "FROM tb_rekap_harian_jasa" + tanggal),
+                "tb_rekap_harian_jasa " + day);
+        assertEquals(rows("SELECT COALESCE(p.metode_pembayaran, 'LAINNYA'), SUM(p.grand_total)" + sales
+                        + " GROUP BY COALESCE(p.metode_pembayaran, 'LAINNYA')"),
+                rows("SELECT metode_pembayaran, total FROM tb_rekap_harian_metode_bayar" + tanggal),
+                "tb_rekap_harian_metode_bayar " + day);
+        assertEquals(rows("SELECT sm.id_mekanik, COUNT(DISTINCT sm.no_spk)"
+                        + sales.replace(" WHERE", " JOIN tb_spk_mekanik sm ON sm.no_spk = s.no_spk WHERE")
+                        + " GROUP BY sm.id_mekanik"),
+                rows("SELECT id_mekanik, total_customers FROM tb_rekap_harian_mekanik" + tanggal),
+                "tb_rekap_harian_mekanik " + day);
+        assertEquals(rows("SELECT COALESCE(b.status_pembayaran, ''), b.jenis_pembelian, SUM(b.grand_total) "
+                        + "FROM tb_pembelian b WHERE b.tgl_pembelian >= " + from + " AND b.tgl_pembelian < " + to
+                        + " GROUP BY COALESCE(b.status_pembayaran, ''), b.jenis_pembelian"),
+                rows("SELECT status_pembayaran, jenis_pembelian, total FROM tb_rekap_harian_pembelian" + tanggal),
+                "tb_rekap_harian_pembelian " + day);
+    }
+
+    /**
+     * The rows of {@code sql}, with numbers as plain decimals so NUMERIC(18,2) rekap columns
+     * and the raw sums compare equal.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<List<String>> rows(String sql) {
+        return QuarkusTransaction.requiringNew().call(() -> ((List<Object>) em.createNativeQuery(sql).getResultList())
+                .stream()
+                .map(row -> Arrays.stream(row instanceof Object[] columns ? columns : new Object[]{row})
+                        .map(column -> column instanceof Number number
+                                ? new BigDecimal(number.toString()).stripTrailingZeros().toPlainString()
+                                : String.valueOf(column))
+                        .toList())
+                .collect(Collectors.toSet()));
+    }
+
+    private long count(String sql) {
+        return QuarkusTransaction.requiringNew().call(() ->
+                ((Number) em.createNativeQuery(sql).getSingleResult()).longValue());
+    }
+
+    private void execute(String sql) {
+        em.createNativeQuery(sql).executeUpdate();
+    }
+
+    private static Date at(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
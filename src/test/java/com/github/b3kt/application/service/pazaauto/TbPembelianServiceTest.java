@@ -0,0 +1,165 @@
+package com.github.b3kt.application.service.pazaauto;
+
+import com.github.b3kt.application.dto.CountStrategy;
+import com.github.b3kt.application.dto.PageRequest;
+import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.application.service.pazaauto.StockLedgerService.ItemType;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPembelianEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSupplierEntity;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbPembelianRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSupplierRepository;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.panache.common.Parameters;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("TbPembelianService Tests")
+class TbPembelianServiceTest {
+
+    @Mock
+    private TbPembelianRepository repository;
+
+    @Mock
+    private TbPembelianDetailService detailService;
+
+    @Mock
+    private StockLedgerService stockLedger;
+
+    @Mock
+    private SummaryRollupService rollupService;
+
+    @Mock
+    private DocumentNumberService numberService;
+
+    @Mock
+    private TbSupplierRepository supplierRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private TbPembelianService pembelianService;
+
+    private TbPembelianEntity stored;
+
+    @BeforeEach
+    void setUp() {
+        pembelianService = new TbPembelianService(repository, detailService, stockLedger, rollupService, numberService,
+                supplierRepository);
+        pembelianService.stockIntegrationEnabled = true;
+
+        stored = pembelian();
+        when(repository.findByIdOptional(1L)).thenReturn(Optional.of(stored));
+        when(repository.getEntityManager()).thenReturn(entityManager);
+        when(entityManager.merge(any(TbPembelianEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Should apply only the net stock change when a purchase's quantity is edited")
+    void testUpdateQuantity() {
+        TbPembelianDetailEntity edited = detail(11L, 7L, 7);
+        when(detailService.findByPembelianId(1L))
+                .thenReturn(List.of(detail(11L, 7L, 5), detail(12L, 8L, 1)))
+                .thenReturn(List.of(edited, detail(12L, 8L, 1)));
+
+        TbPembelianEntity entity = pembelian();
+        entity.setDetails(List.of(edited));
+        pembelianService.update(1L, entity);
+
+        verify(detailService).update(11L, edited);
+        Map<Long, Integer> movements = applied();
+        assertEquals(2, movements.get(7L));
+        assertEquals(0, movements.getOrDefault(8L, 0));
+    }
+
+    @Test
+    @DisplayName("Should leave stock alone when a purchase is updated without its details")
+    void testUpdateWithoutDetails() {
+        when(detailService.findByPembelianId(1L)).thenReturn(List.of(detail(11L, 7L, 5)));
+
+        pembelianService.update(1L, pembelian());
+
+        assertTrue(applied().values().stream().allMatch(delta -> delta == 0));
+    }
+
+    @Test
+    @DisplayName("Should page pembelian by cursor and fill supplier names in one lookup")
+    @SuppressWarnings("unchecked")
+    void testFindPaginatedKeyset() {
+        TbPembelianEntity first = pembelian();
+        first.setSupplierId(3);
+        TbPembelianEntity second = pembelian();
+        second.setId(2L);
+        PanacheQuery<TbPembelianEntity> page = mock(PanacheQuery.class);
+        when(repository.find(anyString(), any(Sort.class), any(Parameters.class))).thenReturn(page);
+        when(page.range(anyInt(), anyInt())).thenReturn(page);
+        when(page.list()).thenReturn(List.of(first, second));
+        TbSupplierEntity supplier = new TbSupplierEntity();
+        supplier.setId(3);
+        supplier.setNamaSupplier("Sumber Jaya");
+        PanacheQuery<TbSupplierEntity> suppliers = mock(PanacheQuery.class);
+        when(supplierRepository.find(eq("id in ?1"), any(Object[].class))).thenReturn(suppliers);
+        when(suppliers.stream()).thenReturn(Stream.of(supplier));
+
+        PageRequest request = new PageRequest(1, 10);
+        request.setAfter("");
+        request.setJenisPembelianFilter("SPAREPART");
+        PageResponse<TbPembelianEntity> response = pembelianService.findPaginated(request);
+
+        ArgumentCaptor<String> where = ArgumentCaptor.forClass(String.class);
+        verify(repository).find(where.capture(), any(Sort.class), any(Parameters.class));
+        assertEquals("1=1 and jenisPembelian = :jenisPembelian", where.getValue());
+        assertEquals(CountStrategy.HAS_NEXT, response.getCountStrategy());
+        assertEquals("Sumber Jaya", first.getNamaSupplier());
+        assertNull(second.getNamaSupplier());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Integer> applied() {
+        ArgumentCaptor<Map<Long, Integer>> movements = ArgumentCaptor.forClass(Map.class);
+        verify(stockLedger).apply(eq(ItemType.SPAREPART), eq(StockLedgerService.SOURCE_PEMBELIAN),
+                eq("FS2024010101"), movements.capture());
+        return movements.getValue();
+    }
+
+    private static TbPembelianEntity pembelian() {
+        TbPembelianEntity pembelian = new TbPembelianEntity();
+        pembelian.setId(1L);
+        pembelian.setNoPembelian("FS2024010101");
+        pembelian.setJenisPembelian("SPAREPART");
+        pembelian.setTanggalPembelian(LocalDateTime.of(2024, 1, 1, 10, 0));
+        return pembelian;
+    }
+
+    private static TbPembelianDetailEntity detail(Long id, Long sparepartId, int kuantiti) {
+        TbPembelianDetailEntity detail = new TbPembelianDetailEntity();
+        detail.setId(id);
+        detail.setPembelianId(1L);
+        detail.setSparepartId(sparepartId);
+        detail.setKuantiti(kuantiti);
+        detail.setTotal(BigDecimal.valueOf(10000L * kuantiti));
+        return detail;
+    }
+}
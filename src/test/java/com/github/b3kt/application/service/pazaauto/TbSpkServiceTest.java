@@ -2,13 +2,19 @@ package com.github.b3kt.application.service.pazaauto;
 
 import com.github.b3kt.application.dto.PageRequest;
 import com.github.b3kt.application.dto.PageResponse;
+import com.github.b3kt.infrastructure.persistence.PageCounter;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbKaryawanEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbPelangganEntity;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkDetailId;
 import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkMekanikEntity;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbSpkMekanikId;
+import com.github.b3kt.infrastructure.persistence.entity.subentity.SpkMekanik;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbKaryawanRepository;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkDetailRepository;
+import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkMekanikRepository;
 import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbSpkRepository;
-import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbBarangRepository;
-import com.github.b3kt.infrastructure.persistence.repository.pazaauto.TbJasaRepository;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Parameters;
 import jakarta.persistence.EntityManager;
@@ -16,11 +22,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -48,17 +59,37 @@ class TbSpkServiceTest {
     private TbSpkDetailRepository detailRepository;
 
     @Mock
-    private TbBarangRepository barangRepository;
+    private EntityManager entityManager;
 
     @Mock
-    private TbJasaRepository jasaRepository;
+    private SummaryRollupService rollupService;
 
     @Mock
-    private EntityManager entityManager;
+    private TbSpkMekanikRepository spkMekanikRepository;
+
+    @Mock
+    private DocumentNumberService numberService;
+
+    @Mock
+    private PriceCatalogService catalog;
+
+    @Mock
+    private PenjualanPrintService printService;
+
+    @Mock
+    private SpkBoardService board;
+
+    @Mock
+    private StockReservationService reservations;
 
     @Mock
     private PanacheQuery<TbSpkEntity> panacheQuery;
 
+    @Mock
+    private PanacheQuery<TbSpkMekanikEntity> mekanikQuery;
+
+    private final List<TbSpkMekanikEntity> storedMekanik = new ArrayList<>();
+
     private TbSpkService spkService;
 
     private TbSpkEntity testSpkEntity;
@@ -70,16 +101,25 @@ class TbSpkServiceTest {
                 karyawanRepository,
                 pelangganService,
                 detailRepository,
-                barangRepository,
-                jasaRepository,
-                entityManager
+                entityManager,
+                rollupService,
+                spkMekanikRepository,
+                catalog,
+                printService,
+                numberService,
+                board,
+                reservations
         );
+        spkService.pageCounter = new PageCounter();
 
         testSpkEntity = new TbSpkEntity();
         testSpkEntity.setId(1L);
         testSpkEntity.setNoSpk("SPK202401001");
         testSpkEntity.setNopol("B1234XYZ");
         testSpkEntity.setStatusSpk("MENUNGGU");
+        when(numberService.next(DocumentNumberService.DocumentType.SPK)).thenReturn("SPK202401001");
+        when(spkMekanikRepository.find("id.noSpk", "SPK202401001")).thenReturn(mekanikQuery);
+        when(mekanikQuery.list()).thenReturn(storedMekanik);
     }
 
     @Test
@@ -124,6 +164,41 @@ class TbSpkServiceTest {
         verify(repository).find(contains("statusSpk"));
     }
 
+    @Test
+    @DisplayName("Should enrich a page of SPKs with one karyawan and one pelanggan query")
+    void testFindUnprocessedSpkBatchEnrichment() {
+        TbSpkEntity second = new TbSpkEntity();
+        second.setId(2L);
+        second.setNoSpk("SPK202401002");
+        second.setNopol("B5678ABC");
+        testSpkEntity.setMekanikList(List.of(mekanik(7L), mekanik(8L)));
+        second.setMekanikList(List.of(mekanik(8L)));
+
+        when(repository.find(anyString())).thenReturn(panacheQuery);
+        when(panacheQuery.list()).thenReturn(Arrays.asList(testSpkEntity, second));
+
+        PanacheQuery<TbKaryawanEntity> karyawanQuery = mock(PanacheQuery.class);
+        when(karyawanRepository.find(eq("id in :ids"), any(Parameters.class))).thenReturn(karyawanQuery);
+        when(karyawanQuery.stream()).thenReturn(java.util.stream.Stream.of(karyawan(8L, "Budi"), karyawan(7L, "Andi")));
+
+        TbPelangganEntity pelanggan = new TbPelangganEntity();
+        pelanggan.setId(5L);
+        pelanggan.setNopol("B1234XYZ");
+        pelanggan.setNamaPelanggan("Citra");
+        when(pelangganService.findByNopols(anyCollection())).thenReturn(java.util.Map.of("B1234XYZ", pelanggan));
+
+        List<TbSpkEntity> result = spkService.findUnprocessedSpk();
+
+        assertEquals("Andi, Budi", result.get(0).getNamaKaryawan());
+        assertEquals("Budi", result.get(1).getNamaKaryawan());
+        assertEquals("Citra", result.get(0).getNamaPelanggan());
+        assertEquals(5L, result.get(0).getPelangganId());
+        assertNull(result.get(1).getPelangganId());
+        verify(karyawanRepository, times(1)).find(eq("id in :ids"), any(Parameters.class));
+        verify(pelangganService, times(1)).findByNopols(anyCollection());
+        verify(pelangganService, never()).findByNopol(anyString());
+    }
+
     @Test
     @DisplayName("Should find SPK by noSpk number")
     void testFindByNoSpk() {
@@ -149,27 +224,26 @@ class TbSpkServiceTest {
     }
 
     @Test
-    @DisplayName("Should get next SPK number")
-    void testGetNextSpkNumber() {
-        lenient().when(repository.find(anyString(), any(Parameters.class))).thenReturn(panacheQuery);
-        lenient().when(panacheQuery.list()).thenReturn(Arrays.asList(testSpkEntity));
+    @DisplayName("Should preview the next SPK number without taking it")
+    void testPreviewSpkNumber() {
+        when(numberService.preview(DocumentNumberService.DocumentType.SPK)).thenReturn("2024010107");
 
-        String result = spkService.getNextSpkNumber("SPK202401");
-
-        assertNotNull(result);
-        assertTrue(result.startsWith("SPK202401"));
+        assertEquals("2024010107", spkService.previewSpkNumber());
+        verify(numberService, never()).next(any());
+        verify(repository, never()).find(anyString(), any(Parameters.class));
     }
 
     @Test
-    @DisplayName("Should return default number when no existing SPK found")
-    void testGetNextSpkNumberNoExisting() {
-        lenient().when(repository.find(anyString(), any(Parameters.class))).thenReturn(panacheQuery);
-        lenient().when(panacheQuery.list()).thenReturn(Collections.emptyList());
+    @DisplayName("Should take the SPK number on create in place of the previewed one")
+    void testCreateTakesNumber() {
+        when(numberService.next(DocumentNumberService.DocumentType.SPK)).thenReturn("2024010108");
+        testSpkEntity.setNoSpk("2024010107");
 
-        String result = spkService.getNextSpkNumber("SPK202401");
+        spkService.create(testSpkEntity);
 
-        assertNotNull(result);
-        assertEquals("SPK20240100", result);
+        assertEquals("2024010108", testSpkEntity.getNoSpk());
+        assertEquals(8, testSpkEntity.getNoAntrian());
+        verify(numberService, never()).preview(any());
     }
 
     @Test
@@ -222,6 +296,19 @@ class TbSpkServiceTest {
 
         assertNotNull(result);
         assertEquals(0, result.getRowsNumber());
+        verify(repository).find(eq("1=1 and spkAt >= ?1 and spkAt < ?2"),
+                eq(LocalDateTime.of(2024, 1, 1, 0, 0)), eq(LocalDateTime.of(2024, 2, 1, 0, 0)));
+    }
+
+    @Test
+    @DisplayName("Should parse the tgl_jam_spk formats into spkAt")
+    void testParseTanggalJamSpk() {
+        assertEquals(LocalDateTime.of(2024, 1, 15, 9, 30), TbSpkEntity.parseTanggalJamSpk("2024-01-15 09:30"));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 9, 30, 5), TbSpkEntity.parseTanggalJamSpk("2024-01-15T09:30:05"));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 0, 0), TbSpkEntity.parseTanggalJamSpk("2024-01-15"));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 0, 0), TbSpkEntity.parseTanggalJamSpk("2024-01-15 pagi"));
+        assertNull(TbSpkEntity.parseTanggalJamSpk("15/01/2024"));
+        assertNull(TbSpkEntity.parseTanggalJamSpk(null));
     }
 
     @Test
@@ -241,4 +328,166 @@ class TbSpkServiceTest {
         assertEquals(0, result.getRowsNumber());
         assertTrue(result.getRows().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should write one tb_spk_mekanik row per assigned mechanic on create")
+    void testCreateSyncsMekanik() {
+        SpkMekanik utama = new SpkMekanik();
+        utama.setId(5L);
+        utama.setTugas("Utama");
+        SpkMekanik duplicate = new SpkMekanik();
+        duplicate.setId(5L);
+        SpkMekanik helper = new SpkMekanik();
+        helper.setId(6L);
+        helper.setTugas("x".repeat(120));
+        testSpkEntity.setMekanikList(Arrays.asList(utama, duplicate, helper, new SpkMekanik()));
+        testSpkEntity.setTanggalJamSpk("2024-01-15T09:30");
+        testSpkEntity.setNoAntrian(1);
+
+        spkService.create(testSpkEntity);
+
+        ArgumentCaptor<TbSpkMekanikEntity> rows = ArgumentCaptor.forClass(TbSpkMekanikEntity.class);
+        verify(spkMekanikRepository, times(2)).persist(rows.capture());
+        verify(spkMekanikRepository, never()).delete(any(TbSpkMekanikEntity.class));
+        verify(spkMekanikRepository, never()).delete(eq("id.noSpk"), any(Object[].class));
+        assertEquals(List.of(5L, 6L), rows.getAllValues().stream().map(r -> r.getId().getMekanikId()).toList());
+        assertEquals(LocalDate.of(2024, 1, 15), rows.getAllValues().get(0).getTanggal());
+        assertEquals("Utama", rows.getAllValues().get(0).getTugas());
+        // tugas is varchar(100)
+        assertEquals("x".repeat(100), rows.getAllValues().get(1).getTugas());
+    }
+
+    @Test
+    @DisplayName("Should write only the tb_spk_mekanik rows that changed on update")
+    @SuppressWarnings("unchecked")
+    void testUpdateSyncsMekanikDiff() {
+        when(repository.findByIdOptional(1L)).thenReturn(java.util.Optional.of(testSpkEntity));
+        when(repository.getEntityManager()).thenReturn(entityManager);
+        when(entityManager.merge(any(TbSpkEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        PanacheQuery<TbSpkDetailEntity> detailQuery = mock(PanacheQuery.class);
+        when(detailRepository.find("id.noSpk", "SPK202401001")).thenReturn(detailQuery);
+        when(detailQuery.list()).thenReturn(List.of());
+
+        LocalDate tanggal = LocalDate.of(2024, 1, 15);
+        TbSpkMekanikEntity kept = mekanikRow(5L, "Utama", tanggal);
+        TbSpkMekanikEntity retasked = mekanikRow(6L, "Bantu", tanggal);
+        TbSpkMekanikEntity removed = mekanikRow(9L, null, tanggal);
+        storedMekanik.addAll(List.of(kept, retasked, removed));
+
+        SpkMekanik utama = mekanik(5L);
+        utama.setTugas("Utama");
+        SpkMekanik helper = mekanik(6L);
+        helper.setTugas("Kelistrikan");
+        testSpkEntity.setMekanikList(List.of(utama, helper, mekanik(7L)));
+        testSpkEntity.setTanggalJamSpk("2024-01-15T09:30");
+
+        spkService.update(1L, testSpkEntity);
+
+        ArgumentCaptor<TbSpkMekanikEntity> added = ArgumentCaptor.forClass(TbSpkMekanikEntity.class);
+        verify(spkMekanikRepository).persist(added.capture());
+        assertEquals(7L, added.getValue().getId().getMekanikId());
+        verify(spkMekanikRepository).delete(removed);
+        verify(spkMekanikRepository, times(1)).delete(any(TbSpkMekanikEntity.class));
+        verify(spkMekanikRepository, never()).delete(eq("id.noSpk"), any(Object[].class));
+        assertEquals("Utama", kept.getTugas());
+        assertEquals("Kelistrikan", retasked.getTugas());
+    }
+
+    @Test
+    @DisplayName("Should fill missing master prices from the catalog")
+    void testCreatePricesDetailsFromCatalog() {
+        when(catalog.hargaJual(PriceCatalogService.Type.JASA, 1L)).thenReturn(new BigDecimal("50000"));
+        when(catalog.hargaJual(PriceCatalogService.Type.BARANG, 10L)).thenReturn(new BigDecimal("20000"));
+        TbSpkDetailEntity servis = detail("Servis", "0", 1);
+        servis.setHarga(null);
+        servis.setHargaMaster(null);
+        TbSpkDetailEntity busi = detail("Busi", "25000", 2);
+        busi.setHargaMaster(null);
+        busi.setJasaId(null);
+        busi.setSparepartId(10L);
+        testSpkEntity.setDetails(List.of(servis, busi));
+        testSpkEntity.setNoAntrian(1);
+
+        spkService.create(testSpkEntity);
+
+        assertEquals(new BigDecimal("50000"), servis.getHargaMaster());
+        assertEquals(new BigDecimal("50000"), servis.getHarga());
+        assertEquals(new BigDecimal("20000"), busi.getHargaMaster());
+        // A custom price is kept
+        assertEquals(new BigDecimal("25000"), busi.getHarga());
+        verify(detailRepository, times(2)).persist(any(TbSpkDetailEntity.class));
+        verify(board).changed(testSpkEntity);
+    }
+
+    @Test
+    @DisplayName("Should write only the SPK detail lines that changed on update")
+    @SuppressWarnings("unchecked")
+    void testUpdateSyncsDetailDiff() {
+        when(repository.findByIdOptional(1L)).thenReturn(java.util.Optional.of(testSpkEntity));
+        when(repository.getEntityManager()).thenReturn(entityManager);
+        when(entityManager.merge(any(TbSpkEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        TbSpkDetailEntity unchanged = detail("Ganti Oli", "50000", 1);
+        TbSpkDetailEntity edited = detail("Servis", "100000", 1);
+        TbSpkDetailEntity removed = detail("Tune Up", "75000", 1);
+        PanacheQuery<TbSpkDetailEntity> detailQuery = mock(PanacheQuery.class);
+        when(detailRepository.find("id.noSpk", "SPK202401001")).thenReturn(detailQuery);
+        when(detailQuery.list()).thenReturn(List.of(unchanged, edited, removed));
+
+        TbSpkDetailEntity added = detail("Busi", "20000", 4);
+        testSpkEntity.setDetails(List.of(detail("Ganti Oli", "50000.00", 1), detail("Servis", "100000", 2), added));
+
+        spkService.update(1L, testSpkEntity);
+
+        verify(detailRepository).persist(added);
+        verify(detailRepository, times(1)).persist(any(TbSpkDetailEntity.class));
+        verify(detailRepository).delete(removed);
+        verify(detailRepository, times(1)).delete(any(TbSpkDetailEntity.class));
+        verify(detailRepository, never()).delete(eq("id.noSpk"), any(Object[].class));
+        assertEquals(2, edited.getJumlah());
+        assertEquals(1, unchanged.getJumlah());
+        // Only the invoice of this SPK's sale is evicted
+        verify(printService).invalidateBySpk("SPK202401001");
+    }
+
+    @Test
+    @DisplayName("Should report a detail line as unchanged when only the price scale differs")
+    void testCopyChanges() {
+        TbSpkDetailEntity stored = detail("Servis", "100000", 1);
+
+        assertFalse(TbSpkService.copyChanges(detail("Servis", "100000.00", 1), stored));
+        assertTrue(TbSpkService.copyChanges(detail("Servis", "100000", 3), stored));
+        assertEquals(3, stored.getJumlah());
+    }
+
+    private static TbSpkDetailEntity detail(String nama, String harga, int jumlah) {
+        TbSpkDetailEntity detail = new TbSpkDetailEntity();
+        detail.setId(new TbSpkDetailId("SPK202401001", nama));
+        detail.setHarga(new BigDecimal(harga));
+        detail.setHargaMaster(new BigDecimal(harga));
+        detail.setJumlah(jumlah);
+        detail.setJasaId(1L);
+        return detail;
+    }
+
+    private static TbSpkMekanikEntity mekanikRow(Long id, String tugas, LocalDate tanggal) {
+        TbSpkMekanikEntity row = new TbSpkMekanikEntity();
+        row.setId(new TbSpkMekanikId("SPK202401001", id));
+        row.setTugas(tugas);
+        row.setTanggal(tanggal);
+        return row;
+    }
+
+    private static SpkMekanik mekanik(Long id) {
+        SpkMekanik mekanik = new SpkMekanik();
+        mekanik.setId(id);
+        return mekanik;
+    }
+
+    private static TbKaryawanEntity karyawan(Long id, String nama) {
+        TbKaryawanEntity karyawan = new TbKaryawanEntity();
+        karyawan.setId(id);
+        karyawan.setNamaKaryawan(nama);
+        return karyawan;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.b3kt.infrastructure.persistence;
+
+import com.github.b3kt.application.dto.SyncResponse;
+import com.github.b3kt.application.service.pazaauto.TbJasaService;
+import com.github.b3kt.infrastructure.persistence.entity.pazaauto.TbJasaEntity;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Syncs tb_jasa against PostgreSQL; the test profile sets {@code app.sync.settle} to zero.
+ */
+@QuarkusTest
+class ChangeFeedTest {
+
+    @Inject
+    ChangeFeed changeFeed;
+
+    @Inject
+    TbJasaService jasaService;
+
+    @Test
+    @DisplayName("Should send only the rows changed and deleted since the watermark")
+    void testDeltaSinceWatermark() {
+        TbJasaEntity kept = jasaService.create(jasa("Spooring"));
+        TbJasaEntity changed = jasaService.create(jasa("Balancing"));
+        TbJasaEntity removed = jasaService.create(jasa("Tune up"));
+
+        SyncResponse<TbJasaEntity> full = changeFeed.changes(TbJasaEntity.class, null);
+        assertTrue(full.full());
+        assertTrue(ids(full).containsAll(List.of(kept.getId(), changed.getId(), removed.getId())));
+        assertTrue(full.deleted().isEmpty());
+
+        TbJasaEntity update = jasaService.findById(changed.getId());
+        update.setHargaJasa(75000);
+        jasaService.update(changed.getId(), update);
+        jasaService.delete(removed.getId());
+
+        SyncResponse<TbJasaEntity> delta = changeFeed.changes(TbJasaEntity.class, full.watermark());
+        assertFalse(delta.full());
+        assertEquals(List.of(changed.getId()), ids(delta));
+        assertEquals(75000, delta.rows().get(0).getHargaJasa());
+        assertEquals(List.of(removed.getId()), delta.deleted());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed watermark")
+    void testInvalidWatermark() {
+        assertThrows(IllegalArgumentException.class, () -> changeFeed.changes(TbJasaEntity.class, "not-a-watermark"));
+    }
+
+    private static List<Long> ids(SyncResponse<TbJasaEntity> response) {
+        return response.rows().stream().map(TbJasaEntity::getId).toList();
+    }
+
+    private static TbJasaEntity jasa(String nama) {
+        TbJasaEntity jasa = new TbJasaEntity();
+        jasa.setNamaJasa(nama);
+        jasa.setHargaJasa(50000);
+        return jasa;
+    }
+}
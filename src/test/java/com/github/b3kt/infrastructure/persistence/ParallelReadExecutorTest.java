@@ -0,0 +1,119 @@
+package com.github.b3kt.infrastructure.persistence;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.b3kt.infrastructure.persistence.ParallelReadExecutor.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fans queries out through {@link ParallelReadExecutor} against PostgreSQL.
+ */
+@QuarkusTest
+class ParallelReadExecutorTest {
+
+    @Inject
+    ParallelReadExecutor reads;
+
+    @Inject
+    EntityManager em;
+
+    @ConfigProperty(name = "app.summary.parallel.max-concurrency")
+    int maxConcurrency;
+
+    @AfterEach
+    void cleanUp() {
+        QuarkusTransaction.requiringNew().run(() ->
+                em.createNativeQuery("DELETE FROM tb_karyawan WHERE nama_karyawan LIKE 'PRX %'").executeUpdate());
+    }
+
+    @Test
+    @DisplayName("Should never run more queries at once than the configured concurrency")
+    void testConcurrencyCap() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < maxConcurrency * 3; i++) {
+            futures.add(reads.submit(true, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    return ((Number) em.createNativeQuery("SELECT 1 FROM pg_sleep(0.05)").getSingleResult()).intValue();
+                } finally {
+                    running.decrementAndGet();
+                }
+            }));
+        }
+        futures.forEach(ParallelReadExecutor::await);
+
+        assertTrue(peak.get() <= maxConcurrency, "peak " + peak.get());
+        assertTrue(peak.get() > 1, "the queries did not overlap");
+    }
+
+    @Test
+    @DisplayName("Should run each query in a read-only transaction of its own")
+    void testReadOnlyTransactionPerQuery() {
+        List<Object[]> sessions = allAtOnce("SELECT pg_backend_pid(), current_setting('transaction_read_only')");
+
+        assertEquals(maxConcurrency, new HashSet<>(sessions.stream().map(row -> row[0]).toList()).size());
+        sessions.forEach(row -> assertEquals("on", row[1]));
+
+        CompletableFuture<Integer> write = reads.submit(true, () -> em.createNativeQuery(
+                "INSERT INTO tb_karyawan (nama_karyawan) VALUES ('PRX Andi')").executeUpdate());
+        assertThrows(RuntimeException.class, () -> await(write));
+        assertEquals(0, QuarkusTransaction.requiringNew().call(() -> ((Number) em.createNativeQuery(
+                "SELECT COUNT(*) FROM tb_karyawan WHERE nama_karyawan = 'PRX Andi'").getSingleResult()).intValue()));
+    }
+
+    @Test
+    @DisplayName("Should hand a failed query's exception to the caller and free its permit")
+    void testFailureReachesCaller() {
+        List<CompletableFuture<Object>> failures = new ArrayList<>();
+        for (int i = 0; i < maxConcurrency; i++) {
+            failures.add(reads.submit(true, () -> {
+                throw new IllegalStateException("rekap missing");
+            }));
+        }
+        for (CompletableFuture<Object> failure : failures) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> await(failure));
+            assertEquals("rekap missing", e.getMessage());
+        }
+
+        // Every permit came back, or these could not all run at once
+        assertEquals(maxConcurrency, allAtOnce("SELECT 1, 2").size());
+    }
+
+    /**
+     * Runs {@code sql} in as many queries as there are permits, each holding its transaction
+     * until all of them have started.
+     */
+    private List<Object[]> allAtOnce(String sql) {
+        CyclicBarrier together = new CyclicBarrier(maxConcurrency);
+        List<CompletableFuture<Object[]>> futures = new ArrayList<>();
+        for (int i = 0; i < maxConcurrency; i++) {
+            futures.add(reads.submit(true, () -> {
+                try {
+                    together.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException("the queries did not run at once", e);
+                }
+                return (Object[]) em.createNativeQuery(sql).getSingleResult();
+            }));
+        }
+        return futures.stream().map(ParallelReadExecutor::await).toList();
+    }
+}